@@ -28,7 +28,7 @@ import io.crate.data.BatchIterators;
 import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Row;
-import io.crate.data.Row1;
+import io.crate.data.RowN;
 import io.crate.execution.engine.aggregation.impl.AggregationImplModule;
 import io.crate.execution.engine.aggregation.impl.SumAggregation;
 import io.crate.execution.engine.collect.CollectExpression;
@@ -66,9 +66,9 @@ public class GroupingLongCollectorBenchmark {
         new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
 
     private GroupingCollector groupBySumCollector;
+    private GroupingCollector groupByTwoKeysSumCollector;
     private BatchIterator<Row> rowsIterator;
     private List<Row> rows;
-    private GroupBySingleNumberCollector groupBySumSingleLongCollector;
 
     @Setup
     public void createGroupingCollector() {
@@ -77,26 +77,28 @@ public class GroupingLongCollectorBenchmark {
         AggregationFunction sumAgg =
             (AggregationFunction) functions.getBuiltin(SumAggregation.NAME, Arrays.asList(DataTypes.INTEGER));
         groupBySumCollector = createGroupBySumCollector(sumAgg);
-        groupBySumSingleLongCollector = createOptimizedCollector(sumAgg);
+        groupByTwoKeysSumCollector = createGroupByTwoKeysSumCollector(sumAgg);
 
         rows = new ArrayList<>(20_000_000);
         for (int i = 0; i < 20_000_000; i++) {
-            rows.add(new Row1((long) i % 200));
+            rows.add(new RowN(new Object[] { (long) i % 200, (long) i % 7 }));
         }
     }
 
-    private GroupBySingleNumberCollector createOptimizedCollector(AggregationFunction sumAgg) {
-        InputCollectExpression keyInput = new InputCollectExpression(0);
-        return new GroupBySingleNumberCollector(
-            DataTypes.LONG,
-            new CollectExpression[] { keyInput },
+    private static GroupingCollector createGroupByTwoKeysSumCollector(AggregationFunction sumAgg) {
+        InputCollectExpression firstKey = new InputCollectExpression(0);
+        InputCollectExpression secondKey = new InputCollectExpression(1);
+        return GroupingCollector.manyKeys(
+            new CollectExpression[] { firstKey, secondKey },
             AggregateMode.ITER_FINAL,
             new AggregationFunction[] { sumAgg },
-            new Input[][] { new Input[] { keyInput }},
+            new Input[][] { new Input[] { firstKey }},
             RAM_ACCOUNTING_CONTEXT,
-            keyInput,
+            Arrays.<Input<?>>asList(firstKey, secondKey),
+            Arrays.asList(DataTypes.LONG, DataTypes.LONG),
             Version.CURRENT,
-            BigArrays.NON_RECYCLING_INSTANCE
+            BigArrays.NON_RECYCLING_INSTANCE,
+            null
         );
     }
 
@@ -125,8 +127,8 @@ public class GroupingLongCollectorBenchmark {
     }
 
     @Benchmark
-    public void measureGroupBySumLongOptimized(Blackhole blackhole) throws Exception {
+    public void measureGroupByTwoKeysSumLong(Blackhole blackhole) throws Exception {
         rowsIterator = InMemoryBatchIterator.of(rows, SENTINEL);
-        blackhole.consume(BatchIterators.collect(rowsIterator, groupBySumSingleLongCollector).get());
+        blackhole.consume(BatchIterators.collect(rowsIterator, groupByTwoKeysSumCollector).get());
     }
 }
@@ -59,7 +59,28 @@ public class BatchIterators {
                                                          A state,
                                                          Collector<T, A, R> collector,
                                                          CompletableFuture<R> resultFuture) {
-        BiConsumer<A, T> accumulator = collector.accumulator();
+        return collect(it, state, collector.accumulator(), collector.finisher(), resultFuture);
+    }
+
+    /**
+     * Use {@code accumulator} to add all elements from {@code it} to {@code state}, and {@code finisher} to create the
+     * result once all elements have been consumed.
+     *
+     * Unlike a {@link Collector} this doesn't require a combiner: the elements are always accumulated sequentially
+     * into the single {@code state}.
+     *
+     * This does *not* automatically close the BatchIterator when the end is reached.
+     *
+     * @param <T> element type
+     * @param <A> state type
+     * @param <R> result type
+     * @return future containing the result, this is the future that has been provided as argument.
+     */
+    public static <T, A, R> CompletableFuture<R> collect(BatchIterator<T> it,
+                                                         A state,
+                                                         BiConsumer<? super A, ? super T> accumulator,
+                                                         Function<? super A, ? extends R> finisher,
+                                                         CompletableFuture<R> resultFuture) {
         boolean allLoaded;
         try {
             while (it.moveNext()) {
@@ -72,11 +93,11 @@ public class BatchIterators {
         }
 
         if (allLoaded) {
-            resultFuture.complete(collector.finisher().apply(state));
+            resultFuture.complete(finisher.apply(state));
         } else {
             it.loadNextBatch().whenComplete((r, t) -> {
                 if (t == null) {
-                    collect(it, state, collector, resultFuture);
+                    collect(it, state, accumulator, finisher, resultFuture);
                 } else {
                     resultFuture.completeExceptionally(t);
                 }
@@ -48,6 +48,19 @@ public class BatchIteratorsTest {
         assertThat(future.isCompletedExceptionally(), is(true));
     }
 
+    @Test
+    public void testCollectIntoStateWithBatchedSource() throws Exception {
+        BatchIterator<Integer> batchIterator = new BatchSimulatingIterator<>(
+            InMemoryBatchIterator.of(() -> IntStream.range(0, 5).iterator(), null),
+            2,
+            3,
+            null
+        );
+        CompletableFuture<Integer> future = BatchIterators.collect(
+            batchIterator, new ArrayList<Integer>(), List::add, List::size, new CompletableFuture<>());
+        assertThat(future.get(10, TimeUnit.SECONDS), is(5));
+    }
+
 
     @Test
     public void testBatchBySize() throws Exception {
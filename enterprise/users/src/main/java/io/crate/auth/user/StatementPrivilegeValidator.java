@@ -25,6 +25,7 @@ import io.crate.analyze.AlterTableAnalyzedStatement;
 import io.crate.analyze.AlterTableOpenCloseAnalyzedStatement;
 import io.crate.analyze.AlterTableRenameAnalyzedStatement;
 import io.crate.analyze.AlterUserAnalyzedStatement;
+import io.crate.analyze.AnalyzedAnalyze;
 import io.crate.analyze.AnalyzedBegin;
 import io.crate.analyze.AnalyzedCommit;
 import io.crate.analyze.AnalyzedDeleteStatement;
@@ -493,6 +494,17 @@ class StatementPrivilegeValidator implements StatementAuthorizedValidator {
             return null;
         }
 
+        @Override
+        public Void visitAnalyze(AnalyzedAnalyze analyzedAnalyze, User user) {
+            Privileges.ensureUserHasPrivilege(
+                Privilege.Type.DDL,
+                Privilege.Clazz.CLUSTER,
+                null,
+                user,
+                defaultSchema);
+            return null;
+        }
+
         @Override
         public Void visitCreateViewStmt(CreateViewStmt createViewStmt, User user) {
             Privileges.ensureUserHasPrivilege(
@@ -285,6 +285,12 @@ public class StatementPrivilegeValidatorTest extends CrateDummyClusterServiceUni
         assertAskedForCluster(Privilege.Type.DDL);
     }
 
+    @Test
+    public void testAnalyze() throws Exception {
+        analyze("analyze");
+        assertAskedForCluster(Privilege.Type.DDL);
+    }
+
     @Test
     public void testDelete() throws Exception {
         analyze("delete from users");
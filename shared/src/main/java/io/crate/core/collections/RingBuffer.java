@@ -0,0 +1,142 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core.collections;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded queue which overwrites its oldest element once it is full.
+ * <p>
+ * Unlike {@link BlockingEvictingQueue} no lock is involved: {@link #offer(Object)} claims a slot by incrementing
+ * a sequence and writes the element into it. Iterators are weakly consistent, they iterate from the oldest to the
+ * newest element and may or may not reflect concurrent writes.
+ */
+public final class RingBuffer<E> extends AbstractQueue<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity;
+    private final AtomicLong sequence = new AtomicLong(0L);
+
+    public RingBuffer(int capacity) {
+        assert capacity > 0 : "capacity should be > 0";
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    private long firstSequence(long end) {
+        return Math.max(0L, end - capacity);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e, "element must not be null");
+        slots.set(slot(sequence.getAndIncrement()), e);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        long end = sequence.get();
+        for (long seq = firstSequence(end); seq < end; seq++) {
+            int slot = slot(seq);
+            E e = slots.get(slot);
+            if (e != null && slots.compareAndSet(slot, e, null)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E peek() {
+        long end = sequence.get();
+        for (long seq = firstSequence(end); seq < end; seq++) {
+            E e = slots.get(slot(seq));
+            if (e != null) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (E ignored : this) {
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < capacity; i++) {
+            slots.set(i, null);
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        long end = sequence.get();
+        return new Iterator<E>() {
+
+            long seq = firstSequence(end);
+            E next = advance();
+
+            private E advance() {
+                while (seq < end) {
+                    E e = slots.get(slot(seq));
+                    seq++;
+                    if (e != null) {
+                        return e;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (next == null) {
+                    throw new NoSuchElementException("RingBuffer iterator is exhausted");
+                }
+                E e = next;
+                next = advance();
+                return e;
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+
+package io.crate.core.collections;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RingBufferTest {
+
+    @Test
+    public void testOldestElementsAreOverwritten() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        assertThat(buffer, contains(2, 3, 4));
+        assertThat(buffer.size(), is(3));
+        assertThat(buffer.peek(), is(2));
+    }
+
+    @Test
+    public void testPollAndClear() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+        buffer.offer(1);
+        buffer.offer(2);
+        assertThat(buffer.poll(), is(1));
+        assertThat(buffer, contains(2));
+
+        buffer.clear();
+        assertThat(buffer.isEmpty(), is(true));
+        assertThat(buffer.poll(), nullValue());
+
+        buffer.offer(3);
+        assertThat(buffer, contains(3));
+    }
+
+    @Test
+    public void testConcurrentOffer() throws Exception {
+        final RingBuffer<String> strings = new RingBuffer<>(15_000);
+
+        int THREADS = 20;
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        List<Thread> threads = new ArrayList<>(20);
+        for (int i = 0; i < THREADS; i++) {
+            Thread t = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    strings.add("foo");
+                }
+                latch.countDown();
+            });
+            t.start();
+            threads.add(t);
+        }
+
+        latch.await();
+        assertThat(strings.size(), is(15_000));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
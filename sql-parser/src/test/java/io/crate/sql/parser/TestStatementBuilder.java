@@ -101,6 +101,11 @@ public class TestStatementBuilder {
         printStatement("COMMIT");
     }
 
+    @Test
+    public void testAnalyze() {
+        printStatement("ANALYZE");
+    }
+
     @Test
     public void testNullNotAllowedAsArgToExtractField() {
         expectedException.expect(ParsingException.class);
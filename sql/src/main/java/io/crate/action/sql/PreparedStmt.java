@@ -35,6 +35,7 @@ class PreparedStmt {
 
     private final Statement statement;
     private final String query;
+    private final List<DataType> paramTypeList;
     private final ParamTypeHints paramTypes;
     @Nullable
     private DataType[] describedParameterTypes;
@@ -46,6 +47,7 @@ class PreparedStmt {
     PreparedStmt(Statement statement, String query, List<DataType> paramTypes) {
         this.statement = statement;
         this.query = query;
+        this.paramTypeList = paramTypes;
         this.paramTypes = new ParamTypeHints(paramTypes);
     }
 
@@ -65,6 +67,10 @@ class PreparedStmt {
         return paramTypes;
     }
 
+    List<DataType> paramTypeList() {
+        return paramTypeList;
+    }
+
     /**
      * Gets the list of effective parameter types which might be a combination
      * of the {@link ParamTypeHints} and the types determined during ParameterDescription.
@@ -58,6 +58,7 @@ public class SQLOperations {
     private final ClusterService clusterService;
     private final UserManager userManager;
     private final boolean isReadOnly;
+    private final StatementCache statementCache;
     private volatile boolean disabled;
 
     @Inject
@@ -75,6 +76,9 @@ public class SQLOperations {
         this.clusterService = clusterService;
         this.userManager = userManagerProvider.get();
         this.isReadOnly = NODE_READ_ONLY_SETTING.get(settings);
+        this.statementCache = new StatementCache(
+            StatementCache.NODE_STATEMENT_CACHE_SIZE_SETTING.get(settings),
+            () -> clusterService.state().metaData().version());
     }
 
     private Session createSession(SessionContext sessionContext) {
@@ -87,7 +91,8 @@ public class SQLOperations {
             jobsLogs,
             isReadOnly,
             executorProvider.get(),
-            sessionContext);
+            sessionContext,
+            statementCache);
     }
 
     public Session newSystemSession() {
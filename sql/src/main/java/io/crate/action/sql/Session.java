@@ -65,6 +65,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -105,6 +106,8 @@ import java.util.function.Function;
 public class Session implements AutoCloseable {
 
     // Logger name should be SQLOperations here
+    static final int MAX_OWNED_ANALYSES = 64;
+
     private static final Logger LOGGER = Loggers.getLogger(SQLOperations.class);
 
     // Parser can't handle empty statement but postgres requires support for it.
@@ -127,6 +130,20 @@ public class Session implements AutoCloseable {
     private final JobsLogs jobsLogs;
     private final boolean isReadOnly;
     private final ParameterTypeExtractor parameterTypeExtractor;
+    private final StatementCache statementCache;
+
+    /**
+     * Analyses which have been taken from the {@link StatementCache}. They are owned by this session and returned to
+     * the cache once the session is closed.
+     */
+    private final Map<StatementCache.AnalysisKey, StatementCache.Analysis> ownedAnalyses =
+        new LinkedHashMap<StatementCache.AnalysisKey, StatementCache.Analysis>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementCache.AnalysisKey, StatementCache.Analysis> eldest) {
+                return size() > MAX_OWNED_ANALYSES;
+            }
+        };
 
     public Session(Analyzer analyzer,
                    Planner planner,
@@ -134,6 +151,17 @@ public class Session implements AutoCloseable {
                    boolean isReadOnly,
                    DependencyCarrier executor,
                    SessionContext sessionContext) {
+        this(analyzer, planner, jobsLogs, isReadOnly, executor, sessionContext, new StatementCache(0));
+    }
+
+    public Session(Analyzer analyzer,
+                   Planner planner,
+                   JobsLogs jobsLogs,
+                   boolean isReadOnly,
+                   DependencyCarrier executor,
+                   SessionContext sessionContext,
+                   StatementCache statementCache) {
+        this.statementCache = statementCache;
         this.analyzer = analyzer;
         this.planner = planner;
         this.jobsLogs = jobsLogs;
@@ -147,7 +175,7 @@ public class Session implements AutoCloseable {
      * See {@link #quickExec(String, Function, ResultReceiver, Row)}
      */
     public void quickExec(String statement, ResultReceiver resultReceiver, Row params) {
-        quickExec(statement, SqlParser::createStatement, resultReceiver, params);
+        quickExec(statement, statementCache::parse, resultReceiver, params);
     }
 
     /**
@@ -265,7 +293,7 @@ public class Session implements AutoCloseable {
 
         Statement statement;
         try {
-            statement = SqlParser.createStatement(query);
+            statement = statementCache.parse(query);
         } catch (Throwable t) {
             if ("".equals(query)) {
                 statement = EMPTY_STMT;
@@ -288,6 +316,12 @@ public class Session implements AutoCloseable {
         Portal portal = getOrCreatePortal(portalName);
         try {
             PreparedStmt preparedStmt = getSafeStmt(statementName);
+            if (preparedStmt.isRelationInitialized() == false) {
+                StatementCache.Analysis analysis = getCachedAnalysis(preparedStmt);
+                if (analysis != null) {
+                    preparedStmt.analyzedStatement(analysis.statement);
+                }
+            }
             Portal newPortal = portal.bind(
                 statementName, preparedStmt.query(), preparedStmt.statement(), preparedStmt.analyzedStatement(), params, resultFormatCodes);
             if (portal != newPortal) {
@@ -341,7 +375,7 @@ public class Session implements AutoCloseable {
                     analyzedStatement = preparedStmt.analyzedStatement();
                 } else {
                     try {
-                        analyzedStatement = analyzer.unboundAnalyze(statement, sessionContext, preparedStmt.paramTypes());
+                        analyzedStatement = unboundAnalyze(preparedStmt);
                         preparedStmt.analyzedStatement(analyzedStatement);
                     } catch (Throwable t) {
                         throw SQLExceptions.createSQLActionException(t, sessionContext);
@@ -365,6 +399,47 @@ public class Session implements AutoCloseable {
         }
     }
 
+    @Nullable
+    private AnalyzedStatement unboundAnalyze(PreparedStmt preparedStmt) {
+        StatementCache.Analysis analysis = getCachedAnalysis(preparedStmt);
+        if (analysis != null) {
+            return analysis.statement;
+        }
+        long metaDataVersion = statementCache.metaDataVersion();
+        AnalyzedStatement analyzedStatement =
+            analyzer.unboundAnalyze(preparedStmt.statement(), sessionContext, preparedStmt.paramTypes());
+        if (analyzedStatement != null && statementCache.canCacheAnalysis(preparedStmt.query())) {
+            ownedAnalyses.put(
+                new StatementCache.AnalysisKey(preparedStmt.query(), sessionContext, preparedStmt.paramTypeList()),
+                new StatementCache.Analysis(analyzedStatement, metaDataVersion));
+        }
+        return analyzedStatement;
+    }
+
+    /**
+     * Returns an up to date analysis of the prepared statement which is either already owned by this session or taken
+     * from the {@link StatementCache}.
+     */
+    @Nullable
+    private StatementCache.Analysis getCachedAnalysis(PreparedStmt preparedStmt) {
+        if (statementCache.canCacheAnalysis(preparedStmt.query()) == false) {
+            return null;
+        }
+        StatementCache.AnalysisKey key =
+            new StatementCache.AnalysisKey(preparedStmt.query(), sessionContext, preparedStmt.paramTypeList());
+        StatementCache.Analysis analysis = ownedAnalyses.get(key);
+        if (analysis != null && analysis.metaDataVersion == statementCache.metaDataVersion()) {
+            return analysis;
+        }
+        analysis = statementCache.takeAnalyzed(key);
+        if (analysis == null) {
+            ownedAnalyses.remove(key);
+        } else {
+            ownedAnalyses.put(key, analysis);
+        }
+        return analysis;
+    }
+
     public void execute(String portalName, int maxRows, ResultReceiver resultReceiver) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("method=execute portalName={} maxRows={}", portalName, maxRows);
@@ -394,6 +469,21 @@ public class Session implements AutoCloseable {
         }
     }
 
+    /**
+     * Continue the execution of a portal which has been suspended after {@code maxRows} rows
+     * (see {@link #execute(String, int, ResultReceiver)}). The rows are sent to the same result receiver.
+     */
+    public void resume(String portalName) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("method=resume portalName={}", portalName);
+        }
+        Portal portal = getSafePortal(portalName);
+        if (!(portal instanceof SimplePortal)) {
+            throw new IllegalStateException("Portal " + portalName + " can't be resumed");
+        }
+        ((SimplePortal) portal).resume();
+    }
+
     public CompletableFuture<?> sync() {
         switch (pendingExecutions.size()) {
             case 0:
@@ -488,6 +578,8 @@ public class Session implements AutoCloseable {
         portals.clear();
         preparedStatements.clear();
         pendingExecutions.clear();
+        statementCache.releaseAnalyzed(ownedAnalyses);
+        ownedAnalyses.clear();
     }
 
     static class ParameterTypeExtractor extends DefaultTraversalSymbolVisitor<Void, Void> implements Consumer<Symbol> {
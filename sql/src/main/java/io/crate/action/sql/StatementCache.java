@@ -0,0 +1,197 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.Statement;
+import io.crate.types.DataType;
+import org.elasticsearch.common.settings.Setting;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Node wide cache of parsed and analyzed statements, shared by all sessions.
+ *
+ * Parsing depends neither on the session nor on the cluster state, so statements are keyed by the query string.
+ * Parsed statements are immutable and can be used by several sessions concurrently.
+ *
+ * The unbound analysis of a prepared statement depends on the schema and the user of the session and on the cluster
+ * metadata, so it is keyed by {@link AnalysisKey} and discarded once the metadata version changed.
+ * Analyzed statements contain mutable components and must not be used by several sessions at once. A session
+ * therefore {@link #takeAnalyzed(AnalysisKey) takes} an analysis out of the cache, owns it while it is open and
+ * {@link #releaseAnalyzed(Map) releases} it once it is closed.
+ */
+public final class StatementCache {
+
+    public static final Setting<Integer> NODE_STATEMENT_CACHE_SIZE_SETTING = Setting.intSetting(
+        "node.sql.statement_cache.size",
+        1000,
+        0,
+        Setting.Property.NodeScope);
+
+    /**
+     * Longer statements (e.g. inserts with many values) are unlikely to repeat and are not cached.
+     */
+    static final int MAX_QUERY_LENGTH = 8192;
+
+    @Nullable
+    private final Cache<String, Statement> cache;
+    @Nullable
+    private final Cache<AnalysisKey, Analysis> analyzedCache;
+    private final LongSupplier metaDataVersion;
+
+    public StatementCache(int size) {
+        this(size, () -> 0L);
+    }
+
+    /**
+     * @param metaDataVersion supplies the version of the current cluster metadata, analyzed statements of an older
+     *                        version are not used anymore.
+     */
+    public StatementCache(int size, LongSupplier metaDataVersion) {
+        this.metaDataVersion = metaDataVersion;
+        if (size > 0) {
+            cache = CacheBuilder.newBuilder().maximumSize(size).build();
+            analyzedCache = CacheBuilder.newBuilder().maximumSize(size).build();
+        } else {
+            cache = null;
+            analyzedCache = null;
+        }
+    }
+
+    public Statement parse(String query) {
+        if (cache == null || query.length() > MAX_QUERY_LENGTH) {
+            return SqlParser.createStatement(query);
+        }
+        Statement statement = cache.getIfPresent(query);
+        if (statement == null) {
+            // parse failures aren't cached, they're rare compared to valid statements
+            statement = SqlParser.createStatement(query);
+            cache.put(query, statement);
+        }
+        return statement;
+    }
+
+    boolean canCacheAnalysis(String query) {
+        return analyzedCache != null && query.length() <= MAX_QUERY_LENGTH;
+    }
+
+    long metaDataVersion() {
+        return metaDataVersion.getAsLong();
+    }
+
+    /**
+     * Removes the analysis of {@code key} from the cache and returns it if it is still up to date.
+     * The caller owns the returned analysis until it is released again.
+     */
+    @Nullable
+    Analysis takeAnalyzed(AnalysisKey key) {
+        if (analyzedCache == null) {
+            return null;
+        }
+        Analysis analysis = analyzedCache.asMap().remove(key);
+        if (analysis == null || analysis.metaDataVersion != metaDataVersion()) {
+            return null;
+        }
+        return analysis;
+    }
+
+    /**
+     * Returns analyses which were owned by a session, which isn't using them anymore, to the cache.
+     */
+    void releaseAnalyzed(Map<AnalysisKey, Analysis> analyses) {
+        if (analyzedCache == null) {
+            return;
+        }
+        long currentVersion = metaDataVersion();
+        for (Map.Entry<AnalysisKey, Analysis> entry : analyses.entrySet()) {
+            if (entry.getValue().metaDataVersion == currentVersion) {
+                analyzedCache.asMap().putIfAbsent(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    long size() {
+        return cache == null ? 0L : cache.size();
+    }
+
+    long analyzedSize() {
+        return analyzedCache == null ? 0L : analyzedCache.size();
+    }
+
+    static final class Analysis {
+
+        final AnalyzedStatement statement;
+        final long metaDataVersion;
+
+        Analysis(AnalyzedStatement statement, long metaDataVersion) {
+            this.statement = statement;
+            this.metaDataVersion = metaDataVersion;
+        }
+    }
+
+    static final class AnalysisKey {
+
+        private final String query;
+        private final String defaultSchema;
+        private final String userName;
+        private final List<DataType> paramTypes;
+        private final boolean semiJoinsRewriteEnabled;
+
+        AnalysisKey(String query, SessionContext sessionContext, List<DataType> paramTypes) {
+            this.query = query;
+            this.defaultSchema = sessionContext.defaultSchema();
+            this.userName = sessionContext.user().name();
+            this.paramTypes = paramTypes;
+            this.semiJoinsRewriteEnabled = sessionContext.getSemiJoinsRewriteEnabled();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            AnalysisKey that = (AnalysisKey) o;
+            return semiJoinsRewriteEnabled == that.semiJoinsRewriteEnabled &&
+                   query.equals(that.query) &&
+                   defaultSchema.equals(that.defaultSchema) &&
+                   userName.equals(that.userName) &&
+                   paramTypes.equals(that.paramTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, defaultSchema, userName, paramTypes, semiJoinsRewriteEnabled);
+        }
+    }
+}
@@ -183,6 +183,10 @@ public class AnalyzedStatementVisitor<C, R> {
         return visitAnalyzedStatement(analyzedCommit, context);
     }
 
+    public R visitAnalyze(AnalyzedAnalyze analyzedAnalyze, C context) {
+        return visitAnalyzedStatement(analyzedAnalyze, context);
+    }
+
     public R visitPrivilegesStatement(PrivilegesAnalyzedStatement analysis, C context) {
         return visitDCLStatement(analysis, context);
     }
@@ -39,6 +39,7 @@ import io.crate.sql.tree.AlterTableOpenClose;
 import io.crate.sql.tree.AlterTableRename;
 import io.crate.sql.tree.AlterTableReroute;
 import io.crate.sql.tree.AlterUser;
+import io.crate.sql.tree.AnalyzeStatement;
 import io.crate.sql.tree.AstVisitor;
 import io.crate.sql.tree.BeginStatement;
 import io.crate.sql.tree.CommitStatement;
@@ -468,6 +469,11 @@ public class Analyzer {
             return new AnalyzedCommit();
         }
 
+        @Override
+        public AnalyzedStatement visitAnalyze(AnalyzeStatement node, Analysis context) {
+            return new AnalyzedAnalyze();
+        }
+
         @Override
         protected AnalyzedStatement visitNode(Node node, Analysis context) {
             throw new UnsupportedOperationException(String.format(Locale.ENGLISH, "cannot analyze statement: '%s'", node));
@@ -47,6 +47,9 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
         "indices.breaker.query.limit", "60%", Setting.Property.Dynamic, Setting.Property.NodeScope), DataTypes.STRING);
     public static final CrateSetting<Double> QUERY_CIRCUIT_BREAKER_OVERHEAD_SETTING = CrateSetting.of(Setting.doubleSetting(
         "indices.breaker.query.overhead", 1.09d, 0.0d, Setting.Property.Dynamic, Setting.Property.NodeScope),DataTypes.DOUBLE);
+    public static final CrateSetting<Double> QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD_SETTING = CrateSetting.of(new Setting<>(
+        "indices.breaker.query.spill_threshold", "0.0", CrateCircuitBreakerService::parseSpillThreshold,
+        Setting.Property.NodeScope), DataTypes.DOUBLE);
 
     public static final String JOBS_LOG = "jobs_log";
     public static final CrateSetting<ByteSizeValue> JOBS_LOG_CIRCUIT_BREAKER_LIMIT_SETTING = CrateSetting.of(Setting.memorySizeSetting(
@@ -126,6 +129,16 @@ public class CrateCircuitBreakerService extends CircuitBreakerService {
         return esCircuitBreakerService.stats(name);
     }
 
+    static double parseSpillThreshold(String value) {
+        double threshold = Double.parseDouble(value);
+        if (threshold < 0.0d || threshold > 1.0d) {
+            throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                "Failed to parse value [%s] for setting [%s], must be between 0.0 and 1.0",
+                value, "indices.breaker.query.spill_threshold"));
+        }
+        return threshold;
+    }
+
     public static String breakingExceptionMessage(String label, long limit) {
         return String.format(Locale.ENGLISH, BREAKING_EXCEPTION_MESSAGE, label,
             limit, new ByteSizeValue(limit));
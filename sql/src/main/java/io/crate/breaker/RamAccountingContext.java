@@ -91,6 +91,25 @@ public class RamAccountingContext implements RamAccounting {
         }
     }
 
+    /**
+     * Subtract bytes which have been added before, e.g. because the data was written to disk.
+     * Bytes still in the buffer are subtracted first, the remainder is released from the breaker.
+     *
+     * @param bytes bytes to be subtracted
+     */
+    public void subtractBytes(long bytes) {
+        if (closed || bytes <= 0) {
+            return;
+        }
+        long fromBuffer = Math.min(bytes, Math.max(0L, flushBuffer.get()));
+        flushBuffer.addAndGet(-fromBuffer);
+        long fromBreaker = Math.min(bytes - fromBuffer, totalBytes.get());
+        if (fromBreaker > 0) {
+            breaker.addWithoutBreaking(-fromBreaker);
+            totalBytes.addAndGet(-fromBreaker);
+        }
+    }
+
     /**
      * Flush the {@code bytes} to the breaker, incrementing the total
      * bytes and adjusting the buffer.
@@ -204,6 +223,19 @@ public class RamAccountingContext implements RamAccounting {
         return breaker.getLimit();
     }
 
+    /**
+     * Returns true if the bytes used by the breaker, which includes the bytes of all other contexts using it,
+     * plus the bytes of this context which haven't been flushed yet reached {@code share} of the breaker limit.
+     * Returns false if the breaker has no limit.
+     */
+    public boolean reachedShareOfLimit(double share) {
+        long limit = breaker.getLimit();
+        if (limit <= 0) {
+            return false;
+        }
+        return breaker.getUsed() + flushBuffer.get() >= (long) (limit * share);
+    }
+
     /**
      * Returns the context id string.
      */
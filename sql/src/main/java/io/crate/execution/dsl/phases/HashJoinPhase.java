@@ -43,6 +43,7 @@ public class HashJoinPhase extends JoinPhase {
     private final List<Symbol> rightJoinConditionInputs;
 
     private final Collection<DataType> leftOutputTypes;
+    private final Collection<DataType> rightOutputTypes;
     private final long estimatedRowSizeForLeft;
     private final long numberOfRowsForLeft;
 
@@ -55,10 +56,12 @@ public class HashJoinPhase extends JoinPhase {
                          int numLeftOutputs,
                          int numRightOutputs,
                          Collection<String> executionNodes,
+                         JoinType joinType,
                          @Nullable Symbol joinCondition,
                          List<Symbol> leftJoinConditionInputs,
                          List<Symbol> rightJoinConditionInputs,
                          Collection<DataType> leftOutputTypes,
+                         Collection<DataType> rightOutputTypes,
                          long estimatedRowSizeForLeft,
                          long numberOfRowsForLeft) {
         super(
@@ -71,12 +74,13 @@ public class HashJoinPhase extends JoinPhase {
             numLeftOutputs,
             numRightOutputs,
             executionNodes,
-            JoinType.INNER,
+            joinType,
             joinCondition);
         assert joinCondition != null : "JoinCondition for HashJoin cannot be null";
         this.leftJoinConditionInputs = leftJoinConditionInputs;
         this.rightJoinConditionInputs = rightJoinConditionInputs;
         this.leftOutputTypes = leftOutputTypes;
+        this.rightOutputTypes = rightOutputTypes;
         this.estimatedRowSizeForLeft = estimatedRowSizeForLeft;
         this.numberOfRowsForLeft = numberOfRowsForLeft;
     }
@@ -87,6 +91,7 @@ public class HashJoinPhase extends JoinPhase {
         leftJoinConditionInputs = Symbols.listFromStream(in);
         rightJoinConditionInputs = Symbols.listFromStream(in);
         leftOutputTypes = DataTypes.listFromStream(in);
+        rightOutputTypes = DataTypes.listFromStream(in);
 
         estimatedRowSizeForLeft = in.readZLong();
         numberOfRowsForLeft = in.readZLong();
@@ -99,6 +104,7 @@ public class HashJoinPhase extends JoinPhase {
         Symbols.toStream(leftJoinConditionInputs, out);
         Symbols.toStream(rightJoinConditionInputs, out);
         DataTypes.toStream(leftOutputTypes, out);
+        DataTypes.toStream(rightOutputTypes, out);
 
         out.writeZLong(estimatedRowSizeForLeft);
         out.writeZLong(numberOfRowsForLeft);
@@ -126,6 +132,10 @@ public class HashJoinPhase extends JoinPhase {
         return leftOutputTypes;
     }
 
+    public Collection<DataType> rightOutputTypes() {
+        return rightOutputTypes;
+    }
+
     public long estimatedRowSizeForLeft() {
         return estimatedRowSizeForLeft;
     }
@@ -23,6 +23,7 @@
 package io.crate.execution.dsl.projection;
 
 import com.google.common.collect.Collections2;
+import io.crate.expression.symbol.AggregateMode;
 import io.crate.metadata.RowGranularity;
 
 import java.util.Collection;
@@ -45,4 +46,41 @@ public class Projections {
         }
         return false;
     }
+
+    /**
+     * @return true if the shard projections end with a partial aggregation and otherwise only filter or evaluate rows.
+     *         The shard projections can then be applied to several parts of a shard independently,
+     *         as the partial results of all parts are merged afterwards anyway.
+     */
+    public static boolean shardProjectionsSupportSlicing(Iterable<? extends Projection> projections) {
+        boolean partialAggregation = false;
+        for (Projection projection : projections) {
+            if (projection.requiredGranularity() != RowGranularity.SHARD) {
+                continue;
+            }
+            if (partialAggregation) {
+                return false;
+            }
+            switch (projection.projectionType()) {
+                case GROUP:
+                    partialAggregation = ((GroupProjection) projection).mode() == AggregateMode.ITER_PARTIAL;
+                    break;
+
+                case AGGREGATION:
+                    partialAggregation = ((AggregationProjection) projection).mode() == AggregateMode.ITER_PARTIAL;
+                    break;
+
+                case FILTER:
+                case EVAL:
+                    continue;
+
+                default:
+                    return false;
+            }
+            if (!partialAggregation) {
+                return false;
+            }
+        }
+        return partialAggregation;
+    }
 }
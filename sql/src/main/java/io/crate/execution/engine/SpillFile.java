@@ -0,0 +1,108 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+
+package io.crate.execution.engine;
+
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A temporary file created by {@link SpillFiles}.
+ *
+ * The file is written once through {@link #output()}; after {@link #finishWriting()} it can be read any number
+ * of times. Closing it deletes the file.
+ */
+public final class SpillFile implements Releasable {
+
+    private final Path path;
+    @Nullable
+    private StreamOutput out;
+
+    SpillFile(Path path) throws IOException {
+        this.path = path;
+        this.out = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(path)));
+    }
+
+    /**
+     * Returns the buffered output of the file. Must not be used after {@link #finishWriting()}.
+     */
+    public StreamOutput output() {
+        assert out != null : "finishWriting must not be called before all data is written";
+        return out;
+    }
+
+    /**
+     * Flush and close the output
+     */
+    public void finishWriting() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                out = null;
+            }
+        }
+    }
+
+    /**
+     * Returns a new buffered input which reads the file from the beginning. The caller must close it.
+     */
+    public StreamInput newInput() {
+        assert out == null : "finishWriting must be called before reading";
+        try {
+            return new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(path)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // the file is deleted anyway
+            }
+            out = null;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // best effort, left over files are deleted when the node starts
+        }
+    }
+}
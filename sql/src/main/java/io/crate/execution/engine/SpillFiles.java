@@ -0,0 +1,91 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+
+package io.crate.execution.engine;
+
+import io.crate.breaker.CrateCircuitBreakerService;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Creates the {@link SpillFile}s of operations which write intermediate results to disk because they don't fit
+ * into memory.
+ *
+ * The files are located in the {@code tmp} directory of the first data path of the node. Operations delete their
+ * files once they are done, files left over by a node which didn't shut down cleanly are deleted when the node starts.
+ */
+@Singleton
+public class SpillFiles {
+
+    private final Path directory;
+    private final double threshold;
+
+    @Inject
+    public SpillFiles(Settings settings, NodeEnvironment nodeEnvironment) throws IOException {
+        this(
+            nodeEnvironment.nodeDataPaths()[0].resolve("tmp"),
+            CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD_SETTING.setting().get(settings)
+        );
+    }
+
+    public SpillFiles(Path directory, double threshold) throws IOException {
+        IOUtils.rm(directory);
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Share of the query breaker limit at which operations write their intermediate results to disk,
+     * see {@link CrateCircuitBreakerService#QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD_SETTING}.
+     * 0 if spilling is disabled.
+     */
+    public double threshold() {
+        return threshold;
+    }
+
+    public boolean isEnabled() {
+        return threshold > 0.0d;
+    }
+
+    /**
+     * Creates a new, empty file which is opened for writing.
+     *
+     * @param prefix the prefix of the file name, e.g. the name of the operation
+     */
+    public SpillFile newFile(String prefix) {
+        try {
+            return new SpillFile(Files.createTempFile(directory, prefix, ".spill"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -29,8 +29,10 @@ import io.crate.types.DataType;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
+import java.util.List;
 
 /**
  * A special FunctionImplementation that compute a single result from a set of input values
@@ -82,4 +84,15 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
     public abstract TFinal terminatePartial(RamAccountingContext ramAccountingContext, TPartial state);
 
     public abstract DataType partialType();
+
+    /**
+     * Returns an aggregator which reads the doc values of the argument columns directly.
+     *
+     * @param fieldTypes the field types of the argument columns, all of them have doc values.
+     * @return the aggregator or null if the aggregation doesn't support doc values for the argument types.
+     */
+    @Nullable
+    public DocValueAggregator getDocValueAggregator(List<MappedFieldType> fieldTypes) {
+        return null;
+    }
 }
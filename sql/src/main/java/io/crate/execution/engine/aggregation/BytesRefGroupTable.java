@@ -0,0 +1,154 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import com.carrotsearch.hppc.BitMixer;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ByteArray;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+
+/**
+ * Open-addressing hash table which maps {@link BytesRef} keys to dense group ids.
+ *
+ * The bytes of all keys are appended to a single {@link ByteArray}; {@code offsets} holds the start offset of each
+ * key by group id (and the end offset of the last key), {@code hashes} the hash code of each key so that
+ * re-hashing and most mismatches don't have to look at the key bytes.
+ */
+final class BytesRefGroupTable implements Releasable {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final BigArrays bigArrays;
+    private final BytesRef spare = new BytesRef();
+
+    private LongArray slots;
+    private LongArray offsets;
+    private IntArray hashes;
+    private ByteArray bytes;
+    private long mask;
+    private long maxSize;
+    private long size = 0;
+
+    BytesRefGroupTable(long expectedSize, BigArrays bigArrays) {
+        this.bigArrays = bigArrays;
+        long capacity = 8;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        long initialSize = Math.max(1L, expectedSize);
+        this.slots = bigArrays.newLongArray(capacity, true);
+        this.offsets = bigArrays.newLongArray(initialSize + 1, false);
+        this.offsets.set(0, 0L);
+        this.hashes = bigArrays.newIntArray(initialSize, false);
+        this.bytes = bigArrays.newByteArray(initialSize * 8, false);
+        this.mask = capacity - 1;
+        this.maxSize = (long) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Add a key. The bytes of the key are copied, the key instance can be re-used by the caller.
+     *
+     * @return the id of the new group or {@code -1 - id} if the key was already present.
+     */
+    long add(BytesRef key) {
+        int hash = key.hashCode();
+        long slot = BitMixer.mix32(hash) & mask;
+        while (true) {
+            long idPlusOne = slots.get(slot);
+            if (idPlusOne == 0) {
+                return insert(slot, hash, key);
+            }
+            long id = idPlusOne - 1;
+            if (hashes.get(id) == hash && get(id, spare).bytesEquals(key)) {
+                return -1 - id;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the key of group {@code id}.
+     *
+     * The returned BytesRef points to memory owned by this table and is only valid until the table is closed.
+     * Use {@link BytesRef#deepCopyOf(BytesRef)} if the key must outlive the table.
+     */
+    BytesRef get(long id, BytesRef dest) {
+        assert id < size : "id must be less than size";
+        long start = offsets.get(id);
+        int length = (int) (offsets.get(id + 1) - start);
+        bytes.get(start, length, dest);
+        return dest;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long ramBytesUsed() {
+        return slots.ramBytesUsed() + offsets.ramBytesUsed() + hashes.ramBytesUsed() + bytes.ramBytesUsed();
+    }
+
+    private long insert(long slot, int hash, BytesRef key) {
+        long id = size;
+        long start = offsets.get(id);
+        long end = start + key.length;
+        bytes = bigArrays.grow(bytes, end);
+        bytes.set(start, key.bytes, key.offset, key.length);
+        offsets = bigArrays.grow(offsets, id + 2);
+        offsets.set(id + 1, end);
+        hashes = bigArrays.grow(hashes, id + 1);
+        hashes.set(id, hash);
+        slots.set(slot, id + 1);
+        size++;
+        if (size > maxSize) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        long capacity = (mask + 1) << 1;
+        LongArray newSlots = bigArrays.newLongArray(capacity, true);
+        long newMask = capacity - 1;
+        for (long id = 0; id < size; id++) {
+            long slot = BitMixer.mix32(hashes.get(id)) & newMask;
+            while (newSlots.get(slot) != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            newSlots.set(slot, id + 1);
+        }
+        slots.close();
+        slots = newSlots;
+        mask = newMask;
+        maxSize = (long) (capacity * LOAD_FACTOR);
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(slots, offsets, hashes, bytes);
+    }
+}
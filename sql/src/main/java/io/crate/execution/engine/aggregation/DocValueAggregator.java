@@ -0,0 +1,51 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import org.apache.lucene.index.LeafReader;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Aggregates the doc values of columns directly, without materializing rows and {@link io.crate.data.Input}s.
+ *
+ * An instance aggregates into a single state and is used for one shard only.
+ *
+ * @see AggregationFunction#getDocValueAggregator(java.util.List)
+ */
+public interface DocValueAggregator {
+
+    /**
+     * Called before the documents of a segment are passed to {@link #apply(int)}
+     */
+    void loadDocValues(LeafReader reader) throws IOException;
+
+    void apply(int doc) throws IOException;
+
+    /**
+     * @return the state in the same representation as the partial state of the {@link AggregationFunction}.
+     */
+    @Nullable
+    Object partialResult();
+}
@@ -0,0 +1,507 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.Streamer;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
+import io.crate.data.Input;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.BigArrays;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Maps the current values of the key inputs to a dense group index.
+ *
+ * The group index is used by {@link GroupingCollector} to address the aggregation states which are kept in
+ * parallel arrays. Depending on the key types, the keys are stored in a {@link LongGroupTable},
+ * a {@link BytesRefGroupTable} or - for types without a compact representation - in a plain {@link HashMap}.
+ */
+abstract class GroupKeys implements Releasable {
+
+    private static final int EXPECTED_GROUPS = 64;
+
+    /**
+     * Looks up the group of the current key values, creating it if it doesn't exist yet.
+     *
+     * @return the index of the new group or {@code -1 - index} if the group already existed
+     */
+    abstract long add();
+
+    /**
+     * Returns the exclusive upper bound of the group indices returned by {@link #add()}
+     */
+    abstract long indexBound();
+
+    /**
+     * Returns true if a group exists for {@code index}; there might be gaps below {@link #indexBound()}
+     */
+    abstract boolean isGroup(long index);
+
+    /**
+     * Writes the key values of group {@code index} into the first cells of {@code cells}
+     */
+    abstract void keyToCells(long index, Object[] cells);
+
+    abstract long ramBytesUsed();
+
+    static Supplier<GroupKeys> forTypes(List<Input<?>> keyInputs, List<? extends DataType> keyTypes, BigArrays bigArrays) {
+        assert keyInputs.size() == keyTypes.size() : "number of key inputs must match number of key types";
+        if (keyTypes.size() == 1) {
+            DataType keyType = keyTypes.get(0);
+            Input<?> keyInput = keyInputs.get(0);
+            if (isLongCompatible(keyType)) {
+                return () -> new SingleLongKey(keyInput, keyType, bigArrays);
+            }
+            if (keyType.equals(DataTypes.STRING) || keyType.equals(DataTypes.IP)) {
+                //noinspection unchecked
+                return () -> new SingleBytesRefKey((Input<BytesRef>) keyInput, bigArrays);
+            }
+            SizeEstimator<Object> sizeEstimator = SizeEstimatorFactory.create(keyType);
+            return () -> new ObjectKeys<Object>(keyInput::value, sizeEstimator, (key, cells) -> cells[0] = key);
+        }
+        if (keyTypes.stream().allMatch(GroupKeys::isLongCompatible)) {
+            return () -> new FixedWidthKeys(keyInputs, keyTypes, bigArrays);
+        }
+        if (keyTypes.stream().allMatch(DataTypes.PRIMITIVE_TYPES::contains)) {
+            return () -> new EncodedKeys(keyInputs, keyTypes, bigArrays);
+        }
+        MultiSizeEstimator sizeEstimator = new MultiSizeEstimator(keyTypes);
+        return () -> new ObjectKeys<>(() -> evalKeyInputs(keyInputs), sizeEstimator, GroupKeys::applyKeysToCells);
+    }
+
+    private static boolean isLongCompatible(DataType type) {
+        switch (type.id()) {
+            case BooleanType.ID:
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+            case FloatType.ID:
+            case DoubleType.ID:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    private static long toLong(int typeId, Object value) {
+        switch (typeId) {
+            case BooleanType.ID:
+                return ((Boolean) value) ? 1L : 0L;
+            case FloatType.ID:
+                return Float.floatToIntBits(((Number) value).floatValue());
+            case DoubleType.ID:
+                return Double.doubleToLongBits(((Number) value).doubleValue());
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    private static Object fromLong(int typeId, long value) {
+        switch (typeId) {
+            case BooleanType.ID:
+                return value == 1L;
+            case ByteType.ID:
+                return (byte) value;
+            case ShortType.ID:
+                return (short) value;
+            case IntegerType.ID:
+                return (int) value;
+            case FloatType.ID:
+                return Float.intBitsToFloat((int) value);
+            case DoubleType.ID:
+                return Double.longBitsToDouble(value);
+            default:
+                return value;
+        }
+    }
+
+    private static List<Object> evalKeyInputs(List<Input<?>> keyInputs) {
+        List<Object> key = new ArrayList<>(keyInputs.size());
+        for (Input<?> keyInput : keyInputs) {
+            key.add(keyInput.value());
+        }
+        return key;
+    }
+
+    private static void applyKeysToCells(List<Object> keys, Object[] cells) {
+        for (int i = 0; i < keys.size(); i++) {
+            cells[i] = keys.get(i);
+        }
+    }
+
+    /**
+     * Single key with a type that fits into a long.
+     * Index 0 is reserved for the null group, the groups of the table are shifted by 1.
+     */
+    private static final class SingleLongKey extends GroupKeys {
+
+        private final Input<?> keyInput;
+        private final int typeId;
+        private final LongGroupTable table;
+        private boolean hasNullGroup = false;
+
+        SingleLongKey(Input<?> keyInput, DataType keyType, BigArrays bigArrays) {
+            this.keyInput = keyInput;
+            this.typeId = keyType.id();
+            this.table = new LongGroupTable(1, EXPECTED_GROUPS, bigArrays);
+        }
+
+        @Override
+        long add() {
+            Object value = keyInput.value();
+            if (value == null) {
+                if (hasNullGroup) {
+                    return -1L;
+                }
+                hasNullGroup = true;
+                return 0L;
+            }
+            long id = table.add(toLong(typeId, value));
+            return id < 0 ? id - 1 : id + 1;
+        }
+
+        @Override
+        long indexBound() {
+            return table.size() + 1;
+        }
+
+        @Override
+        boolean isGroup(long index) {
+            return index > 0 || hasNullGroup;
+        }
+
+        @Override
+        void keyToCells(long index, Object[] cells) {
+            cells[0] = index == 0 ? null : fromLong(typeId, table.get(index - 1, 0));
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return table.ramBytesUsed();
+        }
+
+        @Override
+        public void close() {
+            table.close();
+        }
+    }
+
+    /**
+     * Single string key.
+     * Index 0 is reserved for the null group, the groups of the table are shifted by 1.
+     */
+    private static final class SingleBytesRefKey extends GroupKeys {
+
+        private final Input<BytesRef> keyInput;
+        private final BytesRefGroupTable table;
+        private final BytesRef spare = new BytesRef();
+        private boolean hasNullGroup = false;
+
+        SingleBytesRefKey(Input<BytesRef> keyInput, BigArrays bigArrays) {
+            this.keyInput = keyInput;
+            this.table = new BytesRefGroupTable(EXPECTED_GROUPS, bigArrays);
+        }
+
+        @Override
+        long add() {
+            BytesRef value = keyInput.value();
+            if (value == null) {
+                if (hasNullGroup) {
+                    return -1L;
+                }
+                hasNullGroup = true;
+                return 0L;
+            }
+            long id = table.add(value);
+            return id < 0 ? id - 1 : id + 1;
+        }
+
+        @Override
+        long indexBound() {
+            return table.size() + 1;
+        }
+
+        @Override
+        boolean isGroup(long index) {
+            return index > 0 || hasNullGroup;
+        }
+
+        @Override
+        void keyToCells(long index, Object[] cells) {
+            cells[0] = index == 0 ? null : BytesRef.deepCopyOf(table.get(index - 1, spare));
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return table.ramBytesUsed();
+        }
+
+        @Override
+        public void close() {
+            table.close();
+        }
+    }
+
+    /**
+     * Several keys which all fit into a long.
+     * Every key occupies one long slot, the additional last slot is a bitmask of the keys which are null.
+     */
+    private static final class FixedWidthKeys extends GroupKeys {
+
+        private final Input<?>[] keyInputs;
+        private final int[] typeIds;
+        private final long[] key;
+        private final LongGroupTable table;
+
+        FixedWidthKeys(List<Input<?>> keyInputs, List<? extends DataType> keyTypes, BigArrays bigArrays) {
+            assert keyInputs.size() < 64 : "null mask supports at most 63 keys";
+            this.keyInputs = keyInputs.toArray(new Input[0]);
+            this.typeIds = new int[keyTypes.size()];
+            for (int i = 0; i < typeIds.length; i++) {
+                typeIds[i] = keyTypes.get(i).id();
+            }
+            this.key = new long[typeIds.length + 1];
+            this.table = new LongGroupTable(key.length, EXPECTED_GROUPS, bigArrays);
+        }
+
+        @Override
+        long add() {
+            long nullMask = 0L;
+            for (int i = 0; i < keyInputs.length; i++) {
+                Object value = keyInputs[i].value();
+                if (value == null) {
+                    nullMask |= 1L << i;
+                    key[i] = 0L;
+                } else {
+                    key[i] = toLong(typeIds[i], value);
+                }
+            }
+            key[typeIds.length] = nullMask;
+            return table.add(key);
+        }
+
+        @Override
+        long indexBound() {
+            return table.size();
+        }
+
+        @Override
+        boolean isGroup(long index) {
+            return true;
+        }
+
+        @Override
+        void keyToCells(long index, Object[] cells) {
+            long nullMask = table.get(index, typeIds.length);
+            for (int i = 0; i < typeIds.length; i++) {
+                if ((nullMask & (1L << i)) == 0) {
+                    cells[i] = fromLong(typeIds[i], table.get(index, i));
+                } else {
+                    cells[i] = null;
+                }
+            }
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return table.ramBytesUsed();
+        }
+
+        @Override
+        public void close() {
+            table.close();
+        }
+    }
+
+    /**
+     * Several keys of primitive types which are encoded into a single {@link BytesRef} using their {@link Streamer}.
+     */
+    private static final class EncodedKeys extends GroupKeys {
+
+        private final Input<?>[] keyInputs;
+        private final Streamer[] streamers;
+        private final BytesRefGroupTable table;
+        private final BytesStreamOutput out = new BytesStreamOutput();
+        private final BytesRef spare = new BytesRef();
+
+        EncodedKeys(List<Input<?>> keyInputs, List<? extends DataType> keyTypes, BigArrays bigArrays) {
+            this.keyInputs = keyInputs.toArray(new Input[0]);
+            this.streamers = DataTypes.getStreamers(keyTypes);
+            this.table = new BytesRefGroupTable(EXPECTED_GROUPS, bigArrays);
+        }
+
+        @Override
+        long add() {
+            out.reset();
+            try {
+                for (int i = 0; i < keyInputs.length; i++) {
+                    //noinspection unchecked
+                    streamers[i].writeValueTo(out, keyInputs[i].value());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return table.add(out.bytes().toBytesRef());
+        }
+
+        @Override
+        long indexBound() {
+            return table.size();
+        }
+
+        @Override
+        boolean isGroup(long index) {
+            return true;
+        }
+
+        @Override
+        void keyToCells(long index, Object[] cells) {
+            BytesRef encoded = table.get(index, spare);
+            try (StreamInput in = StreamInput.wrap(encoded.bytes, encoded.offset, encoded.length)) {
+                for (int i = 0; i < streamers.length; i++) {
+                    cells[i] = streamers[i].readValueFrom(in);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return table.ramBytesUsed();
+        }
+
+        @Override
+        public void close() {
+            table.close();
+        }
+    }
+
+    /**
+     * Fallback for key types without a compact representation; keys are kept as objects in a {@link HashMap}
+     */
+    private static final class ObjectKeys<K> extends GroupKeys {
+
+        private final Supplier<K> keyExtractor;
+        private final SizeEstimator<K> keySizeEstimator;
+        private final BiConsumer<K, Object[]> keyToCells;
+        private final Map<K, Long> indexByKey = new HashMap<>();
+        private final List<K> keys = new ArrayList<>();
+        private long keyBytes = 0L;
+
+        ObjectKeys(Supplier<K> keyExtractor, SizeEstimator<K> keySizeEstimator, BiConsumer<K, Object[]> keyToCells) {
+            this.keyExtractor = keyExtractor;
+            this.keySizeEstimator = keySizeEstimator;
+            this.keyToCells = keyToCells;
+        }
+
+        @Override
+        long add() {
+            K key = keyExtractor.get();
+            Long index = indexByKey.get(key);
+            if (index != null) {
+                return -1 - index;
+            }
+            long newIndex = keys.size();
+            indexByKey.put(key, newIndex);
+            keys.add(key);
+            // key size + 32 bytes for entry + 4 bytes for increased capacity
+            keyBytes += keySizeEstimator.estimateSize(key) + 36L;
+            return newIndex;
+        }
+
+        @Override
+        long indexBound() {
+            return keys.size();
+        }
+
+        @Override
+        boolean isGroup(long index) {
+            return true;
+        }
+
+        @Override
+        void keyToCells(long index, Object[] cells) {
+            keyToCells.accept(keys.get((int) index), cells);
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return keyBytes;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static class MultiSizeEstimator extends SizeEstimator<List<Object>> {
+
+        private final List<SizeEstimator<Object>> subEstimators;
+
+        MultiSizeEstimator(List<? extends DataType> keyTypes) {
+            subEstimators = new ArrayList<>(keyTypes.size());
+            for (DataType keyType : keyTypes) {
+                subEstimators.add(SizeEstimatorFactory.create(keyType));
+            }
+        }
+
+        @Override
+        public long estimateSize(@Nullable List<Object> value) {
+            assert value != null && value.size() == subEstimators.size()
+                : "value must have the same number of items as there are keyTypes/sizeEstimators";
+
+            long size = 0;
+            for (int i = 0; i < value.size(); i++) {
+                size += subEstimators.get(i).estimateSize(value.get(i));
+            }
+            return size;
+        }
+    }
+}
@@ -22,25 +22,28 @@
 
 package io.crate.execution.engine.aggregation;
 
-import com.google.common.collect.Iterables;
+import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
-import io.crate.breaker.SizeEstimator;
-import io.crate.breaker.SizeEstimatorFactory;
 import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.data.RowN;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.ObjectArray;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
@@ -52,130 +55,218 @@ import java.util.stream.Collector;
  * Collector implementation which uses {@link AggregateMode}s and {@code keyInputs}
  * to group rows by key and aggregate the grouped values.
  *
- * @param <K> type of the key
+ * The keys are mapped to a dense group index by {@link GroupKeys}, the aggregation states are kept in parallel
+ * {@link ObjectArray}s (one per aggregation) which are addressed by that index.
+ * The state must be released once the resulting rows have been consumed.
+ *
+ * If {@link SpillFiles} are provided, the groups are written to {@link SpilledGroups} whenever the memory used by
+ * the circuit breaker, by this and all other operations, reaches the spill threshold share of its limit and the
+ * groups hold at least {@link #MIN_SPILL_BYTES}. The spilled partitions are merged one at a time once all rows have been consumed.
  */
-public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, Iterable<Row>> {
+public class GroupingCollector implements Collector<Row, GroupingCollector.Groups, Iterable<Row>> {
+
+    // this must not be final so tests could adjust it
+    // Spilling fewer bytes doesn't free enough memory to be worth the disk I/O
+    static long MIN_SPILL_BYTES = 1024 * 1024;
 
     private final CollectExpression<Row, ?>[] expressions;
     private final AggregationFunction[] aggregations;
     private final AggregateMode mode;
     private final Input[][] inputs;
     private final RamAccountingContext ramAccountingContext;
-    private final BiConsumer<K, Object[]> applyKeyToCells;
     private final int numKeyColumns;
-    private final SizeEstimator<K> keySizeEstimator;
-    private final Function<Row, K> keyExtractor;
+    private final Supplier<GroupKeys> groupKeysSupplier;
     private final Version indexVersionCreated;
     private final BigArrays bigArrays;
-    private final BiConsumer<Map<K, Object[]>, Row> accumulator;
-
-    static GroupingCollector<Object> singleKey(CollectExpression<Row, ?>[] expressions,
-                                               AggregateMode mode,
-                                               AggregationFunction[] aggregations,
-                                               Input[][] inputs,
-                                               RamAccountingContext ramAccountingContext,
-                                               Input<?> keyInput,
-                                               DataType keyType,
-                                               Version indexVersionCreated,
-                                               BigArrays bigArrays) {
-        return new GroupingCollector<>(
+    private final BiConsumer<Groups, Row> accumulator;
+    @Nullable
+    private final SpillFiles spillFiles;
+    private final Streamer[] keyStreamers;
+    private final Streamer[] stateStreamers;
+    private final Object[] spilledCells;
+    private final Supplier<GroupKeys> spilledKeysSupplier;
+
+    static GroupingCollector singleKey(CollectExpression<Row, ?>[] expressions,
+                                       AggregateMode mode,
+                                       AggregationFunction[] aggregations,
+                                       Input[][] inputs,
+                                       RamAccountingContext ramAccountingContext,
+                                       Input<?> keyInput,
+                                       DataType keyType,
+                                       Version indexVersionCreated,
+                                       BigArrays bigArrays) {
+        return manyKeys(
             expressions,
-            aggregations,
             mode,
+            aggregations,
             inputs,
             ramAccountingContext,
-            (key, cells) -> cells[0] = key,
-            1,
-            SizeEstimatorFactory.create(keyType),
-            row -> keyInput.value(),
+            Collections.singletonList(keyInput),
+            Collections.singletonList(keyType),
             indexVersionCreated,
-            bigArrays
+            bigArrays,
+            null
         );
     }
 
-    static GroupingCollector<List<Object>> manyKeys(CollectExpression<Row, ?>[] expressions,
-                                                    AggregateMode mode,
-                                                    AggregationFunction[] aggregations,
-                                                    Input[][] inputs,
-                                                    RamAccountingContext ramAccountingContext,
-                                                    List<Input<?>> keyInputs,
-                                                    List<? extends DataType> keyTypes,
-                                                    Version indexVersionCreated,
-                                                    BigArrays bigArrays) {
-        return new GroupingCollector<>(
+    static GroupingCollector manyKeys(CollectExpression<Row, ?>[] expressions,
+                                      AggregateMode mode,
+                                      AggregationFunction[] aggregations,
+                                      Input[][] inputs,
+                                      RamAccountingContext ramAccountingContext,
+                                      List<Input<?>> keyInputs,
+                                      List<? extends DataType> keyTypes,
+                                      Version indexVersionCreated,
+                                      BigArrays bigArrays,
+                                      @Nullable SpillFiles spillFiles) {
+        return new GroupingCollector(
             expressions,
             aggregations,
             mode,
             inputs,
             ramAccountingContext,
-            GroupingCollector::applyKeysToCells,
-            keyInputs.size(),
-            new MultiSizeEstimator(keyTypes),
-            row -> evalKeyInputs(keyInputs),
+            keyInputs,
+            keyTypes,
             indexVersionCreated,
-            bigArrays
+            bigArrays,
+            spillFiles
         );
     }
 
-    private static List<Object> evalKeyInputs(List<Input<?>> keyInputs) {
-        List<Object> key = new ArrayList<>(keyInputs.size());
-        for (Input<?> keyInput : keyInputs) {
-            key.add(keyInput.value());
-        }
-        return key;
-    }
-
-    private static void applyKeysToCells(List<Object> keys, Object[] cells) {
-        for (int i = 0; i < keys.size(); i++) {
-            cells[i] = keys.get(i);
-        }
-    }
-
     private GroupingCollector(CollectExpression<Row, ?>[] expressions,
                               AggregationFunction[] aggregations,
                               AggregateMode mode,
                               Input[][] inputs,
                               RamAccountingContext ramAccountingContext,
-                              BiConsumer<K, Object[]> applyKeyToCells,
-                              int numKeyColumns,
-                              SizeEstimator<K> keySizeEstimator,
-                              Function<Row, K> keyExtractor,
+                              List<Input<?>> keyInputs,
+                              List<? extends DataType> keyTypes,
                               Version indexVersionCreated,
-                              BigArrays bigArrays) {
+                              BigArrays bigArrays,
+                              @Nullable SpillFiles spillFiles) {
         this.expressions = expressions;
         this.aggregations = aggregations;
         this.mode = mode;
         this.inputs = inputs;
         this.ramAccountingContext = ramAccountingContext;
-        this.applyKeyToCells = applyKeyToCells;
-        this.numKeyColumns = numKeyColumns;
-        this.keySizeEstimator = keySizeEstimator;
-        this.keyExtractor = keyExtractor;
+        this.numKeyColumns = keyInputs.size();
+        this.groupKeysSupplier = GroupKeys.forTypes(keyInputs, keyTypes, bigArrays);
         this.indexVersionCreated = indexVersionCreated;
         this.bigArrays = bigArrays;
         this.accumulator = mode == AggregateMode.PARTIAL_FINAL ? this::reduce : this::iter;
+        this.spillFiles = spillFiles;
+        this.keyStreamers = DataTypes.getStreamers(keyTypes);
+        this.stateStreamers = new Streamer[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            stateStreamers[i] = aggregations[i].partialType().streamer();
+        }
+        this.spilledCells = new Object[numKeyColumns + aggregations.length];
+        List<Input<?>> spilledKeyInputs = new ArrayList<>(numKeyColumns);
+        for (int i = 0; i < numKeyColumns; i++) {
+            int idx = i;
+            spilledKeyInputs.add(() -> spilledCells[idx]);
+        }
+        this.spilledKeysSupplier = GroupKeys.forTypes(spilledKeyInputs, keyTypes, bigArrays);
+    }
+
+    /**
+     * The state of a {@link GroupingCollector}: the group keys and the aggregation states by group index.
+     */
+    public static final class Groups implements Releasable {
+
+        private final BigArrays bigArrays;
+        private final ObjectArray<Object>[] states;
+        private GroupKeys keys;
+        private long accountedBytes = 0L;
+        private long initialContextBytes;
+        private int numSpills = 0;
+
+        @Nullable
+        private SpilledGroups spilled;
+
+        @Nullable
+        private Groups mergedPartition;
+
+        private Groups(GroupKeys keys, int numAggregations, BigArrays bigArrays, long initialContextBytes) {
+            this.bigArrays = bigArrays;
+            //noinspection unchecked
+            this.states = new ObjectArray[numAggregations];
+            init(keys, initialContextBytes);
+        }
+
+        private void init(GroupKeys keys, long initialContextBytes) {
+            this.keys = keys;
+            this.accountedBytes = 0L;
+            this.initialContextBytes = initialContextBytes;
+            for (int i = 0; i < states.length; i++) {
+                states[i] = bigArrays.newObjectArray(keys.indexBound() + 1);
+            }
+        }
+
+        private void ensureCapacity(long index) {
+            for (int i = 0; i < states.length; i++) {
+                states[i] = bigArrays.grow(states[i], index + 1);
+            }
+        }
+
+        private long ramBytesUsed() {
+            long bytes = keys.ramBytesUsed();
+            for (ObjectArray<Object> array : states) {
+                bytes += array.ramBytesUsed();
+            }
+            return bytes;
+        }
+
+        /**
+         * Returns how often the in-memory groups have been written to disk
+         */
+        int numSpills() {
+            return numSpills;
+        }
+
+        private void releaseInMemory() {
+            Releasables.close(keys);
+            Releasables.close(states);
+        }
+
+        private void closeMergedPartition(RamAccountingContext ramAccountingContext) {
+            if (mergedPartition != null) {
+                ramAccountingContext.subtractBytes(
+                    ramAccountingContext.totalBytes() - mergedPartition.initialContextBytes);
+                mergedPartition.close();
+                mergedPartition = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            releaseInMemory();
+            Releasables.close(mergedPartition, spilled);
+            mergedPartition = null;
+            spilled = null;
+        }
     }
 
     @Override
-    public Supplier<Map<K, Object[]>> supplier() {
-        return HashMap::new;
+    public Supplier<Groups> supplier() {
+        return () -> new Groups(
+            groupKeysSupplier.get(), aggregations.length, bigArrays, ramAccountingContext.totalBytes());
     }
 
     @Override
-    public BiConsumer<Map<K, Object[]>, Row> accumulator() {
+    public BiConsumer<Groups, Row> accumulator() {
         return accumulator;
     }
 
     @Override
-    public BinaryOperator<Map<K, Object[]>> combiner() {
+    public BinaryOperator<Groups> combiner() {
         return (state1, state2) -> {
             throw new UnsupportedOperationException("combine not supported");
         };
     }
 
     @Override
-    public Function<Map<K, Object[]>, Iterable<Row>> finisher() {
-        return this::mapToRows;
+    public Function<Groups, Iterable<Row>> finisher() {
+        return this::groupsToRows;
     }
 
     @Override
@@ -183,109 +274,197 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         return Collections.emptySet();
     }
 
-    private void reduce(Map<K, Object[]> statesByKey, Row row) {
+    private void reduce(Groups groups, Row row) {
         for (CollectExpression<Row, ?> expression : expressions) {
             expression.setNextRow(row);
         }
-        K key = keyExtractor.apply(row);
-        Object[] states = statesByKey.get(key);
-        if (states == null) {
-            states = new Object[aggregations.length];
+        long index = groups.keys.add();
+        if (index >= 0) {
+            groups.ensureCapacity(index);
             for (int i = 0; i < aggregations.length; i++) {
-                states[i] = inputs[i][0].value();
+                groups.states[i].set(index, inputs[i][0].value());
             }
-            addWithAccounting(statesByKey, key, states);
+            accountGrowth(groups);
         } else {
+            index = -1 - index;
             for (int i = 0; i < aggregations.length; i++) {
-                states[i] = aggregations[i].reduce(ramAccountingContext, states[i], inputs[i][0].value());
+                ObjectArray<Object> states = groups.states[i];
+                //noinspection unchecked
+                states.set(index, aggregations[i].reduce(ramAccountingContext, states.get(index), inputs[i][0].value()));
             }
         }
+        maybeSpill(groups);
     }
 
-    private void addWithAccounting(Map<K, Object[]> statesByKey, K key, Object[] states) {
-        // key size + 32 bytes for entry + 4 bytes for increased capacity
-        ramAccountingContext.addBytes(RamAccountingContext.roundUp(keySizeEstimator.estimateSize(key) + 36L));
-        statesByKey.put(key, states);
-    }
-
-    private void iter(Map<K, Object[]> statesByKey, Row row) {
+    private void iter(Groups groups, Row row) {
         for (CollectExpression<Row, ?> expression : expressions) {
             expression.setNextRow(row);
         }
-        K key = keyExtractor.apply(row);
-        Object[] states = statesByKey.get(key);
-        if (states == null) {
-            addNewEntry(statesByKey, key);
+        long index = groups.keys.add();
+        if (index >= 0) {
+            groups.ensureCapacity(index);
+            for (int i = 0; i < aggregations.length; i++) {
+                AggregationFunction aggregation = aggregations[i];
+                //noinspection unchecked
+                groups.states[i].set(index, aggregation.iterate(
+                    ramAccountingContext,
+                    aggregation.newState(ramAccountingContext, indexVersionCreated, bigArrays),
+                    inputs[i]));
+            }
+            accountGrowth(groups);
         } else {
+            index = -1 - index;
             for (int i = 0; i < aggregations.length; i++) {
+                ObjectArray<Object> states = groups.states[i];
                 //noinspection unchecked
-                states[i] = aggregations[i].iterate(ramAccountingContext, states[i], inputs[i]);
+                states.set(index, aggregations[i].iterate(ramAccountingContext, states.get(index), inputs[i]));
             }
         }
+        maybeSpill(groups);
     }
 
-    private void addNewEntry(Map<K, Object[]> statesByKey, K key) {
-        Object[] states;
-        states = new Object[aggregations.length];
-        for (int i = 0; i < aggregations.length; i++) {
-            AggregationFunction aggregation = aggregations[i];
-            //noinspection unchecked
-            states[i] = aggregation.iterate(
-                ramAccountingContext,
-                aggregation.newState(ramAccountingContext, indexVersionCreated, bigArrays), inputs[i]);
+    /**
+     * The group tables and state arrays grow in steps, so only the difference since the last call is accounted.
+     */
+    private void accountGrowth(Groups groups) {
+        long bytes = groups.ramBytesUsed();
+        if (bytes > groups.accountedBytes) {
+            ramAccountingContext.addBytes(RamAccountingContext.roundUp(bytes - groups.accountedBytes));
+            groups.accountedBytes = bytes;
+        }
+    }
+
+    /**
+     * Writes all in-memory groups to disk if the memory used by the breaker reached the spill threshold,
+     * and starts over with empty groups.
+     * The breaker is shared with concurrent operations, so the groups are spilled before they trip it
+     * even if most of the memory is used by others.
+     */
+    private void maybeSpill(Groups groups) {
+        if (spillFiles != null
+            && ramAccountingContext.totalBytes() - groups.initialContextBytes >= MIN_SPILL_BYTES
+            && ramAccountingContext.reachedShareOfLimit(spillFiles.threshold())) {
+            spill(groups);
+        }
+    }
+
+    private void spill(Groups groups) {
+        if (groups.spilled == null) {
+            assert spillFiles != null : "groups can only be spilled if spillFiles are available";
+            groups.spilled = new SpilledGroups(spillFiles, keyStreamers, stateStreamers);
         }
-        addWithAccounting(statesByKey, key, states);
+        Object[] cells = new Object[numKeyColumns + aggregations.length];
+        for (long index = 0, indexBound = groups.keys.indexBound(); index < indexBound; index++) {
+            if (groups.keys.isGroup(index)) {
+                groups.keys.keyToCells(index, cells);
+                for (int i = 0, c = numKeyColumns; i < aggregations.length; i++, c++) {
+                    cells[c] = groups.states[i].get(index);
+                }
+                groups.spilled.write(cells);
+            }
+        }
+        groups.releaseInMemory();
+        groups.numSpills++;
+        ramAccountingContext.subtractBytes(ramAccountingContext.totalBytes() - groups.initialContextBytes);
+        groups.init(groupKeysSupplier.get(), ramAccountingContext.totalBytes());
     }
 
-    private Iterable<Row> mapToRows(Map<K, Object[]> statesByKey) {
-        return Iterables.transform(statesByKey.entrySet(), new com.google.common.base.Function<Map.Entry<K, Object[]>, Row>() {
+    private Iterable<Row> groupsToRows(Groups groups) {
+        if (groups.spilled == null) {
+            return () -> inMemoryRows(groups);
+        }
+        spill(groups);
+        groups.spilled.finishWriting();
+        return () -> new Iterator<Row>() {
 
-            RowN row = new RowN(numKeyColumns + aggregations.length);
-            Object[] cells = new Object[row.numColumns()];
+            int partition = 0;
+            Iterator<Row> rows = Collections.emptyIterator();
 
-            {
-                row.cells(cells);
+            @Override
+            public boolean hasNext() {
+                while (!rows.hasNext()) {
+                    groups.closeMergedPartition(ramAccountingContext);
+                    if (partition == SpilledGroups.NUM_PARTITIONS) {
+                        return false;
+                    }
+                    groups.mergedPartition = mergePartition(groups.spilled, partition);
+                    partition++;
+                    rows = inMemoryRows(groups.mergedPartition);
+                }
+                return true;
             }
 
-            @Nullable
             @Override
-            public Row apply(@Nullable Map.Entry<K, Object[]> input) {
-                assert input != null : "input must not be null";
-
-                applyKeyToCells.accept(input.getKey(), cells);
-                int c = numKeyColumns;
-                Object[] states = input.getValue();
-                for (int i = 0; i < states.length; i++) {
-                    cells[c] = mode.finishCollect(ramAccountingContext, aggregations[i], states[i]);
-                    c++;
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Iterator is exhausted");
                 }
-                return row;
+                return rows.next();
             }
-        });
+        };
     }
 
+    /**
+     * Reads the groups of a spilled partition and reduces the partial states of equal keys
+     */
+    private Groups mergePartition(SpilledGroups spilled, int partition) {
+        Groups merged = new Groups(
+            spilledKeysSupplier.get(), aggregations.length, bigArrays, ramAccountingContext.totalBytes());
+        spilled.read(partition, cells -> {
+            System.arraycopy(cells, 0, spilledCells, 0, cells.length);
+            long index = merged.keys.add();
+            if (index >= 0) {
+                merged.ensureCapacity(index);
+                for (int i = 0, c = numKeyColumns; i < aggregations.length; i++, c++) {
+                    merged.states[i].set(index, cells[c]);
+                }
+                accountGrowth(merged);
+            } else {
+                index = -1 - index;
+                for (int i = 0, c = numKeyColumns; i < aggregations.length; i++, c++) {
+                    ObjectArray<Object> states = merged.states[i];
+                    //noinspection unchecked
+                    states.set(index, aggregations[i].reduce(ramAccountingContext, states.get(index), cells[c]));
+                }
+            }
+        });
+        return merged;
+    }
 
-    private static class MultiSizeEstimator extends SizeEstimator<List<Object>> {
+    private Iterator<Row> inMemoryRows(Groups groups) {
+        return new Iterator<Row>() {
 
-        private final List<SizeEstimator<Object>> subEstimators;
+            final Object[] cells = new Object[numKeyColumns + aggregations.length];
+            final RowN row = new RowN(cells);
+            final long indexBound = groups.keys.indexBound();
+            long index = nextGroup(0);
 
-        MultiSizeEstimator(List<? extends DataType> keyTypes) {
-            subEstimators = new ArrayList<>(keyTypes.size());
-            for (DataType keyType : keyTypes) {
-                subEstimators.add(SizeEstimatorFactory.create(keyType));
+            private long nextGroup(long from) {
+                long i = from;
+                while (i < indexBound && !groups.keys.isGroup(i)) {
+                    i++;
+                }
+                return i;
             }
-        }
 
-        @Override
-        public long estimateSize(@Nullable List<Object> value) {
-            assert value != null && value.size() == subEstimators.size()
-                : "value must have the same number of items as there are keyTypes/sizeEstimators";
+            @Override
+            public boolean hasNext() {
+                return index < indexBound;
+            }
 
-            long size = 0;
-            for (int i = 0; i < value.size(); i++) {
-                size += subEstimators.get(i).estimateSize(value.get(i));
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Iterator is exhausted");
+                }
+                groups.keys.keyToCells(index, cells);
+                for (int i = 0, c = numKeyColumns; i < aggregations.length; i++, c++) {
+                    //noinspection unchecked
+                    cells[c] = mode.finishCollect(ramAccountingContext, aggregations[i], groups.states[i].get(index));
+                }
+                index = nextGroup(index + 1);
+                return row;
             }
-            return size;
-        }
+        };
     }
 }
@@ -24,10 +24,12 @@ package io.crate.execution.engine.aggregation;
 
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.Symbol;
@@ -36,15 +38,15 @@ import io.crate.types.DataTypes;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.util.BigArrays;
 
+import javax.annotation.Nullable;
 import java.util.List;
-import java.util.stream.Collector;
+import java.util.concurrent.CompletableFuture;
 
 import static io.crate.expression.symbol.Symbols.typeView;
 
 public class GroupingProjector implements Projector {
 
-    private final Collector<Row, ?, Iterable<Row>> collector;
-
+    private final GroupingCollector collector;
 
     public GroupingProjector(List<? extends Symbol> keys,
                              List<Input<?>> keyInputs,
@@ -53,7 +55,8 @@ public class GroupingProjector implements Projector {
                              AggregationContext[] aggregations,
                              RamAccountingContext ramAccountingContext,
                              Version indexVersionCreated,
-                             BigArrays bigArrays) {
+                             BigArrays bigArrays,
+                             @Nullable SpillFiles spillFiles) {
         assert keys.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         assert allTypesKnown(typeView(keys)) : "must have a known type for each key input";
 
@@ -65,49 +68,18 @@ public class GroupingProjector implements Projector {
             functions[i] = aggregation.function();
             inputs[i] = aggregation.inputs();
         }
-        if (keys.size() == 1) {
-            Symbol key = keys.get(0);
-            if (DataTypes.NUMERIC_PRIMITIVE_TYPES.contains(key.valueType()) &&
-                !key.valueType().equals(DataTypes.FLOAT) &&
-                !key.valueType().equals(DataTypes.DOUBLE)) {
-                collector = new GroupBySingleNumberCollector(
-                    key.valueType(),
-                    collectExpressions,
-                    mode,
-                    functions,
-                    inputs,
-                    ramAccountingContext,
-                    keyInputs.get(0),
-                    indexVersionCreated,
-                    bigArrays
-                );
-            } else {
-                collector = GroupingCollector.singleKey(
-                    collectExpressions,
-                    mode,
-                    functions,
-                    inputs,
-                    ramAccountingContext,
-                    keyInputs.get(0),
-                    key.valueType(),
-                    indexVersionCreated,
-                    bigArrays
-                );
-            }
-        } else {
-            //noinspection unchecked
-            collector = (GroupingCollector<Object>) (GroupingCollector) GroupingCollector.manyKeys(
-                collectExpressions,
-                mode,
-                functions,
-                inputs,
-                ramAccountingContext,
-                keyInputs,
-                typeView(keys),
-                indexVersionCreated,
-                bigArrays
-            );
-        }
+        collector = GroupingCollector.manyKeys(
+            collectExpressions,
+            mode,
+            functions,
+            inputs,
+            ramAccountingContext,
+            keyInputs,
+            typeView(keys),
+            indexVersionCreated,
+            bigArrays,
+            spillFiles
+        );
     }
 
     private static boolean allTypesKnown(List<? extends DataType> keyTypes) {
@@ -116,10 +88,18 @@ public class GroupingProjector implements Projector {
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
-        return CollectingBatchIterator.newInstance(batchIterator, collector);
+        GroupingCollector.Groups groups = collector.supplier().get();
+        return CollectingBatchIterator.newInstance(
+            () -> {
+                batchIterator.close();
+                groups.close();
+            },
+            batchIterator::kill,
+            () -> BatchIterators.collect(batchIterator, groups, collector, new CompletableFuture<>())
+        );
     }
 
-    public Collector<Row, ?, Iterable<Row>> getCollector() {
+    public GroupingCollector getCollector() {
         return collector;
     }
 
@@ -0,0 +1,206 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import com.carrotsearch.hppc.BitMixer;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+
+/**
+ * Open-addressing hash table which maps fixed-width keys to dense group ids.
+ *
+ * A key consists of {@code keyWidth} long slots; narrower values (int, short, ...) are widened into one slot each.
+ * The key slots are stored by group id in a single {@link LongArray}, so group ids are assigned in insertion order
+ * (0, 1, 2, ...) and can be used as index into parallel arrays holding the aggregation states.
+ *
+ * <pre>
+ *     slots:  [ 0 | 2 | 0 | 1 | 0 | 0 | 3 | 0 ]   (group id + 1, 0 marks an empty slot)
+ *     keys:   [ k0 | k1 | k2 ]                     (keyWidth longs per group id)
+ * </pre>
+ */
+final class LongGroupTable implements Releasable {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final int keyWidth;
+    private final BigArrays bigArrays;
+
+    private LongArray slots;
+    private LongArray keys;
+    private long mask;
+    private long maxSize;
+    private long size = 0;
+
+    LongGroupTable(int keyWidth, long expectedSize, BigArrays bigArrays) {
+        assert keyWidth > 0 : "keyWidth must be greater than 0";
+        this.keyWidth = keyWidth;
+        this.bigArrays = bigArrays;
+        long capacity = capacityFor(expectedSize);
+        this.slots = bigArrays.newLongArray(capacity, true);
+        this.keys = bigArrays.newLongArray(Math.max(1L, expectedSize) * keyWidth, false);
+        this.mask = capacity - 1;
+        this.maxSize = (long) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Add a single-slot key. Only valid if the table was created with a {@code keyWidth} of 1.
+     *
+     * @return the id of the new group or {@code -1 - id} if the key was already present.
+     */
+    long add(long key) {
+        assert keyWidth == 1 : "add(long) requires a keyWidth of 1";
+        long slot = hash(key) & mask;
+        while (true) {
+            long idPlusOne = slots.get(slot);
+            if (idPlusOne == 0) {
+                long id = size;
+                keys = bigArrays.grow(keys, id + 1);
+                keys.set(id, key);
+                return insert(slot, id);
+            }
+            long id = idPlusOne - 1;
+            if (keys.get(id) == key) {
+                return -1 - id;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Add a key made up of {@code keyWidth} slots.
+     *
+     * @return the id of the new group or {@code -1 - id} if the key was already present.
+     */
+    long add(long[] key) {
+        assert key.length == keyWidth : "key must have keyWidth slots";
+        long slot = hash(key) & mask;
+        while (true) {
+            long idPlusOne = slots.get(slot);
+            if (idPlusOne == 0) {
+                long id = size;
+                long offset = id * keyWidth;
+                keys = bigArrays.grow(keys, offset + keyWidth);
+                for (int i = 0; i < keyWidth; i++) {
+                    keys.set(offset + i, key[i]);
+                }
+                return insert(slot, id);
+            }
+            long id = idPlusOne - 1;
+            if (keyEquals(id, key)) {
+                return -1 - id;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return the value of slot {@code i} of the key belonging to group {@code id}
+     */
+    long get(long id, int i) {
+        assert id < size : "id must be less than size";
+        return keys.get(id * keyWidth + i);
+    }
+
+    long size() {
+        return size;
+    }
+
+    long ramBytesUsed() {
+        return slots.ramBytesUsed() + keys.ramBytesUsed();
+    }
+
+    private long insert(long slot, long id) {
+        slots.set(slot, id + 1);
+        size++;
+        if (size > maxSize) {
+            rehash();
+        }
+        return id;
+    }
+
+    private boolean keyEquals(long id, long[] key) {
+        long offset = id * keyWidth;
+        for (int i = 0; i < keyWidth; i++) {
+            if (keys.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        long capacity = (mask + 1) << 1;
+        LongArray newSlots = bigArrays.newLongArray(capacity, true);
+        long newMask = capacity - 1;
+        for (long id = 0; id < size; id++) {
+            long slot = hashOfId(id) & newMask;
+            while (newSlots.get(slot) != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            newSlots.set(slot, id + 1);
+        }
+        slots.close();
+        slots = newSlots;
+        mask = newMask;
+        maxSize = (long) (capacity * LOAD_FACTOR);
+    }
+
+    private long hashOfId(long id) {
+        if (keyWidth == 1) {
+            return hash(keys.get(id));
+        }
+        long offset = id * keyWidth;
+        long h = 0;
+        for (int i = 0; i < keyWidth; i++) {
+            h = 31 * h + keys.get(offset + i);
+        }
+        return BitMixer.mix64(h);
+    }
+
+    private static long hash(long key) {
+        return BitMixer.mix64(key);
+    }
+
+    private static long hash(long[] key) {
+        long h = 0;
+        for (long k : key) {
+            h = 31 * h + k;
+        }
+        return BitMixer.mix64(h);
+    }
+
+    private static long capacityFor(long expectedSize) {
+        long capacity = 8;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(slots, keys);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.NumericUtils;
+
+import java.io.IOException;
+
+/**
+ * DocValueAggregator for numeric columns, which are stored as {@link SortedNumericDocValues}.
+ *
+ * Integral values are stored as they are, floating point values in their sortable long or int representation,
+ * see {@link #toNumber(DataType, long)}. Both representations have the same order as the values.
+ */
+public abstract class SortedNumericDocValueAggregator implements DocValueAggregator {
+
+    private final String fieldName;
+    private SortedNumericDocValues values;
+
+    protected SortedNumericDocValueAggregator(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    public void loadDocValues(LeafReader reader) throws IOException {
+        values = DocValues.getSortedNumeric(reader, fieldName);
+    }
+
+    @Override
+    public void apply(int doc) throws IOException {
+        // columns of primitive types have at most one value per document
+        if (values.advanceExact(doc)) {
+            apply(values.nextValue());
+        }
+    }
+
+    /**
+     * Called for each document which has a value; {@code docValue} is the raw doc value
+     */
+    protected abstract void apply(long docValue);
+
+    /**
+     * @return true if the column type is stored as {@link SortedNumericDocValues}
+     */
+    public static boolean isNumeric(DataType type) {
+        return isIntegral(type) || isFloatingPoint(type);
+    }
+
+    public static boolean isIntegral(DataType type) {
+        switch (type.id()) {
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID:
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    public static boolean isFloatingPoint(DataType type) {
+        return type.id() == DoubleType.ID || type.id() == FloatType.ID;
+    }
+
+    public static double toDouble(DataType type, long docValue) {
+        switch (type.id()) {
+            case DoubleType.ID:
+                return NumericUtils.sortableLongToDouble(docValue);
+
+            case FloatType.ID:
+                return NumericUtils.sortableIntToFloat((int) docValue);
+
+            default:
+                return docValue;
+        }
+    }
+
+    /**
+     * @return the value of a numeric column with the java type of {@code type}
+     */
+    public static Number toNumber(DataType type, long docValue) {
+        switch (type.id()) {
+            case ByteType.ID:
+                return (byte) docValue;
+
+            case ShortType.ID:
+                return (short) docValue;
+
+            case IntegerType.ID:
+                return (int) docValue;
+
+            case DoubleType.ID:
+                return NumericUtils.sortableLongToDouble(docValue);
+
+            case FloatType.ID:
+                return NumericUtils.sortableIntToFloat((int) docValue);
+
+            default:
+                return docValue;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import com.carrotsearch.hppc.BitMixer;
+import io.crate.Streamer;
+import io.crate.execution.engine.SpillFile;
+import io.crate.execution.engine.SpillFiles;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Group keys and partial aggregation states which have been written to {@link SpillFile}s
+ * because they didn't fit into memory.
+ *
+ * Groups are hash-partitioned by key, so that all spilled occurrences of a key end up in the same partition.
+ * Each partition can then be merged on its own, which requires only a fraction of the memory of all groups.
+ *
+ * Cells are written with the {@link Streamer}s of the key types followed by the {@link Streamer}s of the
+ * partial types of the aggregations; states are prefixed with a presence flag as they may be null.
+ */
+final class SpilledGroups implements Releasable {
+
+    static final int NUM_PARTITIONS = 16;
+
+    private final SpillFiles spillFiles;
+    private final Streamer[] keyStreamers;
+    private final Streamer[] stateStreamers;
+    private final SpillFile[] files = new SpillFile[NUM_PARTITIONS];
+    private final long[] numGroups = new long[NUM_PARTITIONS];
+
+    SpilledGroups(SpillFiles spillFiles, Streamer[] keyStreamers, Streamer[] stateStreamers) {
+        this.spillFiles = spillFiles;
+        this.keyStreamers = keyStreamers;
+        this.stateStreamers = stateStreamers;
+    }
+
+    static int partition(Object[] cells, int numKeyColumns) {
+        int hash = 1;
+        for (int i = 0; i < numKeyColumns; i++) {
+            Object key = cells[i];
+            hash = 31 * hash + (key == null ? 0 : (key instanceof Object[] ? Arrays.hashCode((Object[]) key) : key.hashCode()));
+        }
+        return (BitMixer.mix32(hash) & Integer.MAX_VALUE) % NUM_PARTITIONS;
+    }
+
+    /**
+     * Write a group; {@code cells} contains the keys followed by the partial states
+     */
+    void write(Object[] cells) {
+        int partition = partition(cells, keyStreamers.length);
+        SpillFile file = files[partition];
+        if (file == null) {
+            file = spillFiles.newFile("groups-");
+            files[partition] = file;
+        }
+        StreamOutput out = file.output();
+        try {
+            int c = 0;
+            for (Streamer keyStreamer : keyStreamers) {
+                //noinspection unchecked
+                keyStreamer.writeValueTo(out, cells[c]);
+                c++;
+            }
+            for (Streamer stateStreamer : stateStreamers) {
+                Object state = cells[c];
+                out.writeBoolean(state != null);
+                if (state != null) {
+                    //noinspection unchecked
+                    stateStreamer.writeValueTo(out, state);
+                }
+                c++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        numGroups[partition]++;
+    }
+
+    /**
+     * Flush and close all partition files. Must be called once all groups have been written.
+     */
+    void finishWriting() {
+        for (SpillFile file : files) {
+            if (file != null) {
+                file.finishWriting();
+            }
+        }
+    }
+
+    /**
+     * Read all groups of a partition. The cells array passed to {@code consumer} is re-used.
+     */
+    void read(int partition, Consumer<Object[]> consumer) {
+        SpillFile file = files[partition];
+        if (file == null) {
+            return;
+        }
+        Object[] cells = new Object[keyStreamers.length + stateStreamers.length];
+        try (StreamInput in = file.newInput()) {
+            for (long i = 0; i < numGroups[partition]; i++) {
+                int c = 0;
+                for (Streamer keyStreamer : keyStreamers) {
+                    cells[c] = keyStreamer.readValueFrom(in);
+                    c++;
+                }
+                for (Streamer stateStreamer : stateStreamers) {
+                    cells[c] = in.readBoolean() ? stateStreamer.readValueFrom(in) : null;
+                    c++;
+                }
+                consumer.accept(cells);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(files);
+        Arrays.fill(files, null);
+    }
+}
@@ -26,6 +26,8 @@ import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.types.DataType;
@@ -35,9 +37,11 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.List;
 
 public class AverageAggregation extends AggregationFunction<AverageAggregation.AverageState, Double> {
 
@@ -206,4 +210,36 @@ public class AverageAggregation extends AggregationFunction<AverageAggregation.A
     public FunctionInfo info() {
         return info;
     }
+
+    @Nullable
+    @Override
+    public DocValueAggregator getDocValueAggregator(List<MappedFieldType> fieldTypes) {
+        DataType argumentType = info.ident().argumentTypes().get(0);
+        if (!SortedNumericDocValueAggregator.isNumeric(argumentType)) {
+            return null;
+        }
+        return new AverageDocValueAggregator(fieldTypes.get(0).name(), argumentType);
+    }
+
+    private static class AverageDocValueAggregator extends SortedNumericDocValueAggregator {
+
+        private final DataType type;
+        private final AverageState state = new AverageState();
+
+        AverageDocValueAggregator(String fieldName, DataType type) {
+            super(fieldName);
+            this.type = type;
+        }
+
+        @Override
+        protected void apply(long docValue) {
+            state.count++;
+            state.sum += toDouble(type, docValue);
+        }
+
+        @Override
+        public Object partialResult() {
+            return state;
+        }
+    }
 }
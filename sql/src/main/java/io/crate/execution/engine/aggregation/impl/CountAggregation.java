@@ -26,6 +26,9 @@ import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.LiveDocsAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
 import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
@@ -40,10 +43,14 @@ import io.crate.metadata.functions.params.Param;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.FixedWidthType;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -153,6 +160,94 @@ public class CountAggregation extends AggregationFunction<CountAggregation.LongS
         return LongStateType.INSTANCE;
     }
 
+    @Nullable
+    @Override
+    public DocValueAggregator getDocValueAggregator(List<MappedFieldType> fieldTypes) {
+        if (!hasArgs) {
+            return new CountStarDocValueAggregator();
+        }
+        DataType argumentType = info.ident().argumentTypes().get(0);
+        String fieldName = fieldTypes.get(0).name();
+        if (SortedNumericDocValueAggregator.isNumeric(argumentType)) {
+            return new NumericCountDocValueAggregator(fieldName);
+        }
+        if (argumentType.equals(DataTypes.STRING)) {
+            return new StringCountDocValueAggregator(fieldName);
+        }
+        return null;
+    }
+
+    private static class CountStarDocValueAggregator implements LiveDocsAggregator {
+
+        private long count = 0L;
+
+        @Override
+        public void loadDocValues(LeafReader reader) {
+        }
+
+        @Override
+        public void apply(int doc) {
+            count++;
+        }
+
+        @Override
+        public void applyLiveDocs(LeafReader reader) {
+            count += reader.numDocs();
+        }
+
+        @Override
+        public Object partialResult() {
+            return new LongState(count);
+        }
+    }
+
+    private static class NumericCountDocValueAggregator extends SortedNumericDocValueAggregator {
+
+        private long count = 0L;
+
+        NumericCountDocValueAggregator(String fieldName) {
+            super(fieldName);
+        }
+
+        @Override
+        protected void apply(long docValue) {
+            count++;
+        }
+
+        @Override
+        public Object partialResult() {
+            return new LongState(count);
+        }
+    }
+
+    private static class StringCountDocValueAggregator implements DocValueAggregator {
+
+        private final String fieldName;
+        private SortedSetDocValues values;
+        private long count = 0L;
+
+        StringCountDocValueAggregator(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public void loadDocValues(LeafReader reader) throws IOException {
+            values = DocValues.getSortedSet(reader, fieldName);
+        }
+
+        @Override
+        public void apply(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                count++;
+            }
+        }
+
+        @Override
+        public Object partialResult() {
+            return new LongState(count);
+        }
+    }
+
     @Override
     public LongState reduce(RamAccountingContext ramAccountingContext, LongState state1, LongState state2) {
         return state1.merge(state2);
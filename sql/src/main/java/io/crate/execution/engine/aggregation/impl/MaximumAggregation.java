@@ -29,14 +29,18 @@ import io.crate.data.Input;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.FixedWidthType;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
+import java.util.List;
 
 public abstract class MaximumAggregation extends AggregationFunction<Comparable, Comparable> {
 
@@ -150,4 +154,43 @@ public abstract class MaximumAggregation extends AggregationFunction<Comparable,
     public Comparable terminatePartial(RamAccountingContext ramAccountingContext, Comparable state) {
         return state;
     }
+
+    @Nullable
+    @Override
+    public DocValueAggregator getDocValueAggregator(List<MappedFieldType> fieldTypes) {
+        DataType argumentType = info.ident().argumentTypes().get(0);
+        if (!SortedNumericDocValueAggregator.isNumeric(argumentType)) {
+            return null;
+        }
+        return new MaximumDocValueAggregator(fieldTypes.get(0).name(), argumentType);
+    }
+
+    /**
+     * Compares the raw doc values, they have the same order as the values.
+     */
+    private static class MaximumDocValueAggregator extends SortedNumericDocValueAggregator {
+
+        private final DataType type;
+        private long max;
+        private boolean hasValue = false;
+
+        MaximumDocValueAggregator(String fieldName, DataType type) {
+            super(fieldName);
+            this.type = type;
+        }
+
+        @Override
+        protected void apply(long docValue) {
+            if (!hasValue || docValue > max) {
+                max = docValue;
+                hasValue = true;
+            }
+        }
+
+        @Nullable
+        @Override
+        public Object partialResult() {
+            return hasValue ? toNumber(type, max) : null;
+        }
+    }
 }
@@ -30,13 +30,17 @@ import io.crate.exceptions.CircuitBreakingException;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.FixedWidthType;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
+import java.util.List;
 
 public abstract class MinimumAggregation extends AggregationFunction<Comparable, Comparable> {
 
@@ -149,4 +153,43 @@ public abstract class MinimumAggregation extends AggregationFunction<Comparable,
     public Comparable iterate(RamAccountingContext ramAccountingContext, Comparable state, Input... args) throws CircuitBreakingException {
         return reduce(ramAccountingContext, state, (Comparable) args[0].value());
     }
+
+    @Nullable
+    @Override
+    public DocValueAggregator getDocValueAggregator(List<MappedFieldType> fieldTypes) {
+        DataType argumentType = info.ident().argumentTypes().get(0);
+        if (!SortedNumericDocValueAggregator.isNumeric(argumentType)) {
+            return null;
+        }
+        return new MinimumDocValueAggregator(fieldTypes.get(0).name(), argumentType);
+    }
+
+    /**
+     * Compares the raw doc values, they have the same order as the values.
+     */
+    private static class MinimumDocValueAggregator extends SortedNumericDocValueAggregator {
+
+        private final DataType type;
+        private long min;
+        private boolean hasValue = false;
+
+        MinimumDocValueAggregator(String fieldName, DataType type) {
+            super(fieldName);
+            this.type = type;
+        }
+
+        @Override
+        protected void apply(long docValue) {
+            if (!hasValue || docValue < min) {
+                min = docValue;
+                hasValue = true;
+            }
+        }
+
+        @Nullable
+        @Override
+        public Object partialResult() {
+            return hasValue ? toNumber(type, min) : null;
+        }
+    }
 }
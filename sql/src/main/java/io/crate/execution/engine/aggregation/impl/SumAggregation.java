@@ -25,16 +25,23 @@ import com.google.common.annotations.VisibleForTesting;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.Input;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.SortedNumericDocValueAggregator;
 import io.crate.metadata.FunctionIdent;
 import io.crate.metadata.FunctionInfo;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.mapper.MappedFieldType;
 
 import javax.annotation.Nullable;
 import java.util.Collections;
+import java.util.List;
 import java.util.function.BinaryOperator;
 
 public class SumAggregation<T extends Number> extends AggregationFunction<T, T> {
@@ -126,4 +133,90 @@ public class SumAggregation<T extends Number> extends AggregationFunction<T, T>
     public FunctionInfo info() {
         return info;
     }
+
+    @Nullable
+    @Override
+    public DocValueAggregator getDocValueAggregator(List<MappedFieldType> fieldTypes) {
+        DataType argumentType = info.ident().argumentTypes().get(0);
+        String fieldName = fieldTypes.get(0).name();
+        if (SortedNumericDocValueAggregator.isIntegral(argumentType)) {
+            return new LongSumDocValueAggregator(fieldName);
+        }
+        switch (argumentType.id()) {
+            case DoubleType.ID:
+                return new DoubleSumDocValueAggregator(fieldName);
+
+            case FloatType.ID:
+                return new FloatSumDocValueAggregator(fieldName);
+
+            default:
+                return null;
+        }
+    }
+
+    private static class LongSumDocValueAggregator extends SortedNumericDocValueAggregator {
+
+        private long sum = 0L;
+        private boolean hasValue = false;
+
+        LongSumDocValueAggregator(String fieldName) {
+            super(fieldName);
+        }
+
+        @Override
+        protected void apply(long docValue) {
+            sum = Math.addExact(sum, docValue);
+            hasValue = true;
+        }
+
+        @Nullable
+        @Override
+        public Object partialResult() {
+            return hasValue ? sum : null;
+        }
+    }
+
+    private static class DoubleSumDocValueAggregator extends SortedNumericDocValueAggregator {
+
+        private double sum = 0d;
+        private boolean hasValue = false;
+
+        DoubleSumDocValueAggregator(String fieldName) {
+            super(fieldName);
+        }
+
+        @Override
+        protected void apply(long docValue) {
+            sum += NumericUtils.sortableLongToDouble(docValue);
+            hasValue = true;
+        }
+
+        @Nullable
+        @Override
+        public Object partialResult() {
+            return hasValue ? sum : null;
+        }
+    }
+
+    private static class FloatSumDocValueAggregator extends SortedNumericDocValueAggregator {
+
+        private float sum = 0f;
+        private boolean hasValue = false;
+
+        FloatSumDocValueAggregator(String fieldName) {
+            super(fieldName);
+        }
+
+        @Override
+        protected void apply(long docValue) {
+            sum += NumericUtils.sortableIntToFloat((int) docValue);
+            hasValue = true;
+        }
+
+        @Nullable
+        @Override
+        public Object partialResult() {
+            return hasValue ? sum : null;
+        }
+    }
 }
@@ -30,6 +30,7 @@ import io.crate.data.Row;
 import io.crate.data.SentinelRow;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.collectors.BlobOrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
 import io.crate.execution.jobs.NodeJobsCounter;
@@ -60,9 +61,10 @@ public class BlobShardCollectorProvider extends ShardCollectorProvider {
                                       ThreadPool threadPool,
                                       Settings settings,
                                       TransportActionProvider transportActionProvider,
-                                      BigArrays bigArrays) {
+                                      BigArrays bigArrays,
+                                      SpillFiles spillFiles) {
         super(clusterService, schemas, nodeJobsCounter, functions, threadPool, settings, transportActionProvider,
-            blobShard.indexShard(), new ShardRowContext(blobShard, clusterService), bigArrays);
+            blobShard.indexShard(), new ShardRowContext(blobShard, clusterService), bigArrays, spillFiles);
         inputFactory = new InputFactory(functions);
         this.blobShard = blobShard;
     }
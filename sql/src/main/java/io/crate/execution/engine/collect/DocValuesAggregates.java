@@ -0,0 +1,235 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.CollectingBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.AggregationProjection;
+import io.crate.execution.dsl.projection.Projection;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.LiveDocsAggregator;
+import io.crate.execution.jobs.SharedShardContext;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Aggregation;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
+import io.crate.lucene.FieldTypeLookup;
+import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.metadata.Functions;
+import io.crate.metadata.Reference;
+import io.crate.metadata.doc.DocSysColumns;
+import io.crate.types.CollectionType;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static io.crate.concurrent.CompletableFutures.failedFuture;
+import static io.crate.execution.dsl.projection.Projections.shardProjections;
+
+/**
+ * Global aggregation (without GROUP BY) on columns with doc values which aggregates the doc values directly
+ * using {@link DocValueAggregator}s, instead of collecting rows and feeding them into the aggregation functions.
+ *
+ * Segments of which all documents match are aggregated at once if all aggregators support it (e.g. count(*)).
+ */
+final class DocValuesAggregates {
+
+    private DocValuesAggregates() {
+    }
+
+    @Nullable
+    static BatchIterator<Row> tryOptimize(IndexShard indexShard,
+                                          LuceneQueryBuilder luceneQueryBuilder,
+                                          FieldTypeLookup fieldTypeLookup,
+                                          Functions functions,
+                                          RoutedCollectPhase collectPhase,
+                                          CollectTask collectTask) {
+        Collection<? extends Projection> shardProjections = shardProjections(collectPhase.projections());
+        AggregationProjection aggregationProjection = getPartialAggregationProjection(shardProjections);
+        if (aggregationProjection == null) {
+            return null;
+        }
+        if (Symbols.containsColumn(collectPhase.where(), DocSysColumns.SCORE)) {
+            return null;
+        }
+        List<DocValueAggregator> aggregators = createAggregators(
+            functions, aggregationProjection.aggregations(), collectPhase.toCollect(), fieldTypeLookup);
+        if (aggregators == null) {
+            return null;
+        }
+
+        ShardId shardId = indexShard.shardId();
+        SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(shardId);
+        Engine.Searcher searcher = sharedShardContext.acquireSearcher();
+        try {
+            QueryShardContext queryShardContext = sharedShardContext.indexService().newQueryShardContext(
+                shardId.getId(),
+                searcher.reader(),
+                System::currentTimeMillis,
+                null
+            );
+            collectTask.addSearcher(sharedShardContext.readerId(), searcher);
+            LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
+                collectPhase.where(),
+                indexShard.mapperService(),
+                queryShardContext,
+                sharedShardContext.indexService().cache()
+            );
+            return CollectingBatchIterator.newInstance(
+                searcher::close,
+                t -> {},
+                () -> {
+                    try {
+                        return CompletableFuture.completedFuture(
+                            aggregate(searcher.searcher(), queryContext.query(), aggregators));
+                    } catch (Throwable t) {
+                        return failedFuture(t);
+                    }
+                }
+            );
+        } catch (Throwable t) {
+            searcher.close();
+            throw t;
+        }
+    }
+
+    @Nullable
+    private static AggregationProjection getPartialAggregationProjection(Collection<? extends Projection> shardProjections) {
+        if (shardProjections.size() != 1) {
+            return null;
+        }
+        Projection shardProjection = shardProjections.iterator().next();
+        if (!(shardProjection instanceof AggregationProjection)) {
+            return null;
+        }
+        AggregationProjection aggregationProjection = (AggregationProjection) shardProjection;
+        if (aggregationProjection.mode() != AggregateMode.ITER_PARTIAL) {
+            return null;
+        }
+        return aggregationProjection;
+    }
+
+    @Nullable
+    private static List<DocValueAggregator> createAggregators(Functions functions,
+                                                              List<Aggregation> aggregations,
+                                                              List<Symbol> toCollect,
+                                                              FieldTypeLookup fieldTypeLookup) {
+        List<DocValueAggregator> aggregators = new ArrayList<>(aggregations.size());
+        for (Aggregation aggregation : aggregations) {
+            List<MappedFieldType> fieldTypes = new ArrayList<>(aggregation.inputs().size());
+            for (Symbol input : aggregation.inputs()) {
+                MappedFieldType fieldType = getFieldType(input, toCollect, fieldTypeLookup);
+                if (fieldType == null) {
+                    return null;
+                }
+                fieldTypes.add(fieldType);
+            }
+            AggregationFunction function = (AggregationFunction) functions.getQualified(aggregation.functionIdent());
+            DocValueAggregator aggregator = function.getDocValueAggregator(fieldTypes);
+            if (aggregator == null) {
+                return null;
+            }
+            aggregators.add(aggregator);
+        }
+        return aggregators;
+    }
+
+    @Nullable
+    private static MappedFieldType getFieldType(Symbol input, List<Symbol> toCollect, FieldTypeLookup fieldTypeLookup) {
+        if (!(input instanceof InputColumn)) {
+            return null;
+        }
+        Symbol collected = toCollect.get(((InputColumn) input).index());
+        if (!(collected instanceof Reference) || collected.valueType() instanceof CollectionType) {
+            return null;
+        }
+        MappedFieldType fieldType = fieldTypeLookup.get(((Reference) collected).column().fqn());
+        if (fieldType == null || !fieldType.hasDocValues()) {
+            return null;
+        }
+        return fieldType;
+    }
+
+    static Iterable<Row> aggregate(IndexSearcher searcher,
+                                   Query query,
+                                   List<DocValueAggregator> aggregators) throws IOException {
+        boolean useLiveDocsShortcut = query instanceof MatchAllDocsQuery;
+        for (DocValueAggregator aggregator : aggregators) {
+            useLiveDocsShortcut &= aggregator instanceof LiveDocsAggregator;
+        }
+        Weight weight = searcher.createNormalizedWeight(query, false);
+        for (LeafReaderContext leaf : searcher.getTopReaderContext().leaves()) {
+            if (useLiveDocsShortcut) {
+                for (DocValueAggregator aggregator : aggregators) {
+                    ((LiveDocsAggregator) aggregator).applyLiveDocs(leaf.reader());
+                }
+                continue;
+            }
+            Scorer scorer = weight.scorer(leaf);
+            if (scorer == null) {
+                continue;
+            }
+            for (DocValueAggregator aggregator : aggregators) {
+                aggregator.loadDocValues(leaf.reader());
+            }
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            DocIdSetIterator docs = scorer.iterator();
+            for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+                if (liveDocs != null && !liveDocs.get(doc)) {
+                    continue;
+                }
+                for (DocValueAggregator aggregator : aggregators) {
+                    aggregator.apply(doc);
+                }
+            }
+        }
+        Object[] cells = new Object[aggregators.size()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = aggregators.get(i).partialResult();
+        }
+        return Collections.singletonList(new RowN(cells));
+    }
+}
@@ -22,7 +22,6 @@
 
 package io.crate.execution.engine.collect;
 
-import io.crate.breaker.BytesRefSizeEstimator;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
@@ -41,14 +40,28 @@ import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
 import io.crate.expression.symbol.Symbols;
 import io.crate.lucene.FieldTypeLookup;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.Reference;
 import io.crate.metadata.doc.DocSysColumns;
-import io.crate.types.DataTypes;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -56,9 +69,9 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.util.BigArrays;
-import org.elasticsearch.common.util.ObjectArray;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -68,12 +81,16 @@ import org.elasticsearch.index.shard.ShardId;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
-import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static io.crate.breaker.RamAccountingContext.roundUp;
@@ -81,6 +98,14 @@ import static io.crate.concurrent.CompletableFutures.failedFuture;
 import static io.crate.execution.dsl.projection.Projections.shardProjections;
 import static io.crate.execution.engine.collect.LuceneShardCollectorProvider.getCollectorContext;
 
+/**
+ * GROUP BY on columns with doc values which aggregates directly on the doc values instead of the column values.
+ *
+ * Each key column is mapped to a dense id per document: string columns to their global ordinal, integral
+ * numeric columns to the offset of the value from the minimum value of the shard. {@code null} gets the id after the
+ * last value. The ids of all keys are combined into a single index into a dense array of aggregation states,
+ * so no hashing and no copying of keys is required per document. Keys are only resolved to values for the resulting rows.
+ */
 final class GroupByOptimizedIterator {
 
     /**
@@ -96,31 +121,51 @@ final class GroupByOptimizedIterator {
      *              0.25 |     +38.79%
      *
      * (+ being faster, - being slower)
+     *
+     * With several keys the cardinality is the number of possible key combinations.
      */
     private static final double CARDINALITY_RATIO_THRESHOLD = 0.5;
 
+    private static final long STATES_SHALLOW_SIZE = RamUsageEstimator.NUM_BYTES_ARRAY_HEADER;
+
+    /**
+     * Upper bound for the number of slots of the dense array of group states (8mb with compressed oops).
+     * The number of possible key combinations of numeric keys is derived from their range and can be as large as
+     * maxDoc, so it doesn't say much about the actual number of groups.
+     */
+    static final int MAX_DENSE_SLOTS = 2 * 1024 * 1024;
+
     @Nullable
-    static BatchIterator<Row> tryOptimizeSingleStringKey(IndexShard indexShard,
-                                                         LuceneQueryBuilder luceneQueryBuilder,
-                                                         FieldTypeLookup fieldTypeLookup,
-                                                         BigArrays bigArrays,
-                                                         InputFactory inputFactory,
-                                                         DocInputFactory docInputFactory,
-                                                         RoutedCollectPhase collectPhase,
-                                                         CollectTask collectTask) {
+    static BatchIterator<Row> tryOptimize(IndexShard indexShard,
+                                          LuceneQueryBuilder luceneQueryBuilder,
+                                          FieldTypeLookup fieldTypeLookup,
+                                          BigArrays bigArrays,
+                                          InputFactory inputFactory,
+                                          DocInputFactory docInputFactory,
+                                          RoutedCollectPhase collectPhase,
+                                          CollectTask collectTask) {
         Collection<? extends Projection> shardProjections = shardProjections(collectPhase.projections());
-        GroupProjection groupProjection = getSingleStringKeyGroupProjection(shardProjections);
+        GroupProjection groupProjection = getGroupProjection(shardProjections);
         if (groupProjection == null) {
             return null;
         }
-        assert groupProjection.keys().size() == 1 : "Must have 1 key if getSingleStringKeyGroupProjection returned a projection";
-        Reference keyRef = getKeyRef(collectPhase.toCollect(), groupProjection.keys().get(0));
-        if (keyRef == null) {
-            return null; // group by on non-reference
-        }
-        MappedFieldType keyFieldType = fieldTypeLookup.get(keyRef.column().fqn());
-        if (keyFieldType == null || !keyFieldType.hasDocValues()) {
-            return null;
+        List<Reference> keyRefs = new ArrayList<>(groupProjection.keys().size());
+        List<KeyColumn> keyColumns = new ArrayList<>(groupProjection.keys().size());
+        for (Symbol key : groupProjection.keys()) {
+            Reference keyRef = getKeyRef(collectPhase.toCollect(), key);
+            if (keyRef == null) {
+                return null; // group by on non-reference
+            }
+            MappedFieldType keyFieldType = fieldTypeLookup.get(keyRef.column().fqn());
+            if (keyFieldType == null || !keyFieldType.hasDocValues()) {
+                return null;
+            }
+            KeyColumn keyColumn = KeyColumn.of(keyFieldType, keyRef.valueType());
+            if (keyColumn == null) {
+                return null;
+            }
+            keyRefs.add(keyRef);
+            keyColumns.add(keyColumn);
         }
         if (Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE)
             || Symbols.containsColumn(collectPhase.where(), DocSysColumns.SCORE)) {
@@ -128,7 +173,7 @@ final class GroupByOptimizedIterator {
             // to keep the optimized implementation a bit simpler
             return null;
         }
-        if (hasHighCardinalityRatio(() -> indexShard.acquireSearcher("group-by-cardinality-check"), keyFieldType.name())) {
+        if (hasHighCardinalityRatio(() -> indexShard.acquireSearcher("group-by-cardinality-check"), keyColumns)) {
             return null;
         }
 
@@ -144,9 +189,19 @@ final class GroupByOptimizedIterator {
             );
             collectTask.addSearcher(sharedShardContext.readerId(), searcher);
 
+            // the keys are read from the doc values directly; a literal keeps the positions of the other columns.
+            // Keys which are also aggregation inputs (e.g. count(x) ... group by x) must still be collected.
             InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx = docInputFactory.getCtx();
-            docCtx.add(collectPhase.toCollect().stream().filter(s -> !s.equals(keyRef))::iterator);
-            IndexOrdinalsFieldData keyIndexFieldData = queryShardContext.getForField(keyFieldType);
+            List<Symbol> toCollect = new ArrayList<>(collectPhase.toCollect().size());
+            for (int i = 0; i < collectPhase.toCollect().size(); i++) {
+                Symbol symbol = collectPhase.toCollect().get(i);
+                if (keyRefs.contains(symbol) && !isAggregationInput(groupProjection.values(), i)) {
+                    toCollect.add(Literal.of(symbol.valueType(), null));
+                } else {
+                    toCollect.add(symbol);
+                }
+            }
+            docCtx.add(toCollect);
 
             InputFactory.Context<CollectExpression<Row, ?>> ctxForAggregations = inputFactory.ctxForAggregations();
             ctxForAggregations.add(groupProjection.values());
@@ -175,12 +230,15 @@ final class GroupByOptimizedIterator {
                 t -> {},
                 () -> {
                     try {
+                        for (KeyColumn keyColumn : keyColumns) {
+                            keyColumn.bind(searcher, queryShardContext);
+                        }
                         return CompletableFuture.completedFuture(
                             getRows(
-                                applyAggregatesGroupedByKey(
+                                applyAggregatesGroupedByKeys(
                                     bigArrays,
                                     searcher,
-                                    keyIndexFieldData,
+                                    keyColumns,
                                     ctxForAggregations,
                                     aggregations,
                                     expressions,
@@ -188,6 +246,7 @@ final class GroupByOptimizedIterator {
                                     inputRow,
                                     queryContext
                                 ),
+                                keyColumns,
                                 ramAccounting,
                                 aggregations,
                                 groupProjection.mode()
@@ -204,66 +263,85 @@ final class GroupByOptimizedIterator {
         }
     }
 
-    static boolean hasHighCardinalityRatio(Supplier<Engine.Searcher> acquireSearcher, String fieldName) {
+    static boolean hasHighCardinalityRatio(Supplier<Engine.Searcher> acquireSearcher, List<KeyColumn> keyColumns) {
         // acquire separate searcher:
         // Can't use sharedShardContexts() yet, if we bail out the "getOrCreateContext" causes issues later on in the fallback logic
         try (Engine.Searcher searcher = acquireSearcher.get()) {
-            for (LeafReaderContext leaf : searcher.reader().leaves()) {
-                Terms terms = leaf.reader().terms(fieldName);
-                if (terms == null) {
-                    return true;
-                }
-                double cardinalityRatio = terms.size() / (double) leaf.reader().numDocs();
-                if (cardinalityRatio > CARDINALITY_RATIO_THRESHOLD) {
+            IndexReader reader = searcher.reader();
+            long numGroups = 1;
+            for (KeyColumn keyColumn : keyColumns) {
+                long cardinality = keyColumn.maxCardinality(reader);
+                if (cardinality < 0) {
                     return true;
                 }
+                numGroups = multiplySaturated(numGroups, cardinality + 1);
             }
+            return numGroups / (double) reader.numDocs() > CARDINALITY_RATIO_THRESHOLD;
         } catch (IOException e) {
             return true;
         }
-        return false;
     }
 
-    private static Iterable<Row> getRows(Map<BytesRef, Object[]> groupedStates,
+    private static long multiplySaturated(long a, long b) {
+        try {
+            return Math.multiplyExact(a, b);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static Iterable<Row> getRows(GroupStates groups,
+                                         List<KeyColumn> keyColumns,
                                          RamAccountingContext ramAccounting,
                                          List<AggregationContext> aggregations,
                                          AggregateMode mode) {
-        return () -> groupedStates.entrySet().stream()
-            .map(new Function<Map.Entry<BytesRef, Object[]>, Row>() {
+        return () -> new Iterator<Row>() {
 
-                final Object[] cells = new Object[1 + aggregations.size()];
-                final RowN row = new RowN(cells);
+            final Iterator<Map.Entry<long[], Object[]>> it = groups.iterator();
+            final Object[] cells = new Object[keyColumns.size() + aggregations.size()];
+            final RowN row = new RowN(cells);
 
-                @Override
-                public Row apply(Map.Entry<BytesRef, Object[]> entry) {
-                    cells[0] = entry.getKey();
-                    Object[] states = entry.getValue();
-                    for (int i = 0, c = 1; i < states.length; i++, c++) {
-                        //noinspection unchecked
-                        cells[c] = mode.finishCollect(ramAccounting, aggregations.get(i).function(), states[i]);
-                    }
-                    return row;
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Row next() {
+                Map.Entry<long[], Object[]> group = it.next();
+                long[] ids = group.getKey();
+                int c = 0;
+                for (int i = 0; i < ids.length; i++, c++) {
+                    cells[c] = keyColumns.get(i).value(ids[i]);
+                }
+                Object[] states = group.getValue();
+                for (int i = 0; i < states.length; i++, c++) {
+                    //noinspection unchecked
+                    cells[c] = mode.finishCollect(ramAccounting, aggregations.get(i).function(), states[i]);
                 }
-            })
-            .iterator();
+                return row;
+            }
+        };
     }
 
-    private static Map<BytesRef, Object[]> applyAggregatesGroupedByKey(BigArrays bigArrays,
-                                                                       Engine.Searcher searcher,
-                                                                       IndexOrdinalsFieldData keyIndexFieldData,
-                                                                       InputFactory.Context<CollectExpression<Row, ?>> ctxForAggregations,
-                                                                       List<AggregationContext> aggregations,
-                                                                       List<? extends LuceneCollectorExpression<?>> expressions,
-                                                                       RamAccountingContext ramAccounting,
-                                                                       InputRow inputRow,
-                                                                       LuceneQueryBuilder.Context queryContext) throws IOException {
-        final Map<BytesRef, Object[]> statesByKey = new HashMap<>();
+    private static GroupStates applyAggregatesGroupedByKeys(BigArrays bigArrays,
+                                                            Engine.Searcher searcher,
+                                                            List<KeyColumn> keyColumns,
+                                                            InputFactory.Context<CollectExpression<Row, ?>> ctxForAggregations,
+                                                            List<AggregationContext> aggregations,
+                                                            List<? extends LuceneCollectorExpression<?>> expressions,
+                                                            RamAccountingContext ramAccounting,
+                                                            InputRow inputRow,
+                                                            LuceneQueryBuilder.Context queryContext) throws IOException {
         final Weight weight = searcher.searcher().createNormalizedWeight(queryContext.query(), false);
         final List<LeafReaderContext> leaves = searcher.searcher().getTopReaderContext().leaves();
         final List<CollectExpression<Row, ?>> aggExpressions = ctxForAggregations.expressions();
-        Object[] nullStates = null;
+        final KeyColumn[] keys = keyColumns.toArray(new KeyColumn[0]);
+        final long[] ids = new long[keys.length];
+        final long statesSize = roundUp(STATES_SHALLOW_SIZE + aggregations.size() * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
 
-        for (LeafReaderContext leaf: leaves) {
+        GroupStates groups = GroupStates.create(keys, searcher.reader().maxDoc(), ramAccounting);
+        for (LeafReaderContext leaf : leaves) {
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
@@ -271,69 +349,34 @@ final class GroupByOptimizedIterator {
             for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
                 expressions.get(i).setNextReader(leaf);
             }
-            SortedSetDocValues values = keyIndexFieldData.load(leaf).getOrdinalsValues();
-            try (ObjectArray<Object[]> statesByOrd = bigArrays.newObjectArray(values.getValueCount())) {
-                DocIdSetIterator docs = scorer.iterator();
-                Bits liveDocs = leaf.reader().getLiveDocs();
-                for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
-                    if (docDeleted(liveDocs, doc)) {
-                        continue;
-                    }
-                    for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
-                        expressions.get(i).setNextDocId(doc);
-                    }
-                    for (int i = 0, expressionsSize = aggExpressions.size(); i < expressionsSize; i++) {
-                        aggExpressions.get(i).setNextRow(inputRow);
-                    }
-                    if (values.advanceExact(doc)) {
-                        long ord = values.nextOrd();
-                        Object[] states = statesByOrd.get(ord);
-                        if (states == null) {
-                            statesByOrd.set(ord, initStates(bigArrays, aggregations, ramAccounting));
-                        } else {
-                            aggregateValues(aggregations, ramAccounting, states);
-                        }
-                        if (values.nextOrd() != SortedSetDocValues.NO_MORE_ORDS) {
-                            throw new GroupByOnArrayUnsupportedException(keyIndexFieldData.getFieldName());
-                        }
-                    } else {
-                        if (nullStates == null) {
-                            nullStates = initStates(bigArrays, aggregations, ramAccounting);
-                        } else {
-                            aggregateValues(aggregations, ramAccounting, nullStates);
-                        }
-                    }
+            for (KeyColumn key : keys) {
+                key.setNextReader(leaf);
+            }
+            DocIdSetIterator docs = scorer.iterator();
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+                if (docDeleted(liveDocs, doc)) {
+                    continue;
                 }
-                for (long ord = 0; ord < statesByOrd.size(); ord++) {
-                    Object[] states = statesByOrd.get(ord);
-                    if (states == null) {
-                        continue;
-                    }
-                    BytesRef sharedKey = values.lookupOrd(ord);
-                    Object[] prevStates = statesByKey.get(sharedKey);
-                    if (prevStates == null) {
-                        long hashMapEntryOverhead = 36L;
-                        ramAccounting.addBytes(roundUp(
-                            BytesRefSizeEstimator.INSTANCE.estimateSize(sharedKey) + hashMapEntryOverhead));
-                        statesByKey.put(BytesRef.deepCopyOf(sharedKey), states);
-                    } else {
-                        for (int i = 0; i < aggregations.size(); i++) {
-                            AggregationContext aggregation = aggregations.get(i);
-                            //noinspection unchecked
-                            prevStates[i] = aggregation.function().reduce(
-                                ramAccounting,
-                                prevStates[i],
-                                states[i]
-                            );
-                        }
-                    }
+                for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
+                    expressions.get(i).setNextDocId(doc);
+                }
+                for (int i = 0, expressionsSize = aggExpressions.size(); i < expressionsSize; i++) {
+                    aggExpressions.get(i).setNextRow(inputRow);
+                }
+                for (int i = 0; i < keys.length; i++) {
+                    ids[i] = keys[i].id(doc);
+                }
+                Object[] states = groups.get(ids);
+                if (states == null) {
+                    ramAccounting.addBytes(statesSize + groups.keyBytesPerGroup());
+                    groups.put(ids, initStates(bigArrays, aggregations, ramAccounting));
+                } else {
+                    aggregateValues(aggregations, ramAccounting, states);
                 }
             }
         }
-        if (nullStates != null) {
-            statesByKey.put(null, nullStates);
-        }
-        return statesByKey;
+        return groups;
     }
 
     private static boolean docDeleted(@Nullable Bits liveDocs, int doc) {
@@ -383,7 +426,17 @@ final class GroupByOptimizedIterator {
         return null;
     }
 
-    private static GroupProjection getSingleStringKeyGroupProjection(Collection<? extends Projection> shardProjections) {
+    static boolean isAggregationInput(List<? extends Symbol> aggregations, int index) {
+        for (Symbol aggregation : aggregations) {
+            if (SymbolVisitors.any(s -> s instanceof InputColumn && ((InputColumn) s).index() == index, aggregation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static GroupProjection getGroupProjection(Collection<? extends Projection> shardProjections) {
         if (shardProjections.size() != 1) {
             return null;
         }
@@ -391,10 +444,388 @@ final class GroupByOptimizedIterator {
         if (!(shardProjection instanceof GroupProjection)) {
             return null;
         }
-        GroupProjection groupProjection = (GroupProjection) shardProjection;
-        if (groupProjection.keys().size() != 1 || groupProjection.keys().get(0).valueType() != DataTypes.STRING) {
-            return null;
+        return (GroupProjection) shardProjection;
+    }
+
+    /**
+     * A key column which maps the doc values of a document to a dense id: {@code 0 <= id < cardinality} for values,
+     * {@code cardinality} for {@code null}.
+     */
+    abstract static class KeyColumn {
+
+        final String fieldName;
+        long cardinality;
+
+        KeyColumn(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        @Nullable
+        static KeyColumn of(MappedFieldType fieldType, DataType type) {
+            switch (type.id()) {
+                case StringType.ID:
+                    return new OrdinalsKeyColumn(fieldType);
+
+                case LongType.ID:
+                case TimestampType.ID:
+                case IntegerType.ID:
+                case ShortType.ID:
+                case ByteType.ID:
+                    return new NumericKeyColumn(fieldType.name(), type);
+
+                default:
+                    // the cardinality of floating point columns can't be derived from their range
+                    return null;
+            }
+        }
+
+        /**
+         * @return an upper bound of the number of distinct values in {@code reader} or -1 if it can't be determined
+         */
+        abstract long maxCardinality(IndexReader reader) throws IOException;
+
+        /**
+         * Prepare the column for reading the doc values of {@code searcher} and determine the exact cardinality.
+         */
+        abstract void bind(Engine.Searcher searcher, QueryShardContext queryShardContext) throws IOException;
+
+        abstract void setNextReader(LeafReaderContext leaf) throws IOException;
+
+        abstract long id(int doc) throws IOException;
+
+        @Nullable
+        abstract Object value(long id);
+    }
+
+    static final class OrdinalsKeyColumn extends KeyColumn {
+
+        private final MappedFieldType fieldType;
+        private IndexOrdinalsFieldData globalOrdinals;
+        private SortedSetDocValues lookup;
+        private SortedSetDocValues values;
+
+        OrdinalsKeyColumn(MappedFieldType fieldType) {
+            super(fieldType.name());
+            this.fieldType = fieldType;
+        }
+
+        @Override
+        long maxCardinality(IndexReader reader) throws IOException {
+            long numTerms = 0;
+            for (LeafReaderContext leaf : reader.leaves()) {
+                Terms terms = leaf.reader().terms(fieldName);
+                if (terms == null) {
+                    return -1;
+                }
+                numTerms += terms.size();
+            }
+            return numTerms;
+        }
+
+        @Override
+        void bind(Engine.Searcher searcher, QueryShardContext queryShardContext) {
+            IndexOrdinalsFieldData fieldData = queryShardContext.getForField(fieldType);
+            globalOrdinals = fieldData.loadGlobal(searcher.getDirectoryReader());
+            List<LeafReaderContext> leaves = searcher.reader().leaves();
+            if (leaves.isEmpty()) {
+                cardinality = 0;
+            } else {
+                lookup = globalOrdinals.load(leaves.get(0)).getOrdinalsValues();
+                cardinality = lookup.getValueCount();
+            }
+        }
+
+        @Override
+        void setNextReader(LeafReaderContext leaf) {
+            values = globalOrdinals.load(leaf).getOrdinalsValues();
+        }
+
+        @Override
+        long id(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                long ord = values.nextOrd();
+                if (values.nextOrd() != SortedSetDocValues.NO_MORE_ORDS) {
+                    throw new GroupByOnArrayUnsupportedException(fieldName);
+                }
+                return ord;
+            }
+            return cardinality;
+        }
+
+        @Override
+        Object value(long id) {
+            if (id == cardinality) {
+                return null;
+            }
+            try {
+                return BytesRef.deepCopyOf(lookup.lookupOrd(id));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    static final class NumericKeyColumn extends KeyColumn {
+
+        private final DataType type;
+        private long min;
+        private SortedNumericDocValues values;
+
+        NumericKeyColumn(String fieldName, DataType type) {
+            super(fieldName);
+            this.type = type;
+        }
+
+        @Override
+        long maxCardinality(IndexReader reader) throws IOException {
+            byte[] minPacked = PointValues.getMinPackedValue(reader, fieldName);
+            byte[] maxPacked = PointValues.getMaxPackedValue(reader, fieldName);
+            if (minPacked == null || maxPacked == null) {
+                return -1;
+            }
+            long range = decode(maxPacked) - decode(minPacked);
+            return range < 0 || range == Long.MAX_VALUE ? Long.MAX_VALUE : range + 1;
+        }
+
+        @Override
+        void bind(Engine.Searcher searcher, QueryShardContext queryShardContext) throws IOException {
+            IndexReader reader = searcher.reader();
+            byte[] minPacked = PointValues.getMinPackedValue(reader, fieldName);
+            byte[] maxPacked = PointValues.getMaxPackedValue(reader, fieldName);
+            if (minPacked == null || maxPacked == null) {
+                min = 0;
+                cardinality = 0;
+            } else {
+                min = decode(minPacked);
+                cardinality = decode(maxPacked) - min + 1;
+                if (cardinality <= 0) {
+                    throw new IllegalStateException("Range of column \"" + fieldName + "\" is too large for GROUP BY on doc values");
+                }
+            }
+        }
+
+        private long decode(byte[] packedValue) {
+            // byte, short and integer columns are indexed as IntPoint, long and timestamp columns as LongPoint
+            if (type.id() == LongType.ID || type.id() == TimestampType.ID) {
+                return LongPoint.decodeDimension(packedValue, 0);
+            }
+            return IntPoint.decodeDimension(packedValue, 0);
+        }
+
+        @Override
+        void setNextReader(LeafReaderContext leaf) throws IOException {
+            values = DocValues.getSortedNumeric(leaf.reader(), fieldName);
+        }
+
+        @Override
+        long id(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                if (values.docValueCount() != 1) {
+                    throw new GroupByOnArrayUnsupportedException(fieldName);
+                }
+                long id = values.nextValue() - min;
+                assert id >= 0 && id < cardinality : "doc value must be within the range of the point values";
+                return id;
+            }
+            return cardinality;
+        }
+
+        @Override
+        Object value(long id) {
+            if (id == cardinality) {
+                return null;
+            }
+            long value = min + id;
+            switch (type.id()) {
+                case IntegerType.ID:
+                    return (int) value;
+
+                case ShortType.ID:
+                    return (short) value;
+
+                case ByteType.ID:
+                    return (byte) value;
+
+                default:
+                    return value;
+            }
+        }
+    }
+
+    /**
+     * The aggregation states by key ids.
+     *
+     * The ids are usually combined into the index of a dense array; if there are more combinations than documents
+     * or than {@link #MAX_DENSE_SLOTS}, the states are kept in a map instead.
+     */
+    abstract static class GroupStates implements Iterable<Map.Entry<long[], Object[]>> {
+
+        /**
+         * Creates the group states; the dense array is accounted before it is allocated.
+         */
+        static GroupStates create(KeyColumn[] keys, int maxDoc, RamAccountingContext ramAccounting) {
+            long size = 1;
+            for (KeyColumn key : keys) {
+                size = multiplySaturated(size, key.cardinality + 1);
+            }
+            if (size <= Math.min(Math.max(maxDoc, 1), MAX_DENSE_SLOTS)) {
+                ramAccounting.addBytes(DenseGroupStates.ramBytesUsed((int) size));
+                return new DenseGroupStates(keys, (int) size);
+            }
+            return new SparseGroupStates(keys.length);
+        }
+
+        @Nullable
+        abstract Object[] get(long[] ids);
+
+        abstract void put(long[] ids, Object[] states);
+
+        abstract long keyBytesPerGroup();
+    }
+
+    static final class DenseGroupStates extends GroupStates {
+
+        private final long[] radixes;
+        private final long[] strides;
+        private final Object[][] states;
+
+        DenseGroupStates(KeyColumn[] keys, int size) {
+            radixes = new long[keys.length];
+            strides = new long[keys.length];
+            long stride = 1;
+            for (int i = keys.length - 1; i >= 0; i--) {
+                radixes[i] = keys[i].cardinality + 1;
+                strides[i] = stride;
+                stride *= radixes[i];
+            }
+            states = new Object[size][];
+        }
+
+        private long index(long[] ids) {
+            long index = 0;
+            for (int i = 0; i < ids.length; i++) {
+                index += ids[i] * strides[i];
+            }
+            return index;
+        }
+
+        @Override
+        Object[] get(long[] ids) {
+            return states[(int) index(ids)];
+        }
+
+        @Override
+        void put(long[] ids, Object[] groupStates) {
+            states[(int) index(ids)] = groupStates;
+        }
+
+        static long ramBytesUsed(int size) {
+            return roundUp(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) size * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+        }
+
+        @Override
+        long keyBytesPerGroup() {
+            return 0L;
+        }
+
+        @Override
+        public Iterator<Map.Entry<long[], Object[]>> iterator() {
+            return new Iterator<Map.Entry<long[], Object[]>>() {
+
+                final long[] ids = new long[radixes.length];
+                int index = nextGroup(0);
+
+                private int nextGroup(int from) {
+                    int i = from;
+                    while (i < states.length && states[i] == null) {
+                        i++;
+                    }
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return index < states.length;
+                }
+
+                @Override
+                public Map.Entry<long[], Object[]> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("Iterator is exhausted");
+                    }
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = (index / strides[i]) % radixes[i];
+                    }
+                    Map.Entry<long[], Object[]> entry = new AbstractMap.SimpleImmutableEntry<>(ids, states[index]);
+                    index = nextGroup(index + 1);
+                    return entry;
+                }
+            };
+        }
+    }
+
+    static final class SparseGroupStates extends GroupStates {
+
+        private static final long ENTRY_OVERHEAD = 36L;
+
+        private final Map<KeyIds, Object[]> states = new HashMap<>();
+        private final KeyIds lookupKey = new KeyIds(null);
+        private final int numKeys;
+
+        SparseGroupStates(int numKeys) {
+            this.numKeys = numKeys;
+        }
+
+        @Override
+        Object[] get(long[] ids) {
+            lookupKey.ids = ids;
+            return states.get(lookupKey);
+        }
+
+        @Override
+        void put(long[] ids, Object[] groupStates) {
+            states.put(new KeyIds(ids.clone()), groupStates);
+        }
+
+        @Override
+        long keyBytesPerGroup() {
+            return roundUp(ENTRY_OVERHEAD + STATES_SHALLOW_SIZE + numKeys * Long.BYTES);
+        }
+
+        @Override
+        public Iterator<Map.Entry<long[], Object[]>> iterator() {
+            Iterator<Map.Entry<KeyIds, Object[]>> it = states.entrySet().iterator();
+            return new Iterator<Map.Entry<long[], Object[]>>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Map.Entry<long[], Object[]> next() {
+                    Map.Entry<KeyIds, Object[]> entry = it.next();
+                    return new AbstractMap.SimpleImmutableEntry<>(entry.getKey().ids, entry.getValue());
+                }
+            };
+        }
+    }
+
+    private static final class KeyIds {
+
+        private long[] ids;
+
+        KeyIds(long[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof KeyIds && Arrays.equals(ids, ((KeyIds) o).ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(ids);
         }
-        return groupProjection;
     }
 }
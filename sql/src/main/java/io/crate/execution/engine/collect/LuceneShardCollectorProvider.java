@@ -25,11 +25,15 @@ import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.collectors.CollectorFieldsVisitor;
+import io.crate.execution.engine.collect.collectors.LeafSlices;
 import io.crate.execution.engine.collect.collectors.LuceneBatchIterator;
 import io.crate.execution.engine.collect.collectors.LuceneOrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OptimizeQueryForSearchAfter;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
+import io.crate.execution.engine.collect.collectors.SliceIndexSearcher;
+import io.crate.execution.engine.collect.collectors.TopNPruning;
 import io.crate.execution.engine.sort.LuceneSortGenerator;
 import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.execution.jobs.SharedShardContext;
@@ -45,6 +49,8 @@ import io.crate.metadata.Functions;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.doc.DocSysColumns;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
@@ -59,6 +65,8 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -83,9 +91,10 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                                         Settings settings,
                                         TransportActionProvider transportActionProvider,
                                         IndexShard indexShard,
-                                        BigArrays bigArrays) {
+                                        BigArrays bigArrays,
+                                        SpillFiles spillFiles) {
         super(clusterService, schemas, nodeJobsCounter, functions, threadPool, settings, transportActionProvider, indexShard,
-            new ShardRowContext(indexShard, clusterService), bigArrays);
+            new ShardRowContext(indexShard, clusterService), bigArrays, spillFiles);
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.functions = functions;
         this.indexShard = indexShard;
@@ -103,6 +112,14 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     protected BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                       boolean requiresScroll,
                                                       CollectTask collectTask) {
+        return getUnorderedSliceIterators(collectPhase, requiresScroll, collectTask, 1).get(0);
+    }
+
+    @Override
+    protected List<BatchIterator<Row>> getUnorderedSliceIterators(RoutedCollectPhase collectPhase,
+                                                                  boolean requiresScroll,
+                                                                  CollectTask collectTask,
+                                                                  int maxSlices) {
         ShardId shardId = indexShard.shardId();
         SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(shardId);
         Engine.Searcher searcher = sharedShardContext.acquireSearcher();
@@ -117,19 +134,28 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                 sharedShardContext.indexService().cache()
             );
             collectTask.addSearcher(sharedShardContext.readerId(), searcher);
-            InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
-                docInputFactory.extractImplementations(collectPhase);
 
-            return new LuceneBatchIterator(
-                searcher.searcher(),
-                queryContext.query(),
-                queryContext.minScore(),
-                Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
-                getCollectorContext(sharedShardContext.readerId(), docCtx, queryShardContext::getForField),
-                collectTask.queryPhaseRamAccountingContext(),
-                docCtx.topLevelInputs(),
-                docCtx.expressions()
-            );
+            IndexSearcher indexSearcher = searcher.searcher();
+            List<List<LeafReaderContext>> slices =
+                LeafSlices.slices(indexSearcher.getTopReaderContext().leaves(), maxSlices);
+            List<BatchIterator<Row>> iterators = new ArrayList<>(slices.size());
+            for (List<LeafReaderContext> slice : slices) {
+                // the expressions and the collectorContext keep per-document state, each slice needs its own
+                InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
+                    docInputFactory.extractImplementations(collectPhase);
+                iterators.add(new LuceneBatchIterator(
+                    indexSearcher,
+                    slice,
+                    queryContext.query(),
+                    queryContext.minScore(),
+                    Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
+                    getCollectorContext(sharedShardContext.readerId(), docCtx, queryShardContext::getForField),
+                    collectTask.queryPhaseRamAccountingContext(),
+                    docCtx.topLevelInputs(),
+                    docCtx.expressions()
+                ));
+            }
+            return iterators;
         } catch (Throwable t) {
             searcher.close();
             throw t;
@@ -139,7 +165,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     @Nullable
     @Override
     protected BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase, CollectTask collectTask) {
-        return GroupByOptimizedIterator.tryOptimizeSingleStringKey(
+        BatchIterator<Row> fusedIterator = GroupByOptimizedIterator.tryOptimize(
             indexShard,
             luceneQueryBuilder,
             fieldTypeLookup,
@@ -149,6 +175,17 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             normalizedPhase,
             collectTask
         );
+        if (fusedIterator != null) {
+            return fusedIterator;
+        }
+        return DocValuesAggregates.tryOptimize(
+            indexShard,
+            luceneQueryBuilder,
+            fieldTypeLookup,
+            functions,
+            normalizedPhase,
+            collectTask
+        );
     }
 
     @Override
@@ -156,16 +193,24 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                                                    SharedShardContext sharedShardContext,
                                                    CollectTask collectTask,
                                                    boolean requiresRepeat) {
+        return getOrderedCollectors(phase, sharedShardContext, collectTask, requiresRepeat, 1).get(0);
+    }
+
+    @Override
+    public List<OrderedDocCollector> getOrderedCollectors(RoutedCollectPhase phase,
+                                                          SharedShardContext sharedShardContext,
+                                                          CollectTask collectTask,
+                                                          boolean requiresRepeat,
+                                                          int maxSlices) {
         RoutedCollectPhase collectPhase = phase.normalize(shardNormalizer, null);
 
-        CollectorContext collectorContext;
-        InputFactory.Context<? extends LuceneCollectorExpression<?>> ctx;
         Engine.Searcher searcher = null;
+        QueryShardContext queryShardContext;
         LuceneQueryBuilder.Context queryContext;
         try {
             searcher = sharedShardContext.acquireSearcher();
             IndexService indexService = sharedShardContext.indexService();
-            QueryShardContext queryShardContext = indexService.newQueryShardContext(
+            queryShardContext = indexService.newQueryShardContext(
                 indexShard.shardId().getId(), searcher.reader(), System::currentTimeMillis, null);
             queryContext = luceneQueryBuilder.convert(
                 collectPhase.where(),
@@ -174,8 +219,6 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                 indexService.cache()
             );
             collectTask.addSearcher(sharedShardContext.readerId(), searcher);
-            ctx = docInputFactory.extractImplementations(collectPhase);
-            collectorContext = getCollectorContext(sharedShardContext.readerId(), ctx, queryShardContext::getForField);
         } catch (Throwable t) {
             if (searcher != null) {
                 searcher.close();
@@ -183,30 +226,44 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             throw t;
         }
         int batchSize = collectPhase.shardQueueSize(localNodeId.get());
+        IndexSearcher indexSearcher = searcher.searcher();
+        List<List<LeafReaderContext>> slices =
+            LeafSlices.slices(indexSearcher.getTopReaderContext().leaves(), maxSlices);
         if (LOGGER.isTraceEnabled()) {
-            LOGGER.trace("[{}][{}] creating LuceneOrderedDocCollector. Expected number of rows to be collected: {}",
+            LOGGER.trace("[{}][{}] creating {} LuceneOrderedDocCollector(s). Expected number of rows to be collected: {}",
                 sharedShardContext.indexShard().routingEntry().currentNodeId(),
                 sharedShardContext.indexShard().shardId(),
+                slices.size(),
                 batchSize);
         }
-        OptimizeQueryForSearchAfter optimizeQueryForSearchAfter = new OptimizeQueryForSearchAfter(
-            collectPhase.orderBy(),
-            queryContext.queryShardContext(),
-            fieldTypeLookup
-        );
-        return new LuceneOrderedDocCollector(
-            indexShard.shardId(),
-            searcher.searcher(),
-            queryContext.query(),
-            queryContext.minScore(),
-            Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
-            batchSize,
-            collectorContext,
-            optimizeQueryForSearchAfter,
-            LuceneSortGenerator.generateLuceneSort(collectorContext, collectPhase.orderBy(), docInputFactory, fieldTypeLookup),
-            ctx.topLevelInputs(),
-            ctx.expressions()
-        );
+        TopNPruning topNPruning = TopNPruning.forOrderBy(collectPhase.orderBy(), fieldTypeLookup);
+        List<OrderedDocCollector> collectors = new ArrayList<>(slices.size());
+        for (List<LeafReaderContext> slice : slices) {
+            InputFactory.Context<? extends LuceneCollectorExpression<?>> ctx =
+                docInputFactory.extractImplementations(collectPhase);
+            CollectorContext collectorContext =
+                getCollectorContext(sharedShardContext.readerId(), ctx, queryShardContext::getForField);
+            OptimizeQueryForSearchAfter optimizeQueryForSearchAfter = new OptimizeQueryForSearchAfter(
+                collectPhase.orderBy(),
+                queryContext.queryShardContext(),
+                fieldTypeLookup
+            );
+            collectors.add(new LuceneOrderedDocCollector(
+                indexShard.shardId(),
+                slices.size() == 1 ? indexSearcher : new SliceIndexSearcher(indexSearcher, slice),
+                queryContext.query(),
+                queryContext.minScore(),
+                Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
+                batchSize,
+                collectorContext,
+                optimizeQueryForSearchAfter,
+                LuceneSortGenerator.generateLuceneSort(collectorContext, collectPhase.orderBy(), docInputFactory, fieldTypeLookup),
+                ctx.topLevelInputs(),
+                ctx.expressions(),
+                topNPruning
+            ));
+        }
+        return collectors;
     }
 
     static CollectorContext getCollectorContext(int readerId,
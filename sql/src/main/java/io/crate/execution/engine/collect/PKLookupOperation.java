@@ -46,6 +46,8 @@ import org.elasticsearch.index.shard.ShardNotFoundException;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -57,6 +59,8 @@ import java.util.stream.Stream;
 
 public final class PKLookupOperation {
 
+    private static final String[] EMPTY_FIELDS = new String[0];
+
     private final IndicesService indicesService;
     private final ShardCollectSource shardCollectSource;
 
@@ -85,16 +89,7 @@ public final class PKLookupOperation {
                     }
                     throw new ShardNotFoundException(shardId);
                 }
-                return entry.getValue().stream()
-                    .map(pkAndVersion -> shard.getService().get(
-                        Constants.DEFAULT_MAPPING_TYPE,
-                        pkAndVersion.id(),
-                        new String[0],
-                        true,
-                        pkAndVersion.version(),
-                        VersionType.EXTERNAL,
-                        FetchSourceContext.FETCH_SOURCE
-                    ))
+                return getAll(shard, entry.getValue())
                     .filter(GetResult::isExists);
             });
         final Iterable<GetResult> getResultIterable;
@@ -114,7 +109,6 @@ public final class PKLookupOperation {
                                         Collection<? extends Projection> projections,
                                         RowConsumer nodeConsumer,
                                         Function<GetResult, Row> resultToRow) {
-        String[] emptyFields = new String[0];
         ArrayList<ShardAndIds> shardAndIdsList = new ArrayList<>(idsByShard.size());
         for (Map.Entry<ShardId, List<PKAndVersion>> idsByShardEntry : idsByShard.entrySet()) {
             ShardId shardId = idsByShardEntry.getKey();
@@ -148,16 +142,7 @@ public final class PKLookupOperation {
         }
         ArrayList<BatchIterator<Row>> iterators = new ArrayList<>(shardAndIdsList.size());
         for (ShardAndIds shardAndIds : shardAndIdsList) {
-            Stream<Row> rowStream = shardAndIds.value.stream()
-                .map(pkAndVersion -> shardAndIds.shard.getService().get(
-                    Constants.DEFAULT_MAPPING_TYPE,
-                    pkAndVersion.id(),
-                    emptyFields,
-                    true,
-                    pkAndVersion.version(),
-                    VersionType.EXTERNAL,
-                    FetchSourceContext.FETCH_SOURCE
-                ))
+            Stream<Row> rowStream = getAll(shardAndIds.shard, shardAndIds.value)
                 .map(resultToRow);
 
             Projectors projectors = new Projectors(
@@ -174,6 +159,35 @@ public final class PKLookupOperation {
         nodeConsumer.accept(batchIterator, null);
     }
 
+    /**
+     * Returns a {@link GetResult} for each id, also for those which don't exist.
+     * Many ids of a shard are looked up at once using {@link ShardMultiGet} if the shard has no pending changes,
+     * otherwise they're looked up one by one.
+     */
+    private static Stream<GetResult> getAll(IndexShard shard, List<PKAndVersion> ids) {
+        if (ShardMultiGet.canBatch(ids)) {
+            List<GetResult> results;
+            try {
+                results = ShardMultiGet.get(shard, ids);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (results != null) {
+                return results.stream();
+            }
+        }
+        return ids.stream()
+            .map(pkAndVersion -> shard.getService().get(
+                Constants.DEFAULT_MAPPING_TYPE,
+                pkAndVersion.id(),
+                EMPTY_FIELDS,
+                true,
+                pkAndVersion.version(),
+                VersionType.EXTERNAL,
+                FetchSourceContext.FETCH_SOURCE
+            ));
+    }
+
     private static class ShardAndIds {
 
         final IndexShard shard;
@@ -23,6 +23,7 @@
 package io.crate.execution.engine.collect;
 
 import io.crate.analyze.QueryClause;
+import io.crate.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
@@ -30,6 +31,7 @@ import io.crate.data.SentinelRow;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
 import io.crate.execution.dsl.projection.Projections;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
@@ -50,6 +52,8 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
 
 public abstract class ShardCollectorProvider {
 
@@ -66,7 +70,8 @@ public abstract class ShardCollectorProvider {
                            TransportActionProvider transportActionProvider,
                            IndexShard indexShard,
                            ShardRowContext shardRowContext,
-                           BigArrays bigArrays) {
+                           BigArrays bigArrays,
+                           SpillFiles spillFiles) {
         this.shardRowContext = shardRowContext;
         shardNormalizer = new EvaluatingNormalizer(
             functions,
@@ -87,6 +92,7 @@ public abstract class ShardCollectorProvider {
             t -> null,
             indexShard.indexSettings().getIndexVersionCreated(),
             bigArrays,
+            spillFiles,
             indexShard.shardId()
         );
     }
@@ -98,6 +104,20 @@ public abstract class ShardCollectorProvider {
     public BatchIterator<Row> getIterator(RoutedCollectPhase collectPhase,
                                           boolean requiresScroll,
                                           CollectTask collectTask) throws Exception {
+        List<BatchIterator<Row>> iterators = getSliceIterators(collectPhase, requiresScroll, collectTask, 1);
+        assert iterators.size() == 1 : "there must be exactly one iterator if maxSlices is 1";
+        return iterators.get(0);
+    }
+
+    /**
+     * Returns up to {@code maxSlices} BatchIterators which together expose all rows of the shard.
+     * The shard projections are applied to each of them separately, so a shard may only be sliced if the results of
+     * the shard projections are merged afterwards (e.g. partial aggregations).
+     */
+    public List<BatchIterator<Row>> getSliceIterators(RoutedCollectPhase collectPhase,
+                                                      boolean requiresScroll,
+                                                      CollectTask collectTask,
+                                                      int maxSlices) throws Exception {
         assert collectPhase.orderBy() == null
             : "getDocCollector shouldn't be called if there is an orderBy on the collectPhase";
         assert collectPhase.maxRowGranularity() == RowGranularity.DOC :
@@ -106,21 +126,21 @@ public abstract class ShardCollectorProvider {
         RoutedCollectPhase normalizedCollectNode = collectPhase.normalize(shardNormalizer, null);
         BatchIterator<Row> fusedIterator = getProjectionFusedIterator(normalizedCollectNode, collectTask);
         if (fusedIterator != null) {
-            return fusedIterator;
+            return Collections.singletonList(fusedIterator);
         }
-        final BatchIterator<Row> iterator;
+        final List<BatchIterator<Row>> iterators;
         if (QueryClause.canMatch(normalizedCollectNode.where())) {
-            iterator = getUnorderedIterator(normalizedCollectNode, requiresScroll, collectTask);
+            iterators = getUnorderedSliceIterators(normalizedCollectNode, requiresScroll, collectTask, maxSlices);
         } else {
-            iterator = InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
+            iterators = Collections.singletonList(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
         }
-        return Projectors.wrap(
+        return Lists2.copyAndReplace(iterators, iterator -> Projectors.wrap(
             Projections.shardProjections(collectPhase.projections()),
             collectPhase.jobId(),
             collectTask.queryPhaseRamAccountingContext(),
             projectorFactory,
             iterator
-        );
+        ));
     }
 
     /**
@@ -132,16 +152,39 @@ public abstract class ShardCollectorProvider {
     protected abstract BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase,
                                                                      CollectTask collectTask);
 
+    /**
+     * Like {@link #getUnorderedIterator(RoutedCollectPhase, boolean, CollectTask)} but may split the shard into
+     * up to {@code maxSlices} BatchIterators which can be consumed concurrently.
+     */
+    protected List<BatchIterator<Row>> getUnorderedSliceIterators(RoutedCollectPhase collectPhase,
+                                                                  boolean requiresScroll,
+                                                                  CollectTask collectTask,
+                                                                  int maxSlices) {
+        return Collections.singletonList(getUnorderedIterator(collectPhase, requiresScroll, collectTask));
+    }
+
     protected abstract BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                                boolean requiresScroll,
                                                                CollectTask collectTask);
 
-
     public abstract OrderedDocCollector getOrderedCollector(RoutedCollectPhase collectPhase,
                                                             SharedShardContext sharedShardContext,
                                                             CollectTask collectTask,
                                                             boolean requiresRepeat);
 
+    /**
+     * Returns up to {@code maxSlices} OrderedDocCollectors which together collect all rows of the shard.
+     * Each of them emits its rows ordered, so they must be merged like the collectors of different shards.
+     */
+    public List<OrderedDocCollector> getOrderedCollectors(RoutedCollectPhase collectPhase,
+                                                          SharedShardContext sharedShardContext,
+                                                          CollectTask collectTask,
+                                                          boolean requiresRepeat,
+                                                          int maxSlices) {
+        return Collections.singletonList(
+            getOrderedCollector(collectPhase, sharedShardContext, collectTask, requiresRepeat));
+    }
+
     public ProjectorFactory getProjectorFactory() {
         return projectorFactory;
     }
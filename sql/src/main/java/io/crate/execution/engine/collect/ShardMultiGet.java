@@ -0,0 +1,245 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import io.crate.Constants;
+import io.crate.planner.operators.PKAndVersion;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.VersionFieldMapper;
+import org.elasticsearch.index.shard.IndexShard;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Looks up many documents of a shard by their primary key with a single searcher.
+ *
+ * The uids are sorted and resolved with one {@link TermsEnum} per segment, the versions and sources of the
+ * found documents are then read in doc id order. Compared to one realtime get per id this avoids acquiring a
+ * searcher, locking the uid and checking the version map for every single id.
+ *
+ * To keep the realtime semantics of a get the batched lookup is only used if the searcher includes all changes
+ * of the shard. Otherwise the ids are looked up one by one by the caller: a realtime get only refreshes the shard if
+ * its id has a pending change, while refreshing for the whole batch would create a tiny segment on every lookup
+ * while the shard is written to.
+ */
+final class ShardMultiGet {
+
+    /**
+     * Minimum number of ids on a shard for which the batched lookup is used; single ids use the regular get.
+     */
+    private static final int MIN_IDS = 2;
+
+    private static final Set<String> SOURCE_FIELD = Collections.singleton(SourceFieldMapper.NAME);
+
+    private ShardMultiGet() {
+    }
+
+    /**
+     * Returns true if {@link #get(IndexShard, List)} can be used for the ids.
+     * Lookups which require a specific version must go through the regular get to raise version conflicts.
+     */
+    static boolean canBatch(List<PKAndVersion> ids) {
+        if (ids.size() < MIN_IDS) {
+            return false;
+        }
+        for (PKAndVersion pkAndVersion : ids) {
+            if (pkAndVersion.version() != Versions.MATCH_ANY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns one {@link GetResult} per id, in the order of {@code ids}. Missing documents result in a
+     * {@link GetResult} which doesn't exist.
+     *
+     * @return the results or null if the shard has changes which aren't visible to searchers yet;
+     *         the ids must then be looked up with a realtime get each.
+     */
+    @Nullable
+    static List<GetResult> get(IndexShard shard, List<PKAndVersion> ids) throws IOException {
+        String index = shard.shardId().getIndexName();
+        Term[] uids = new Term[ids.size()];
+        for (int i = 0; i < uids.length; i++) {
+            uids[i] = shard.mapperService().createUidTerm(Constants.DEFAULT_MAPPING_TYPE, ids.get(i).id());
+        }
+        Doc[] docs;
+        if (uids.length > 0 && uids[0] == null) {
+            // there is no mapping yet and therefore no document
+            docs = new Doc[uids.length];
+        } else {
+            Engine.Searcher searcher = acquireCurrentSearcher(shard);
+            if (searcher == null) {
+                return null;
+            }
+            try {
+                docs = lookup(searcher.reader(), uids);
+            } finally {
+                searcher.close();
+            }
+        }
+        ArrayList<GetResult> results = new ArrayList<>(docs.length);
+        for (int i = 0; i < docs.length; i++) {
+            Doc doc = docs[i];
+            String id = ids.get(i).id();
+            if (doc == null) {
+                results.add(new GetResult(index, Constants.DEFAULT_MAPPING_TYPE, id, -1, false, null, null));
+            } else {
+                results.add(new GetResult(
+                    index,
+                    Constants.DEFAULT_MAPPING_TYPE,
+                    id,
+                    doc.version,
+                    true,
+                    doc.source == null ? null : new BytesArray(doc.source),
+                    Collections.emptyMap()
+                ));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return a searcher which includes all changes of the shard or null if there are pending changes
+     */
+    @Nullable
+    private static Engine.Searcher acquireCurrentSearcher(IndexShard shard) throws IOException {
+        Engine.Searcher searcher = shard.acquireSearcher("pk-lookup");
+        boolean isCurrent = false;
+        try {
+            isCurrent = searcher.getDirectoryReader().isCurrent();
+        } finally {
+            if (isCurrent == false) {
+                searcher.close();
+            }
+        }
+        return isCurrent ? searcher : null;
+    }
+
+    /**
+     * Resolves the uids to the live documents of the reader.
+     *
+     * @return the found documents, by the position of their uid. Entries of missing documents are null.
+     */
+    static Doc[] lookup(IndexReader reader, Term[] uids) throws IOException {
+        Doc[] docs = new Doc[uids.length];
+        if (uids.length == 0) {
+            return docs;
+        }
+        Integer[] uidsInTermOrder = new Integer[uids.length];
+        for (int i = 0; i < uids.length; i++) {
+            uidsInTermOrder[i] = i;
+        }
+        Arrays.sort(uidsInTermOrder, (a, b) -> uids[a].bytes().compareTo(uids[b].bytes()));
+        String uidField = uids[0].field();
+
+        List<LeafReaderContext> leaves = reader.leaves();
+        ArrayList<List<Doc>> docsByLeaf = new ArrayList<>(leaves.size());
+        int numFound = 0;
+        PostingsEnum postings = null;
+        for (LeafReaderContext leaf : leaves) {
+            ArrayList<Doc> leafDocs = new ArrayList<>();
+            docsByLeaf.add(leafDocs);
+            Terms terms = leaf.reader().terms(uidField);
+            if (terms == null || numFound == uids.length) {
+                continue;
+            }
+            TermsEnum termsEnum = terms.iterator();
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            for (Integer pos : uidsInTermOrder) {
+                if (docs[pos] != null || termsEnum.seekExact(uids[pos].bytes()) == false) {
+                    continue;
+                }
+                postings = termsEnum.postings(postings, PostingsEnum.NONE);
+                int liveDoc = DocIdSetIterator.NO_MORE_DOCS;
+                for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                    // in case of nested documents the root document is the last one with the uid
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        liveDoc = doc;
+                    }
+                }
+                if (liveDoc != DocIdSetIterator.NO_MORE_DOCS) {
+                    Doc doc = new Doc(liveDoc);
+                    docs[pos] = doc;
+                    leafDocs.add(doc);
+                    numFound++;
+                }
+            }
+        }
+        for (int i = 0; i < leaves.size(); i++) {
+            List<Doc> leafDocs = docsByLeaf.get(i);
+            if (leafDocs.isEmpty()) {
+                continue;
+            }
+            // doc values can only be advanced
+            leafDocs.sort((a, b) -> Integer.compare(a.docId, b.docId));
+            LeafReaderContext leaf = leaves.get(i);
+            NumericDocValues versions = leaf.reader().getNumericDocValues(VersionFieldMapper.NAME);
+            for (Doc doc : leafDocs) {
+                if (versions == null || versions.advanceExact(doc.docId) == false) {
+                    throw new IllegalArgumentException(
+                        "Document [" + doc.docId + "] misses the [" + VersionFieldMapper.NAME + "] field");
+                }
+                doc.version = versions.longValue();
+                Document document = leaf.reader().document(doc.docId, SOURCE_FIELD);
+                doc.source = document.getBinaryValue(SourceFieldMapper.NAME);
+            }
+        }
+        return docs;
+    }
+
+    static final class Doc {
+
+        final int docId;
+        long version;
+
+        @Nullable
+        BytesRef source;
+
+        private Doc(int docId) {
+            this.docId = docId;
+        }
+    }
+}
@@ -64,7 +64,8 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
     private final ScoreDocRowFunction rowFunction;
     private final DummyScorer scorer;
     private final IndexSearcher searcher;
-
+    @Nullable
+    private final TopNPruning topNPruning;
 
     @Nullable
     private volatile FieldDoc lastDoc = null;
@@ -80,6 +81,25 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
                                      Sort sort,
                                      List<? extends Input<?>> inputs,
                                      Collection<? extends LuceneCollectorExpression<?>> expressions) {
+        this(shardId, searcher, query, minScore, doDocsScores, batchSize, collectorContext, searchAfterQueryOptimize,
+            sort, inputs, expressions, null);
+    }
+
+    /**
+     * @param topNPruning used to skip segments which can't contain any of the next {@code batchSize} rows
+     */
+    public LuceneOrderedDocCollector(ShardId shardId,
+                                     IndexSearcher searcher,
+                                     Query query,
+                                     Float minScore,
+                                     boolean doDocsScores,
+                                     int batchSize,
+                                     CollectorContext collectorContext,
+                                     Function<FieldDoc, Query> searchAfterQueryOptimize,
+                                     Sort sort,
+                                     List<? extends Input<?>> inputs,
+                                     Collection<? extends LuceneCollectorExpression<?>> expressions,
+                                     @Nullable TopNPruning topNPruning) {
         super(shardId);
         this.searcher = searcher;
         this.query = query;
@@ -91,6 +111,7 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         this.sort = sort;
         this.scorer = new DummyScorer();
         this.expressions = expressions;
+        this.topNPruning = topNPruning;
         this.rowFunction = new ScoreDocRowFunction(
             searcher.getIndexReader(),
             inputs,
@@ -130,7 +151,7 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
             expression.setScorer(scorer);
         }
         TopFieldCollector topFieldCollector = TopFieldCollector.create(sort, batchSize, true, doDocsScores, doDocsScores);
-        return doSearch(topFieldCollector, minScore, query);
+        return doSearch(topFieldCollector, minScore, query, null);
     }
 
     private KeyIterable<ShardId, Row> searchMore() throws IOException {
@@ -143,13 +164,21 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         }
         TopFieldCollector topFieldCollector = TopFieldCollector.create(
             sort, batchSize, lastDoc, true, doDocsScores, doDocsScores);
-        return doSearch(topFieldCollector, minScore, query(lastDoc));
+        return doSearch(topFieldCollector, minScore, query(lastDoc), lastDoc);
     }
 
     private KeyIterable<ShardId, Row> doSearch(TopFieldCollector topFieldCollector,
                                                Float minScore,
-                                               Query query) throws IOException {
-        Collector collector = topFieldCollector;
+                                               Query query,
+                                               @Nullable FieldDoc after) throws IOException {
+        Collector collector;
+        if (topNPruning == null) {
+            collector = topFieldCollector;
+        } else if (after == null) {
+            collector = topNPruning.wrap(topFieldCollector, batchSize);
+        } else {
+            collector = topNPruning.wrap(topFieldCollector, batchSize, searcher.getIndexReader(), after);
+        }
         if (minScore != null) {
             collector = new MinimumScoreCollector(collector, minScore);
         }
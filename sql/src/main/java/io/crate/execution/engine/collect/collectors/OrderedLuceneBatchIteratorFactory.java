@@ -23,7 +23,6 @@
 package io.crate.execution.engine.collect.collectors;
 
 import io.crate.breaker.RowAccounting;
-import io.crate.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.execution.engine.distribution.merge.BatchPagingIterator;
@@ -33,16 +32,14 @@ import io.crate.execution.engine.distribution.merge.PassThroughPagingIterator;
 import io.crate.execution.engine.distribution.merge.RamAccountingPageIterator;
 import io.crate.execution.engine.distribution.merge.SortedPagingIterator;
 import io.crate.execution.support.ThreadPools;
-import org.elasticsearch.index.shard.ShardId;
 
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.function.Function;
 import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 import static io.crate.concurrent.CompletableFutures.failedFuture;
 import static java.util.Collections.singletonList;
@@ -50,6 +47,9 @@ import static java.util.Collections.singletonList;
 /**
  * Factory to create a BatchIterator which is backed by 1 or more {@link OrderedDocCollector}.
  * This BatchIterator exposes data stored in a Lucene index and utilizes Lucene sort for efficient sorting.
+ *
+ * The collectors are identified by their position in the list and not by their shardId,
+ * because several collectors may collect different slices of the same shard.
  */
 public class OrderedLuceneBatchIteratorFactory {
 
@@ -68,10 +68,9 @@ public class OrderedLuceneBatchIteratorFactory {
         private final List<OrderedDocCollector> orderedDocCollectors;
         private final Executor executor;
         private final IntSupplier availableThreads;
-        private final PagingIterator<ShardId, Row> pagingIterator;
-        private final Map<ShardId, OrderedDocCollector> collectorsByShardId;
+        private final PagingIterator<Integer, Row> pagingIterator;
 
-        private BatchPagingIterator<ShardId> batchPagingIterator;
+        private BatchPagingIterator<Integer> batchPagingIterator;
 
         Factory(List<OrderedDocCollector> orderedDocCollectors,
                 Comparator<Row> rowComparator,
@@ -86,9 +85,7 @@ public class OrderedLuceneBatchIteratorFactory {
                 pagingIterator = requiresScroll ?
                     new RamAccountingPageIterator<>(PassThroughPagingIterator.repeatable(), rowAccounting)
                     : PassThroughPagingIterator.oneShot();
-                collectorsByShardId = null;
             } else {
-                collectorsByShardId = toMapByShardId(orderedDocCollectors);
                 pagingIterator = new RamAccountingPageIterator<>(
                     new SortedPagingIterator<>(rowComparator, requiresScroll),
                     rowAccounting
@@ -106,24 +103,29 @@ public class OrderedLuceneBatchIteratorFactory {
             return batchPagingIterator;
         }
 
-        private CompletableFuture<List<KeyIterable<ShardId, Row>>> tryFetchMore(ShardId shardId) {
+        private CompletableFuture<List<KeyIterable<Integer, Row>>> tryFetchMore(Integer collectorIdx) {
             if (allExhausted()) {
                 return failedFuture(new IllegalStateException("Cannot fetch more if source is exhausted"));
             }
-            if (shardId == null) {
-                return ThreadPools.runWithAvailableThreads(
-                    executor,
-                    availableThreads,
-                    Lists2.copyAndReplace(orderedDocCollectors, Function.identity())
-                );
+            if (collectorIdx == null) {
+                List<Supplier<KeyIterable<Integer, Row>>> suppliers = new ArrayList<>(orderedDocCollectors.size());
+                for (int i = 0; i < orderedDocCollectors.size(); i++) {
+                    int idx = i;
+                    suppliers.add(() -> collect(idx));
+                }
+                return ThreadPools.runWithAvailableThreads(executor, availableThreads, suppliers);
             } else {
-                return loadFrom(collectorsByShardId.get(shardId));
+                return loadFrom(collectorIdx);
             }
         }
 
-        private static CompletableFuture<List<KeyIterable<ShardId, Row>>> loadFrom(OrderedDocCollector collector) {
+        private KeyIterable<Integer, Row> collect(int collectorIdx) {
+            return new KeyIterable<>(collectorIdx, orderedDocCollectors.get(collectorIdx).get());
+        }
+
+        private CompletableFuture<List<KeyIterable<Integer, Row>>> loadFrom(int collectorIdx) {
             try {
-                return CompletableFuture.completedFuture(singletonList(collector.get()));
+                return CompletableFuture.completedFuture(singletonList(collect(collectorIdx)));
             } catch (Exception e) {
                 return failedFuture(e);
             }
@@ -144,13 +146,4 @@ public class OrderedLuceneBatchIteratorFactory {
             return true;
         }
     }
-
-
-    private static Map<ShardId, OrderedDocCollector> toMapByShardId(List<OrderedDocCollector> collectors) {
-        Map<ShardId, OrderedDocCollector> collectorsByShardId = new HashMap<>(collectors.size());
-        for (OrderedDocCollector collector : collectors) {
-            collectorsByShardId.put(collector.shardId(), collector);
-        }
-        return collectorsByShardId;
-    }
 }
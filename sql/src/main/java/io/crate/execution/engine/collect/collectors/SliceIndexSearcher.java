@@ -0,0 +1,55 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * IndexSearcher which only searches a slice of the leaves of another searcher.
+ *
+ * The reader context is the same as the one of the original searcher, so doc ids of hits are still top-level doc ids
+ * and can be resolved against all leaves of the reader.
+ */
+public class SliceIndexSearcher extends IndexSearcher {
+
+    private final List<LeafReaderContext> slice;
+
+    public SliceIndexSearcher(IndexSearcher searcher, List<LeafReaderContext> slice) {
+        super(searcher.getTopReaderContext());
+        this.slice = slice;
+        setSimilarity(searcher.getSimilarity(true));
+        setQueryCache(searcher.getQueryCache());
+        setQueryCachingPolicy(searcher.getQueryCachingPolicy());
+    }
+
+    @Override
+    protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+        super.search(slice, weight, collector);
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.OrderBy;
+import io.crate.expression.symbol.Symbol;
+import io.crate.lucene.FieldTypeLookup;
+import io.crate.metadata.Reference;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.mapper.MappedFieldType;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dynamic pruning for {@code ORDER BY x LIMIT n} on a numeric column.
+ *
+ * While the top-n documents are collected, the n best values of {@code x} seen so far are tracked. Once n values have
+ * been seen, the worst of them is a threshold which a document has to beat to get into the top-n. Segments whose
+ * points min/max can't beat the threshold are skipped without looking at a single document.
+ *
+ * All comparisons are done on the sortable long representation which is used for both the doc values and the points
+ * of numeric columns, so floating point columns are supported as well.
+ */
+public final class TopNPruning {
+
+    private static final Set<DataType> SUPPORTED_TYPES = ImmutableSet.of(
+        DataTypes.BYTE,
+        DataTypes.SHORT,
+        DataTypes.INTEGER,
+        DataTypes.LONG,
+        DataTypes.TIMESTAMP,
+        DataTypes.FLOAT,
+        DataTypes.DOUBLE
+    );
+
+    private final String field;
+    private final boolean reverse;
+    private final boolean nullsFirst;
+    private final boolean skipOnTie;
+
+    private TopNPruning(String field, boolean reverse, boolean nullsFirst, boolean skipOnTie) {
+        this.field = field;
+        this.reverse = reverse;
+        this.nullsFirst = nullsFirst;
+        this.skipOnTie = skipOnTie;
+    }
+
+    /**
+     * @return the pruning for the first column of {@code orderBy} or null if it isn't an indexed numeric column with
+     *         doc values.
+     */
+    @Nullable
+    public static TopNPruning forOrderBy(OrderBy orderBy, FieldTypeLookup fieldTypeLookup) {
+        if (orderBy.orderBySymbols().isEmpty()) {
+            return null;
+        }
+        Symbol firstOrderBy = orderBy.orderBySymbols().get(0);
+        if (!(firstOrderBy instanceof Reference)) {
+            return null;
+        }
+        Reference ref = (Reference) firstOrderBy;
+        if (ref.column().isSystemColumn() || ref.isColumnStoreDisabled() || !SUPPORTED_TYPES.contains(ref.valueType())) {
+            return null;
+        }
+        MappedFieldType fieldType = fieldTypeLookup.get(ref.column().fqn());
+        if (fieldType == null || !fieldType.hasDocValues() || fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        boolean reverse = orderBy.reverseFlags()[0];
+        Boolean nullsFirst = orderBy.nullsFirst()[0];
+        return new TopNPruning(
+            fieldType.name(),
+            reverse,
+            nullsFirst == null ? reverse : nullsFirst,
+            // with a single sort column ties are broken by doc id, so documents of later segments lose on a tie
+            orderBy.orderBySymbols().size() == 1
+        );
+    }
+
+    /**
+     * Wrap a collector which collects the top {@code numHits} documents ordered by the column of this pruning.
+     */
+    Collector wrap(Collector collector, int numHits) {
+        return new PruningCollector(collector, numHits, false, 0L);
+    }
+
+    /**
+     * Like {@link #wrap(Collector, int)} for a collector which only collects the documents sorted after {@code after}.
+     *
+     * Only the values of documents which are sorted after {@code after} for sure, because their value is worse than
+     * the value of {@code after}, may become the threshold. Documents with the same value may have been emitted
+     * already and must not prevent segments with the next documents from being collected.
+     */
+    Collector wrap(Collector collector, int numHits, IndexReader reader, ScoreDoc after) throws IOException {
+        List<LeafReaderContext> leaves = reader.leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(after.doc, leaves));
+        SortedNumericDocValues values = DocValues.getSortedNumeric(leaf.reader(), field);
+        if (!values.advanceExact(after.doc - leaf.docBase)) {
+            // the previous documents don't have a value, so it's unknown which of the remaining ones have been emitted
+            return collector;
+        }
+        return new PruningCollector(collector, numHits, true, sortValue(values));
+    }
+
+    /**
+     * The column is sorted by the min value of a document ascending and by the max value descending
+     */
+    private long sortValue(SortedNumericDocValues values) throws IOException {
+        long value = values.nextValue();
+        if (reverse) {
+            for (int i = 1; i < values.docValueCount(); i++) {
+                value = values.nextValue();
+            }
+        }
+        return value;
+    }
+
+    private final class PruningCollector extends FilterCollector {
+
+        /**
+         * Heap of the best values seen so far; the root is the worst of them.
+         */
+        private final long[] heap;
+        private final boolean hasAfter;
+        private final long afterValue;
+        private int size = 0;
+
+        PruningCollector(Collector in, int numHits, boolean hasAfter, long afterValue) {
+            super(in);
+            this.heap = new long[numHits];
+            this.hasAfter = hasAfter;
+            this.afterValue = afterValue;
+        }
+
+        @Override
+        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+            LeafReader reader = context.reader();
+            if (size == heap.length && size > 0 && canSkip(reader)) {
+                throw new CollectionTerminatedException();
+            }
+            SortedNumericDocValues values = DocValues.getSortedNumeric(reader, field);
+            return new FilterLeafCollector(super.getLeafCollector(context)) {
+
+                @Override
+                public void collect(int doc) throws IOException {
+                    super.collect(doc);
+                    if (values.advanceExact(doc)) {
+                        long value = sortValue(values);
+                        if (!hasAfter || worse(value, afterValue)) {
+                            offer(value);
+                        }
+                    }
+                }
+            };
+        }
+
+        private boolean canSkip(LeafReader reader) throws IOException {
+            PointValues points = reader.getPointValues(field);
+            if (points == null) {
+                return false;
+            }
+            if (nullsFirst && points.getDocCount() < reader.maxDoc()) {
+                // documents without a value are more competitive than any value
+                return false;
+            }
+            long threshold = heap[0];
+            if (reverse) {
+                long max = decode(points.getMaxPackedValue());
+                return skipOnTie ? max <= threshold : max < threshold;
+            }
+            long min = decode(points.getMinPackedValue());
+            return skipOnTie ? min >= threshold : min > threshold;
+        }
+
+        private void offer(long value) {
+            if (size < heap.length) {
+                heap[size] = value;
+                upHeap(size);
+                size++;
+            } else if (worse(heap[0], value)) {
+                heap[0] = value;
+                downHeap(0);
+            }
+        }
+
+        /**
+         * @return true if {@code a} is worse than {@code b}, i.e. sorted after it
+         */
+        private boolean worse(long a, long b) {
+            return reverse ? a < b : a > b;
+        }
+
+        private void upHeap(int i) {
+            long value = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!worse(value, heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        private void downHeap(int i) {
+            long value = heap[i];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && worse(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!worse(heap[child], value)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
+        }
+    }
+
+    /**
+     * Decodes a packed point value to the sortable long representation which is also used by the doc values.
+     * Integer and float columns use 4 bytes, long, timestamp and double columns 8 bytes.
+     */
+    private static long decode(byte[] packedValue) {
+        if (packedValue.length == Integer.BYTES) {
+            return NumericUtils.sortableBytesToInt(packedValue, 0);
+        }
+        return NumericUtils.sortableBytesToLong(packedValue, 0);
+    }
+}
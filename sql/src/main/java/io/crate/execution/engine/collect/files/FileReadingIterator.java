@@ -30,6 +30,7 @@ import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.expression.InputRow;
+import io.crate.expression.reference.file.SourceLineNumberExpression;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.logging.Loggers;
@@ -48,6 +49,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -59,6 +61,15 @@ import java.util.zip.GZIPInputStream;
 
 import static io.crate.exceptions.Exceptions.rethrowUnchecked;
 
+/**
+ * Reads the lines of the files matching the given URIs.
+ *
+ * With shared storage every file is read by one of the {@code numReaders} readers. If there are fewer files than
+ * readers, files of at least {@link #MIN_SPLIT_SIZE} bytes are instead split into {@code numReaders} byte ranges
+ * and every reader reads the lines starting within its range, so that a single large file is imported by all nodes.
+ * Compressed files can't be split; neither are files if line numbers are collected,
+ * because they are only known when reading a file from the start.
+ */
 public class FileReadingIterator implements BatchIterator<Row> {
 
     private static final Logger LOGGER = Loggers.getLogger(FileReadingIterator.class);
@@ -68,6 +79,9 @@ public class FileReadingIterator implements BatchIterator<Row> {
     private final int numReaders;
     private final int readerNumber;
     private final boolean compressed;
+    private final long minSplitSize;
+
+    static final long MIN_SPLIT_SIZE = 64L * 1024 * 1024;
 
     private static final Pattern HAS_GLOBS_PATTERN = Pattern.compile("(.*)[^\\\\]\\*.*");
     private static final Predicate<URI> MATCH_ALL_PREDICATE = (URI input) -> true;
@@ -79,6 +93,7 @@ public class FileReadingIterator implements BatchIterator<Row> {
     private Tuple<FileInput, UriWithGlob> currentInput = null;
     private Iterator<URI> currentInputIterator = null;
     private URI currentUri;
+    private final Map<URI, long[]> rangesByUri = new HashMap<>();
     private BufferedReader currentReader = null;
     private long currentLineNumber;
     private final Row row;
@@ -92,8 +107,10 @@ public class FileReadingIterator implements BatchIterator<Row> {
                                 Boolean shared,
                                 int numReaders,
                                 int readerNumber,
-                                FileUriCollectPhase.InputFormat inputFormat) {
+                                FileUriCollectPhase.InputFormat inputFormat,
+                                long minSplitSize) {
         this.compressed = compression != null && compression.equalsIgnoreCase("gzip");
+        this.minSplitSize = minSplitSize;
         this.row = new InputRow(inputs);
         this.fileInputFactories = fileInputFactories;
         this.shared = shared;
@@ -124,8 +141,22 @@ public class FileReadingIterator implements BatchIterator<Row> {
                                                  int numReaders,
                                                  int readerNumber,
                                                  FileUriCollectPhase.InputFormat inputFormat) {
+        return newInstance(fileUris, inputs, collectorExpressions, compression, fileInputFactories, shared,
+            numReaders, readerNumber, inputFormat, MIN_SPLIT_SIZE);
+    }
+
+    static BatchIterator<Row> newInstance(Collection<String> fileUris,
+                                          List<Input<?>> inputs,
+                                          Iterable<LineCollectorExpression<?>> collectorExpressions,
+                                          String compression,
+                                          Map<String, FileInputFactory> fileInputFactories,
+                                          Boolean shared,
+                                          int numReaders,
+                                          int readerNumber,
+                                          FileUriCollectPhase.InputFormat inputFormat,
+                                          long minSplitSize) {
         return new CloseAssertingBatchIterator<>(new FileReadingIterator(fileUris, inputs, collectorExpressions,
-            compression, fileInputFactories, shared, numReaders, readerNumber, inputFormat));
+            compression, fileInputFactories, shared, numReaders, readerNumber, inputFormat, minSplitSize));
     }
 
     private void initCollectorState() {
@@ -181,8 +212,15 @@ public class FileReadingIterator implements BatchIterator<Row> {
         currentInput = fileInputsIterator.next();
         FileInput fileInput = currentInput.v1();
         UriWithGlob fileUri = currentInput.v2();
-        Predicate<URI> uriPredicate = generateUriPredicate(fileInput, fileUri.globPredicate);
-        List<URI> uris = getUris(fileInput, fileUri.uri, fileUri.preGlobUri, uriPredicate);
+        List<URI> uris;
+        rangesByUri.clear();
+        if (canSplit(fileInput)) {
+            Predicate<URI> globPredicate = fileUri.globPredicate == null ? MATCH_ALL_PREDICATE : fileUri.globPredicate;
+            uris = assignUris(fileInput, getUris(fileInput, fileUri.uri, fileUri.preGlobUri, globPredicate));
+        } else {
+            Predicate<URI> uriPredicate = generateUriPredicate(fileInput, fileUri.globPredicate);
+            uris = getUris(fileInput, fileUri.uri, fileUri.preGlobUri, uriPredicate);
+        }
 
         if (uris.size() > 0) {
             currentInputIterator = uris.iterator();
@@ -193,12 +231,60 @@ public class FileReadingIterator implements BatchIterator<Row> {
         }
     }
 
+    private boolean canSplit(FileInput fileInput) {
+        if (numReaders < 2 || compressed || !MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault())) {
+            return false;
+        }
+        for (LineCollectorExpression<?> collectorExpression : collectorExpressions) {
+            if (collectorExpression instanceof SourceLineNumberExpression) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Assigns whole files to readers by hash. If there are fewer files than readers, large files are
+     * split into a byte range per reader instead.
+     */
+    private List<URI> assignUris(FileInput fileInput, List<URI> uris) throws IOException {
+        Predicate<URI> moduloPredicate = generateModuloPredicate();
+        boolean splitFiles = uris.size() < numReaders && fileInput instanceof RangeFileInput;
+        List<URI> assignedUris = new ArrayList<>(uris.size());
+        for (URI uri : uris) {
+            long size = splitFiles ? ((RangeFileInput) fileInput).size(uri) : -1L;
+            if (size >= minSplitSize) {
+                rangesByUri.put(uri, new long[]{size * readerNumber / numReaders, size * (readerNumber + 1) / numReaders});
+                assignedUris.add(uri);
+            } else if (moduloPredicate.test(uri)) {
+                assignedUris.add(uri);
+            }
+        }
+        return assignedUris;
+    }
+
     private void initCurrentReader(FileInput fileInput, URI uri) throws IOException {
         lineProcessor.startWithUri(uri);
-        InputStream stream = fileInput.getStream(uri);
-        currentReader = createBufferedReader(stream);
-        currentLineNumber = 0;
-        lineProcessor.readFirstLine(currentUri, inputFormat, currentReader);
+        long[] range = rangesByUri.get(uri);
+        if (range == null) {
+            InputStream stream = fileInput.getStream(uri);
+            currentReader = createBufferedReader(stream);
+            currentLineNumber = 0;
+            lineProcessor.readFirstLine(currentUri, inputFormat, currentReader);
+        } else {
+            RangeFileInput rangeFileInput = (RangeFileInput) fileInput;
+            if (range[0] > 0 && LineParser.isInputCsv(inputFormat, uri)) {
+                // the header is only contained in the first range
+                try (BufferedReader headerReader = createBufferedReader(LineRangeInputStream.open(rangeFileInput, uri, 0L, 1L))) {
+                    lineProcessor.readFirstLine(currentUri, inputFormat, headerReader);
+                }
+            }
+            currentReader = createBufferedReader(LineRangeInputStream.open(rangeFileInput, uri, range[0], range[1]));
+            currentLineNumber = 0;
+            if (range[0] == 0) {
+                lineProcessor.readFirstLine(currentUri, inputFormat, currentReader);
+            }
+        }
     }
 
     private void closeCurrentReader() {
@@ -374,17 +460,21 @@ public class FileReadingIterator implements BatchIterator<Row> {
         return uris;
     }
 
+    private Predicate<URI> generateModuloPredicate() {
+        return input -> {
+            int hash = input.hashCode();
+            if (hash == Integer.MIN_VALUE) {
+                hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
+            }
+            return Math.abs(hash) % numReaders == readerNumber;
+        };
+    }
+
     private Predicate<URI> generateUriPredicate(FileInput fileInput, @Nullable Predicate<URI> globPredicate) {
         Predicate<URI> moduloPredicate;
         boolean sharedStorage = MoreObjects.firstNonNull(shared, fileInput.sharedStorageDefault());
         if (sharedStorage) {
-            moduloPredicate = input -> {
-                int hash = input.hashCode();
-                if (hash == Integer.MIN_VALUE) {
-                    hash = 0; // Math.abs(Integer.MIN_VALUE) == Integer.MIN_VALUE
-                }
-                return Math.abs(hash) % numReaders == readerNumber;
-            };
+            moduloPredicate = generateModuloPredicate();
         } else {
             moduloPredicate = MATCH_ALL_PREDICATE;
         }
@@ -0,0 +1,117 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Stream of the lines of a resource which start within the byte range [start, end).
+ *
+ * The partial line in front of {@code start} belongs to the previous range and is skipped,
+ * the line which crosses {@code end} is read to its end. So adjacent ranges cover every line exactly once.
+ * Works for UTF-8 as a '\n' byte can't be part of a multi-byte character.
+ */
+final class LineRangeInputStream extends InputStream {
+
+    private final InputStream delegate;
+    private final long end;
+    private long position;
+    private boolean atLineStart = true;
+
+    static InputStream open(RangeFileInput fileInput, URI uri, long start, long end) throws IOException {
+        if (start == 0) {
+            return new LineRangeInputStream(fileInput.getStream(uri), 0L, end);
+        }
+        // start one byte early to find out if start is at the beginning of a line
+        LineRangeInputStream stream = new LineRangeInputStream(fileInput.getStream(uri, start - 1), start - 1, end);
+        stream.skipPartialLine();
+        return stream;
+    }
+
+    private LineRangeInputStream(InputStream delegate, long position, long end) {
+        this.delegate = new BufferedInputStream(delegate);
+        this.position = position;
+        this.end = end;
+    }
+
+    private void skipPartialLine() throws IOException {
+        int b;
+        while ((b = delegate.read()) != -1) {
+            position++;
+            if (b == '\n') {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position >= end && atLineStart) {
+            return -1;
+        }
+        int b = delegate.read();
+        if (b == -1) {
+            return -1;
+        }
+        position++;
+        atLineStart = b == '\n';
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position < end) {
+            int read = delegate.read(b, off, (int) Math.min(len, end - position));
+            if (read > 0) {
+                position += read;
+                atLineStart = b[off + read - 1] == '\n';
+            }
+            return read;
+        }
+        // finish the line which crosses the end of the range
+        int read = 0;
+        while (read < len) {
+            int c = read();
+            if (c == -1) {
+                break;
+            }
+            b[off + read] = (byte) c;
+            read++;
+            if (c == '\n') {
+                break;
+            }
+        }
+        return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -28,18 +28,21 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 
-public class LocalFsFileInput implements FileInput {
+public class LocalFsFileInput implements RangeFileInput {
 
     @Override
     public List<URI> listUris(final URI fileUri, final Predicate<URI> uriPredicate) throws IOException {
@@ -85,6 +88,18 @@ public class LocalFsFileInput implements FileInput {
         return new FileInputStream(file);
     }
 
+    @Override
+    public InputStream getStream(URI uri, long position) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(uri), StandardOpenOption.READ);
+        channel.position(position);
+        return Channels.newInputStream(channel);
+    }
+
+    @Override
+    public long size(URI uri) throws IOException {
+        return Files.size(Paths.get(uri));
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return false;
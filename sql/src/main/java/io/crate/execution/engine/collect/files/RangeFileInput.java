@@ -0,0 +1,45 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * A {@link FileInput} which can read a resource starting at an arbitrary position, so that
+ * a large resource can be read in byte ranges by several readers.
+ */
+public interface RangeFileInput extends FileInput {
+
+    /**
+     * @return a stream of the resource which starts at byte {@code position}
+     */
+    InputStream getStream(URI uri, long position) throws IOException;
+
+    /**
+     * @return the size of the resource in bytes or -1 if it is unknown.
+     *         Only resources with a known size are read in ranges by several readers.
+     */
+    long size(URI uri) throws IOException;
+}
@@ -22,6 +22,7 @@
 package io.crate.execution.engine.collect.files;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
@@ -36,7 +37,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Predicate;
 
-public class S3FileInput implements FileInput {
+public class S3FileInput implements RangeFileInput {
 
     private AmazonS3 client; // to prevent early GC during getObjectContent() in getStream()
     private static final Logger logger = Loggers.getLogger(S3FileInput.class);
@@ -98,6 +99,28 @@ public class S3FileInput implements FileInput {
         throw new IOException("Failed to load S3 URI: " + uri.toString());
     }
 
+    @Override
+    public InputStream getStream(URI uri, long position) throws IOException {
+        if (client == null) {
+            client = clientBuilder.client(uri);
+        }
+        S3Object object = client.getObject(
+            new GetObjectRequest(uri.getHost(), uri.getPath().substring(1)).withRange(position));
+
+        if (object != null) {
+            return object.getObjectContent();
+        }
+        throw new IOException("Failed to load S3 URI: " + uri.toString());
+    }
+
+    @Override
+    public long size(URI uri) throws IOException {
+        if (client == null) {
+            client = clientBuilder.client(uri);
+        }
+        return client.getObjectMetadata(uri.getHost(), uri.getPath().substring(1)).getContentLength();
+    }
+
     @Override
     public boolean sharedStorageDefault() {
         return true;
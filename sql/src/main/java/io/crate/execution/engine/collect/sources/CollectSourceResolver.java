@@ -34,6 +34,7 @@ import io.crate.execution.dsl.phases.ExecutionPhaseVisitor;
 import io.crate.execution.dsl.phases.FileUriCollectPhase;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
 import io.crate.execution.dsl.phases.TableFunctionCollectPhase;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.CollectTask;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
@@ -87,7 +88,8 @@ public class CollectSourceResolver {
                                  SingleRowSource singleRowSource,
                                  SystemCollectSource systemCollectSource,
                                  NodeStatsCollectSource nodeStatsCollectSource,
-                                 BigArrays bigArrays) {
+                                 BigArrays bigArrays,
+                                 SpillFiles spillFiles) {
         this.clusterService = clusterService;
 
         EvaluatingNormalizer normalizer = EvaluatingNormalizer.functionOnlyNormalizer(functions);
@@ -102,7 +104,8 @@ public class CollectSourceResolver {
             normalizer,
             systemCollectSource::getRowUpdater,
             systemCollectSource::tableDefinition,
-            bigArrays
+            bigArrays,
+            spillFiles
         );
         this.shardCollectSource = shardCollectSource;
         this.fileCollectSource = new ProjectorSetupCollectSource(fileCollectSource, projectorFactory);
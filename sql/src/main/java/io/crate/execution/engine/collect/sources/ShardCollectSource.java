@@ -39,6 +39,7 @@ import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.CollectPhase;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
 import io.crate.execution.dsl.projection.Projections;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.CollectTask;
 import io.crate.execution.engine.collect.RemoteCollectorFactory;
 import io.crate.execution.engine.collect.RowsTransformer;
@@ -135,6 +136,14 @@ import static io.crate.execution.support.ThreadPools.numIdleThreads;
  * </pre>
  *
  * In other cases multiple shards are simply processed sequentially by concatenating the BatchIterators
+ *
+ * <h2>Slices</h2>
+ *
+ * <p>
+ *     If there are fewer shards on a node than processors, the leaves of a shard are split into slices which are
+ *     collected like separate shards: Concurrently if the shard projections aggregate into partial results, and
+ *     merged by the sorted paging iterator for ordered collection. See {@link #maxSlicesPerShard(int)}.
+ * </p>
  */
 @Singleton
 public class ShardCollectSource extends AbstractComponent implements CollectSource {
@@ -151,6 +160,7 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
     private final StaticTableReferenceResolver<UnassignedShard> unassignedShardReferenceResolver;
     private final StaticTableReferenceResolver<ShardRowContext> shardReferenceResolver;
     private final IntSupplier availableThreads;
+    private final int numProcessors;
 
     @Inject
     public ShardCollectSource(Settings settings,
@@ -166,7 +176,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
                               SystemCollectSource systemCollectSource,
                               IndexEventListenerProxy indexEventListenerProxy,
                               BlobIndicesService blobIndicesService,
-                              BigArrays bigArrays) {
+                              BigArrays bigArrays,
+                              SpillFiles spillFiles) {
         super(settings);
         this.unassignedShardReferenceResolver = new StaticTableReferenceResolver<>(
             SysShardsTableInfo.unassignedShardsExpressions());
@@ -175,7 +186,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         this.clusterService = clusterService;
         this.remoteCollectorFactory = remoteCollectorFactory;
         ThreadPoolExecutor executor = (ThreadPoolExecutor) threadPool.executor(ThreadPool.Names.SEARCH);
-        this.availableThreads = numIdleThreads(executor, EsExecutors.numberOfProcessors(settings));
+        this.numProcessors = EsExecutors.numberOfProcessors(settings);
+        this.availableThreads = numIdleThreads(executor, numProcessors);
         this.executor = ThreadPools.fallbackOnRejection(executor);
         this.inputFactory = new InputFactory(functions);
         this.shardCollectorProviderFactory = new ShardCollectorProviderFactory(
@@ -188,7 +200,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
             functions,
             luceneQueryBuilder,
             nodeJobsCounter,
-            bigArrays);
+            bigArrays,
+            spillFiles);
         EvaluatingNormalizer nodeNormalizer = new EvaluatingNormalizer(
             functions,
             RowGranularity.DOC,
@@ -206,7 +219,8 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
             nodeNormalizer,
             systemCollectSource::getRowUpdater,
             systemCollectSource::tableDefinition,
-            bigArrays
+            bigArrays,
+            spillFiles
         );
 
         indexEventListenerProxy.addLast(new LifecycleListener());
@@ -324,6 +338,7 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         Map<String, IntIndexedContainer> indexShards = locations.get(localNodeId);
         List<OrderedDocCollector> orderedDocCollectors = new ArrayList<>();
         MetaData metaData = clusterService.state().metaData();
+        int maxSlices = maxSlicesPerShard(numShards(indexShards));
         for (Map.Entry<String, IntIndexedContainer> entry : indexShards.entrySet()) {
             String indexName = entry.getKey();
             Index index = metaData.index(indexName).getIndex();
@@ -334,11 +349,12 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
 
                 try {
                     ShardCollectorProvider shardCollectorProvider = getCollectorProviderSafe(shardId);
-                    orderedDocCollectors.add(shardCollectorProvider.getOrderedCollector(
+                    orderedDocCollectors.addAll(shardCollectorProvider.getOrderedCollectors(
                         collectPhase,
                         context,
                         collectTask,
-                        supportMoveToStart)
+                        supportMoveToStart,
+                        maxSlices)
                     );
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
                     throw e;
@@ -389,6 +405,9 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
 
         MetaData metaData = clusterService.state().metaData();
         List<BatchIterator<Row>> iterators = new ArrayList<>();
+        int maxSlices = Projections.shardProjectionsSupportSlicing(collectPhase.projections())
+            ? maxSlicesPerShard(numShards(indexShards))
+            : 1;
         for (Map.Entry<String, IntIndexedContainer> entry : indexShards.entrySet()) {
             String indexName = entry.getKey();
             IndexMetaData indexMD = metaData.index(indexName);
@@ -411,12 +430,12 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
                 ShardId shardId = new ShardId(index, shardCursor.value);
                 try {
                     ShardCollectorProvider shardCollectorProvider = getCollectorProviderSafe(shardId);
-                    BatchIterator<Row> iterator = shardCollectorProvider.getIterator(
+                    iterators.addAll(shardCollectorProvider.getSliceIterators(
                         collectPhase,
                         requiresScroll,
-                        collectTask
-                    );
-                    iterators.add(iterator);
+                        collectTask,
+                        maxSlices
+                    ));
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
                     // If toCollect contains a docId it means that this is a QueryThenFetch operation.
                     // In such a case RemoteCollect cannot be used because on that node the FetchTask is missing
@@ -438,6 +457,21 @@ public class ShardCollectSource extends AbstractComponent implements CollectSour
         return iterators;
     }
 
+    /**
+     * Processors which would be left idle by collecting one shard per thread are used to collect slices of the shards.
+     */
+    private int maxSlicesPerShard(int numShards) {
+        return Math.max(1, numProcessors / Math.max(1, numShards));
+    }
+
+    private static int numShards(Map<String, IntIndexedContainer> indexShards) {
+        int numShards = 0;
+        for (IntIndexedContainer shards : indexShards.values()) {
+            numShards += shards.size();
+        }
+        return numShards;
+    }
+
     private Iterable<Row> getShardsIterator(RoutedCollectPhase collectPhase, String localNodeId) {
         Map<String, Map<String, IntIndexedContainer>> locations = collectPhase.routing().locations();
         List<UnassignedShard> unassignedShards = new ArrayList<>();
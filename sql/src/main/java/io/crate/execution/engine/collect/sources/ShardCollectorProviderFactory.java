@@ -25,6 +25,7 @@ package io.crate.execution.engine.collect.sources;
 import io.crate.blob.v2.BlobIndicesService;
 import io.crate.blob.v2.BlobShard;
 import io.crate.execution.TransportActionProvider;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.BlobShardCollectorProvider;
 import io.crate.execution.engine.collect.LuceneShardCollectorProvider;
 import io.crate.execution.engine.collect.ShardCollectorProvider;
@@ -52,6 +53,7 @@ public class ShardCollectorProviderFactory {
     private final LuceneQueryBuilder luceneQueryBuilder;
     private final NodeJobsCounter nodeJobsCounter;
     private final BigArrays bigArrays;
+    private final SpillFiles spillFiles;
     private final Settings settings;
 
     ShardCollectorProviderFactory(ClusterService clusterService,
@@ -63,7 +65,8 @@ public class ShardCollectorProviderFactory {
                                   Functions functions,
                                   LuceneQueryBuilder luceneQueryBuilder,
                                   NodeJobsCounter nodeJobsCounter,
-                                  BigArrays bigArrays) {
+                                  BigArrays bigArrays,
+                                  SpillFiles spillFiles) {
         this.settings = settings;
         this.schemas = schemas;
         this.clusterService = clusterService;
@@ -74,6 +77,7 @@ public class ShardCollectorProviderFactory {
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.nodeJobsCounter = nodeJobsCounter;
         this.bigArrays = bigArrays;
+        this.spillFiles = spillFiles;
     }
 
     public ShardCollectorProvider create(IndexShard indexShard) {
@@ -88,7 +92,8 @@ public class ShardCollectorProviderFactory {
                 threadPool,
                 settings,
                 transportActionProvider,
-                bigArrays);
+                bigArrays,
+                spillFiles);
         } else {
             return new LuceneShardCollectorProvider(
                 schemas,
@@ -100,7 +105,8 @@ public class ShardCollectorProviderFactory {
                 settings,
                 transportActionProvider,
                 indexShard,
-                bigArrays);
+                bigArrays,
+                spillFiles);
         }
     }
 }
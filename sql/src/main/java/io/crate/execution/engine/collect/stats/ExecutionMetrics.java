@@ -0,0 +1,122 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.stats;
+
+import io.crate.planner.Plan;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counters about the statements, execution phases, shuffles and fetches of this node.
+ * <p>
+ * All counters are {@link java.util.concurrent.atomic.LongAdder} based, so that recording values from the
+ * query threads and reading them (e.g. by the {@code /_metrics} endpoint) never block each other.
+ */
+@ThreadSafe
+public class ExecutionMetrics {
+
+    private final Map<Plan.StatementType, MeanMetric> statementDurations;
+    private final Map<Plan.StatementType, CounterMetric> statementFailures;
+    private final ConcurrentHashMap<String, MeanMetric> phaseDurations = new ConcurrentHashMap<>();
+    private final MeanMetric shuffledRows = new MeanMetric();
+    private final CounterMetric shuffledBytes = new CounterMetric();
+    private final MeanMetric fetchedDocs = new MeanMetric();
+
+    public ExecutionMetrics() {
+        // the maps are filled upfront and never modified afterwards, so reads need no synchronization
+        EnumMap<Plan.StatementType, MeanMetric> durations = new EnumMap<>(Plan.StatementType.class);
+        EnumMap<Plan.StatementType, CounterMetric> failures = new EnumMap<>(Plan.StatementType.class);
+        for (Plan.StatementType type : Plan.StatementType.values()) {
+            durations.put(type, new MeanMetric());
+            failures.put(type, new CounterMetric());
+        }
+        this.statementDurations = Collections.unmodifiableMap(durations);
+        this.statementFailures = Collections.unmodifiableMap(failures);
+    }
+
+    void recordStatement(Plan.StatementType type, long durationMs, boolean failed) {
+        statementDurations.get(type).inc(durationMs);
+        if (failed) {
+            statementFailures.get(type).inc();
+        }
+    }
+
+    void recordPhase(String name, long durationMs) {
+        MeanMetric metric = phaseDurations.get(name);
+        if (metric == null) {
+            metric = phaseDurations.computeIfAbsent(name, ignored -> new MeanMetric());
+        }
+        metric.inc(durationMs);
+    }
+
+    /**
+     * Record a bucket of rows which is sent to a downstream node
+     */
+    public void recordShuffledBucket(int numRows, long numBytes) {
+        shuffledRows.inc(numRows);
+        shuffledBytes.inc(numBytes);
+    }
+
+    /**
+     * Record a fetch request of this node, {@code numDocs} is the number of documents to fetch
+     */
+    public void recordFetch(long numDocs) {
+        fetchedDocs.inc(numDocs);
+    }
+
+    public Map<Plan.StatementType, MeanMetric> statementDurations() {
+        return statementDurations;
+    }
+
+    public Map<Plan.StatementType, CounterMetric> statementFailures() {
+        return statementFailures;
+    }
+
+    public Map<String, MeanMetric> phaseDurations() {
+        return phaseDurations;
+    }
+
+    /**
+     * count is the number of shuffled buckets, sum the number of rows in them
+     */
+    public MeanMetric shuffledRows() {
+        return shuffledRows;
+    }
+
+    public CounterMetric shuffledBytes() {
+        return shuffledBytes;
+    }
+
+    /**
+     * count is the number of fetch requests, sum the number of fetched documents
+     */
+    public MeanMetric fetchedDocs() {
+        return fetchedDocs;
+    }
+}
@@ -32,7 +32,7 @@ import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.JobContextLogSizeEstimator;
 import io.crate.breaker.OperationContextLogSizeEstimator;
 import io.crate.breaker.SizeEstimator;
-import io.crate.core.collections.BlockingEvictingQueue;
+import io.crate.core.collections.RingBuffer;
 import io.crate.data.Input;
 import io.crate.execution.engine.collect.NestableCollectExpression;
 import io.crate.expression.ExpressionsInput;
@@ -284,7 +284,7 @@ public class JobsLogService extends AbstractLifecycleComponent implements Provid
             );
             onClose = () -> scheduledFuture.cancel(false);
         } else {
-            q = new BlockingEvictingQueue<>(size);
+            q = new RingBuffer<>(size);
             onClose = () -> {
             };
         }
@@ -28,6 +28,7 @@ import io.crate.expression.reference.sys.job.JobContextLog;
 import io.crate.expression.reference.sys.operation.OperationContext;
 import io.crate.expression.reference.sys.operation.OperationContextLog;
 import io.crate.metadata.sys.ClassifiedHistograms;
+import io.crate.metadata.sys.StatementHistograms;
 import io.crate.planner.operators.StatementClassifier;
 import org.elasticsearch.common.collect.Tuple;
 
@@ -37,8 +38,6 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.LongAdder;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BooleanSupplier;
 
 
@@ -58,6 +57,9 @@ import java.util.function.BooleanSupplier;
  * from the properties may become obsolete.
  * So the Iterable instances shouldn't be hold onto.
  * Instead the Iterable should be re-retrieved each time the data is processed.
+ * <p>
+ * Adding entries to the logs doesn't take any locks; the log sinks are swapped on updates and entries which are
+ * added to the previous sink while its entries are copied into the new one may get lost.
  */
 @ThreadSafe
 public class JobsLogs {
@@ -65,15 +67,14 @@ public class JobsLogs {
     private final Map<UUID, JobContext> jobsTable = new ConcurrentHashMap<>();
     private final Map<Tuple<Integer, UUID>, OperationContext> operationsTable = new ConcurrentHashMap<>();
 
-    private LogSink<JobContextLog> jobsLog = NoopLogSink.instance();
-    private LogSink<OperationContextLog> operationsLog = NoopLogSink.instance();
-
-    private final ReadWriteLock jobsLogRWLock = new ReentrantReadWriteLock();
-    private final ReadWriteLock operationsLogRWLock = new ReentrantReadWriteLock();
+    private volatile LogSink<JobContextLog> jobsLog = NoopLogSink.instance();
+    private volatile LogSink<OperationContextLog> operationsLog = NoopLogSink.instance();
 
     private final LongAdder activeRequests = new LongAdder();
     private final BooleanSupplier enabled;
     private final ClassifiedHistograms histograms = new ClassifiedHistograms();
+    private final StatementHistograms statementHistograms = new StatementHistograms();
+    private final ExecutionMetrics executionMetrics = new ExecutionMetrics();
 
     public JobsLogs(BooleanSupplier enabled) {
         this.enabled = enabled;
@@ -121,18 +122,17 @@ public class JobsLogs {
         }
         JobContextLog jobContextLog = new JobContextLog(jobContext, errorMessage);
         addToHistogram(jobContextLog);
-        jobsLogRWLock.readLock().lock();
-        try {
-            jobsLog.add(jobContextLog);
-        } finally {
-            jobsLogRWLock.readLock().unlock();
-        }
+        jobsLog.add(jobContextLog);
     }
 
     private void addToHistogram(JobContextLog log) {
         StatementClassifier.Classification classification = log.classification();
         assert classification != null : "A job must have a classification";
-        histograms.recordValue(classification, log.ended() - log.started());
+        long duration = log.ended() - log.started();
+        histograms.recordValue(classification, duration);
+        boolean failed = log.errorMessage() != null;
+        statementHistograms.recordValue(log.statement(), duration, failed);
+        executionMetrics.recordStatement(classification.type(), duration, failed);
     }
 
     /**
@@ -145,12 +145,7 @@ public class JobsLogs {
     public void logPreExecutionFailure(UUID jobId, String stmt, String errorMessage, User user) {
         JobContextLog jobContextLog = new JobContextLog(
             new JobContext(jobId, stmt, System.currentTimeMillis(), user, null), errorMessage);
-        jobsLogRWLock.readLock().lock();
-        try {
-            jobsLog.add(jobContextLog);
-        } finally {
-            jobsLogRWLock.readLock().unlock();
-        }
+        jobsLog.add(jobContextLog);
     }
 
     public void operationStarted(int operationId, UUID jobId, String name) {
@@ -165,6 +160,18 @@ public class JobsLogs {
         return histograms;
     }
 
+    public Iterable<StatementHistograms.StatementHistogram> statementStats() {
+        return statementHistograms;
+    }
+
+    /**
+     * Counters of this node which are updated independent of the size of the logs.
+     * Statement and phase durations are only recorded if {@link #isEnabled()} is true.
+     */
+    public ExecutionMetrics executionMetrics() {
+        return executionMetrics;
+    }
+
     public void operationFinished(int operationId, UUID jobId, @Nullable String errorMessage, long usedBytes) {
         if (!isEnabled()) {
             return;
@@ -177,12 +184,8 @@ public class JobsLogs {
         }
         operationContext.usedBytes = usedBytes;
         OperationContextLog operationContextLog = new OperationContextLog(operationContext, errorMessage);
-        operationsLogRWLock.readLock().lock();
-        try {
-            operationsLog.add(operationContextLog);
-        } finally {
-            operationsLogRWLock.readLock().unlock();
-        }
+        executionMetrics.recordPhase(operationContext.name(), operationContextLog.ended() - operationContext.started());
+        operationsLog.add(operationContextLog);
     }
 
     public Iterable<JobContext> activeJobs() {
@@ -190,12 +193,7 @@ public class JobsLogs {
     }
 
     public Iterable<JobContextLog> jobsLog() {
-        jobsLogRWLock.readLock().lock();
-        try {
-            return jobsLog;
-        } finally {
-            jobsLogRWLock.readLock().unlock();
-        }
+        return jobsLog;
     }
 
     public Iterable<OperationContext> activeOperations() {
@@ -203,12 +201,7 @@ public class JobsLogs {
     }
 
     public Iterable<OperationContextLog> operationsLog() {
-        operationsLogRWLock.readLock().lock();
-        try {
-            return operationsLog;
-        } finally {
-            operationsLogRWLock.readLock().unlock();
-        }
+        return operationsLog;
     }
 
     public long activeRequests() {
@@ -216,29 +209,22 @@ public class JobsLogs {
     }
 
     void updateOperationsLog(LogSink<OperationContextLog> sink) {
-        operationsLogRWLock.writeLock().lock();
-        try {
-            sink.addAll(operationsLog);
-            operationsLog.close();
-            operationsLog = sink;
-        } finally {
-            operationsLogRWLock.writeLock().unlock();
-        }
+        LogSink<OperationContextLog> previous = operationsLog;
+        operationsLog = sink;
+        sink.addAll(previous);
+        previous.close();
     }
 
     void updateJobsLog(LogSink<JobContextLog> sink) {
-        jobsLogRWLock.writeLock().lock();
-        try {
-            sink.addAll(jobsLog);
-            jobsLog.close();
-            jobsLog = sink;
-        } finally {
-            jobsLogRWLock.writeLock().unlock();
-        }
+        LogSink<JobContextLog> previous = jobsLog;
+        jobsLog = sink;
+        sink.addAll(previous);
+        previous.close();
     }
 
     void resetMetricHistograms() {
         histograms.reset();
+        statementHistograms.reset();
     }
 
     public void close() {
@@ -0,0 +1,110 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.stats;
+
+import io.crate.planner.ColumnStatsMetaData;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.master.TransportMasterNodeAction;
+import org.elasticsearch.cluster.AckedClusterStateUpdateTask;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+/**
+ * Stores the sampled {@link ColumnStatsMetaData} in the cluster metadata, which distributes them to all nodes.
+ */
+@Singleton
+public class TransportUpdateColumnStatsAction
+    extends TransportMasterNodeAction<UpdateColumnStatsRequest, UpdateColumnStatsResponse> {
+
+    @Inject
+    public TransportUpdateColumnStatsAction(Settings settings,
+                                            TransportService transportService,
+                                            ClusterService clusterService,
+                                            ThreadPool threadPool,
+                                            ActionFilters actionFilters,
+                                            IndexNameExpressionResolver indexNameExpressionResolver) {
+        super(settings,
+            "crate/sql/column_stats/update",
+            transportService,
+            clusterService,
+            threadPool,
+            actionFilters,
+            indexNameExpressionResolver,
+            UpdateColumnStatsRequest::new);
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.GENERIC;
+    }
+
+    @Override
+    protected UpdateColumnStatsResponse newResponse() {
+        return new UpdateColumnStatsResponse();
+    }
+
+    @Override
+    protected void masterOperation(UpdateColumnStatsRequest request,
+                                   ClusterState state,
+                                   ActionListener<UpdateColumnStatsResponse> listener) {
+        clusterService.submitStateUpdateTask("column_stats/update",
+            new AckedClusterStateUpdateTask<UpdateColumnStatsResponse>(Priority.NORMAL, request, listener) {
+
+                @Override
+                public ClusterState execute(ClusterState currentState) {
+                    ColumnStatsMetaData columnStats = request.columnStats();
+                    if (columnStats.equals(currentState.metaData().custom(ColumnStatsMetaData.TYPE))) {
+                        return currentState;
+                    }
+                    return ClusterState.builder(currentState)
+                        .metaData(
+                            MetaData.builder(currentState.metaData())
+                                .putCustom(ColumnStatsMetaData.TYPE, columnStats)
+                                .build()
+                        )
+                        .build();
+                }
+
+                @Override
+                protected UpdateColumnStatsResponse newResponse(boolean acknowledged) {
+                    return new UpdateColumnStatsResponse(acknowledged);
+                }
+            });
+    }
+
+    @Override
+    protected ClusterBlockException checkBlock(UpdateColumnStatsRequest request, ClusterState state) {
+        return state.blocks().globalBlockedException(ClusterBlockLevel.METADATA_WRITE);
+    }
+}
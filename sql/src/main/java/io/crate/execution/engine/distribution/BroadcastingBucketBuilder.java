@@ -39,8 +39,15 @@ public class BroadcastingBucketBuilder implements MultiBucketBuilder {
     private volatile int size = 0;
 
     public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets) {
+        this(streamers, numBuckets, false);
+    }
+
+    /**
+     * @param columnar if true the bucket is built in the columnar format, see {@link StreamBucket.Builder#columnar(Streamer[])}
+     */
+    public BroadcastingBucketBuilder(Streamer<?>[] streamers, int numBuckets, boolean columnar) {
         this.numBuckets = numBuckets;
-        this.bucketBuilder = new StreamBucket.Builder(streamers, null);
+        this.bucketBuilder = columnar ? StreamBucket.Builder.columnar(streamers) : new StreamBucket.Builder(streamers, null);
     }
 
     @Override
@@ -0,0 +1,473 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.types.ByteType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BitUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar encoding of the rows of a {@link StreamBucket}, used for the pages which are sent to downstream nodes.
+ *
+ * Each column is written as a whole: a null bitmap followed by the non-null values.
+ * Integral values are delta encoded as zig-zag variable length longs, strings are dictionary encoded if they
+ * repeat and all other types are written with their {@link Streamer}.
+ * Pages of at least {@link #MIN_COMPRESSION_BYTES} are compressed with LZ4 if that makes them smaller.
+ */
+final class ColumnarPage {
+
+    static final byte FORMAT_ROWS = 0;
+    static final byte FORMAT_COLUMNS = 1;
+    static final byte FORMAT_COLUMNS_LZ4 = 2;
+
+    static final int MIN_COMPRESSION_BYTES = 4096;
+
+    private static final byte ENCODING_PLAIN = 0;
+    private static final byte ENCODING_DELTA = 1;
+    private static final byte ENCODING_DICTIONARY = 2;
+
+    /**
+     * Once a dictionary has more entries than this, the strings of the column are written as they are
+     */
+    private static final int MAX_DICTIONARY_SIZE = 1 << 14;
+
+    private ColumnarPage() {
+    }
+
+    static class Writer {
+
+        private final Streamer<?>[] streamers;
+        private ColumnWriter[] columns;
+        private int size = 0;
+
+        Writer(Streamer<?>[] streamers) {
+            this.streamers = streamers;
+            this.columns = newColumnWriters(streamers);
+        }
+
+        void add(Row row) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].add(size, row.get(i));
+            }
+            size++;
+        }
+
+        long ramBytesUsed() {
+            long bytes = 0L;
+            for (ColumnWriter column : columns) {
+                bytes += column.ramBytesUsed();
+            }
+            return bytes;
+        }
+
+        /**
+         * Write the page to {@code out}, the writer can still be used afterwards.
+         *
+         * @return the format of the written page, either {@link #FORMAT_COLUMNS} or {@link #FORMAT_COLUMNS_LZ4}
+         */
+        byte finish(StreamOutput out) throws IOException {
+            BytesStreamOutput page = new BytesStreamOutput();
+            for (ColumnWriter column : columns) {
+                column.writeTo(page, size);
+            }
+            if (page.size() >= MIN_COMPRESSION_BYTES) {
+                byte[] uncompressed = BytesReference.toBytes(page.bytes());
+                byte[] compressed = new byte[uncompressed.length + uncompressed.length / 255 + 32];
+                ByteArrayDataOutput compressedOut = new ByteArrayDataOutput(compressed);
+                CompressionMode.FAST.newCompressor().compress(uncompressed, 0, uncompressed.length, compressedOut);
+                int compressedLength = compressedOut.getPosition();
+                if (compressedLength < uncompressed.length) {
+                    out.writeVInt(uncompressed.length);
+                    out.writeVInt(compressedLength);
+                    out.writeBytes(compressed, 0, compressedLength);
+                    return FORMAT_COLUMNS_LZ4;
+                }
+            }
+            page.bytes().writeTo(out);
+            return FORMAT_COLUMNS;
+        }
+
+        void reset() {
+            columns = newColumnWriters(streamers);
+            size = 0;
+        }
+
+        private static ColumnWriter[] newColumnWriters(Streamer<?>[] streamers) {
+            ColumnWriter[] columns = new ColumnWriter[streamers.length];
+            for (int i = 0; i < streamers.length; i++) {
+                Streamer<?> streamer = streamers[i];
+                if (isIntegral(streamer)) {
+                    columns[i] = new DeltaColumnWriter();
+                } else if (streamer instanceof StringType) {
+                    columns[i] = new StringColumnWriter();
+                } else {
+                    columns[i] = new PlainColumnWriter(streamer);
+                }
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * Decode a page written by {@link Writer#finish(StreamOutput)}
+     *
+     * @return the values by column and row
+     */
+    static Object[][] read(BytesReference bytes, byte format, Streamer<?>[] streamers, int size) throws IOException {
+        StreamInput in;
+        if (format == FORMAT_COLUMNS_LZ4) {
+            StreamInput compressedIn = bytes.streamInput();
+            int uncompressedLength = compressedIn.readVInt();
+            byte[] compressed = new byte[compressedIn.readVInt()];
+            compressedIn.readBytes(compressed, 0, compressed.length);
+            BytesRef uncompressed = new BytesRef();
+            CompressionMode.FAST.newDecompressor().decompress(
+                new ByteArrayDataInput(compressed), uncompressedLength, 0, uncompressedLength, uncompressed);
+            in = StreamInput.wrap(uncompressed.bytes, uncompressed.offset, uncompressed.length);
+        } else {
+            assert format == FORMAT_COLUMNS : "format must be a columnar format";
+            in = bytes.streamInput();
+        }
+        Object[][] columns = new Object[streamers.length][];
+        for (int i = 0; i < streamers.length; i++) {
+            columns[i] = readColumn(in, streamers[i], size);
+        }
+        return columns;
+    }
+
+    private static Object[] readColumn(StreamInput in, Streamer<?> streamer, int size) throws IOException {
+        Object[] values = new Object[size];
+        byte encoding = in.readByte();
+        int numNulls = in.readVInt();
+        if (numNulls == size) {
+            return values;
+        }
+        long[] nulls = null;
+        if (numNulls > 0) {
+            nulls = new long[numWords(size)];
+            for (int i = 0; i < nulls.length; i++) {
+                nulls[i] = in.readLong();
+            }
+        }
+        switch (encoding) {
+            case ENCODING_DELTA:
+                long value = 0L;
+                for (int row = 0; row < size; row++) {
+                    if (!isNull(nulls, row)) {
+                        value += BitUtil.zigZagDecode(readUnsignedVLong(in));
+                        values[row] = toIntegral(streamer, value);
+                    }
+                }
+                break;
+
+            case ENCODING_DICTIONARY:
+                BytesRef[] dictionary = new BytesRef[in.readVInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = in.readBytesRef();
+                }
+                for (int row = 0; row < size; row++) {
+                    if (!isNull(nulls, row)) {
+                        values[row] = dictionary[in.readVInt()];
+                    }
+                }
+                break;
+
+            case ENCODING_PLAIN:
+                for (int row = 0; row < size; row++) {
+                    if (!isNull(nulls, row)) {
+                        values[row] = streamer.readValueFrom(in);
+                    }
+                }
+                break;
+
+            default:
+                throw new IllegalStateException("Invalid column encoding: " + encoding);
+        }
+        return values;
+    }
+
+    private static boolean isIntegral(Streamer<?> streamer) {
+        return streamer instanceof LongType
+               || streamer instanceof TimestampType
+               || streamer instanceof IntegerType
+               || streamer instanceof ShortType
+               || streamer instanceof ByteType;
+    }
+
+    private static Object toIntegral(Streamer<?> streamer, long value) {
+        if (streamer instanceof IntegerType) {
+            return (int) value;
+        }
+        if (streamer instanceof ShortType) {
+            return (short) value;
+        }
+        if (streamer instanceof ByteType) {
+            return (byte) value;
+        }
+        return value;
+    }
+
+    private static int numWords(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    private static boolean isNull(long[] nulls, int row) {
+        return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Like {@link StreamOutput#writeVLong(long)} but for the whole unsigned range, as needed for zig-zag encoded values
+     */
+    private static void writeUnsignedVLong(StreamOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0L) {
+            out.writeByte((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((byte) value);
+    }
+
+    private static long readUnsignedVLong(StreamInput in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7FL) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Invalid variable length long");
+    }
+
+    private abstract static class ColumnWriter {
+
+        private long[] nulls = new long[1];
+        private int numNulls = 0;
+
+        final void add(int row, Object value) throws IOException {
+            if (value == null) {
+                int word = row >>> 6;
+                if (word >= nulls.length) {
+                    nulls = ArrayUtil.grow(nulls, word + 1);
+                }
+                nulls[word] |= 1L << row;
+                numNulls++;
+            } else {
+                addValue(value);
+            }
+        }
+
+        final void writeTo(StreamOutput out, int size) throws IOException {
+            out.writeByte(encoding());
+            out.writeVInt(numNulls);
+            if (numNulls == size) {
+                return;
+            }
+            if (numNulls > 0) {
+                int numWords = numWords(size);
+                for (int i = 0; i < numWords; i++) {
+                    out.writeLong(i < nulls.length ? nulls[i] : 0L);
+                }
+            }
+            writeValues(out);
+        }
+
+        long ramBytesUsed() {
+            return RamUsageEstimator.sizeOf(nulls);
+        }
+
+        abstract void addValue(Object value) throws IOException;
+
+        abstract byte encoding();
+
+        abstract void writeValues(StreamOutput out) throws IOException;
+    }
+
+    private static class DeltaColumnWriter extends ColumnWriter {
+
+        private final BytesStreamOutput values = new BytesStreamOutput();
+        private long previous = 0L;
+
+        @Override
+        void addValue(Object value) throws IOException {
+            long current = ((Number) value).longValue();
+            writeUnsignedVLong(values, BitUtil.zigZagEncode(current - previous));
+            previous = current;
+        }
+
+        @Override
+        byte encoding() {
+            return ENCODING_DELTA;
+        }
+
+        @Override
+        void writeValues(StreamOutput out) throws IOException {
+            values.bytes().writeTo(out);
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return super.ramBytesUsed() + values.size();
+        }
+    }
+
+    private static class PlainColumnWriter extends ColumnWriter {
+
+        private final Streamer streamer;
+        private final BytesStreamOutput values = new BytesStreamOutput();
+
+        PlainColumnWriter(Streamer<?> streamer) {
+            this.streamer = streamer;
+        }
+
+        @Override
+        void addValue(Object value) throws IOException {
+            //noinspection unchecked
+            streamer.writeValueTo(values, value);
+        }
+
+        @Override
+        byte encoding() {
+            return ENCODING_PLAIN;
+        }
+
+        @Override
+        void writeValues(StreamOutput out) throws IOException {
+            values.bytes().writeTo(out);
+        }
+
+        @Override
+        long ramBytesUsed() {
+            return super.ramBytesUsed() + values.size();
+        }
+    }
+
+    /**
+     * Collects a dictionary of the strings and writes the ids of the values if there are repetitions.
+     * Falls back to plain values once the dictionary grows beyond {@link #MAX_DICTIONARY_SIZE}.
+     */
+    private static class StringColumnWriter extends ColumnWriter {
+
+        private Map<BytesRef, Integer> dictionary = new HashMap<>();
+        private List<BytesRef> entries = new ArrayList<>();
+        private int[] ids = new int[16];
+        private int numValues = 0;
+        private long dictionaryBytes = 0L;
+        private BytesStreamOutput plainValues = null;
+
+        @Override
+        void addValue(Object value) throws IOException {
+            BytesRef string = (BytesRef) value;
+            if (plainValues != null) {
+                StringType.INSTANCE.writeValueTo(plainValues, string);
+                return;
+            }
+            Integer id = dictionary.get(string);
+            if (id == null) {
+                if (entries.size() == MAX_DICTIONARY_SIZE) {
+                    switchToPlainValues();
+                    StringType.INSTANCE.writeValueTo(plainValues, string);
+                    return;
+                }
+                BytesRef entry = BytesRef.deepCopyOf(string);
+                id = entries.size();
+                entries.add(entry);
+                dictionary.put(entry, id);
+                dictionaryBytes += entry.length;
+            }
+            if (numValues == ids.length) {
+                ids = ArrayUtil.grow(ids, numValues + 1);
+            }
+            ids[numValues] = id;
+            numValues++;
+        }
+
+        private void switchToPlainValues() throws IOException {
+            plainValues = new BytesStreamOutput();
+            for (int i = 0; i < numValues; i++) {
+                StringType.INSTANCE.writeValueTo(plainValues, entries.get(ids[i]));
+            }
+            dictionary = null;
+            entries = null;
+            ids = null;
+        }
+
+        private boolean useDictionary() {
+            return plainValues == null && entries.size() * 2 <= numValues;
+        }
+
+        @Override
+        byte encoding() {
+            return useDictionary() ? ENCODING_DICTIONARY : ENCODING_PLAIN;
+        }
+
+        @Override
+        void writeValues(StreamOutput out) throws IOException {
+            if (plainValues != null) {
+                plainValues.bytes().writeTo(out);
+            } else if (useDictionary()) {
+                out.writeVInt(entries.size());
+                for (BytesRef entry : entries) {
+                    out.writeBytesRef(entry);
+                }
+                for (int i = 0; i < numValues; i++) {
+                    out.writeVInt(ids[i]);
+                }
+            } else {
+                for (int i = 0; i < numValues; i++) {
+                    StringType.INSTANCE.writeValueTo(out, entries.get(ids[i]));
+                }
+            }
+        }
+
+        @Override
+        long ramBytesUsed() {
+            if (plainValues != null) {
+                return super.ramBytesUsed() + plainValues.size();
+            }
+            return super.ramBytesUsed() + RamUsageEstimator.sizeOf(ids) + dictionaryBytes
+                   + entries.size() * 2L * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+        }
+    }
+}
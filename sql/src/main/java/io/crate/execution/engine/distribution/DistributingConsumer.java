@@ -29,6 +29,7 @@ import io.crate.data.Bucket;
 import io.crate.data.Row;
 import io.crate.data.RowConsumer;
 import io.crate.exceptions.SQLExceptions;
+import io.crate.execution.engine.collect.stats.ExecutionMetrics;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
@@ -61,6 +62,7 @@ public class DistributingConsumer implements RowConsumer {
     private final TransportDistributedResultAction distributedResultAction;
     private final Streamer<?>[] streamers;
     private final int pageSize;
+    private final ExecutionMetrics executionMetrics;
     private final Bucket[] buckets;
     private final List<Downstream> downstreams;
     private final boolean traceEnabled;
@@ -80,7 +82,8 @@ public class DistributingConsumer implements RowConsumer {
                                 Collection<String> downstreamNodeIds,
                                 TransportDistributedResultAction distributedResultAction,
                                 Streamer<?>[] streamers,
-                                int pageSize) {
+                                int pageSize,
+                                ExecutionMetrics executionMetrics) {
         this.traceEnabled = logger.isTraceEnabled();
         this.logger = logger;
         this.responseExecutor = responseExecutor;
@@ -92,6 +95,7 @@ public class DistributingConsumer implements RowConsumer {
         this.distributedResultAction = distributedResultAction;
         this.streamers = streamers;
         this.pageSize = pageSize;
+        this.executionMetrics = executionMetrics;
         this.buckets = new Bucket[downstreamNodeIds.size()];
         downstreams = new ArrayList<>(downstreamNodeIds.size());
         for (String downstreamNodeId : downstreamNodeIds) {
@@ -192,9 +196,13 @@ public class DistributingConsumer implements RowConsumer {
                 logger.trace("forwardResults targetNode={} jobId={} targetPhase={}/{} bucket={} isLast={}",
                     downstream.nodeId, jobId, targetPhaseId, inputId, bucketIdx, isLast);
             }
+            Bucket bucket = buckets[i];
+            if (bucket instanceof StreamBucket) {
+                executionMetrics.recordShuffledBucket(bucket.size(), ((StreamBucket) bucket).numBytes());
+            }
             distributedResultAction.pushResult(
                 downstream.nodeId,
-                new DistributedResultRequest(jobId, targetPhaseId, inputId, bucketIdx, streamers, buckets[i], isLast),
+                new DistributedResultRequest(jobId, targetPhaseId, inputId, bucketIdx, streamers, bucket, isLast),
                 new ActionListener<DistributedResultResponse>() {
                     @Override
                     public void onResponse(DistributedResultResponse response) {
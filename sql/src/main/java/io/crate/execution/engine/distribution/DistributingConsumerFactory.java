@@ -26,6 +26,8 @@ import io.crate.Streamer;
 import io.crate.data.RowConsumer;
 import io.crate.execution.dsl.phases.ExecutionPhases;
 import io.crate.execution.dsl.phases.NodeOperation;
+import io.crate.execution.engine.collect.stats.ExecutionMetrics;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.execution.jobs.PageBucketReceiver;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.node.StreamerVisitor;
@@ -51,17 +53,20 @@ public class DistributingConsumerFactory extends AbstractComponent {
     private final ClusterService clusterService;
     private final Executor responseExecutor;
     private final TransportDistributedResultAction transportDistributedResultAction;
+    private final ExecutionMetrics executionMetrics;
     private final Logger distributingDownstreamLogger;
 
     @Inject
     public DistributingConsumerFactory(Settings settings,
                                        ClusterService clusterService,
                                        ThreadPool threadPool,
-                                       TransportDistributedResultAction transportDistributedResultAction) {
+                                       TransportDistributedResultAction transportDistributedResultAction,
+                                       JobsLogs jobsLogs) {
         super(settings);
         this.clusterService = clusterService;
         this.responseExecutor = threadPool.executor(RESPONSE_EXECUTOR_NAME);
         this.transportDistributedResultAction = transportDistributedResultAction;
+        this.executionMetrics = jobsLogs.executionMetrics();
         distributingDownstreamLogger = Loggers.getLogger(DistributingConsumer.class, settings);
     }
 
@@ -77,18 +82,21 @@ public class DistributingConsumerFactory extends AbstractComponent {
         byte phaseInputId = nodeOperation.downstreamExecutionPhaseInputId();
         int bucketIdx = getBucketIdx(nodeOperation.executionPhase().nodeIds(), phaseInputId);
 
+        boolean columnar = transportDistributedResultAction.useColumnarPages(nodeOperation.downstreamNodes());
         MultiBucketBuilder multiBucketBuilder;
         switch (distributionInfo.distributionType()) {
             case MODULO:
                 if (nodeOperation.downstreamNodes().size() == 1) {
-                    multiBucketBuilder = new BroadcastingBucketBuilder(streamers, nodeOperation.downstreamNodes().size());
+                    multiBucketBuilder = new BroadcastingBucketBuilder(
+                        streamers, nodeOperation.downstreamNodes().size(), columnar);
                 } else {
                     multiBucketBuilder = new ModuloBucketBuilder(streamers,
-                        nodeOperation.downstreamNodes().size(), distributionInfo.distributeByColumn());
+                        nodeOperation.downstreamNodes().size(), distributionInfo.distributeByColumn(), columnar);
                 }
                 break;
             case BROADCAST:
-                multiBucketBuilder = new BroadcastingBucketBuilder(streamers, nodeOperation.downstreamNodes().size());
+                multiBucketBuilder = new BroadcastingBucketBuilder(
+                    streamers, nodeOperation.downstreamNodes().size(), columnar);
                 break;
             default:
                 throw new UnsupportedOperationException("Can't handle distributionInfo: " + distributionInfo);
@@ -105,7 +113,8 @@ public class DistributingConsumerFactory extends AbstractComponent {
             nodeOperation.downstreamNodes(),
             transportDistributedResultAction,
             streamers,
-            pageSize
+            pageSize,
+            executionMetrics
         );
     }
 
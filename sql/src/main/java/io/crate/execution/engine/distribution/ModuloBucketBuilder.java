@@ -45,11 +45,18 @@ public class ModuloBucketBuilder implements MultiBucketBuilder {
     private volatile int size = 0;
 
     public ModuloBucketBuilder(Streamer<?>[] streamers, int numBuckets, int distributedByColumnIdx) {
+        this(streamers, numBuckets, distributedByColumnIdx, false);
+    }
+
+    /**
+     * @param columnar if true the buckets are built in the columnar format, see {@link StreamBucket.Builder#columnar(Streamer[])}
+     */
+    public ModuloBucketBuilder(Streamer<?>[] streamers, int numBuckets, int distributedByColumnIdx, boolean columnar) {
         this.numBuckets = numBuckets;
         this.distributedByColumnIdx = distributedByColumnIdx;
         this.bucketBuilders = new ArrayList<>(numBuckets);
         for (int i = 0; i < numBuckets; i++) {
-            bucketBuilders.add(new StreamBucket.Builder(streamers, null));
+            bucketBuilders.add(columnar ? StreamBucket.Builder.columnar(streamers) : new StreamBucket.Builder(streamers, null));
         }
     }
 
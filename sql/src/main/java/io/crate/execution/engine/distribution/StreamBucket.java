@@ -38,10 +38,21 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
 
+/**
+ * Bucket of serialized rows.
+ *
+ * The rows are either stored one after another or, if built by a {@link Builder#columnar(Streamer[])} builder,
+ * in the compressed columnar encoding of {@link ColumnarPage}. The format is part of the serialized bucket,
+ * so the receiving side can always read both.
+ *
+ * Nodes of older versions can't read the format byte. This can't be gated on the stream version because it is the
+ * version of Elasticsearch, which is the same for these versions, so a full restart upgrade is required.
+ */
 public class StreamBucket implements Bucket, Streamable {
 
     private Streamer<?>[] streamers;
     private int size = -1;
+    private byte format = ColumnarPage.FORMAT_ROWS;
     private BytesReference bytes;
 
     public static class Builder {
@@ -52,46 +63,88 @@ public class StreamBucket implements Bucket, Streamable {
 
         private int size = 0;
         private final Streamer<?>[] streamers;
+        @Nullable
+        private final ColumnarPage.Writer columnarWriter;
         private BytesStreamOutput out;
-        private int prevOutSize = 0;
+        private long prevOutSize = 0;
 
         public Builder(Streamer<?>[] streamers, RamAccountingContext ramAccountingContext) {
+            this(streamers, ramAccountingContext, false);
+        }
+
+        private Builder(Streamer<?>[] streamers, RamAccountingContext ramAccountingContext, boolean columnar) {
             this.ramAccountingContext = ramAccountingContext;
             assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
             this.streamers = streamers;
-            out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            if (columnar) {
+                columnarWriter = new ColumnarPage.Writer(streamers);
+            } else {
+                columnarWriter = null;
+                out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            }
+        }
+
+        /**
+         * Builder for buckets which are sent to other nodes; the rows are encoded by column and compressed.
+         */
+        public static Builder columnar(Streamer<?>[] streamers) {
+            return new Builder(streamers, null, true);
         }
 
         public void add(Row row) throws IOException {
             assert streamers.length == row.numColumns() : "number of streamer must match row size";
 
             size++;
-            for (int i = 0; i < row.numColumns(); i++) {
-                //noinspection unchecked
-                ((Streamer) streamers[i]).writeValueTo(out, row.get(i));
+            long outSize;
+            if (columnarWriter == null) {
+                for (int i = 0; i < row.numColumns(); i++) {
+                    //noinspection unchecked
+                    ((Streamer) streamers[i]).writeValueTo(out, row.get(i));
+                }
+                outSize = out.size();
+            } else {
+                columnarWriter.add(row);
+                outSize = ramAccountingContext == null ? 0L : columnarWriter.ramBytesUsed();
             }
             if (ramAccountingContext != null) {
-                ramAccountingContext.addBytes(out.size() - prevOutSize);
-                prevOutSize = out.size();
+                ramAccountingContext.addBytes(outSize - prevOutSize);
+                prevOutSize = outSize;
             }
         }
 
         public void writeToStream(StreamOutput output) throws IOException {
             output.writeVInt(size);
             if (size > 0) {
-                output.writeBytesReference(out.bytes());
+                if (columnarWriter == null) {
+                    output.writeByte(ColumnarPage.FORMAT_ROWS);
+                    output.writeBytesReference(out.bytes());
+                } else {
+                    BytesStreamOutput page = new BytesStreamOutput();
+                    output.writeByte(columnarWriter.finish(page));
+                    output.writeBytesReference(page.bytes());
+                }
             }
         }
 
         public StreamBucket build() throws IOException {
             StreamBucket sb = new StreamBucket(streamers);
             sb.size = size;
-            sb.bytes = out.bytes();
+            if (columnarWriter == null) {
+                sb.bytes = out.bytes();
+            } else {
+                BytesStreamOutput page = new BytesStreamOutput();
+                sb.format = columnarWriter.finish(page);
+                sb.bytes = page.bytes();
+            }
             return sb;
         }
 
         public void reset() {
-            out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            if (columnarWriter == null) {
+                out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            } else {
+                columnarWriter.reset();
+            }
             size = 0;
         }
     }
@@ -106,6 +159,13 @@ public class StreamBucket implements Bucket, Streamable {
         return size;
     }
 
+    /**
+     * @return the number of bytes of the serialized (and possibly compressed) rows
+     */
+    public int numBytes() {
+        return bytes == null ? 0 : bytes.length();
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
@@ -178,6 +238,36 @@ public class StreamBucket implements Bucket, Streamable {
         }
     }
 
+    private static class ColumnIterator implements Iterator<Row> {
+
+        private final Object[][] columns;
+        private final int size;
+        private final Object[] current;
+        private final RowN row;
+        private int pos = 0;
+
+        private ColumnIterator(Object[][] columns, int size) {
+            this.columns = columns;
+            this.size = size;
+            current = new Object[columns.length];
+            row = new RowN(current);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Row next() {
+            for (int c = 0; c < columns.length; c++) {
+                current[c] = columns[c][pos];
+            }
+            pos++;
+            return row;
+        }
+    }
+
     @Override
     public Iterator<Row> iterator() {
         if (size < 1) {
@@ -185,7 +275,10 @@ public class StreamBucket implements Bucket, Streamable {
         }
         assert streamers != null : "streamers must not be null";
         try {
-            return new RowIterator(bytes.streamInput(), streamers, size);
+            if (format == ColumnarPage.FORMAT_ROWS) {
+                return new RowIterator(bytes.streamInput(), streamers, size);
+            }
+            return new ColumnIterator(ColumnarPage.read(bytes, format, streamers, size), size);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -195,6 +288,7 @@ public class StreamBucket implements Bucket, Streamable {
     public void readFrom(StreamInput in) throws IOException {
         size = in.readVInt();
         if (size > 0) {
+            format = in.readByte();
             bytes = in.readBytesReference();
         }
     }
@@ -211,6 +305,7 @@ public class StreamBucket implements Bucket, Streamable {
         assert size > -1 : "size must be > -1";
         out.writeVInt(size);
         if (size > 0) {
+            out.writeByte(format);
             out.writeBytesReference(bytes);
         }
     }
@@ -47,6 +47,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -115,6 +116,21 @@ public class TransportDistributedResultAction extends AbstractComponent implemen
             new ActionListenerResponseHandler<>(listener, DistributedResultResponse::new));
     }
 
+    /**
+     * Pages for other nodes are sent in the compressed columnar format of {@link StreamBucket.Builder#columnar(io.crate.Streamer[])}.
+     * Requests to the local node are passed on without serialization, so if all downstreams are local
+     * the cheaper row format is kept. Receivers read both formats as the format is part of the serialized bucket.
+     */
+    boolean useColumnarPages(Collection<String> downstreamNodes) {
+        String localNodeId = clusterService.localNode().getId();
+        for (String node : downstreamNodes) {
+            if (!node.equals(localNodeId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public CompletableFuture<DistributedResultResponse> nodeOperation(DistributedResultRequest request) {
         return nodeOperation(request, null);
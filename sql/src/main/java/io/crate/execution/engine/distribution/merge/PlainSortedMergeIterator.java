@@ -39,14 +39,14 @@ import static com.google.common.collect.Iterators.peekingIterator;
  * <p>
  * And it also has a merge function with which additional backing iterators can be added to enable paging
  */
-class PlainSortedMergeIterator<TKey, TRow> extends UnmodifiableIterator<TRow> implements SortedMergeIterator<TKey, TRow> {
+public class PlainSortedMergeIterator<TKey, TRow> extends UnmodifiableIterator<TRow> implements SortedMergeIterator<TKey, TRow> {
 
     private final Queue<NumberedPeekingIterator<TKey, TRow>> queue;
     private NumberedPeekingIterator<TKey, TRow> lastUsedIter = null;
     private boolean leastExhausted = false;
     private TKey exhausted;
 
-    PlainSortedMergeIterator(final Comparator<? super TRow> itemComparator) {
+    public PlainSortedMergeIterator(final Comparator<? super TRow> itemComparator) {
         Comparator<PeekingIterator<TRow>> heapComparator = (o1, o2) -> itemComparator.compare(o1.peek(), o2.peek());
         queue = new PriorityQueue<>(2, heapComparator);
     }
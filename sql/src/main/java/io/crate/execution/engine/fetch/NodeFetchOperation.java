@@ -120,6 +120,7 @@ public class NodeFetchOperation {
             return resultFuture;
         }
 
+        jobsLogs.executionMetrics().recordFetch(numDocs(docIdsToFetch));
         RootTask context = tasksService.getTask(jobId);
         FetchTask fetchTask = context.getTask(phaseId);
         try {
@@ -133,6 +134,14 @@ public class NodeFetchOperation {
         return resultFuture;
     }
 
+    private static long numDocs(IntObjectMap<? extends IntContainer> docIdsToFetch) {
+        long numDocs = 0;
+        for (IntObjectCursor<? extends IntContainer> cursor : docIdsToFetch) {
+            numDocs += cursor.value.size();
+        }
+        return numDocs;
+    }
+
     private void logStartAndSetupLogFinished(final UUID jobId, final int phaseId, CompletableFuture<?> resultFuture) {
         jobsLogs.operationStarted(phaseId, jobId, "fetch");
         resultFuture.whenComplete((r, t) -> {
@@ -0,0 +1,56 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.indexing;
+
+/**
+ * The number of rows which are put into one bulk of {@link ShardingUpsertExecutor}.
+ *
+ * Starts at the configured bulk size, is halved if a shard request is rejected and grows again
+ * in steps of a sixteenth of the configured size for every successful shard request.
+ */
+final class AdaptiveBulkSize {
+
+    private final int maxSize;
+    private final int minSize;
+    private final int step;
+    private int size;
+
+    AdaptiveBulkSize(int maxSize) {
+        this.maxSize = maxSize;
+        this.minSize = Math.max(1, maxSize >> 5);
+        this.step = Math.max(1, maxSize >> 4);
+        this.size = maxSize;
+    }
+
+    synchronized int get() {
+        return size;
+    }
+
+    synchronized void onResponse() {
+        size = Math.min(maxSize, size + step);
+    }
+
+    synchronized void onRejection() {
+        size = Math.max(minSize, size / 2);
+    }
+}
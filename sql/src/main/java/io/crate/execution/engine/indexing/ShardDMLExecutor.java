@@ -94,8 +94,13 @@ public class ShardDMLExecutor<TReq extends ShardRequest<TReq, TItem>, TItem exte
         this.operation = transportAction;
         this.localNodeId = getLocalNodeId(clusterService);
 
-        this.shouldPause = ignored ->
-            nodeJobsCounter.getInProgressJobsForNode(localNodeId) >= MAX_NODE_CONCURRENT_OPERATIONS;
+        this.shouldPause = ignored -> {
+            if (nodeJobsCounter.getInProgressJobsForNode(localNodeId) >= MAX_NODE_CONCURRENT_OPERATIONS) {
+                nodeJobsCounter.onThrottle();
+                return true;
+            }
+            return false;
+        };
     }
 
     private void addRowToRequest(TReq req, Row row) {
@@ -27,6 +27,7 @@ import io.crate.action.LimitedExponentialBackoff;
 import io.crate.data.BatchIterator;
 import io.crate.data.BatchIterators;
 import io.crate.data.Row;
+import io.crate.exceptions.SQLExceptions;
 import io.crate.execution.dml.ShardResponse;
 import io.crate.execution.dml.upsert.ShardUpsertRequest;
 import io.crate.execution.engine.collect.CollectExpression;
@@ -48,6 +49,7 @@ import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.shard.ShardId;
 
 import javax.annotation.Nullable;
@@ -62,6 +64,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static io.crate.execution.jobs.NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS;
@@ -73,6 +76,10 @@ public class ShardingUpsertExecutor
         "bulk.request_timeout", new TimeValue(1, TimeUnit.MINUTES),
         Setting.Property.NodeScope, Setting.Property.Dynamic), DataTypes.STRING);
 
+    public static final CrateSetting<Boolean> BULK_ADAPTIVE_SIZING_SETTING = CrateSetting.of(Setting.boolSetting(
+        "bulk.adaptive_sizing", true,
+        Setting.Property.NodeScope, Setting.Property.Dynamic), DataTypes.BOOLEAN);
+
     private static final BackoffPolicy BACKOFF_POLICY = LimitedExponentialBackoff.limitedExponential(1000);
     private static final Logger LOGGER = Loggers.getLogger(ShardingUpsertExecutor.class);
 
@@ -87,6 +94,8 @@ public class ShardingUpsertExecutor
     private final TransportCreatePartitionsAction createPartitionsAction;
     private final BulkShardCreationLimiter<ShardUpsertRequest, ShardUpsertRequest.Item> bulkShardCreationLimiter;
     private final UpsertResultCollector resultCollector;
+    @Nullable
+    private final AdaptiveBulkSize adaptiveBulkSize;
     private volatile boolean createPartitionsRequestOngoing = false;
 
     ShardingUpsertExecutor(ClusterService clusterService,
@@ -129,6 +138,11 @@ public class ShardingUpsertExecutor
         bulkShardCreationLimiter = new BulkShardCreationLimiter<>(tableSettings,
             clusterService.state().nodes().getDataNodes().size());
         this.resultCollector = upsertResultContext.getResultCollector();
+        if (BULK_ADAPTIVE_SIZING_SETTING.setting().get(clusterService.state().metaData().settings())) {
+            adaptiveBulkSize = new AdaptiveBulkSize(bulkSize);
+        } else {
+            adaptiveBulkSize = null;
+        }
     }
 
     public CompletableFuture<UpsertResults> execute(ShardedRequests<ShardUpsertRequest, ShardUpsertRequest.Item> requests) {
@@ -197,17 +211,45 @@ public class ShardingUpsertExecutor
                 scheduler,
                 l -> {
                     LOGGER.debug("Executing retry Listener for nodeId: {} request: {}", nodeId, request);
-                    requestExecutor.execute(request, l);
+                    requestExecutor.execute(request, observeLoad(nodeId, l));
                 },
                 listener,
                 BACKOFF_POLICY
             );
-            requestExecutor.execute(request, listener);
+            requestExecutor.execute(request, observeLoad(nodeId, listener));
         }
         return resultFuture;
     }
 
 
+    /**
+     * Feeds the latency and rejections of a shard request into the adaptive bulk size and the concurrency
+     * limit of the target node.
+     */
+    private ActionListener<ShardResponse> observeLoad(String nodeId, ActionListener<ShardResponse> delegate) {
+        if (adaptiveBulkSize == null) {
+            return delegate;
+        }
+        long startedNanos = System.nanoTime();
+        return new ActionListener<ShardResponse>() {
+            @Override
+            public void onResponse(ShardResponse shardResponse) {
+                nodeJobsCounter.onResponse(nodeId, System.nanoTime() - startedNanos);
+                adaptiveBulkSize.onResponse();
+                delegate.onResponse(shardResponse);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                if (SQLExceptions.unwrap(e) instanceof EsRejectedExecutionException) {
+                    nodeJobsCounter.onRejection(nodeId);
+                    adaptiveBulkSize.onRejection();
+                }
+                delegate.onFailure(e);
+            }
+        };
+    }
+
     private CompletableFuture<CreatePartitionsResponse> createPartitions(
         Map<String, List<ShardedRequests.ItemAndRoutingAndSourceInfo<ShardUpsertRequest.Item>>> itemsByMissingIndex) {
         FutureActionListener<CreatePartitionsResponse, CreatePartitionsResponse> listener = FutureActionListener.newInstance();
@@ -219,13 +261,18 @@ public class ShardingUpsertExecutor
     private boolean shouldPause(ShardedRequests<ShardUpsertRequest, ShardUpsertRequest.Item> requests) {
         if (createPartitionsRequestOngoing) {
             LOGGER.debug("partition creation in progress, will pause");
+            nodeJobsCounter.onThrottle();
             return true;
         }
 
         for (ShardLocation shardLocation : requests.itemsByShard.keySet()) {
             String requestNodeId = shardLocation.nodeId;
-            if (nodeJobsCounter.getInProgressJobsForNode(requestNodeId) >= MAX_NODE_CONCURRENT_OPERATIONS) {
+            long maxConcurrentOperations = adaptiveBulkSize == null
+                ? MAX_NODE_CONCURRENT_OPERATIONS
+                : nodeJobsCounter.getConcurrencyLimitForNode(requestNodeId);
+            if (nodeJobsCounter.getInProgressJobsForNode(requestNodeId) >= maxConcurrentOperations) {
                 LOGGER.debug("reached maximum concurrent operations for node {}", requestNodeId);
+                nodeJobsCounter.onThrottle();
                 return true;
             }
         }
@@ -234,9 +281,13 @@ public class ShardingUpsertExecutor
 
     @Override
     public CompletableFuture<? extends Iterable<Row>> apply(BatchIterator<Row> batchIterator) {
+        Predicate<ShardedRequests<ShardUpsertRequest, ShardUpsertRequest.Item>> stateLimiter = bulkShardCreationLimiter;
+        if (adaptiveBulkSize != null) {
+            stateLimiter = stateLimiter.or(requests -> requests.rowSourceInfos.size() >= adaptiveBulkSize.get());
+        }
         BatchIterator<ShardedRequests<ShardUpsertRequest, ShardUpsertRequest.Item>> reqBatchIterator =
             BatchIterators.partition(batchIterator, bulkSize, () -> new ShardedRequests<>(requestFactory), grouper,
-                bulkShardCreationLimiter);
+                stateLimiter);
 
         BatchIteratorBackpressureExecutor<ShardedRequests<ShardUpsertRequest, ShardUpsertRequest.Item>, UpsertResults> executor =
             new BatchIteratorBackpressureExecutor<>(
@@ -0,0 +1,701 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import com.carrotsearch.hppc.IntObjectHashMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import io.crate.data.BatchIterator;
+import io.crate.data.Paging;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.data.join.ElementCombiner;
+import io.crate.data.join.JoinBatchIterator;
+import io.crate.planner.node.dql.join.JoinType;
+import org.apache.lucene.util.LongBitSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * <pre>
+ *     Build Phase:
+ *     for (leftRow in left) {
+ *         calculate hash and put in Buffer (HashMap) until the blockSize is reached
+ *     }
+ *
+ *     Probe Phase:
+ *     // We iterate on the right until we find a matching row or the right side needs to be loaded a next batch of data
+ *     for (rightRow in right) {
+ *         if (hash(rightRow) found in Buffer {
+ *            for (row in matchedInBuffer) { // Handle duplicate values from left and hash collisions
+ *                if (joinCondition matches) {
+ *                    // We need to check that the joinCondition matches as we can have a hash collision
+ *                    // or the join condition can contain more operators.
+ *                    //
+ *                    // Row-lookup-by-hash-code can only work by the EQ operators of a join condition,
+ *                    // all other possible operators must be checked afterwards.
+ *                    emmit(combinedRow)
+ *                }
+ *            }
+ *         }
+ *     }
+ *
+ *     When the right side is all loaded, we reset the right iterator to start, clear the buffer and switch back to
+ *     iterate the next elements in the left side and re-build the buffer based on the next items in the left until we
+ *     reach the blockSize again.
+ *
+ *     Repeat until both sides are all loaded and processed.
+ * </pre>
+ * <p>
+ * Depending on the {@link JoinType}, matched rows are tracked to emit rows which don't appear in the result of an
+ * inner join:
+ * <ul>
+ * <li>LEFT, FULL: rows of the buffer without a match are emitted with a null right side after each block</li>
+ * <li>SEMI, ANTI: rows of the buffer with, respectively without a match are emitted with a null right side after each
+ * block, instead of emitting each match</li>
+ * <li>RIGHT, FULL: matched rows of the right side are tracked by position, the right rows without a match are
+ * emitted with a null left side by an additional scan of the right side after the last block</li>
+ * </ul>
+ * <p>
+ * If a {@link HashJoinPartitions} supplier is provided, the iterator switches to a hybrid hash join once the left side
+ * doesn't fit into one block, instead of re-scanning the right side for every block:
+ * <pre>
+ *     Partition Phase:
+ *     write the buffered rows and all remaining rows of the left side to partition files by hash
+ *     write all rows of the right side to partition files by hash
+ *
+ *     Join Phase:
+ *     for (partition in partitions) {
+ *         build the Buffer from the rows of the left partition (in blocks, if they exceed the blockSize)
+ *         probe the Buffer with the rows of the right partition
+ *     }
+ * </pre>
+ * Each row is then read from and written to disk once, unless a single partition exceeds the blockSize.
+ * <p>
+ * The caller of the constructor needs to pass two functions {@link #hashBuilderForLeft} and {@link #hashBuilderForRight}.
+ * Those functions are called on each row of the left and right side respectively and they return the hash value of
+ * the relevant columns of the row.
+ * <p>
+ * This information is not available for the {@link HashJoinBatchIterator}, so it's the responsibility of the
+ * caller to provide those two functions that operate on the left and right rows accordingly and return the hash values.
+ */
+public class HashJoinBatchIterator<L extends Row, R extends Row, C> extends JoinBatchIterator<L, R, C> {
+
+    private enum Phase {
+        BUILD,
+        PROBE,
+        EMIT_LEFT,
+        NEXT_BLOCK,
+        EMIT_RIGHT,
+        PARTITION_LEFT,
+        PARTITION_RIGHT,
+        DONE
+    }
+
+    private final JoinType joinType;
+    private final Predicate<C> joinCondition;
+
+    /**
+     * Used to avoid instantiating multiple times RowN in {@link #findMatchingRows()}
+     */
+    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+
+    /**
+     * Used to avoid instantiating multiple times RowN for rows of the right side which are read from a partition
+     */
+    private final UnsafeArrayRow rightRow = new UnsafeArrayRow();
+    private final Function<L, Integer> hashBuilderForLeft;
+    private final Function<R, Integer> hashBuilderForRight;
+    private final IntSupplier blockSizeSupplier;
+    private final IntObjectHashMap<List<Object[]>> buffer;
+    @Nullable
+    private final Supplier<HashJoinPartitions> partitionsSupplier;
+    private final boolean emitMatches;
+
+    /**
+     * Matched rows of the buffer by hash and by position in the list of rows with that hash.
+     * Only used if rows of the left side are emitted by whether they had a match.
+     */
+    @Nullable
+    private final IntObjectHashMap<BitSet> matchedLeftRows;
+
+    /**
+     * Matched rows of the right side by position. Only used if right rows without a match are emitted.
+     */
+    @Nullable
+    private LongBitSet matchedRightRows;
+    private long rightPosition = -1;
+
+    private Phase phase = Phase.BUILD;
+    private int blockSize;
+    private int numberOfRowsInBuffer = 0;
+    private boolean leftBatchHasItems = false;
+    private int numberOfLeftBatchesForBlock;
+    private int numberOfLeftBatchesLoadedForBlock;
+
+    @Nullable
+    private List<Object[]> leftMatchingRows;
+    private int leftMatchingRowsHash;
+    private int leftMatchingRowsPosition;
+
+    @Nullable
+    private Iterator<IntObjectCursor<List<Object[]>>> bucketsToEmit;
+    @Nullable
+    private IntObjectCursor<List<Object[]>> bucketToEmit;
+    private int bucketToEmitPosition;
+
+    /**
+     * Set once the left side didn't fit into one block
+     */
+    @Nullable
+    private HashJoinPartitions partitions;
+    private int partition = -1;
+    private boolean rightOfPartitionEmitted = true;
+    @Nullable
+    private HashJoinPartitions.Reader leftPartitionReader;
+    @Nullable
+    private HashJoinPartitions.Reader rightPartitionReader;
+
+    public HashJoinBatchIterator(RamAccountingBatchIterator<L> left,
+                                 BatchIterator<R> right,
+                                 ElementCombiner<L, R, C> combiner,
+                                 Predicate<C> joinCondition,
+                                 Function<L, Integer> hashBuilderForLeft,
+                                 Function<R, Integer> hashBuilderForRight,
+                                 IntSupplier blockSizeSupplier) {
+        this(
+            left,
+            right,
+            combiner,
+            JoinType.INNER,
+            joinCondition,
+            hashBuilderForLeft,
+            hashBuilderForRight,
+            blockSizeSupplier,
+            null);
+    }
+
+    /**
+     * @param partitionsSupplier if not null, used to partition both sides to disk once the left side doesn't fit
+     *                           into one block
+     */
+    public HashJoinBatchIterator(RamAccountingBatchIterator<L> left,
+                                 BatchIterator<R> right,
+                                 ElementCombiner<L, R, C> combiner,
+                                 JoinType joinType,
+                                 Predicate<C> joinCondition,
+                                 Function<L, Integer> hashBuilderForLeft,
+                                 Function<R, Integer> hashBuilderForRight,
+                                 IntSupplier blockSizeSupplier,
+                                 @Nullable Supplier<HashJoinPartitions> partitionsSupplier) {
+        super(left, right, combiner);
+        assert joinType != JoinType.CROSS : "A hash join requires a join condition";
+        this.joinType = joinType;
+        this.joinCondition = joinCondition;
+        this.hashBuilderForLeft = hashBuilderForLeft;
+        this.hashBuilderForRight = hashBuilderForRight;
+        this.blockSizeSupplier = blockSizeSupplier;
+        this.partitionsSupplier = partitionsSupplier;
+        this.emitMatches = joinType != JoinType.SEMI && joinType != JoinType.ANTI;
+        this.matchedLeftRows = joinType == JoinType.LEFT || joinType == JoinType.FULL || emitMatches == false
+            ? new IntObjectHashMap<>()
+            : null;
+        if (joinType == JoinType.RIGHT || joinType == JoinType.FULL) {
+            matchedRightRows = new LongBitSet(Paging.PAGE_SIZE);
+        }
+        // resized upon block size calculation
+        this.buffer = new IntObjectHashMap<>(0);
+        recreateBuffer();
+        // initially 1 page/batch is loaded
+        numberOfLeftBatchesLoadedForBlock = 1;
+        this.activeIt = left;
+    }
+
+    @Override
+    public C currentElement() {
+        return combiner.currentElement();
+    }
+
+    @Override
+    public void moveToStart() {
+        left.moveToStart();
+        right.moveToStart();
+        activeIt = left;
+        phase = Phase.BUILD;
+        closePartitions();
+        recreateBuffer();
+        ((RamAccountingBatchIterator) left).releaseAccountedRows();
+        leftMatchingRows = null;
+        bucketsToEmit = null;
+        bucketToEmit = null;
+        if (matchedRightRows != null) {
+            matchedRightRows = new LongBitSet(Paging.PAGE_SIZE);
+        }
+    }
+
+    @Override
+    public void close() {
+        closePartitions();
+        super.close();
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        closePartitions();
+        super.kill(throwable);
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() {
+        if (activeIt == left) {
+            numberOfLeftBatchesLoadedForBlock++;
+        }
+        return super.loadNextBatch();
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (true) {
+            switch (phase) {
+                case BUILD:
+                    if (buildBuffer() == false) {
+                        // left needs the next batch loaded
+                        return false;
+                    }
+                    if (partitions == null) {
+                        startProbe();
+                    } else {
+                        phase = Phase.PARTITION_LEFT;
+                    }
+                    break;
+
+                case PROBE:
+                    if (probe()) {
+                        return true;
+                    }
+                    if (partitions == null && right.allLoaded() == false) {
+                        // need to load the next batch of the right relation
+                        return false;
+                    }
+                    leftMatchingRows = null;
+                    if (matchedLeftRows == null) {
+                        phase = Phase.NEXT_BLOCK;
+                    } else {
+                        startEmitLeft();
+                    }
+                    break;
+
+                case EMIT_LEFT:
+                    if (emitLeft()) {
+                        return true;
+                    }
+                    phase = Phase.NEXT_BLOCK;
+                    break;
+
+                case NEXT_BLOCK:
+                    if (partitions == null) {
+                        nextBlock();
+                    } else if (nextPartitionBlock() == false) {
+                        // all partitions are processed
+                        return false;
+                    }
+                    break;
+
+                case EMIT_RIGHT:
+                    if (emitRight()) {
+                        return true;
+                    }
+                    if (partitions == null) {
+                        if (right.allLoaded() == false) {
+                            return false;
+                        }
+                        phase = Phase.DONE;
+                    } else {
+                        rightPartitionReader.close();
+                        rightPartitionReader = null;
+                        rightOfPartitionEmitted = true;
+                        phase = Phase.NEXT_BLOCK;
+                    }
+                    break;
+
+                case PARTITION_LEFT:
+                    while (left.moveNext()) {
+                        L row = left.currentElement();
+                        partitions.addLeft(hashBuilderForLeft.apply(row), row.materialize());
+                    }
+                    ((RamAccountingBatchIterator) left).releaseAccountedRows();
+                    if (left.allLoaded() == false) {
+                        return false;
+                    }
+                    activeIt = right;
+                    phase = Phase.PARTITION_RIGHT;
+                    break;
+
+                case PARTITION_RIGHT:
+                    while (right.moveNext()) {
+                        R row = right.currentElement();
+                        partitions.addRight(hashBuilderForRight.apply(row), row.materialize());
+                    }
+                    if (right.allLoaded() == false) {
+                        return false;
+                    }
+                    partitions.finishWriting();
+                    phase = Phase.NEXT_BLOCK;
+                    break;
+
+                case DONE:
+                    return false;
+
+                default:
+                    throw new AssertionError("Invalid phase: " + phase);
+            }
+        }
+    }
+
+    private void recreateBuffer() {
+        blockSize = blockSizeSupplier.getAsInt();
+        buffer.release();
+        buffer.ensureCapacity(blockSize);
+        numberOfRowsInBuffer = 0;
+        if (matchedLeftRows != null) {
+            matchedLeftRows.release();
+        }
+
+        // A batch is not guaranteed to deliver PAGE_SIZE number of rows. It could be more or less.
+        // So we cannot rely on that to decide if processing 1 block is done, we must also know and track how much
+        // batches should be required for processing 1 block.
+        numberOfLeftBatchesForBlock = Math.max(1, (int) Math.ceil((double) blockSize / Paging.PAGE_SIZE));
+        numberOfLeftBatchesLoadedForBlock = leftBatchHasItems ? 1 : 0;
+    }
+
+    /**
+     * @return false if the left side must load the next batch to complete the block.
+     */
+    private boolean buildBuffer() {
+        while (leftBatchHasItems = left.moveNext()) {
+            Object[] currentRow = left.currentElement().materialize();
+            int hash = hashBuilderForLeft.apply(left.currentElement());
+            addToBuffer(currentRow, hash);
+            if (numberOfRowsInBuffer == blockSize) {
+                if (partitionsSupplier != null) {
+                    startPartitioning();
+                }
+                return true;
+            }
+        }
+        return mustLoadLeftNextBatch() == false;
+    }
+
+    private void startProbe() {
+        activeIt = right;
+        rightPosition = -1;
+        leftMatchingRows = null;
+        phase = Phase.PROBE;
+    }
+
+    /**
+     * @return true if a row is emitted, false if the right side (or the right partition) has no more rows.
+     */
+    private boolean probe() {
+        // In case of multiple matches on the left side (duplicate values or hash collisions)
+        if (leftMatchingRows != null && findMatchingRows()) {
+            return true;
+        }
+        leftMatchingRows = null;
+        if (partitions == null) {
+            while (right.moveNext()) {
+                rightPosition++;
+                int rightHash = hashBuilderForRight.apply(right.currentElement());
+                List<Object[]> matchingRows = buffer.get(rightHash);
+                if (matchingRows != null) {
+                    combiner.setRight(right.currentElement());
+                    if (startMatching(matchingRows, rightHash)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        while (rightPartitionReader.next()) {
+            rightPosition++;
+            List<Object[]> matchingRows = buffer.get(rightPartitionReader.hash());
+            if (matchingRows != null) {
+                setRightFromPartition();
+                if (startMatching(matchingRows, rightPartitionReader.hash())) {
+                    return true;
+                }
+            }
+        }
+        rightPartitionReader.close();
+        rightPartitionReader = null;
+        return false;
+    }
+
+    private boolean startMatching(List<Object[]> matchingRows, int hash) {
+        leftMatchingRows = matchingRows;
+        leftMatchingRowsHash = hash;
+        leftMatchingRowsPosition = 0;
+        return findMatchingRows();
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean findMatchingRows() {
+        while (leftMatchingRowsPosition < leftMatchingRows.size()) {
+            int position = leftMatchingRowsPosition++;
+            leftRow.cells(leftMatchingRows.get(position));
+            combiner.setLeft((L) leftRow);
+            if (joinCondition.test(combiner.currentElement())) {
+                if (matchedLeftRows != null) {
+                    markLeftMatched(leftMatchingRowsHash, position);
+                }
+                if (matchedRightRows != null) {
+                    markRightMatched();
+                }
+                if (emitMatches) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void markLeftMatched(int hash, int position) {
+        BitSet matched = matchedLeftRows.get(hash);
+        if (matched == null) {
+            matched = new BitSet();
+            matchedLeftRows.put(hash, matched);
+        }
+        matched.set(position);
+    }
+
+    private void markRightMatched() {
+        if (rightPosition >= matchedRightRows.length()) {
+            matchedRightRows = LongBitSet.ensureCapacity(matchedRightRows, rightPosition);
+        }
+        matchedRightRows.set(rightPosition);
+    }
+
+    private boolean isRightMatched() {
+        return rightPosition < matchedRightRows.length() && matchedRightRows.get(rightPosition);
+    }
+
+    private void startEmitLeft() {
+        bucketsToEmit = buffer.iterator();
+        bucketToEmit = null;
+        combiner.nullRight();
+        phase = Phase.EMIT_LEFT;
+    }
+
+    /**
+     * Emits the rows of the buffer without a match, or with a match in case of a SEMI join.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean emitLeft() {
+        boolean emitMatched = joinType == JoinType.SEMI;
+        while (true) {
+            if (bucketToEmit == null) {
+                if (bucketsToEmit.hasNext() == false) {
+                    bucketsToEmit = null;
+                    return false;
+                }
+                bucketToEmit = bucketsToEmit.next();
+                bucketToEmitPosition = 0;
+            }
+            BitSet matched = matchedLeftRows.get(bucketToEmit.key);
+            List<Object[]> rows = bucketToEmit.value;
+            while (bucketToEmitPosition < rows.size()) {
+                int position = bucketToEmitPosition++;
+                boolean isMatched = matched != null && matched.get(position);
+                if (isMatched == emitMatched) {
+                    leftRow.cells(rows.get(position));
+                    combiner.setLeft((L) leftRow);
+                    return true;
+                }
+            }
+            bucketToEmit = null;
+        }
+    }
+
+    /**
+     * Emits the rows of the right side (or of the right partition) without a match.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean emitRight() {
+        if (partitions == null) {
+            while (right.moveNext()) {
+                rightPosition++;
+                if (isRightMatched() == false) {
+                    combiner.setRight(right.currentElement());
+                    return true;
+                }
+            }
+            return false;
+        }
+        while (rightPartitionReader.next()) {
+            rightPosition++;
+            if (isRightMatched() == false) {
+                setRightFromPartition();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void startEmitRight() {
+        rightPosition = -1;
+        combiner.nullLeft();
+        phase = Phase.EMIT_RIGHT;
+    }
+
+    private void nextBlock() {
+        if (leftBatchHasItems == false && left.allLoaded()) {
+            // both sides are fully loaded, we're done here
+            if (matchedRightRows == null) {
+                phase = Phase.DONE;
+            } else {
+                right.moveToStart();
+                startEmitRight();
+            }
+            return;
+        }
+        right.moveToStart();
+        activeIt = left;
+        recreateBuffer();
+        ((RamAccountingBatchIterator) left).releaseAccountedRows();
+        phase = Phase.BUILD;
+    }
+
+    private void addToBuffer(Object[] currentRow, int hash) {
+        List<Object[]> existingRows = buffer.get(hash);
+        if (existingRows == null) {
+            existingRows = new ArrayList<>();
+            buffer.put(hash, existingRows);
+        }
+        existingRows.add(currentRow);
+        numberOfRowsInBuffer++;
+    }
+
+    private boolean mustLoadLeftNextBatch() {
+        return leftBatchHasItems == false
+               && left.allLoaded() == false
+               && numberOfRowsInBuffer < blockSize
+               && numberOfLeftBatchesLoadedForBlock < numberOfLeftBatchesForBlock;
+    }
+
+    /**
+     * Moves the rows of the buffer into partitions; all further rows of both sides are partitioned as well.
+     */
+    private void startPartitioning() {
+        partitions = partitionsSupplier.get();
+        for (IntObjectCursor<List<Object[]>> cursor : buffer) {
+            for (Object[] row : cursor.value) {
+                partitions.addLeft(cursor.key, row);
+            }
+        }
+        buffer.release();
+        numberOfRowsInBuffer = 0;
+        ((RamAccountingBatchIterator) left).releaseAccountedRows();
+    }
+
+    /**
+     * Continues with the next block of rows of the current left partition, or with the next partition.
+     *
+     * @return false if all partitions have been processed.
+     */
+    private boolean nextPartitionBlock() {
+        if (leftPartitionReader != null && loadPartitionBlock()) {
+            rightPartitionReader = partitions.readRight(partition);
+            startProbe();
+            return true;
+        }
+        if (rightOfPartitionEmitted == false) {
+            rightPartitionReader = partitions.readRight(partition);
+            startEmitRight();
+            return true;
+        }
+        if (partition + 1 >= partitions.numPartitions()) {
+            phase = Phase.DONE;
+            return false;
+        }
+        partition++;
+        leftPartitionReader = partitions.readLeft(partition);
+        if (matchedRightRows != null) {
+            matchedRightRows = new LongBitSet(Paging.PAGE_SIZE);
+            rightOfPartitionEmitted = false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds the buffer from the next block of rows of the current left partition.
+     *
+     * @return false if the left partition has no more rows.
+     */
+    private boolean loadPartitionBlock() {
+        recreateBuffer();
+        ((RamAccountingBatchIterator) left).releaseAccountedRows();
+        while (numberOfRowsInBuffer < blockSize && leftPartitionReader.next()) {
+            Object[] row = leftPartitionReader.row();
+            leftRow.cells(row);
+            ((RamAccountingBatchIterator) left).accountForAndMaybeBreak(leftRow);
+            addToBuffer(row, leftPartitionReader.hash());
+        }
+        if (numberOfRowsInBuffer < blockSize) {
+            leftPartitionReader.close();
+            leftPartitionReader = null;
+        }
+        return numberOfRowsInBuffer > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setRightFromPartition() {
+        rightRow.cells(rightPartitionReader.row());
+        combiner.setRight((R) rightRow);
+    }
+
+    private void closePartitions() {
+        if (leftPartitionReader != null) {
+            leftPartitionReader.close();
+            leftPartitionReader = null;
+        }
+        if (rightPartitionReader != null) {
+            rightPartitionReader.close();
+            rightPartitionReader = null;
+        }
+        if (partitions != null) {
+            partitions.close();
+            partitions = null;
+        }
+        partition = -1;
+        rightOfPartitionEmitted = true;
+    }
+}
@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.Streamer;
 import io.crate.breaker.RowAccounting;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.BatchIterator;
@@ -29,16 +30,23 @@ import io.crate.data.ListenableBatchIterator;
 import io.crate.data.Row;
 import io.crate.data.RowConsumer;
 import io.crate.data.join.CombinedRow;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.expression.InputFactory;
 import io.crate.expression.symbol.Symbol;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class HashJoinOperation implements CompletionListenable {
 
@@ -49,6 +57,7 @@ public class HashJoinOperation implements CompletionListenable {
     public HashJoinOperation(int numLeftCols,
                              int numRightCols,
                              RowConsumer nlResultConsumer,
+                             JoinType joinType,
                              Predicate<Row> joinPredicate,
                              List<Symbol> joinLeftInputs,
                              List<Symbol> joinRightInputs,
@@ -56,23 +65,39 @@ public class HashJoinOperation implements CompletionListenable {
                              InputFactory inputFactory,
                              CircuitBreaker circuitBreaker,
                              long estimatedRowSizeForLeft,
-                             long numberOfRowsForLeft) {
+                             long numberOfRowsForLeft,
+                             Collection<DataType> leftOutputTypes,
+                             Collection<DataType> rightOutputTypes,
+                             @Nullable SpillFiles spillFiles) {
 
         CompletableFuture.allOf(leftBatchIterator, rightBatchIterator)
             .whenComplete((result, failure) -> {
                 if (failure == null) {
                     BatchIterator<Row> joinIterator;
                     try {
+                        RamBlockSizeCalculator blockSizeCalculator =
+                            new RamBlockSizeCalculator(circuitBreaker, estimatedRowSizeForLeft, numberOfRowsForLeft);
+                        Supplier<HashJoinPartitions> partitionsSupplier = null;
+                        if (spillFiles != null) {
+                            Streamer[] leftStreamers = DataTypes.getStreamers(leftOutputTypes);
+                            Streamer[] rightStreamers = DataTypes.getStreamers(rightOutputTypes);
+                            int numPartitions = HashJoinPartitions.numPartitions(
+                                numberOfRowsForLeft, blockSizeCalculator.getAsInt());
+                            partitionsSupplier = () -> new HashJoinPartitions(
+                                spillFiles, leftStreamers, rightStreamers, numPartitions);
+                        }
                         joinIterator = new ListenableBatchIterator<>(createHashJoinIterator(
                             leftBatchIterator.join(),
                             numLeftCols,
                             rightBatchIterator.join(),
                             numRightCols,
+                            joinType,
                             joinPredicate,
                             getHashBuilderFromSymbols(inputFactory, joinLeftInputs),
                             getHashBuilderFromSymbols(inputFactory, joinRightInputs),
                             rowAccounting,
-                            new RamBlockSizeCalculator(circuitBreaker, estimatedRowSizeForLeft, numberOfRowsForLeft)
+                            blockSizeCalculator,
+                            partitionsSupplier
                         ), completionFuture);
                         nlResultConsumer.accept(joinIterator, null);
                     } catch (Exception e) {
@@ -116,19 +141,23 @@ public class HashJoinOperation implements CompletionListenable {
                                                              int leftNumCols,
                                                              BatchIterator<Row> right,
                                                              int rightNumCols,
+                                                             JoinType joinType,
                                                              Predicate<Row> joinCondition,
                                                              Function<Row, Integer> hashBuilderForLeft,
                                                              Function<Row, Integer> hashBuilderForRight,
                                                              RowAccounting rowAccounting,
-                                                             RamBlockSizeCalculator blockSizeCalculator) {
+                                                             RamBlockSizeCalculator blockSizeCalculator,
+                                                             @Nullable Supplier<HashJoinPartitions> partitionsSupplier) {
         CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
-        return new HashInnerJoinBatchIterator<>(
+        return new HashJoinBatchIterator<>(
             new RamAccountingBatchIterator<>(left, rowAccounting),
             right,
             combiner,
+            joinType,
             joinCondition,
             hashBuilderForLeft,
             hashBuilderForRight,
-            blockSizeCalculator);
+            blockSizeCalculator,
+            partitionsSupplier);
     }
 }
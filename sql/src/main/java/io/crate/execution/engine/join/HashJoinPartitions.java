@@ -0,0 +1,233 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import com.carrotsearch.hppc.BitMixer;
+import io.crate.Streamer;
+import io.crate.execution.engine.SpillFile;
+import io.crate.execution.engine.SpillFiles;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Rows of both sides of a hash join which have been written to {@link SpillFile}s, partitioned by the hash of their
+ * join keys.
+ *
+ * Rows with equal join keys have the same hash and end up in the same partition, so each partition of the left side
+ * only has to be joined with the same partition of the right side.
+ * The hash is stored with each row, so it doesn't have to be re-computed when the rows are read back.
+ */
+final class HashJoinPartitions implements Releasable {
+
+    private static final int MIN_PARTITIONS = 16;
+    private static final int MAX_PARTITIONS = 128;
+
+    private final Side left;
+    private final Side right;
+    private final int numPartitions;
+    private boolean closed = false;
+
+    HashJoinPartitions(SpillFiles spillFiles,
+                       Streamer<?>[] leftStreamers,
+                       Streamer<?>[] rightStreamers,
+                       int numPartitions) {
+        this.numPartitions = numPartitions;
+        this.left = new Side(spillFiles, "join-left-", leftStreamers, numPartitions);
+        this.right = new Side(spillFiles, "join-right-", rightStreamers, numPartitions);
+    }
+
+    /**
+     * The number of partitions required so that a partition of the left side is expected to fit into one block.
+     */
+    static int numPartitions(long numberOfRowsForLeft, int blockSize) {
+        if (numberOfRowsForLeft <= 0 || blockSize <= 0) {
+            return MIN_PARTITIONS;
+        }
+        long numBlocks = (numberOfRowsForLeft + blockSize - 1) / blockSize;
+        return (int) Math.max(MIN_PARTITIONS, Math.min(MAX_PARTITIONS, numBlocks * 2));
+    }
+
+    int numPartitions() {
+        return numPartitions;
+    }
+
+    void addLeft(int hash, Object[] row) {
+        left.write(partition(hash), hash, row);
+    }
+
+    void addRight(int hash, Object[] row) {
+        right.write(partition(hash), hash, row);
+    }
+
+    /**
+     * Flush and close all partition files. Must be called once all rows of both sides have been added.
+     */
+    void finishWriting() {
+        left.finishWriting();
+        right.finishWriting();
+    }
+
+    Reader readLeft(int partition) {
+        ensureOpen();
+        return left.reader(partition);
+    }
+
+    Reader readRight(int partition) {
+        ensureOpen();
+        return right.reader(partition);
+    }
+
+    private int partition(int hash) {
+        return (BitMixer.mix32(hash) & Integer.MAX_VALUE) % numPartitions;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Partitions of the hash join are already closed");
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        left.close();
+        right.close();
+    }
+
+    /**
+     * Reads the rows of a partition one by one. Each row is read into a new array, so it can be buffered.
+     */
+    static final class Reader implements Closeable {
+
+        private final Streamer<?>[] streamers;
+        @Nullable
+        private final StreamInput in;
+        private long remaining;
+        private int hash;
+        private Object[] row;
+
+        private Reader(Streamer<?>[] streamers, @Nullable SpillFile file, long numRows) {
+            this.streamers = streamers;
+            this.in = file == null ? null : file.newInput();
+            this.remaining = numRows;
+        }
+
+        boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            try {
+                hash = in.readInt();
+                row = new Object[streamers.length];
+                for (int i = 0; i < streamers.length; i++) {
+                    row[i] = streamers[i].readValueFrom(in);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            remaining--;
+            return true;
+        }
+
+        int hash() {
+            return hash;
+        }
+
+        Object[] row() {
+            return row;
+        }
+
+        @Override
+        public void close() {
+            remaining = 0;
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                    // read-only, nothing is lost
+                }
+            }
+        }
+    }
+
+    private static final class Side {
+
+        private final SpillFiles spillFiles;
+        private final String prefix;
+        private final Streamer[] streamers;
+        private final SpillFile[] files;
+        private final long[] numRows;
+
+        Side(SpillFiles spillFiles, String prefix, Streamer[] streamers, int numPartitions) {
+            this.spillFiles = spillFiles;
+            this.prefix = prefix;
+            this.streamers = streamers;
+            this.files = new SpillFile[numPartitions];
+            this.numRows = new long[numPartitions];
+        }
+
+        void write(int partition, int hash, Object[] row) {
+            SpillFile file = files[partition];
+            if (file == null) {
+                file = spillFiles.newFile(prefix);
+                files[partition] = file;
+            }
+            StreamOutput out = file.output();
+            try {
+                out.writeInt(hash);
+                for (int i = 0; i < streamers.length; i++) {
+                    //noinspection unchecked
+                    streamers[i].writeValueTo(out, row[i]);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            numRows[partition]++;
+        }
+
+        void finishWriting() {
+            for (SpillFile file : files) {
+                if (file != null) {
+                    file.finishWriting();
+                }
+            }
+        }
+
+        Reader reader(int partition) {
+            return new Reader(streamers, files[partition], numRows[partition]);
+        }
+
+        void close() {
+            Releasables.close(files);
+            Arrays.fill(files, null);
+        }
+    }
+}
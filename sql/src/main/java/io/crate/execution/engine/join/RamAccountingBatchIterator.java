@@ -34,7 +34,7 @@ import javax.annotation.Nonnull;
  * to apply the circuit breaking logic by calculating memory occupied for all rows of the iterator.
  * <p>
  * This wrapper can be typically used when the BatchIterator consumer "reads" all
- * elements of the iterator and keeps them in memory. e.g.: {@link HashInnerJoinBatchIterator}
+ * elements of the iterator and keeps them in memory. e.g.: {@link HashJoinBatchIterator}
  * keeps in memory all elements of the left side to build the HashMap used for the Hash-Join execution.
  */
 public class RamAccountingBatchIterator<T extends Row> extends ForwardingBatchIterator<T> {
@@ -73,6 +73,13 @@ public class RamAccountingBatchIterator<T extends Row> extends ForwardingBatchIt
         super.kill(throwable);
     }
 
+    /**
+     * Account for a row which is kept in memory but hasn't been read from this iterator, e.g. a row read from disk.
+     */
+    public void accountForAndMaybeBreak(Row row) {
+        rowAccounting.accountForAndMaybeBreak(row);
+    }
+
     /**
      * Release the accounted rows since the last #{@link RamAccountingBatchIterator#releaseAccountedRows()} call.
      */
@@ -49,6 +49,7 @@ import io.crate.execution.dsl.projection.SysUpdateProjection;
 import io.crate.execution.dsl.projection.TopNProjection;
 import io.crate.execution.dsl.projection.UpdateProjection;
 import io.crate.execution.dsl.projection.WriterProjection;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.aggregation.AggregationContext;
 import io.crate.execution.engine.aggregation.AggregationPipe;
 import io.crate.execution.engine.aggregation.GroupingProjector;
@@ -76,6 +77,7 @@ import io.crate.expression.reference.StaticTableDefinition;
 import io.crate.expression.reference.sys.SysRowUpdater;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.Symbols;
 import io.crate.expression.symbol.ValueSymbolVisitor;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Functions;
@@ -83,6 +85,7 @@ import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.TransactionContext;
+import io.crate.types.DataType;
 import io.crate.types.StringType;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -119,6 +122,8 @@ public class ProjectionToProjectorVisitor
     private final Version indexVersionCreated;
     private final BigArrays bigArrays;
     @Nullable
+    private final SpillFiles spillFiles;
+    @Nullable
     private final ShardId shardId;
 
     public ProjectionToProjectorVisitor(ClusterService clusterService,
@@ -133,6 +138,7 @@ public class ProjectionToProjectorVisitor
                                         Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter,
                                         Version indexVersionCreated,
                                         BigArrays bigArrays,
+                                        SpillFiles spillFiles,
                                         @Nullable ShardId shardId) {
         this.clusterService = clusterService;
         this.nodeJobsCounter = nodeJobsCounter;
@@ -146,6 +152,7 @@ public class ProjectionToProjectorVisitor
         this.staticTableDefinitionGetter = staticTableDefinitionGetter;
         this.indexVersionCreated = indexVersionCreated;
         this.bigArrays = bigArrays;
+        this.spillFiles = spillFiles.isEnabled() ? spillFiles : null;
         this.shardId = shardId;
     }
 
@@ -159,7 +166,8 @@ public class ProjectionToProjectorVisitor
                                         EvaluatingNormalizer normalizer,
                                         Function<RelationName, SysRowUpdater<?>> sysUpdaterGetter,
                                         Function<RelationName, StaticTableDefinition<?>> staticTableDefinitionGetter,
-                                        BigArrays bigArrays) {
+                                        BigArrays bigArrays,
+                                        SpillFiles spillFiles) {
         this(clusterService,
             nodeJobsCounter,
             functions,
@@ -172,6 +180,7 @@ public class ProjectionToProjectorVisitor
             staticTableDefinitionGetter,
             Version.CURRENT,
             bigArrays,
+            spillFiles,
             null
         );
     }
@@ -217,12 +226,18 @@ public class ProjectionToProjectorVisitor
                 projection.offset()
             );
         }
+        List<DataType> inputTypes = new ArrayList<>(inputs.size());
+        inputTypes.addAll(Symbols.typeView(projection.outputs()));
+        inputTypes.addAll(Symbols.typeView(projection.orderBy()));
         return new SortingProjector(
             inputs,
             ctx.expressions(),
             numOutputs,
             OrderingByPosition.arrayOrdering(orderByIndices, projection.reverseFlags(), projection.nullsFirst()),
-            projection.offset()
+            projection.offset(),
+            inputTypes,
+            context.ramAccountingContext,
+            spillFiles
         );
     }
 
@@ -254,7 +269,8 @@ public class ProjectionToProjectorVisitor
             ctx.aggregations().toArray(new AggregationContext[0]),
             context.ramAccountingContext,
             indexVersionCreated,
-            bigArrays
+            bigArrays,
+            spillFiles
         );
     }
 
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import io.crate.Streamer;
+import io.crate.execution.engine.SpillFile;
+import io.crate.execution.engine.SpillFiles;
+import io.crate.execution.engine.distribution.merge.KeyIterable;
+import io.crate.execution.engine.distribution.merge.PlainSortedMergeIterator;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted runs of rows which have been written to {@link SpillFile}s because all rows didn't fit into memory.
+ *
+ * Each run is sorted on its own. {@link #merge(Comparator, List)} merges the runs and the rows which are still in
+ * memory using a {@link PlainSortedMergeIterator}, which only holds the current row of every run in memory.
+ */
+final class SortedRuns implements Releasable {
+
+    private final SpillFiles spillFiles;
+    private final Streamer[] streamers;
+    private final List<SpillFile> files = new ArrayList<>();
+    private final List<Long> numRows = new ArrayList<>();
+    private final List<StreamInput> openInputs = new ArrayList<>();
+
+    SortedRuns(SpillFiles spillFiles, Streamer[] streamers) {
+        this.spillFiles = spillFiles;
+        this.streamers = streamers;
+    }
+
+    boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    int numRuns() {
+        return files.size();
+    }
+
+    /**
+     * Write a run; {@code sortedRows} must already be sorted
+     */
+    void write(List<Object[]> sortedRows) {
+        SpillFile file = spillFiles.newFile("sort-");
+        files.add(file);
+        StreamOutput out = file.output();
+        try {
+            for (Object[] row : sortedRows) {
+                for (int i = 0; i < streamers.length; i++) {
+                    //noinspection unchecked
+                    streamers[i].writeValueTo(out, row[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        file.finishWriting();
+        numRows.add((long) sortedRows.size());
+    }
+
+    /**
+     * Merge all runs and the already sorted {@code inMemoryRows}.
+     * The files are read lazily, so they must not be deleted before the returned iterator has been consumed.
+     */
+    Iterator<Object[]> merge(Comparator<Object[]> comparator, List<Object[]> inMemoryRows) {
+        List<KeyIterable<Integer, Object[]>> iterables = new ArrayList<>(files.size() + 1);
+        for (int i = 0; i < files.size(); i++) {
+            int run = i;
+            iterables.add(new KeyIterable<>(run, () -> read(run)));
+        }
+        iterables.add(new KeyIterable<>(files.size(), inMemoryRows));
+        PlainSortedMergeIterator<Integer, Object[]> mergeIterator = new PlainSortedMergeIterator<>(comparator);
+        mergeIterator.merge(iterables);
+        return mergeIterator;
+    }
+
+    private Iterator<Object[]> read(int run) {
+        StreamInput in = files.get(run).newInput();
+        openInputs.add(in);
+        long rowsInRun = numRows.get(run);
+        return new Iterator<Object[]>() {
+
+            long rowsRead = 0;
+
+            @Override
+            public boolean hasNext() {
+                return rowsRead < rowsInRun;
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Iterator is exhausted");
+                }
+                // rows must not be re-used, the merge iterator holds on to the current row of each run
+                Object[] row = new Object[streamers.length];
+                try {
+                    for (int i = 0; i < streamers.length; i++) {
+                        row[i] = streamers[i].readValueFrom(in);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rowsRead++;
+                return row;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        for (StreamInput in : openInputs) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // the file is deleted anyway
+            }
+        }
+        openInputs.clear();
+        Releasables.close(files);
+        files.clear();
+        numRows.clear();
+    }
+}
@@ -23,18 +23,34 @@
 package io.crate.execution.engine.sort;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
+import io.crate.Streamer;
+import io.crate.breaker.RamAccountingContext;
+import io.crate.breaker.SizeEstimator;
+import io.crate.breaker.SizeEstimatorFactory;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.Bucket;
+import io.crate.data.Buckets;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.CollectionBucket;
 import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.lease.Releasable;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
@@ -43,15 +59,27 @@ import java.util.stream.Collectors;
  * <p>
  * Compared to {@link SortingTopNProjector} this projector does not support limiting,
  * while the {@link SortingTopNProjector} does not work WITHOUT a limit.
+ * <p>
+ * If spilling is enabled, the buffered rows are accounted and written to disk as a sorted run whenever the circuit
+ * breaker, which is shared with all other queries, reaches the spill threshold and the buffered rows hold at least
+ * {@link #MIN_SPILL_BYTES}. The runs are merged once all rows have been consumed.
  */
 public class SortingProjector implements Projector {
 
+    // this must not be final so tests could adjust it
+    static long MIN_SPILL_BYTES = 1024 * 1024;
+
     private final Collection<? extends Input<?>> inputs;
     private final Iterable<? extends CollectExpression<Row, ?>> collectExpressions;
 
     private final Comparator<Object[]> comparator;
     private final int offset;
     private final int numOutputs;
+    private final RamAccountingContext ramAccountingContext;
+    private final List<SizeEstimator<Object>> estimators;
+    private final Streamer[] streamers;
+    @Nullable
+    private final SpillFiles spillFiles;
 
     /**
      * @param inputs             contains output {@link Input}s and orderBy {@link Input}s
@@ -65,21 +93,63 @@ public class SortingProjector implements Projector {
                             int numOutputs,
                             Comparator<Object[]> comparator,
                             int offset) {
+        this(inputs, collectExpressions, numOutputs, comparator, offset, null, null, null);
+    }
+
+    /**
+     * @param inputTypes           the types of the <code>inputs</code>, required to write rows to disk
+     * @param ramAccountingContext used to account the buffered rows if spilling is enabled
+     * @param spillFiles           used to write the buffered rows to disk, null if spilling is disabled
+     */
+    public SortingProjector(Collection<? extends Input<?>> inputs,
+                            Iterable<? extends CollectExpression<Row, ?>> collectExpressions,
+                            int numOutputs,
+                            Comparator<Object[]> comparator,
+                            int offset,
+                            @Nullable List<? extends DataType> inputTypes,
+                            @Nullable RamAccountingContext ramAccountingContext,
+                            @Nullable SpillFiles spillFiles) {
         Preconditions.checkArgument(offset >= 0, "invalid offset %s", offset);
         this.numOutputs = numOutputs;
         this.inputs = inputs;
         this.collectExpressions = collectExpressions;
         this.comparator = comparator;
         this.offset = offset;
+        this.ramAccountingContext = ramAccountingContext;
+        if (spillFiles != null && ramAccountingContext != null && inputTypes != null) {
+            assert inputTypes.size() == inputs.size() : "must have a type for each input";
+            this.spillFiles = spillFiles;
+            this.streamers = DataTypes.getStreamers(inputTypes);
+            this.estimators = new ArrayList<>(inputTypes.size());
+            for (DataType inputType : inputTypes) {
+                estimators.add(SizeEstimatorFactory.create(inputType));
+            }
+        } else {
+            this.spillFiles = null;
+            this.streamers = null;
+            this.estimators = null;
+        }
     }
 
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
-        Collector<Row, ?, Bucket> collector = Collectors.mapping(
-            this::getCells,
-            Collectors.collectingAndThen(Collectors.toList(), this::sortAndCreateBucket));
-        return CollectingBatchIterator.newInstance(batchIterator, collector);
+        if (spillFiles == null) {
+            Collector<Row, ?, Bucket> collector = Collectors.mapping(
+                this::getCells,
+                Collectors.collectingAndThen(Collectors.toList(), this::sortAndCreateBucket));
+            return CollectingBatchIterator.newInstance(batchIterator, collector);
+        }
+        SpillingSort sort = new SpillingSort();
+        return CollectingBatchIterator.newInstance(
+            () -> {
+                batchIterator.close();
+                sort.close();
+            },
+            batchIterator::kill,
+            () -> BatchIterators.collect(
+                batchIterator, sort, SpillingSort::add, SpillingSort::finish, new CompletableFuture<Iterable<Row>>())
+        );
     }
 
     @Override
@@ -106,4 +176,58 @@ public class SortingProjector implements Projector {
         }
         return new CollectionBucket(rows.subList(offset, rows.size()), numOutputs);
     }
+
+    /**
+     * Buffers rows until the breaker reaches the spill threshold, then writes them as sorted run to disk.
+     */
+    private final class SpillingSort implements Releasable {
+
+        private final SortedRuns runs = new SortedRuns(spillFiles, streamers);
+        private final long rowOverheadBytes =
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) inputs.size() * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+        private List<Object[]> rows = new ArrayList<>();
+        private long bufferedBytes = 0L;
+
+        void add(Row row) {
+            Object[] cells = getCells(row);
+            long bytes = rowOverheadBytes;
+            for (int i = 0; i < cells.length; i++) {
+                bytes += estimators.get(i).estimateSize(cells[i]);
+            }
+            ramAccountingContext.addBytes(bytes);
+            bufferedBytes += bytes;
+            rows.add(cells);
+            if (bufferedBytes >= MIN_SPILL_BYTES && ramAccountingContext.reachedShareOfLimit(spillFiles.threshold())) {
+                spill();
+            }
+        }
+
+        private void spill() {
+            rows.sort(comparator.reversed());
+            runs.write(rows);
+            rows = new ArrayList<>();
+            ramAccountingContext.subtractBytes(bufferedBytes);
+            bufferedBytes = 0L;
+        }
+
+        Iterable<Row> finish() {
+            if (runs.isEmpty()) {
+                return sortAndCreateBucket(rows);
+            }
+            rows.sort(comparator.reversed());
+            return () -> {
+                Iterator<Object[]> mergedRows = runs.merge(comparator.reversed(), rows);
+                Iterators.advance(mergedRows, offset);
+                return Iterators.transform(mergedRows, Buckets.arrayToSharedRow(numOutputs)::apply);
+            };
+        }
+
+        @Override
+        public void close() {
+            runs.close();
+            rows = new ArrayList<>();
+            ramAccountingContext.subtractBytes(bufferedBytes);
+            bufferedBytes = 0L;
+        }
+    }
 }
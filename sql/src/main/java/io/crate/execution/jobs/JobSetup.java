@@ -61,6 +61,7 @@ import io.crate.execution.dsl.phases.UpstreamPhase;
 import io.crate.execution.dsl.projection.AggregationProjection;
 import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.Projection;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.aggregation.AggregationPipe;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.engine.collect.CollectTask;
@@ -129,6 +130,8 @@ public class JobSetup extends AbstractComponent {
     private final ProjectorFactory projectorFactory;
     private final PKLookupOperation pkLookupOperation;
     private final ExecutorService searchTp;
+    @Nullable
+    private final SpillFiles spillFiles;
 
     @Inject
     public JobSetup(Settings settings,
@@ -144,7 +147,8 @@ public class JobSetup extends AbstractComponent {
                     Functions functions,
                     SystemCollectSource systemCollectSource,
                     ShardCollectSource shardCollectSource,
-                    BigArrays bigArrays) {
+                    BigArrays bigArrays,
+                    SpillFiles spillFiles) {
         super(settings);
         distResultRXTaskLogger = Loggers.getLogger(DistResultRXTask.class, settings);
         this.collectOperation = collectOperation;
@@ -156,6 +160,7 @@ public class JobSetup extends AbstractComponent {
         innerPreparer = new InnerPreparer();
         inputFactory = new InputFactory(functions);
         searchTp = threadPool.executor(ThreadPool.Names.SEARCH);
+        this.spillFiles = spillFiles.isEnabled() ? spillFiles : null;
         EvaluatingNormalizer normalizer = EvaluatingNormalizer.functionOnlyNormalizer(functions);
         this.projectorFactory = new ProjectionToProjectorVisitor(
             clusterService,
@@ -168,7 +173,8 @@ public class JobSetup extends AbstractComponent {
             normalizer,
             systemCollectSource::getRowUpdater,
             systemCollectSource::tableDefinition,
-            bigArrays
+            bigArrays,
+            spillFiles
         );
     }
 
@@ -806,6 +812,7 @@ public class JobSetup extends AbstractComponent {
                 phase.numLeftOutputs(),
                 phase.numRightOutputs(),
                 firstConsumer,
+                phase.joinType(),
                 joinCondition,
                 phase.leftJoinConditionInputs(),
                 phase.rightJoinConditionInputs(),
@@ -817,7 +824,10 @@ public class JobSetup extends AbstractComponent {
                 inputFactory,
                 breaker(),
                 phase.estimatedRowSizeForLeft(),
-                phase.numberOfRowsForLeft());
+                phase.numberOfRowsForLeft(),
+                phase.leftOutputTypes(),
+                phase.rightOutputTypes(),
+                spillFiles);
             DistResultRXTask left = pageDownstreamContextForNestedLoop(
                 phase.phaseId(),
                 context,
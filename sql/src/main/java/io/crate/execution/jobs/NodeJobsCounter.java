@@ -22,17 +22,27 @@
 
 package io.crate.execution.jobs;
 
+import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.logging.Loggers;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
 
 /**
  * Counts how many operations issued from the current node are in progress across the cluster.
  * If the destination node cannot be determined, it counts the in progress operations towards the unknown node.
  * Note: one job can span multiple nodes.
+ *
+ * Additionally it keeps an adaptive limit of concurrent operations per node, see {@link #getConcurrencyLimitForNode(String)}.
+ * Both are exposed per target node in the {@code bulk_targets} column of {@code sys.nodes}.
  */
 @Singleton
 public class NodeJobsCounter {
@@ -42,9 +52,18 @@ public class NodeJobsCounter {
      */
     public static final long MAX_NODE_CONCURRENT_OPERATIONS = 5;
 
+    /**
+     * Upper bound of the adaptive limit of concurrent operations towards a node.
+     */
+    static final long MAX_ADAPTIVE_NODE_CONCURRENT_OPERATIONS = 4 * MAX_NODE_CONCURRENT_OPERATIONS;
+
+    private static final Logger LOGGER = Loggers.getLogger(NodeJobsCounter.class);
+
     private long unknownNodeCount = 0L;
     // Using single element long[] to avoid autoboxing
     private final Map<String, long[]> operationsCountPerNode = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrencyLimit> concurrencyLimitPerNode = new ConcurrentHashMap<>();
+    private final LongAdder throttledCount = new LongAdder();
 
     private static final BiFunction<String, long[], long[]> INCREMENT_COUNTER_FOR_NODE = (node, count) -> {
         if (count == null) {
@@ -93,4 +112,105 @@ public class NodeJobsCounter {
         }
         return count;
     }
+
+    /**
+     * The number of operations which may be in progress towards a node. The limit starts at
+     * {@link #MAX_NODE_CONCURRENT_OPERATIONS} and is adjusted AIMD-style by
+     * {@link #onResponse(String, long)} and {@link #onRejection(String)}.
+     */
+    public long getConcurrencyLimitForNode(@Nullable String nodeId) {
+        ConcurrencyLimit limit = nodeId == null ? null : concurrencyLimitPerNode.get(nodeId);
+        return limit == null ? MAX_NODE_CONCURRENT_OPERATIONS : limit.get();
+    }
+
+    /**
+     * @return the concurrency limit and the operations in progress for every node operations have been issued to
+     */
+    public List<TargetNodeStats> targetNodeStats() {
+        Set<String> nodeIds = new HashSet<>(operationsCountPerNode.keySet());
+        nodeIds.addAll(concurrencyLimitPerNode.keySet());
+        List<TargetNodeStats> stats = new ArrayList<>(nodeIds.size());
+        for (String nodeId : nodeIds) {
+            stats.add(new TargetNodeStats(
+                nodeId, getConcurrencyLimitForNode(nodeId), getInProgressJobsForNode(nodeId)));
+        }
+        return stats;
+    }
+
+    /**
+     * Record a successful operation towards a node which took {@code tookNanos}
+     */
+    public void onResponse(@Nullable String nodeId, long tookNanos) {
+        if (nodeId != null) {
+            concurrencyLimitPerNode.computeIfAbsent(nodeId, ConcurrencyLimit::new).onResponse(tookNanos);
+        }
+    }
+
+    /**
+     * Record an operation towards a node which has been rejected because the node is overloaded
+     */
+    public void onRejection(@Nullable String nodeId) {
+        if (nodeId != null) {
+            concurrencyLimitPerNode.computeIfAbsent(nodeId, ConcurrencyLimit::new).onRejection();
+        }
+    }
+
+    /**
+     * Record that the consumption of a bulk operation has been paused because too many operations are in progress
+     */
+    public void onThrottle() {
+        throttledCount.increment();
+    }
+
+    /**
+     * @return how often bulk operations have been paused, see {@link #onThrottle()}
+     */
+    public long throttledCount() {
+        return throttledCount.sum();
+    }
+
+    /**
+     * Increases the limit by one for every {@code limit} responses and halves it on rejections or if the latency
+     * of a response exceeds the moving average by more than {@link #LATENCY_TOLERANCE}.
+     */
+    static final class ConcurrencyLimit {
+
+        private static final double LATENCY_TOLERANCE = 2.0;
+        private static final double LATENCY_SMOOTHING = 0.1;
+
+        private final String nodeId;
+        private double limit = MAX_NODE_CONCURRENT_OPERATIONS;
+        private double avgLatencyNanos = -1.0;
+
+        ConcurrencyLimit(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        synchronized long get() {
+            return (long) limit;
+        }
+
+        synchronized void onResponse(long tookNanos) {
+            if (avgLatencyNanos < 0) {
+                avgLatencyNanos = tookNanos;
+            }
+            if (tookNanos > LATENCY_TOLERANCE * avgLatencyNanos) {
+                decrease("latency");
+            } else {
+                limit = Math.min(MAX_ADAPTIVE_NODE_CONCURRENT_OPERATIONS, limit + 1.0 / limit);
+            }
+            avgLatencyNanos += LATENCY_SMOOTHING * (tookNanos - avgLatencyNanos);
+        }
+
+        synchronized void onRejection() {
+            decrease("rejection");
+        }
+
+        private void decrease(String reason) {
+            limit = Math.max(1.0, limit / 2);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Decreased concurrency limit for node {} to {} due to {}", nodeId, (long) limit, reason);
+            }
+        }
+    }
 }
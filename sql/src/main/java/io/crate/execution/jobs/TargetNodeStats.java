@@ -0,0 +1,70 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.jobs;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+
+/**
+ * The operations issued from the current node towards another node, see {@link NodeJobsCounter}.
+ */
+public final class TargetNodeStats implements Writeable {
+
+    private final String nodeId;
+    private final long concurrencyLimit;
+    private final long inProgress;
+
+    public TargetNodeStats(String nodeId, long concurrencyLimit, long inProgress) {
+        this.nodeId = nodeId;
+        this.concurrencyLimit = concurrencyLimit;
+        this.inProgress = inProgress;
+    }
+
+    public TargetNodeStats(StreamInput in) throws IOException {
+        this.nodeId = in.readString();
+        this.concurrencyLimit = in.readVLong();
+        this.inProgress = in.readLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(nodeId);
+        out.writeVLong(concurrencyLimit);
+        out.writeLong(inProgress);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public long concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public long inProgress() {
+        return inProgress;
+    }
+}
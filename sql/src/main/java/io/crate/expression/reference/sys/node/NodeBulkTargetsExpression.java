@@ -0,0 +1,62 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.reference.sys.node;
+
+import io.crate.execution.jobs.TargetNodeStats;
+import io.crate.expression.reference.sys.ArrayTypeNestableContextCollectExpression;
+import org.elasticsearch.common.lucene.BytesRefs;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+public class NodeBulkTargetsExpression
+    extends ArrayTypeNestableContextCollectExpression<NodeStatsContext, TargetNodeStats, Object> {
+
+    private static final String NODE_ID = "node_id";
+    private static final String CONCURRENCY_LIMIT = "concurrency_limit";
+    private static final String IN_PROGRESS = "in_progress";
+
+    @Override
+    protected List<TargetNodeStats> items(NodeStatsContext nodeStatsContext) {
+        List<TargetNodeStats> bulkTargets = nodeStatsContext.bulkTargets();
+        return bulkTargets == null ? Collections.emptyList() : bulkTargets;
+    }
+
+    @Override
+    protected Object valueForItem(TargetNodeStats stats) {
+        HashMap<String, Object> result = new HashMap<>(3);
+        result.put(NODE_ID, BytesRefs.toBytesRef(stats.nodeId()));
+        result.put(CONCURRENCY_LIMIT, stats.concurrencyLimit());
+        result.put(IN_PROGRESS, stats.inProgress());
+        return result;
+    }
+
+    @Override
+    public void setNextRow(NodeStatsContext nodeStatsContext) {
+        value = null;
+        if (nodeStatsContext.isComplete()) {
+            super.setNextRow(nodeStatsContext);
+        }
+    }
+}
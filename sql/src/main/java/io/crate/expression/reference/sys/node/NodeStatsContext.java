@@ -24,6 +24,7 @@ package io.crate.expression.reference.sys.node;
 
 import io.crate.Build;
 import io.crate.Version;
+import io.crate.execution.jobs.TargetNodeStats;
 import io.crate.monitor.ExtendedOsStats;
 import io.crate.protocols.ConnectionStats;
 import io.crate.types.DataTypes;
@@ -43,6 +44,7 @@ import org.elasticsearch.threadpool.ThreadPoolStats;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class NodeStatsContext implements Streamable {
@@ -77,6 +79,7 @@ public class NodeStatsContext implements Streamable {
     private BytesRef jvmVendor;
     private BytesRef jvmVersion;
     private long openTransportConnections = 0L;
+    private List<TargetNodeStats> bulkTargets;
 
     public NodeStatsContext(String id, String name) {
         this(false);
@@ -205,6 +208,10 @@ public class NodeStatsContext implements Streamable {
         return openTransportConnections;
     }
 
+    public List<TargetNodeStats> bulkTargets() {
+        return bulkTargets;
+    }
+
     public void id(BytesRef id) {
         this.id = id;
     }
@@ -281,6 +288,10 @@ public class NodeStatsContext implements Streamable {
         this.openTransportConnections = openTransportConnections;
     }
 
+    public void bulkTargets(List<TargetNodeStats> bulkTargets) {
+        this.bulkTargets = bulkTargets;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         id = DataTypes.STRING.readValueFrom(in);
@@ -310,6 +321,7 @@ public class NodeStatsContext implements Streamable {
         psqlStats = in.readOptionalWriteable(ConnectionStats::new);
         openTransportConnections = in.readLong();
         clusterStateVersion = in.readLong();
+        bulkTargets = in.readBoolean() ? in.readList(TargetNodeStats::new) : null;
 
         osName = DataTypes.STRING.readValueFrom(in);
         osArch = DataTypes.STRING.readValueFrom(in);
@@ -354,6 +366,10 @@ public class NodeStatsContext implements Streamable {
         out.writeOptionalWriteable(psqlStats);
         out.writeLong(openTransportConnections);
         out.writeLong(clusterStateVersion);
+        out.writeBoolean(bulkTargets != null);
+        if (bulkTargets != null) {
+            out.writeList(bulkTargets);
+        }
 
         DataTypes.STRING.writeValueTo(out, osName);
         DataTypes.STRING.writeValueTo(out, osArch);
@@ -26,6 +26,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import io.crate.Build;
 import io.crate.Version;
+import io.crate.execution.jobs.NodeJobsCounter;
+import io.crate.execution.jobs.TargetNodeStats;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.monitor.ExtendedNodeInfo;
@@ -56,6 +58,7 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -81,6 +84,7 @@ public class NodeStatsContextFieldResolver {
     private final JvmService jvmService;
     private final FsService fsService;
     private final LongSupplier clusterStateVersion;
+    private final Supplier<List<TargetNodeStats>> bulkTargets;
 
     @Inject
     @SuppressWarnings("unused")
@@ -90,7 +94,8 @@ public class NodeStatsContextFieldResolver {
                                          TransportService transportService,
                                          ThreadPool threadPool,
                                          ExtendedNodeInfo extendedNodeInfo,
-                                         PostgresNetty postgresNetty) {
+                                         PostgresNetty postgresNetty,
+                                         NodeJobsCounter nodeJobsCounter) {
         this(
             clusterService::localNode,
             nodeService.getMonitorService(),
@@ -107,7 +112,8 @@ public class NodeStatsContextFieldResolver {
                 return boundTransportAddress.publishAddress();
             },
             () -> transportService.stats().getServerOpen(),
-            () -> clusterService.state().version()
+            () -> clusterService.state().version(),
+            nodeJobsCounter::targetNodeStats
         );
     }
 
@@ -121,7 +127,8 @@ public class NodeStatsContextFieldResolver {
                                   Supplier<ConnectionStats> psqlStats,
                                   Supplier<TransportAddress> boundPostgresAddress,
                                   LongSupplier numOpenTransportConnections,
-                                  LongSupplier clusterStateVersion) {
+                                  LongSupplier clusterStateVersion,
+                                  Supplier<List<TargetNodeStats>> bulkTargets) {
         this.localNode = localNode;
         processService = monitorService.processService();
         osService = monitorService.osService();
@@ -135,6 +142,7 @@ public class NodeStatsContextFieldResolver {
         this.boundPostgresAddress = boundPostgresAddress;
         this.numOpenTransportConnections = numOpenTransportConnections;
         this.clusterStateVersion = clusterStateVersion;
+        this.bulkTargets = bulkTargets;
     }
 
     public NodeStatsContext forTopColumnIdents(Collection<ColumnIdent> topColumnIdents) {
@@ -239,6 +247,7 @@ public class NodeStatsContextFieldResolver {
             })
             .put(SysNodesTableInfo.Columns.NETWORK, context -> {
             })
+            .put(SysNodesTableInfo.Columns.BULK_TARGETS, context -> context.bulkTargets(bulkTargets.get()))
             .put(SysNodesTableInfo.Columns.CONNECTIONS, new Consumer<NodeStatsContext>() {
                 @Override
                 public void accept(NodeStatsContext nodeStatsContext) {
@@ -50,6 +50,7 @@ import io.crate.expression.reference.doc.lucene.LuceneCollectorExpression;
 import io.crate.expression.reference.doc.lucene.LuceneReferenceResolver;
 import io.crate.expression.scalar.Ignore3vlFunction;
 import io.crate.expression.scalar.SubscriptFunction;
+import io.crate.expression.scalar.arithmetic.RandomFunction;
 import io.crate.expression.scalar.conditional.CoalesceFunction;
 import io.crate.expression.scalar.geo.DistanceFunction;
 import io.crate.expression.scalar.geo.WithinFunction;
@@ -398,6 +399,7 @@ public class LuceneQueryBuilder {
                 .put(DistanceFunction.NAME, new DistanceQuery())
                 .put(WithinFunction.NAME, withinQuery)
                 .put(SubscriptFunction.NAME, new SubscriptQuery())
+                .put(RandomFunction.NAME, new RandomQuery())
                 .build();
 
         @Override
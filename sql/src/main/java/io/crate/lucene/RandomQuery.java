@@ -0,0 +1,96 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.lucene;
+
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.scalar.arithmetic.RandomFunction;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Symbol;
+import io.crate.data.Input;
+import io.crate.types.DataTypes;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.lucene.search.Queries;
+
+import javax.annotation.Nullable;
+
+/**
+ * Creates a {@link RandomSamplingQuery} for comparisons of {@code random()} with a literal, e.g.
+ * <pre>
+ *     where random() < 0.01
+ * </pre>
+ * Every document matches with the probability given by the literal, like it does if the condition is evaluated
+ * per document, but the documents which don't match are skipped instead of being loaded.
+ */
+class RandomQuery implements InnerFunctionToQuery {
+
+    @Nullable
+    @Override
+    public Query apply(Function parent, Function inner, LuceneQueryBuilder.Context context) {
+        assert inner.info().ident().name().equals(RandomFunction.NAME) :
+            "function must be " + RandomFunction.NAME;
+        if (parent.arguments().size() != 2) {
+            return null;
+        }
+        Symbol left = parent.arguments().get(0);
+        Symbol right = parent.arguments().get(1);
+        final boolean randomIsLeft;
+        final Input<?> input;
+        if (left == inner && right.symbolType().isValueSymbol()) {
+            randomIsLeft = true;
+            input = (Input<?>) right;
+        } else if (right == inner && left.symbolType().isValueSymbol()) {
+            randomIsLeft = false;
+            input = (Input<?>) left;
+        } else {
+            return null;
+        }
+        Double value = DataTypes.DOUBLE.value(input.value());
+        if (value == null) {
+            return Queries.newMatchNoDocsQuery("comparison with null -> no match");
+        }
+        final double probability;
+        switch (parent.info().ident().name()) {
+            case LtOperator.NAME:
+            case LteOperator.NAME:
+                probability = randomIsLeft ? value : 1.0 - value;
+                break;
+
+            case GtOperator.NAME:
+            case GteOperator.NAME:
+                probability = randomIsLeft ? 1.0 - value : value;
+                break;
+
+            default:
+                return null;
+        }
+        if (probability <= 0.0) {
+            return Queries.newMatchNoDocsQuery("random() is never in range");
+        }
+        if (probability >= 1.0) {
+            return Queries.newMatchAllQuery();
+        }
+        return new RandomSamplingQuery(probability);
+    }
+}
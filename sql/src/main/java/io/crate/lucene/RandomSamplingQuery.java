@@ -0,0 +1,151 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.lucene;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.elasticsearch.common.Randomness;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Query which matches every document with the given {@code probability}.
+ *
+ * The gap to the next matching document follows a geometric distribution, so the iterator jumps from one matching
+ * document to the next and only about {@code probability * maxDoc} documents of a segment are visited.
+ */
+public class RandomSamplingQuery extends Query {
+
+    private final double probability;
+    private final long seed;
+
+    public RandomSamplingQuery(double probability) {
+        this(probability, Randomness.get().nextLong());
+    }
+
+    RandomSamplingQuery(double probability, long seed) {
+        assert probability > 0.0 && probability < 1.0 : "probability must be between 0 and 1";
+        this.probability = probability;
+        this.seed = seed;
+    }
+
+    double probability() {
+        return probability;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, boolean needsScores, float boost) {
+        return new Weight(this) {
+            @Override
+            public void extractTerms(Set<Term> terms) {
+            }
+
+            @Override
+            public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+                DocIdSetIterator iterator = scorer(context).iterator();
+                if (iterator.advance(doc) == doc) {
+                    return Explanation.match(0f, "Sampled doc " + doc);
+                }
+                return Explanation.noMatch("Doc " + doc + " wasn't sampled");
+            }
+
+            @Override
+            public Scorer scorer(LeafReaderContext context) {
+                // every segment gets its own sequence, so the samples of the segments are independent
+                Random random = new Random(seed + context.ord);
+                return new ConstantScoreScorer(
+                    this, 0f, new SamplingIterator(context.reader().maxDoc(), probability, random));
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RandomSamplingQuery that = (RandomSamplingQuery) o;
+        return probability == that.probability && seed == that.seed;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(probability) + Long.hashCode(seed);
+    }
+
+    @Override
+    public String toString(String field) {
+        return "RandomSamplingQuery(probability=" + probability + ")";
+    }
+
+    static class SamplingIterator extends DocIdSetIterator {
+
+        private final int maxDoc;
+        private final double probability;
+        private final double logOfMissProbability;
+        private final Random random;
+        private int doc = -1;
+
+        SamplingIterator(int maxDoc, double probability, Random random) {
+            this.maxDoc = maxDoc;
+            this.probability = probability;
+            this.logOfMissProbability = Math.log(1.0 - probability);
+            this.random = random;
+        }
+
+        @Override
+        public int docID() {
+            return doc;
+        }
+
+        @Override
+        public int nextDoc() {
+            return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) {
+            // number of docs starting at target which are skipped before the next sampled doc
+            double u = 1.0 - random.nextDouble();
+            double gap = Math.floor(Math.log(u) / logOfMissProbability);
+            if (target >= maxDoc || gap >= maxDoc - target) {
+                doc = NO_MORE_DOCS;
+            } else {
+                doc = target + (int) gap;
+            }
+            return doc;
+        }
+
+        @Override
+        public long cost() {
+            return (long) Math.ceil(maxDoc * probability);
+        }
+    }
+}
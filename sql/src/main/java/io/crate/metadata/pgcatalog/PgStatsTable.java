@@ -0,0 +1,128 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.pgcatalog;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.action.sql.SessionContext;
+import io.crate.analyze.WhereClause;
+import io.crate.execution.engine.collect.NestableCollectExpression;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Routing;
+import io.crate.metadata.RoutingProvider;
+import io.crate.metadata.RowGranularity;
+import io.crate.metadata.expressions.RowCollectExpressionFactory;
+import io.crate.metadata.table.ColumnRegistrar;
+import io.crate.metadata.table.StaticTableInfo;
+import io.crate.planner.TableStats;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the {@link TableStats.ColumnStats} which are used by the planner to estimate the number of rows.
+ * The stats are published to all nodes, so the table is read from the local node.
+ */
+public class PgStatsTable extends StaticTableInfo {
+
+    public static final RelationName IDENT = new RelationName(PgCatalogSchemaInfo.NAME, "pg_stats");
+
+    static class Columns {
+        static final ColumnIdent SCHEMANAME = new ColumnIdent("schemaname");
+        static final ColumnIdent TABLENAME = new ColumnIdent("tablename");
+        static final ColumnIdent ATTNAME = new ColumnIdent("attname");
+        static final ColumnIdent INHERITED = new ColumnIdent("inherited");
+        static final ColumnIdent NULL_FRAC = new ColumnIdent("null_frac");
+        static final ColumnIdent N_DISTINCT = new ColumnIdent("n_distinct");
+    }
+
+    static class Entry {
+
+        final RelationName relationName;
+        final ColumnIdent column;
+        final TableStats.ColumnStats stats;
+
+        Entry(RelationName relationName, ColumnIdent column, TableStats.ColumnStats stats) {
+            this.relationName = relationName;
+            this.column = column;
+            this.stats = stats;
+        }
+    }
+
+    static List<Entry> entries(TableStats tableStats) {
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<RelationName, Map<ColumnIdent, TableStats.ColumnStats>> relation
+            : tableStats.columnStats().entrySet()) {
+            for (Map.Entry<ColumnIdent, TableStats.ColumnStats> column : relation.getValue().entrySet()) {
+                entries.add(new Entry(relation.getKey(), column.getKey(), column.getValue()));
+            }
+        }
+        return entries;
+    }
+
+    static Map<ColumnIdent, RowCollectExpressionFactory<Entry>> expressions() {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory<Entry>>builder()
+            .put(Columns.SCHEMANAME,
+                () -> NestableCollectExpression.objToBytesRef(e -> e.relationName.schema()))
+            .put(Columns.TABLENAME,
+                () -> NestableCollectExpression.objToBytesRef(e -> e.relationName.name()))
+            .put(Columns.ATTNAME,
+                () -> NestableCollectExpression.objToBytesRef(e -> e.column.sqlFqn()))
+            .put(Columns.INHERITED,
+                () -> NestableCollectExpression.constant(false))
+            .put(Columns.NULL_FRAC,
+                () -> NestableCollectExpression.forFunction(e -> (float) e.stats.nullFraction()))
+            .put(Columns.N_DISTINCT,
+                () -> NestableCollectExpression.forFunction(e -> (float) e.stats.approxDistinct()))
+            .build();
+    }
+
+    PgStatsTable() {
+        super(IDENT, new ColumnRegistrar(IDENT, RowGranularity.DOC)
+                .register(Columns.SCHEMANAME.name(), DataTypes.STRING, null)
+                .register(Columns.TABLENAME.name(), DataTypes.STRING, null)
+                .register(Columns.ATTNAME.name(), DataTypes.STRING, null)
+                .register(Columns.INHERITED.name(), DataTypes.BOOLEAN, null)
+                .register(Columns.NULL_FRAC.name(), DataTypes.FLOAT, null)
+                .register(Columns.N_DISTINCT.name(), DataTypes.FLOAT, null),
+            Collections.emptyList());
+    }
+
+    @Override
+    public RowGranularity rowGranularity() {
+        return RowGranularity.DOC;
+    }
+
+    @Override
+    public Routing getRouting(ClusterState clusterState,
+                              RoutingProvider routingProvider,
+                              WhereClause whereClause,
+                              RoutingProvider.ShardSelection shardSelection,
+                              SessionContext sessionContext) {
+        return Routing.forTableOnSingleNode(IDENT, clusterState.getNodes().getLocalNodeId());
+    }
+}
@@ -83,6 +83,7 @@ public final class CrateSettings implements ClusterStateListener {
             JobsLogService.STATS_OPERATIONS_LOG_SIZE_SETTING,
             JobsLogService.STATS_OPERATIONS_LOG_EXPIRATION_SETTING,
             TableStatsService.STATS_SERVICE_REFRESH_INTERVAL_SETTING,
+            TableStatsService.STATS_SERVICE_COLUMN_STATS_SETTING,
             CrateCircuitBreakerService.JOBS_LOG_CIRCUIT_BREAKER_LIMIT_SETTING,
             CrateCircuitBreakerService.JOBS_LOG_CIRCUIT_BREAKER_OVERHEAD_SETTING,
             CrateCircuitBreakerService.OPERATIONS_LOG_CIRCUIT_BREAKER_LIMIT_SETTING,
@@ -94,6 +95,7 @@ public final class CrateSettings implements ClusterStateListener {
 
             // BULK
             ShardingUpsertExecutor.BULK_REQUEST_TIMEOUT_SETTING,
+            ShardingUpsertExecutor.BULK_ADAPTIVE_SIZING_SETTING,
 
             // GRACEFUL STOP
             DecommissioningService.DECOMMISSION_INTERNAL_SETTING_GROUP,
@@ -63,8 +63,9 @@ public class ClassifiedHistograms implements Iterable<ClassifiedHistograms.Class
     private ConcurrentHistogram getOrCreate(Classification classification) {
         ConcurrentHistogram histogram = histograms.get(classification);
         if (histogram == null) {
-            histogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_VALUE, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
-            histograms.put(classification, histogram);
+            histogram = histograms.computeIfAbsent(
+                classification,
+                ignored -> new ConcurrentHistogram(HIGHEST_TRACKABLE_VALUE, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS));
         }
         return histogram;
     }
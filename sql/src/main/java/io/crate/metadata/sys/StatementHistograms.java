@@ -0,0 +1,277 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.HdrHistogram.AtomicHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters of statements, aggregated by the fingerprint of the statement.
+ * <p>
+ * The fingerprint is the statement with literals replaced by {@code ?} and IN lists collapsed to {@code (?)}, so
+ * that statements which only differ in their values are aggregated together. Only the most recently executed
+ * {@link #MAX_STATEMENTS} fingerprints are kept; the bounded cache evicts the least recently used ones as part of its
+ * regular maintenance, without scanning all entries.
+ */
+public class StatementHistograms implements Iterable<StatementHistograms.StatementHistogram> {
+
+    static final int MAX_STATEMENTS = 500;
+
+    private static final long HIGHEST_TRACKABLE_VALUE = TimeUnit.MINUTES.toMillis(10);
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 2;
+
+    private final Cache<String, Stats> statsByFingerprint;
+
+    public StatementHistograms() {
+        this(MAX_STATEMENTS);
+    }
+
+    @VisibleForTesting
+    StatementHistograms(int maxStatements) {
+        statsByFingerprint = CacheBuilder.newBuilder().maximumSize(maxStatements).build();
+    }
+
+    public static class StatementHistogram {
+
+        private final String statement;
+        private final Histogram histogram;
+        private final long errors;
+        private final long totalTime;
+
+        StatementHistogram(String statement, Histogram histogram, long errors, long totalTime) {
+            this.statement = statement;
+            this.histogram = histogram;
+            this.errors = errors;
+            this.totalTime = totalTime;
+        }
+
+        public String statement() {
+            return statement;
+        }
+
+        public Histogram histogram() {
+            return histogram;
+        }
+
+        public long calls() {
+            return histogram.getTotalCount();
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        public long totalTime() {
+            return totalTime;
+        }
+    }
+
+    private static class Stats {
+
+        private final AtomicHistogram histogram =
+            new AtomicHistogram(HIGHEST_TRACKABLE_VALUE, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+
+        void record(long duration, boolean failed) {
+            histogram.recordValue(Math.max(0L, Math.min(duration, HIGHEST_TRACKABLE_VALUE)));
+            totalTime.add(duration);
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+
+    public void recordValue(String statement, long duration, boolean failed) {
+        String fingerprint = fingerprint(statement);
+        Stats stats = statsByFingerprint.getIfPresent(fingerprint);
+        if (stats == null) {
+            stats = statsByFingerprint.asMap().computeIfAbsent(fingerprint, ignored -> new Stats());
+        }
+        stats.record(duration, failed);
+    }
+
+    /**
+     * Returns the statement with all string and numeric literals replaced by {@code ?}, IN lists of literals and
+     * parameters collapsed to {@code (?)}, consecutive whitespace collapsed, comments removed and unquoted identifiers
+     * and keywords in lower case.
+     */
+    static String fingerprint(String statement) {
+        int length = statement.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int i = 0;
+        while (i < length) {
+            char c = statement.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                i++;
+                continue;
+            }
+            if (c == '-' && i + 1 < length && statement.charAt(i + 1) == '-') {
+                while (i < length && statement.charAt(i) != '\n') {
+                    i++;
+                }
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '*') {
+                int end = statement.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'') {
+                i = skipQuoted(statement, i, '\'');
+                sb.append('?');
+            } else if (c == '"') {
+                int end = skipQuoted(statement, i, '"');
+                sb.append(statement, i, end);
+                i = end;
+            } else if (Character.isDigit(c)) {
+                i = skipNumber(statement, i);
+                sb.append('?');
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < length && isIdentifierPart(statement.charAt(i))) {
+                    i++;
+                }
+                sb.append(statement.substring(start, i).toLowerCase(Locale.ENGLISH));
+            } else if (c == '$' && i + 1 < length && Character.isDigit(statement.charAt(i + 1))) {
+                // positional parameters are kept as they are
+                int start = i;
+                i++;
+                while (i < length && Character.isDigit(statement.charAt(i))) {
+                    i++;
+                }
+                sb.append(statement, start, i);
+            } else if (c == ')') {
+                collapseInList(sb);
+                sb.append(c);
+                i++;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == ';') {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString().trim();
+    }
+
+    /**
+     * Replaces the items of an IN list at the end of {@code sb} by a single {@code ?} if all of them are literals or
+     * parameters, so that lists of different lengths result in the same fingerprint.
+     */
+    private static void collapseInList(StringBuilder sb) {
+        int open = sb.lastIndexOf("(");
+        if (open < 0 || open == sb.length() - 1) {
+            return;
+        }
+        for (int i = open + 1; i < sb.length(); i++) {
+            char c = sb.charAt(i);
+            if (c != '?' && c != '$' && c != ',' && c != ' ' && c != '-' && !Character.isDigit(c)) {
+                return;
+            }
+        }
+        int end = open;
+        if (end > 0 && sb.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end >= 2 && sb.charAt(end - 2) == 'i' && sb.charAt(end - 1) == 'n'
+            && (end == 2 || !isIdentifierPart(sb.charAt(end - 3)))) {
+            sb.setLength(open + 1);
+            sb.append('?');
+        }
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Returns the position after the closing quote; doubled quotes are escaped quotes
+     */
+    private static int skipQuoted(String statement, int start, char quote) {
+        int i = start + 1;
+        while (i < statement.length()) {
+            if (statement.charAt(i) == quote) {
+                if (i + 1 < statement.length() && statement.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNumber(String statement, int start) {
+        int i = start;
+        int length = statement.length();
+        while (i < length) {
+            char c = statement.charAt(i);
+            if (Character.isDigit(c) || c == '.') {
+                i++;
+            } else if ((c == 'e' || c == 'E') && i + 1 < length
+                       && (Character.isDigit(statement.charAt(i + 1)) || statement.charAt(i + 1) == '-'
+                           || statement.charAt(i + 1) == '+')) {
+                i += 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    public void reset() {
+        statsByFingerprint.invalidateAll();
+    }
+
+    @Override
+    public Iterator<StatementHistogram> iterator() {
+        return statsByFingerprint.asMap().entrySet()
+            .stream()
+            .map(e -> {
+                Stats stats = e.getValue();
+                return new StatementHistogram(e.getKey(), stats.histogram.copy(), stats.errors.sum(), stats.totalTime.sum());
+            })
+            .iterator();
+    }
+}
@@ -25,8 +25,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.WhereClause;
+import io.crate.execution.jobs.TargetNodeStats;
 import io.crate.execution.engine.collect.NestableCollectExpression;
 import io.crate.expression.reference.ObjectCollectExpression;
+import io.crate.expression.reference.sys.node.NodeBulkTargetsExpression;
 import io.crate.expression.reference.sys.node.NodeHeapStatsExpression;
 import io.crate.expression.reference.sys.node.NodeLoadStatsExpression;
 import io.crate.expression.reference.sys.node.NodeMemoryStatsExpression;
@@ -35,6 +37,7 @@ import io.crate.expression.reference.sys.node.NodeOsInfoStatsExpression;
 import io.crate.expression.reference.sys.node.NodeOsStatsExpression;
 import io.crate.expression.reference.sys.node.NodePortStatsExpression;
 import io.crate.expression.reference.sys.node.NodeProcessStatsExpression;
+import io.crate.expression.reference.sys.node.NodeStatsBulkTargetExpression;
 import io.crate.expression.reference.sys.node.NodeStatsContext;
 import io.crate.expression.reference.sys.node.NodeStatsThreadPoolExpression;
 import io.crate.expression.reference.sys.node.NodeThreadPoolsExpression;
@@ -95,6 +98,7 @@ public class SysNodesTableInfo extends StaticTableInfo {
     public static final String SYS_COL_OS_INFO = "os_info";
     public static final String SYS_COL_PROCESS = "process";
     public static final String SYS_COL_FS = "fs";
+    public static final String SYS_COL_BULK_TARGETS = "bulk_targets";
 
     private static final DataType OBJECT_ARRAY_TYPE = new ArrayType(DataTypes.OBJECT);
 
@@ -170,6 +174,11 @@ public class SysNodesTableInfo extends StaticTableInfo {
         static final ColumnIdent CONNECTIONS_TRANSPORT = ColumnIdent.getChild(CONNECTIONS, "transport");
         static final ColumnIdent CONNECTIONS_TRANSPORT_OPEN = ColumnIdent.getChild(CONNECTIONS_TRANSPORT, "open");
 
+        public static final ColumnIdent BULK_TARGETS = new ColumnIdent(SYS_COL_BULK_TARGETS);
+        static final ColumnIdent BULK_TARGETS_NODE_ID = ColumnIdent.getChild(BULK_TARGETS, "node_id");
+        static final ColumnIdent BULK_TARGETS_CONCURRENCY_LIMIT = ColumnIdent.getChild(BULK_TARGETS, "concurrency_limit");
+        static final ColumnIdent BULK_TARGETS_IN_PROGRESS = ColumnIdent.getChild(BULK_TARGETS, "in_progress");
+
         public static final ColumnIdent OS = new ColumnIdent(SYS_COL_OS);
         static final ColumnIdent OS_UPTIME = new ColumnIdent(SYS_COL_OS, ImmutableList.of("uptime"));
         static final ColumnIdent OS_TIMESTAMP = new ColumnIdent(SYS_COL_OS, ImmutableList.of("timestamp"));
@@ -303,6 +312,25 @@ public class SysNodesTableInfo extends StaticTableInfo {
                     return stats.getQueue();
                 }
             })
+            .put(Columns.BULK_TARGETS, NodeBulkTargetsExpression::new)
+            .put(Columns.BULK_TARGETS_NODE_ID, () -> new NodeStatsBulkTargetExpression<BytesRef>() {
+                @Override
+                protected BytesRef valueForItem(TargetNodeStats stats) {
+                    return BytesRefs.toBytesRef(stats.nodeId());
+                }
+            })
+            .put(Columns.BULK_TARGETS_CONCURRENCY_LIMIT, () -> new NodeStatsBulkTargetExpression<Long>() {
+                @Override
+                protected Long valueForItem(TargetNodeStats stats) {
+                    return stats.concurrencyLimit();
+                }
+            })
+            .put(Columns.BULK_TARGETS_IN_PROGRESS, () -> new NodeStatsBulkTargetExpression<Long>() {
+                @Override
+                protected Long valueForItem(TargetNodeStats stats) {
+                    return stats.inProgress();
+                }
+            })
             .put(Columns.NETWORK, NodeNetworkStatsExpression::new)
             .put(Columns.OS, NodeOsStatsExpression::new)
             .put(Columns.OS_INFO, NodeOsInfoStatsExpression::new)
@@ -492,6 +520,11 @@ public class SysNodesTableInfo extends StaticTableInfo {
                 .register(Columns.NETWORK_TCP_PACKETS_ERRORS_RECEIVED, DataTypes.LONG)
                 .register(Columns.NETWORK_TCP_PACKETS_RST_SENT, DataTypes.LONG)
 
+                .register(Columns.BULK_TARGETS, OBJECT_ARRAY_TYPE)
+                .register(Columns.BULK_TARGETS_NODE_ID, DataTypes.STRING)
+                .register(Columns.BULK_TARGETS_CONCURRENCY_LIMIT, DataTypes.LONG)
+                .register(Columns.BULK_TARGETS_IN_PROGRESS, DataTypes.LONG)
+
                 .register(Columns.CONNECTIONS, DataTypes.OBJECT)
                 .register(Columns.CONNECTIONS_HTTP, DataTypes.OBJECT)
                 .register(Columns.CONNECTIONS_HTTP_OPEN, DataTypes.LONG)
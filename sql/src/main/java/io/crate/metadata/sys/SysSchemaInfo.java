@@ -56,6 +56,7 @@ public class SysSchemaInfo implements SchemaInfo {
         tableInfos.put(SysAllocationsTableInfo.IDENT.name(), new SysAllocationsTableInfo());
         tableInfos.put(SysHealthTableInfo.IDENT.name(), new SysHealthTableInfo());
         tableInfos.put(SysMetricsTableInfo.NAME.name(), new SysMetricsTableInfo());
+        tableInfos.put(SysStatementStatsTableInfo.NAME.name(), new SysStatementStatsTableInfo());
     }
 
     @Override
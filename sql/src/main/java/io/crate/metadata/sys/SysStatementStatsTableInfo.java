@@ -0,0 +1,129 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import com.google.common.collect.ImmutableMap;
+import io.crate.action.sql.SessionContext;
+import io.crate.analyze.WhereClause;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Routing;
+import io.crate.metadata.RoutingProvider;
+import io.crate.metadata.RowGranularity;
+import io.crate.metadata.expressions.RowCollectExpressionFactory;
+import io.crate.metadata.table.ColumnRegistrar;
+import io.crate.metadata.table.StaticTableInfo;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static io.crate.execution.engine.collect.NestableCollectExpression.forFunction;
+
+public class SysStatementStatsTableInfo extends StaticTableInfo {
+
+    public static final RelationName NAME = new RelationName(SysSchemaInfo.NAME, "statement_stats");
+
+    static class Columns {
+        static final ColumnIdent STATEMENT = new ColumnIdent("statement");
+        static final ColumnIdent CALLS = new ColumnIdent("calls");
+        static final ColumnIdent ERRORS = new ColumnIdent("errors");
+        static final ColumnIdent TOTAL_TIME = new ColumnIdent("total_time");
+        static final ColumnIdent MEAN_TIME = new ColumnIdent("mean_time");
+        static final ColumnIdent STDEV_TIME = new ColumnIdent("stdev_time");
+        static final ColumnIdent MAX_TIME = new ColumnIdent("max_time");
+        static final ColumnIdent MIN_TIME = new ColumnIdent("min_time");
+        static final ColumnIdent PERCENTILES = new ColumnIdent("percentiles");
+        static final ColumnIdent P50 = new ColumnIdent("percentiles", "50");
+        static final ColumnIdent P90 = new ColumnIdent("percentiles", "90");
+        static final ColumnIdent P99 = new ColumnIdent("percentiles", "99");
+        static final ColumnIdent NODE = new ColumnIdent("node");
+        static final ColumnIdent NODE_ID = new ColumnIdent("node", "id");
+        static final ColumnIdent NODE_NAME = new ColumnIdent("node", "name");
+    }
+
+    SysStatementStatsTableInfo() {
+        super(NAME,
+            new ColumnRegistrar(NAME, RowGranularity.DOC)
+                .register(Columns.STATEMENT, DataTypes.STRING)
+                .register(Columns.CALLS, DataTypes.LONG)
+                .register(Columns.ERRORS, DataTypes.LONG)
+                .register(Columns.TOTAL_TIME, DataTypes.LONG)
+                .register(Columns.MEAN_TIME, DataTypes.DOUBLE)
+                .register(Columns.STDEV_TIME, DataTypes.DOUBLE)
+                .register(Columns.MAX_TIME, DataTypes.LONG)
+                .register(Columns.MIN_TIME, DataTypes.LONG)
+                .register(Columns.PERCENTILES, DataTypes.OBJECT)
+                .register(Columns.P50, DataTypes.LONG)
+                .register(Columns.P90, DataTypes.LONG)
+                .register(Columns.P99, DataTypes.LONG)
+                .register(Columns.NODE, DataTypes.OBJECT)
+                .register(Columns.NODE_ID, DataTypes.STRING)
+                .register(Columns.NODE_NAME, DataTypes.STRING),
+            Collections.emptyList()
+        );
+    }
+
+    public static Map<ColumnIdent, RowCollectExpressionFactory<StatementHistograms.StatementHistogram>> expressions(Supplier<DiscoveryNode> localNode) {
+        return ImmutableMap.<ColumnIdent, RowCollectExpressionFactory<StatementHistograms.StatementHistogram>>builder()
+            .put(Columns.STATEMENT, () -> forFunction(s -> new BytesRef(s.statement())))
+            .put(Columns.CALLS, () -> forFunction(StatementHistograms.StatementHistogram::calls))
+            .put(Columns.ERRORS, () -> forFunction(StatementHistograms.StatementHistogram::errors))
+            .put(Columns.TOTAL_TIME, () -> forFunction(StatementHistograms.StatementHistogram::totalTime))
+            .put(Columns.MEAN_TIME, () -> forFunction(s -> s.calls() == 0 ? 0.0 : (double) s.totalTime() / s.calls()))
+            .put(Columns.STDEV_TIME, () -> forFunction(s -> s.histogram().getStdDeviation()))
+            .put(Columns.MAX_TIME, () -> forFunction(s -> s.histogram().getMaxValue()))
+            .put(Columns.MIN_TIME, () -> forFunction(s -> s.histogram().getMinValue() == Long.MAX_VALUE ? 0L : s.histogram().getMinValue()))
+            .put(Columns.PERCENTILES, () -> forFunction(s -> ImmutableMap.builder()
+                .put("50", s.histogram().getValueAtPercentile(50.0))
+                .put("90", s.histogram().getValueAtPercentile(90.0))
+                .put("99", s.histogram().getValueAtPercentile(99.0))
+                .build()
+            ))
+            .put(Columns.P50, () -> forFunction(s -> s.histogram().getValueAtPercentile(50.0)))
+            .put(Columns.P90, () -> forFunction(s -> s.histogram().getValueAtPercentile(90.0)))
+            .put(Columns.P99, () -> forFunction(s -> s.histogram().getValueAtPercentile(99.0)))
+            .put(Columns.NODE, () -> forFunction(ignored -> ImmutableMap.builder()
+                .put("id", new BytesRef(localNode.get().getId()))
+                .put("name", new BytesRef(localNode.get().getName()))
+                .build()
+            ))
+            .put(Columns.NODE_ID, () -> forFunction(ignored -> new BytesRef(localNode.get().getId())))
+            .put(Columns.NODE_NAME, () -> forFunction(ignored -> new BytesRef(localNode.get().getName())))
+            .build();
+    }
+
+    @Override
+    public Routing getRouting(ClusterState state, RoutingProvider routingProvider, WhereClause whereClause, RoutingProvider.ShardSelection shardSelection, SessionContext sessionContext) {
+        return Routing.forTableOnAllNodes(NAME, state.getNodes());
+    }
+
+    @Override
+    public RowGranularity rowGranularity() {
+        return RowGranularity.DOC;
+    }
+}
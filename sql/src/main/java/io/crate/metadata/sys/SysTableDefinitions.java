@@ -116,6 +116,10 @@ public class SysTableDefinitions {
             () -> completedFuture(jobsLogs.metrics()),
             SysMetricsTableInfo.expressions(clusterService::localNode)
         ));
+        tableDefinitions.put(SysStatementStatsTableInfo.NAME, new StaticTableDefinition<>(
+            () -> completedFuture(jobsLogs.statementStats()),
+            SysStatementStatsTableInfo.expressions(clusterService::localNode)
+        ));
     }
 
     public StaticTableDefinition<?> get(RelationName relationName) {
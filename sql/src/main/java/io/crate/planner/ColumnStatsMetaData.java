@@ -0,0 +1,281 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.RelationName;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.cluster.AbstractNamedDiffable;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The {@link TableStats.ColumnStats} of all sampled tables, stored in the cluster metadata so that every node,
+ * including nodes which join later, plans with the same stats.
+ *
+ * The number of docs a table had when it has been sampled is stored as well; a table is only sampled again once
+ * its number of docs changed.
+ */
+public class ColumnStatsMetaData extends AbstractNamedDiffable<MetaData.Custom> implements MetaData.Custom {
+
+    public static final String TYPE = "column_stats";
+
+    private final Map<RelationName, Entry> entries;
+
+    public ColumnStatsMetaData(Map<RelationName, Entry> entries) {
+        this.entries = entries;
+    }
+
+    public ColumnStatsMetaData(StreamInput in) throws IOException {
+        int numEntries = in.readVInt();
+        entries = new HashMap<>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            entries.put(new RelationName(in), new Entry(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(entries.size());
+        for (Map.Entry<RelationName, Entry> entry : entries.entrySet()) {
+            entry.getKey().writeTo(out);
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    public Map<RelationName, Entry> entries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * @return the column stats of all tables, keyed by table
+     */
+    public Map<RelationName, Map<ColumnIdent, TableStats.ColumnStats>> columnStats() {
+        Map<RelationName, Map<ColumnIdent, TableStats.ColumnStats>> columnStats = new HashMap<>(entries.size());
+        for (Map.Entry<RelationName, Entry> entry : entries.entrySet()) {
+            columnStats.put(entry.getKey(), entry.getValue().columns);
+        }
+        return columnStats;
+    }
+
+    @Override
+    public EnumSet<MetaData.XContentContext> context() {
+        return EnumSet.of(MetaData.XContentContext.GATEWAY);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return TYPE;
+    }
+
+    /*
+     * ColumnStatsMetaData XContent has the following structure:
+     *
+     * <pre>
+     *     {
+     *       "column_stats": {
+     *         "doc.t1": {
+     *           "num_docs": 100000,
+     *           "columns": {
+     *             "x": {
+     *               "null_fraction": 0.25,
+     *               "approx_distinct": 1200.0
+     *             }
+     *           }
+     *         }
+     *       }
+     *     }
+     * </pre>
+     */
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(TYPE);
+        for (Map.Entry<RelationName, Entry> entry : entries.entrySet()) {
+            builder.startObject(entry.getKey().fqn());
+            {
+                builder.field("num_docs", entry.getValue().numDocs);
+                builder.startObject("columns");
+                for (Map.Entry<ColumnIdent, TableStats.ColumnStats> column : entry.getValue().columns.entrySet()) {
+                    builder.startObject(column.getKey().fqn());
+                    {
+                        builder.field("null_fraction", column.getValue().nullFraction());
+                        builder.field("approx_distinct", column.getValue().approxDistinct());
+                    }
+                    builder.endObject();
+                }
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    public static ColumnStatsMetaData fromXContent(XContentParser parser) throws IOException {
+        Map<RelationName, Entry> entries = new HashMap<>();
+
+        if (parser.nextToken() == XContentParser.Token.FIELD_NAME && parser.currentName().equals(TYPE)) {
+            if (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                    RelationName relationName = relationName(parser.currentName());
+                    if (parser.nextToken() == XContentParser.Token.START_OBJECT) {
+                        long numDocs = -1L;
+                        Map<ColumnIdent, TableStats.ColumnStats> columns = new HashMap<>();
+                        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                            String fieldName = parser.currentName();
+                            parser.nextToken();
+                            if ("num_docs".equals(fieldName)) {
+                                numDocs = parser.longValue();
+                            } else if ("columns".equals(fieldName)) {
+                                parseColumns(parser, columns);
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                        if (numDocs == -1L) {
+                            throw new ElasticsearchParseException(
+                                "failed to parse column stats, expected field 'num_docs' in object");
+                        }
+                        entries.put(relationName, new Entry(numDocs, columns));
+                    }
+                }
+            }
+            if (parser.nextToken() != XContentParser.Token.END_OBJECT) {
+                // each custom metadata is packed inside an object.
+                // each custom must move the parser to the end otherwise possible following customs won't be read
+                throw new ElasticsearchParseException("failed to parse column stats, expected an object token at the end");
+            }
+        }
+        return new ColumnStatsMetaData(entries);
+    }
+
+    private static void parseColumns(XContentParser parser,
+                                     Map<ColumnIdent, TableStats.ColumnStats> columns) throws IOException {
+        while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+            ColumnIdent column = ColumnIdent.fromPath(parser.currentName());
+            parser.nextToken();
+            double nullFraction = 0.0;
+            double approxDistinct = 0.0;
+            while (parser.nextToken() == XContentParser.Token.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                parser.nextToken();
+                if ("null_fraction".equals(fieldName)) {
+                    nullFraction = parser.doubleValue();
+                } else if ("approx_distinct".equals(fieldName)) {
+                    approxDistinct = parser.doubleValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            columns.put(column, new TableStats.ColumnStats(nullFraction, approxDistinct));
+        }
+    }
+
+    private static RelationName relationName(String fqn) {
+        int dot = fqn.indexOf('.');
+        if (dot < 0) {
+            throw new ElasticsearchParseException("failed to parse column stats, invalid table name [" + fqn + "]");
+        }
+        return new RelationName(fqn.substring(0, dot), fqn.substring(dot + 1));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ColumnStatsMetaData that = (ColumnStatsMetaData) o;
+        return entries.equals(that.entries);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(entries);
+    }
+
+    /**
+     * The column stats of a table and the number of docs the table had when it has been sampled
+     */
+    public static class Entry implements Writeable {
+
+        private final long numDocs;
+        private final Map<ColumnIdent, TableStats.ColumnStats> columns;
+
+        public Entry(long numDocs, Map<ColumnIdent, TableStats.ColumnStats> columns) {
+            this.numDocs = numDocs;
+            this.columns = columns;
+        }
+
+        Entry(StreamInput in) throws IOException {
+            numDocs = in.readVLong();
+            int numColumns = in.readVInt();
+            columns = new HashMap<>(numColumns);
+            for (int i = 0; i < numColumns; i++) {
+                columns.put(new ColumnIdent(in), new TableStats.ColumnStats(in));
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(numDocs);
+            out.writeVInt(columns.size());
+            for (Map.Entry<ColumnIdent, TableStats.ColumnStats> column : columns.entrySet()) {
+                column.getKey().writeTo(out);
+                column.getValue().writeTo(out);
+            }
+        }
+
+        public long numDocs() {
+            return numDocs;
+        }
+
+        public Map<ColumnIdent, TableStats.ColumnStats> columns() {
+            return columns;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Entry that = (Entry) o;
+            return numDocs == that.numDocs && columns.equals(that.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(numDocs, columns);
+        }
+    }
+}
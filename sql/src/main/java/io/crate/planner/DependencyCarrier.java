@@ -33,6 +33,7 @@ import io.crate.execution.engine.PhasesTaskFactory;
 import io.crate.metadata.Functions;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Provider;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -57,6 +58,7 @@ public class DependencyCarrier {
     private final ProjectionBuilder projectionBuilder;
     private final TransportCreateViewAction createViewAction;
     private final TransportDropViewAction dropViewAction;
+    private final Provider<TableStatsService> tableStatsServiceProvider;
 
     @Inject
     public DependencyCarrier(Settings settings,
@@ -69,7 +71,8 @@ public class DependencyCarrier {
                              DCLStatementDispatcher dclStatementDispatcher,
                              TransportDropTableAction transportDropTableAction,
                              TransportCreateViewAction createViewAction,
-                             TransportDropViewAction dropViewAction) {
+                             TransportDropViewAction dropViewAction,
+                             Provider<TableStatsService> tableStatsServiceProvider) {
         this.settings = settings;
         this.transportActionProvider = transportActionProvider;
         this.phasesTaskFactory = phasesTaskFactory;
@@ -82,6 +85,7 @@ public class DependencyCarrier {
         projectionBuilder = new ProjectionBuilder(functions);
         this.createViewAction = createViewAction;
         this.dropViewAction = dropViewAction;
+        this.tableStatsServiceProvider = tableStatsServiceProvider;
     }
 
     public DDLStatementDispatcher ddlAction() {
@@ -139,4 +143,8 @@ public class DependencyCarrier {
     public TransportDropViewAction dropViewAction() {
         return dropViewAction;
     }
+
+    public TableStatsService tableStatsService() {
+        return tableStatsServiceProvider.get();
+    }
 }
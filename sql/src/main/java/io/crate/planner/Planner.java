@@ -23,6 +23,7 @@
 package io.crate.planner;
 
 import com.google.common.base.Preconditions;
+import io.crate.analyze.AnalyzedAnalyze;
 import io.crate.analyze.AnalyzedBegin;
 import io.crate.analyze.AnalyzedCommit;
 import io.crate.analyze.AnalyzedDeleteStatement;
@@ -60,6 +61,7 @@ import io.crate.planner.node.ddl.DropTablePlan;
 import io.crate.planner.node.ddl.ESClusterUpdateSettingsPlan;
 import io.crate.planner.node.ddl.GenericDDLPlan;
 import io.crate.planner.node.dml.LegacyUpsertById;
+import io.crate.planner.node.management.AnalyzePlan;
 import io.crate.planner.node.management.ExplainPlan;
 import io.crate.planner.node.management.KillPlan;
 import io.crate.planner.node.management.ShowCreateTablePlan;
@@ -150,6 +152,11 @@ public class Planner extends AnalyzedStatementVisitor<PlannerContext, Plan> {
         return NoopPlan.INSTANCE;
     }
 
+    @Override
+    public Plan visitAnalyze(AnalyzedAnalyze analyzedAnalyze, PlannerContext context) {
+        return new AnalyzePlan();
+    }
+
     @Override
     public Plan visitSelectStatement(QueriedRelation relation, PlannerContext context) {
         return logicalPlanner.plan(relation, context);
@@ -25,21 +25,156 @@ package io.crate.planner;
 import com.carrotsearch.hppc.ObjectObjectHashMap;
 import com.carrotsearch.hppc.ObjectObjectMap;
 import com.google.common.annotations.VisibleForTesting;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.predicate.IsNullPredicate;
+import io.crate.expression.predicate.NotPredicate;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
 
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Holds table statistics that are updated periodically by {@link TableStatsService}.
+ *
+ * Besides the number of docs and the size of a table, it holds {@link ColumnStats} of top-level columns
+ * which are computed from a sample of the table and used to estimate the number of rows matching a query.
  */
 public class TableStats {
 
     private static final Stats EMPTY_STATS = new Stats();
+    private static final double UNKNOWN_SELECTIVITY = -1.0;
 
     private volatile ObjectObjectMap<RelationName, Stats> tableStats = new ObjectObjectHashMap<>(0);
+    private final Map<RelationName, Map<ColumnIdent, ColumnStats>> columnStats = new ConcurrentHashMap<>();
 
     public void updateTableStats(ObjectObjectMap<RelationName, Stats> tableStats) {
         this.tableStats = tableStats;
     }
 
+    public void updateColumnStats(RelationName relationName, Map<ColumnIdent, ColumnStats> stats) {
+        columnStats.put(relationName, stats);
+    }
+
+    /**
+     * Replaces the column stats of all tables, e.g. with the ones of the {@link ColumnStatsMetaData}
+     */
+    public void replaceColumnStats(Map<RelationName, Map<ColumnIdent, ColumnStats>> stats) {
+        columnStats.keySet().retainAll(stats.keySet());
+        columnStats.putAll(stats);
+    }
+
+    /**
+     * Returns the column stats of all tables, keyed by table
+     */
+    public Map<RelationName, Map<ColumnIdent, ColumnStats>> columnStats() {
+        return Collections.unmodifiableMap(columnStats);
+    }
+
+    @Nullable
+    public ColumnStats columnStats(RelationName relationName, ColumnIdent column) {
+        Map<ColumnIdent, ColumnStats> stats = columnStats.get(relationName);
+        return stats == null ? null : stats.get(column);
+    }
+
+    /**
+     * Returns the estimated number of rows of a table which match {@code query}.
+     * <p>
+     * The selectivity of equality and IS NULL predicates on columns with {@link ColumnStats} (and conjunctions,
+     * disjunctions and negations of them) is estimated, other predicates are assumed to match all rows.
+     * </p>
+     * Returns -1 if the table isn't in the cache
+     */
+    public long estimatedNumRows(RelationName relationName, @Nullable Symbol query) {
+        long numDocs = numDocs(relationName);
+        if (numDocs <= 0 || query == null) {
+            return numDocs;
+        }
+        Map<ColumnIdent, ColumnStats> stats = columnStats.get(relationName);
+        if (stats == null) {
+            return numDocs;
+        }
+        double selectivity = selectivity(query, stats);
+        if (selectivity == UNKNOWN_SELECTIVITY) {
+            return numDocs;
+        }
+        return Math.max(1L, Math.round(numDocs * selectivity));
+    }
+
+    private static double selectivity(Symbol query, Map<ColumnIdent, ColumnStats> stats) {
+        if (!(query instanceof Function)) {
+            return UNKNOWN_SELECTIVITY;
+        }
+        Function function = (Function) query;
+        List<Symbol> args = function.arguments();
+        switch (function.info().ident().name()) {
+            case AndOperator.NAME: {
+                double lhs = selectivity(args.get(0), stats);
+                double rhs = selectivity(args.get(1), stats);
+                if (lhs == UNKNOWN_SELECTIVITY) {
+                    return rhs;
+                }
+                return rhs == UNKNOWN_SELECTIVITY ? lhs : lhs * rhs;
+            }
+            case OrOperator.NAME: {
+                double lhs = selectivity(args.get(0), stats);
+                double rhs = selectivity(args.get(1), stats);
+                if (lhs == UNKNOWN_SELECTIVITY || rhs == UNKNOWN_SELECTIVITY) {
+                    return UNKNOWN_SELECTIVITY;
+                }
+                return lhs + rhs - lhs * rhs;
+            }
+            case NotPredicate.NAME: {
+                double selectivity = selectivity(args.get(0), stats);
+                return selectivity == UNKNOWN_SELECTIVITY ? UNKNOWN_SELECTIVITY : 1.0 - selectivity;
+            }
+            case EqOperator.NAME: {
+                ColumnStats columnStats = columnStatsOfOperand(args, stats);
+                return columnStats == null ? UNKNOWN_SELECTIVITY : columnStats.equalsSelectivity();
+            }
+            case IsNullPredicate.NAME: {
+                ColumnStats columnStats = columnStatsOfOperand(args, stats);
+                return columnStats == null ? UNKNOWN_SELECTIVITY : columnStats.nullFraction;
+            }
+            default:
+                return UNKNOWN_SELECTIVITY;
+        }
+    }
+
+    /**
+     * Returns the stats of the column of a predicate comparing a column with a literal
+     */
+    @Nullable
+    private static ColumnStats columnStatsOfOperand(List<Symbol> args, Map<ColumnIdent, ColumnStats> stats) {
+        Reference reference = null;
+        for (Symbol arg : args) {
+            if (arg instanceof Reference) {
+                if (reference != null) {
+                    return null;
+                }
+                reference = (Reference) arg;
+            } else if (!(arg instanceof Literal)) {
+                return null;
+            }
+        }
+        return reference == null ? null : stats.get(reference.column());
+    }
+
     /**
      * Returns the number of docs a table has.
      * <p>
@@ -80,6 +215,84 @@ public class TableStats {
         return sizeInBytes(relationName) / numDocs(relationName);
     }
 
+    /**
+     * Statistics of the values of a column
+     */
+    public static class ColumnStats implements Writeable {
+
+        final double nullFraction;
+        final double approxDistinct;
+
+        public ColumnStats(double nullFraction, double approxDistinct) {
+            this.nullFraction = nullFraction;
+            this.approxDistinct = approxDistinct;
+        }
+
+        public ColumnStats(StreamInput in) throws IOException {
+            nullFraction = in.readDouble();
+            approxDistinct = in.readDouble();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeDouble(nullFraction);
+            out.writeDouble(approxDistinct);
+        }
+
+        /**
+         * The fraction of the rows in which the column is null
+         */
+        public double nullFraction() {
+            return nullFraction;
+        }
+
+        /**
+         * The estimated number of distinct non-null values of the column
+         */
+        public double approxDistinct() {
+            return approxDistinct;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            ColumnStats that = (ColumnStats) o;
+            return Double.compare(that.nullFraction, nullFraction) == 0 &&
+                   Double.compare(that.approxDistinct, approxDistinct) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(nullFraction, approxDistinct);
+        }
+
+        /**
+         * Estimates the number of distinct values of a column from a sample.
+         * If every value of the sample is distinct, the column is assumed to be unique; if the sample contains
+         * few distinct values, they are assumed to be all values. Values in between are interpolated.
+         *
+         * @param numSampled the number of non-null values in the sample
+         * @param numDistinctSampled the number of distinct values in the sample
+         * @param numTotal the estimated number of non-null values of the table
+         */
+        static double estimateDistinct(long numSampled, long numDistinctSampled, double numTotal) {
+            if (numSampled == 0 || numSampled >= numTotal) {
+                return numDistinctSampled;
+            }
+            double distinctRatio = (double) numDistinctSampled / numSampled;
+            return numDistinctSampled + (numTotal - numSampled) * distinctRatio * distinctRatio;
+        }
+
+        double equalsSelectivity() {
+            if (approxDistinct < 1.0) {
+                return 0.0;
+            }
+            return (1.0 - nullFraction) / approxDistinct;
+        }
+    }
+
     @VisibleForTesting
     public static class Stats {
 
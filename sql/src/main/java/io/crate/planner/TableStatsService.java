@@ -25,17 +25,31 @@ package io.crate.planner;
 
 import com.carrotsearch.hppc.ObjectObjectHashMap;
 import com.carrotsearch.hppc.ObjectObjectMap;
+import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import com.google.common.annotations.VisibleForTesting;
 import io.crate.action.sql.BaseResultReceiver;
 import io.crate.action.sql.SQLOperations;
 import io.crate.action.sql.Session;
+import io.crate.concurrent.CompletableFutures;
 import io.crate.data.Row;
+import io.crate.execution.engine.collect.stats.TransportUpdateColumnStatsAction;
+import io.crate.execution.engine.collect.stats.UpdateColumnStatsRequest;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.Operation;
+import io.crate.metadata.table.TableInfo;
 import io.crate.settings.CrateSetting;
+import io.crate.sql.Identifiers;
 import io.crate.sql.parser.SqlParser;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataTypes;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -48,26 +62,61 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
  * Periodically refresh {@link TableStats} based on {@link #refreshInterval}.
+ *
+ * After the number of docs of the tables have been retrieved, the elected master node computes the
+ * {@link TableStats.ColumnStats} of the primitive top-level columns from a random sample of about
+ * {@link #COLUMN_STATS_SAMPLE_SIZE} rows, one table after another. Each shard draws its part of the sample
+ * by skipping over its documents (see {@link io.crate.lucene.RandomSamplingQuery}), so the sampling doesn't
+ * read every row. Only tables whose number of docs changed since they have been sampled last are sampled again.
+ * The results are stored in the cluster metadata as {@link ColumnStatsMetaData} using the
+ * {@link TransportUpdateColumnStatsAction}, so every node, including nodes which join later, uses the same stats.
+ *
+ * {@link #analyze()} samples all tables immediately; it is used by the {@code ANALYZE} statement.
  */
 @Singleton
-public class TableStatsService extends AbstractComponent implements Runnable {
+public class TableStatsService extends AbstractComponent implements Runnable, ClusterStateListener {
 
     public static final CrateSetting<TimeValue> STATS_SERVICE_REFRESH_INTERVAL_SETTING = CrateSetting.of(Setting.timeSetting(
         "stats.service.interval", TimeValue.timeValueHours(1), Setting.Property.NodeScope, Setting.Property.Dynamic),
         DataTypes.STRING);
 
+    public static final CrateSetting<Boolean> STATS_SERVICE_COLUMN_STATS_SETTING = CrateSetting.of(Setting.boolSetting(
+        "stats.service.column_stats", true, Setting.Property.NodeScope, Setting.Property.Dynamic),
+        DataTypes.BOOLEAN);
+
     static final String STMT = "select cast(sum(num_docs) as long), cast(sum(size) as long), schema_name, table_name " +
                                "from sys.shards where primary=true group by 3, 4";
     private static final Statement PARSED_STMT = SqlParser.createStatement(STMT);
 
+    static final int COLUMN_STATS_SAMPLE_SIZE = 10_000;
+
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
+    private final TableStats tableStats;
+    private final Schemas schemas;
+    private final SQLOperations sqlOperations;
+    private final TransportUpdateColumnStatsAction updateColumnStatsAction;
     private final TableStatsResultReceiver resultReceiver;
     private final Session session;
+    private final Session columnStatsSession;
+    private final AtomicBoolean samplingColumns = new AtomicBoolean(false);
+    private volatile boolean columnStatsEnabled;
 
     @VisibleForTesting
     ThreadPool.Cancellable refreshScheduledTask;
@@ -79,17 +128,32 @@ public class TableStatsService extends AbstractComponent implements Runnable {
                              ThreadPool threadPool,
                              ClusterService clusterService,
                              TableStats tableStats,
-                             SQLOperations sqlOperations) {
+                             Schemas schemas,
+                             SQLOperations sqlOperations,
+                             TransportUpdateColumnStatsAction updateColumnStatsAction) {
         super(settings);
         this.threadPool = threadPool;
         this.clusterService = clusterService;
-        resultReceiver = new TableStatsResultReceiver(tableStats::updateTableStats);
+        this.tableStats = tableStats;
+        this.schemas = schemas;
+        this.sqlOperations = sqlOperations;
+        this.updateColumnStatsAction = updateColumnStatsAction;
+        resultReceiver = new TableStatsResultReceiver(stats -> {
+            tableStats.updateTableStats(stats);
+            updateColumnStats(stats);
+        });
         refreshInterval = STATS_SERVICE_REFRESH_INTERVAL_SETTING.setting().get(settings);
         refreshScheduledTask = scheduleRefresh(refreshInterval);
         session = sqlOperations.newSystemSession();
+        // the column stats are computed asynchronously and must not interfere with the statements of the next run
+        columnStatsSession = sqlOperations.newSystemSession();
+        columnStatsEnabled = STATS_SERVICE_COLUMN_STATS_SETTING.setting().get(settings);
 
         clusterService.getClusterSettings().addSettingsUpdateConsumer(
             STATS_SERVICE_REFRESH_INTERVAL_SETTING.setting(), this::setRefreshInterval);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(
+            STATS_SERVICE_COLUMN_STATS_SETTING.setting(), enabled -> columnStatsEnabled = enabled);
+        clusterService.addListener(this);
     }
 
     @Override
@@ -114,6 +178,238 @@ public class TableStatsService extends AbstractComponent implements Runnable {
         }
     }
 
+    /**
+     * Refreshes the number of docs of all tables and samples the columns of all tables which contain docs.
+     * The resulting future contains the number of sampled tables.
+     */
+    public CompletableFuture<Long> analyze() {
+        Session analyzeSession = sqlOperations.newSystemSession();
+        CompletableFuture<ObjectObjectMap<RelationName, TableStats.Stats>> statsFuture = new CompletableFuture<>();
+        TableStatsResultReceiver receiver = new TableStatsResultReceiver(statsFuture::complete);
+        try {
+            analyzeSession.quickExec(STMT, stmt -> PARSED_STMT, receiver, Row.EMPTY);
+        } catch (Throwable t) {
+            analyzeSession.close();
+            return CompletableFutures.failedFuture(t);
+        }
+        CompletableFuture<Long> result = receiver.completionFuture()
+            .thenCompose(ignored -> statsFuture)
+            .thenCompose(stats -> {
+                tableStats.updateTableStats(stats);
+                List<RelationName> relations = new ArrayList<>();
+                for (ObjectObjectCursor<RelationName, TableStats.Stats> cursor : stats) {
+                    if (cursor.value.numDocs > 0) {
+                        relations.add(cursor.key);
+                    }
+                }
+                return sampleColumns(relations.iterator(), analyzeSession, new HashMap<>(), new CompletableFuture<>())
+                    .thenCompose(sampled -> publish(stats, sampled));
+            });
+        result.whenComplete((numRelations, t) -> analyzeSession.close());
+        return result;
+    }
+
+    private void updateColumnStats(ObjectObjectMap<RelationName, TableStats.Stats> stats) {
+        if (!columnStatsEnabled || !clusterService.state().nodes().isLocalNodeElectedMaster()) {
+            // the master samples the tables and stores the column stats in the cluster metadata
+            return;
+        }
+        if (!samplingColumns.compareAndSet(false, true)) {
+            // a sampling of the previous run is still in progress, the changed tables are sampled next time
+            return;
+        }
+        List<RelationName> relations = staleRelations(currentColumnStats(), stats);
+        sampleColumns(relations.iterator(), columnStatsSession, new HashMap<>(), new CompletableFuture<>())
+            .thenCompose(sampled -> publish(stats, sampled))
+            .whenComplete((numRelations, t) -> {
+                if (t != null) {
+                    // the metadata is unchanged, so the tables are sampled again on the next run
+                    logger.debug("error storing column stats", t);
+                }
+                samplingColumns.set(false);
+            });
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (!event.changedCustomMetaDataSet().contains(ColumnStatsMetaData.TYPE)) {
+            return;
+        }
+        ColumnStatsMetaData columnStats = event.state().metaData().custom(ColumnStatsMetaData.TYPE);
+        tableStats.replaceColumnStats(
+            columnStats == null ? Collections.emptyMap() : columnStats.columnStats());
+    }
+
+    @Nullable
+    private ColumnStatsMetaData currentColumnStats() {
+        return clusterService.state().metaData().custom(ColumnStatsMetaData.TYPE);
+    }
+
+    /**
+     * @return the tables which contain docs and haven't been sampled yet or whose number of docs changed since
+     */
+    static List<RelationName> staleRelations(@Nullable ColumnStatsMetaData columnStats,
+                                             ObjectObjectMap<RelationName, TableStats.Stats> stats) {
+        List<RelationName> relations = new ArrayList<>();
+        for (ObjectObjectCursor<RelationName, TableStats.Stats> cursor : stats) {
+            long numDocs = cursor.value.numDocs;
+            ColumnStatsMetaData.Entry entry = columnStats == null ? null : columnStats.entries().get(cursor.key);
+            if (numDocs > 0 && (entry == null || entry.numDocs() != numDocs)) {
+                relations.add(cursor.key);
+            }
+        }
+        return relations;
+    }
+
+    /**
+     * @return the column stats of the tables which still exist, updated with the {@code sampled} ones
+     */
+    static ColumnStatsMetaData mergeColumnStats(@Nullable ColumnStatsMetaData columnStats,
+                                                ObjectObjectMap<RelationName, TableStats.Stats> stats,
+                                                Map<RelationName, ColumnStatsMetaData.Entry> sampled) {
+        Map<RelationName, ColumnStatsMetaData.Entry> entries = new HashMap<>();
+        if (columnStats != null) {
+            for (Map.Entry<RelationName, ColumnStatsMetaData.Entry> entry : columnStats.entries().entrySet()) {
+                if (stats.containsKey(entry.getKey())) {
+                    entries.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        entries.putAll(sampled);
+        return new ColumnStatsMetaData(entries);
+    }
+
+    /**
+     * Samples the given tables one after another to limit the load and collects their column stats.
+     * Tables which can't be sampled are skipped.
+     */
+    private CompletableFuture<Map<RelationName, ColumnStatsMetaData.Entry>> sampleColumns(
+        Iterator<RelationName> relations,
+        Session session,
+        Map<RelationName, ColumnStatsMetaData.Entry> sampled,
+        CompletableFuture<Map<RelationName, ColumnStatsMetaData.Entry>> result) {
+
+        while (relations.hasNext()) {
+            RelationName relationName = relations.next();
+            List<Reference> columns = sampledColumns(relationName);
+            if (columns.isEmpty()) {
+                continue;
+            }
+            long numDocs = tableStats.numDocs(relationName);
+            ColumnStatsResultReceiver receiver = new ColumnStatsResultReceiver(
+                relationName, columns, numDocs,
+                (name, columnStats) -> sampled.put(name, new ColumnStatsMetaData.Entry(numDocs, columnStats)));
+            try {
+                session.quickExec(columnStatsStmt(relationName, columns, numDocs), receiver, Row.EMPTY);
+            } catch (Throwable t) {
+                logger.debug("error retrieving column stats of table " + relationName, t);
+                continue;
+            }
+            receiver.completionFuture().whenComplete((ignored, t) -> {
+                if (t != null) {
+                    logger.debug("error retrieving column stats of table " + relationName, t);
+                }
+                sampleColumns(relations, session, sampled, result);
+            });
+            return result;
+        }
+        result.complete(sampled);
+        return result;
+    }
+
+    /**
+     * Stores the column stats in the cluster metadata; the resulting future contains the number of sampled tables.
+     * A table only counts as sampled once the metadata has been updated.
+     */
+    private CompletableFuture<Long> publish(ObjectObjectMap<RelationName, TableStats.Stats> stats,
+                                            Map<RelationName, ColumnStatsMetaData.Entry> sampled) {
+        ColumnStatsMetaData current = currentColumnStats();
+        ColumnStatsMetaData columnStats = mergeColumnStats(current, stats, sampled);
+        if (columnStats.equals(current)) {
+            return CompletableFuture.completedFuture((long) sampled.size());
+        }
+        CompletableFuture<Long> published = new CompletableFuture<>();
+        updateColumnStatsAction.execute(
+            new UpdateColumnStatsRequest(columnStats),
+            ActionListener.wrap(response -> published.complete((long) sampled.size()), published::completeExceptionally)
+        );
+        return published;
+    }
+
+    private List<Reference> sampledColumns(RelationName relationName) {
+        TableInfo tableInfo;
+        try {
+            tableInfo = schemas.getTableInfoOrNull(relationName, Operation.READ);
+        } catch (Exception e) {
+            return Collections.emptyList();
+        }
+        if (!(tableInfo instanceof DocTableInfo)) {
+            return Collections.emptyList();
+        }
+        List<Reference> columns = new ArrayList<>();
+        for (Reference reference : tableInfo.columns()) {
+            if (DataTypes.isPrimitive(reference.valueType())) {
+                columns.add(reference);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Every row is part of the sample with a probability of {@code COLUMN_STATS_SAMPLE_SIZE / numDocs},
+     * so the sample is spread over the whole table. {@code random() < p} is turned into a
+     * {@link io.crate.lucene.RandomSamplingQuery}, which only visits the sampled docs.
+     */
+    static String columnStatsStmt(RelationName relationName, List<Reference> columns, long numDocs) {
+        StringJoiner aggregations = new StringJoiner(", ");
+        StringJoiner sampledColumns = new StringJoiner(", ");
+        aggregations.add("count(*)");
+        for (Reference column : columns) {
+            String name = Identifiers.quote(column.column().name());
+            aggregations.add("count(" + name + ")");
+            aggregations.add("count(distinct " + name + ")");
+            sampledColumns.add(name);
+        }
+        String table = Identifiers.quote(relationName.schema()) + "." + Identifiers.quote(relationName.name());
+        String sample = numDocs > COLUMN_STATS_SAMPLE_SIZE
+            ? " where random() < " + BigDecimal.valueOf((double) COLUMN_STATS_SAMPLE_SIZE / numDocs).toPlainString()
+            : "";
+        return "select " + aggregations + " from (select " + sampledColumns + " from " + table + sample + ") s";
+    }
+
+    static class ColumnStatsResultReceiver extends BaseResultReceiver {
+
+        private final RelationName relationName;
+        private final List<Reference> columns;
+        private final long numDocs;
+        private final BiConsumer<RelationName, Map<ColumnIdent, TableStats.ColumnStats>> columnStatsConsumer;
+
+        ColumnStatsResultReceiver(RelationName relationName,
+                                  List<Reference> columns,
+                                  long numDocs,
+                                  BiConsumer<RelationName, Map<ColumnIdent, TableStats.ColumnStats>> columnStatsConsumer) {
+            this.relationName = relationName;
+            this.columns = columns;
+            this.numDocs = numDocs;
+            this.columnStatsConsumer = columnStatsConsumer;
+        }
+
+        @Override
+        public void setNextRow(Row row) {
+            long numSampled = (long) row.get(0);
+            Map<ColumnIdent, TableStats.ColumnStats> stats = new HashMap<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                long numNonNull = (long) row.get(1 + 2 * i);
+                long numDistinct = (long) row.get(2 + 2 * i);
+                double nullFraction = numSampled == 0 ? 0.0 : (double) (numSampled - numNonNull) / numSampled;
+                double approxDistinct = TableStats.ColumnStats.estimateDistinct(
+                    numNonNull, numDistinct, Math.max(numDocs, numSampled) * (1.0 - nullFraction));
+                stats.put(columns.get(i).column(), new TableStats.ColumnStats(nullFraction, approxDistinct));
+            }
+            columnStatsConsumer.accept(relationName, stats);
+        }
+    }
+
     static class TableStatsResultReceiver extends BaseResultReceiver {
 
         private static final Logger LOGGER = Loggers.getLogger(TableStatsResultReceiver.class);
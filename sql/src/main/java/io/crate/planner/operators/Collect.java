@@ -103,7 +103,7 @@ class Collect extends ZeroInputPlan {
             toCollect,
             where,
             usedColumns,
-            tableStats.numDocs(relation.tableRelation().tableInfo().ident()),
+            tableStats.estimatedNumRows(relation.tableRelation().tableInfo().ident(), where.query()),
             tableStats.estimatedSizePerRow(relation.tableRelation().tableInfo().ident()));
     }
 
@@ -121,7 +121,8 @@ public class ExplainLogicalPlan {
         public ImmutableMap.Builder<String, Object> visitCollect(Collect logicalPlan, Context context) {
             return createMap(logicalPlan, createSubMap()
                 .put("toCollect", ExplainLeaf.printList(logicalPlan.outputs()))
-                .put("where", logicalPlan.where.query().representation()));
+                .put("where", logicalPlan.where.query().representation())
+                .put("expectedRows", logicalPlan.numExpectedRows()));
         }
 
         @Override
@@ -174,7 +175,8 @@ public class ExplainLogicalPlan {
             ImmutableMap.Builder<String, Object> mapBuilder = createMap(logicalPlan, createSubMap()
                 .put("left", explainMap(logicalPlan.lhs, context))
                 .put("right", explainMap(logicalPlan.rhs, context))
-                .put("joinType", logicalPlan.joinType()));
+                .put("joinType", logicalPlan.joinType())
+                .put("expectedRows", logicalPlan.numExpectedRows()));
 
             if (logicalPlan.joinCondition() != null) {
                 mapBuilder.put("joinCondition", SymbolPrinter.INSTANCE.printQualified(logicalPlan.joinCondition()));
@@ -189,7 +191,8 @@ public class ExplainLogicalPlan {
                 .put("right", explainMap(logicalPlan.rhs, context))
                 .put("joinType", logicalPlan.joinType())
                 .put("joinCondition",
-                    SymbolPrinter.INSTANCE.printQualified(logicalPlan.joinCondition())));
+                    SymbolPrinter.INSTANCE.printQualified(logicalPlan.joinCondition()))
+                .put("expectedRows", logicalPlan.numExpectedRows()));
         }
 
         @Override
@@ -54,12 +54,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import static io.crate.planner.operators.LogicalPlanner.NO_LIMIT;
 
 class HashJoin extends TwoInputPlan {
 
+    private final JoinType joinType;
     private final Symbol joinCondition;
     private final TableStats tableStats;
     @VisibleForTesting
@@ -67,19 +69,25 @@ class HashJoin extends TwoInputPlan {
 
     HashJoin(LogicalPlan lhs,
              LogicalPlan rhs,
+             JoinType joinType,
              Symbol joinCondition,
              AnalyzedRelation concreteRelation,
              TableStats tableStats) {
         super(lhs, rhs, new ArrayList<>());
+        this.joinType = joinType;
         this.concreteRelation = concreteRelation;
         this.joinCondition = joinCondition;
-        this.outputs.addAll(lhs.outputs());
-        this.outputs.addAll(rhs.outputs());
+        if (joinType == JoinType.SEMI) {
+            this.outputs.addAll(lhs.outputs());
+        } else {
+            this.outputs.addAll(lhs.outputs());
+            this.outputs.addAll(rhs.outputs());
+        }
         this.tableStats = tableStats;
     }
 
     JoinType joinType() {
-        return JoinType.INNER;
+        return joinType;
     }
 
     Symbol joinCondition() {
@@ -113,11 +121,14 @@ class HashJoin extends TwoInputPlan {
         LogicalPlan leftLogicalPlan = lhs;
         LogicalPlan rightLogicalPlan = rhs;
 
+        JoinType joinType = this.joinType;
         boolean tablesSwitched = false;
         // We move smaller table to the right side since benchmarking
         // revealed that this improves performance in most cases.
-        if (lhs.numExpectedRows() < rhs.numExpectedRows()) {
+        // Outer joins are inverted accordingly, SEMI and ANTI joins must keep their order.
+        if (joinType.supportsInversion() && lhs.numExpectedRows() < rhs.numExpectedRows()) {
             tablesSwitched = true;
+            joinType = joinType.invert();
             leftLogicalPlan = rhs;
             rightLogicalPlan = lhs;
 
@@ -153,9 +164,19 @@ class HashJoin extends TwoInputPlan {
             // are on the same node
             leftExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
             rightExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
+        } else if (isDistributed
+                   && canBroadcastRight(joinType)
+                   && isBroadcastCheaper(leftLogicalPlan, rightLogicalPlan, leftResultDesc.nodeIds().size())) {
+            // Run the join on the nodes of the left side, the (small) right side is sent to all of them
+            // so that the rows of the left side don't need to be re-distributed
+            leftExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_SAME_NODE);
+            rightExecutionPlan.setDistributionInfo(DistributionInfo.DEFAULT_BROADCAST);
+            rightMerge = JoinOperations.buildMergePhaseForJoin(plannerContext, rightResultDesc, joinExecutionNodes);
         } else {
             if (isDistributed) {
-                // Run the join distributed by modulo distribution algorithm
+                // Run the join distributed by modulo distribution algorithm on all nodes holding data of either side,
+                // so that every node joins its partition of both relations
+                joinExecutionNodes = unionOfNodeIds(leftResultDesc, rightResultDesc);
                 leftOutputs = setModuloDistribution(hashSymbols.v1(), leftLogicalPlan.outputs(), leftExecutionPlan);
                 rightOutputs = setModuloDistribution(hashSymbols.v2(), rightLogicalPlan.outputs(), rightExecutionPlan);
             } else {
@@ -180,10 +201,12 @@ class HashJoin extends TwoInputPlan {
             leftOutputs.size(),
             rightOutputs.size(),
             joinExecutionNodes,
+            joinType,
             InputColumns.create(joinCondition, joinOutputs),
             InputColumns.create(hashSymbols.v1(), new InputColumns.SourceSymbols(leftOutputs)),
             InputColumns.create(hashSymbols.v2(), new InputColumns.SourceSymbols(rightOutputs)),
             Symbols.typeView(leftOutputs),
+            Symbols.typeView(rightOutputs),
             leftLogicalPlan.estimatedRowSize(),
             leftLogicalPlan.numExpectedRows());
         return new Join(
@@ -198,6 +221,39 @@ class HashJoin extends TwoInputPlan {
         );
     }
 
+    /**
+     * Every row of the left side must be joined on exactly one node, so the right side can only be broadcast
+     * if unmatched rows of the right side don't need to be emitted.
+     */
+    private static boolean canBroadcastRight(JoinType joinType) {
+        return joinType == JoinType.INNER || joinType == JoinType.LEFT;
+    }
+
+    /**
+     * Broadcasting sends the right side to each of the {@code numLeftNodes} nodes, whereas the modulo distribution
+     * sends (most of) the rows of both sides over the network once.
+     */
+    @VisibleForTesting
+    static boolean isBroadcastCheaper(LogicalPlan left, LogicalPlan right, int numLeftNodes) {
+        long leftRows = left.numExpectedRows();
+        long rightRows = right.numExpectedRows();
+        if (leftRows < 0 || rightRows < 0 || numLeftNodes < 1) {
+            return false;
+        }
+        double leftBytes = (double) leftRows * left.estimatedRowSize();
+        double rightBytes = (double) rightRows * right.estimatedRowSize();
+        return rightBytes * numLeftNodes < leftBytes + rightBytes;
+    }
+
+    /**
+     * Both sides distribute their rows to the join nodes by bucket index, so the order of the nodes must be stable.
+     */
+    private static List<String> unionOfNodeIds(ResultDescription left, ResultDescription right) {
+        TreeSet<String> nodeIds = new TreeSet<>(left.nodeIds());
+        nodeIds.addAll(right.nodeIds());
+        return new ArrayList<>(nodeIds);
+    }
+
     private Tuple<List<Symbol>, List<Symbol>> extractHashJoinSymbolsFromJoinSymbolsAndSplitPerSide(boolean switchedTables) {
         Map<AnalyzedRelation, List<Symbol>> hashJoinSymbols = HashJoinConditionSymbolsExtractor.extract(joinCondition);
 
@@ -217,7 +273,7 @@ class HashJoin extends TwoInputPlan {
 
     @Override
     protected LogicalPlan updateSources(LogicalPlan newLeftSource, LogicalPlan newRightSource) {
-        return new HashJoin(newLeftSource, newRightSource, joinCondition, concreteRelation, tableStats);
+        return new HashJoin(newLeftSource, newRightSource, joinType, joinCondition, concreteRelation, tableStats);
     }
 
     @Override
@@ -26,7 +26,9 @@ import com.carrotsearch.hppc.ObjectIntHashMap;
 import com.google.common.annotations.VisibleForTesting;
 import io.crate.sql.tree.QualifiedName;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -39,6 +41,12 @@ import java.util.Set;
  */
 final class JoinOrdering {
 
+    /**
+     * Up to this number of relations all join orders are evaluated, the number of connected subsets grows
+     * exponentially, so bigger joins are ordered greedily.
+     */
+    static final int MAX_RELATIONS_EXHAUSTIVE_SEARCH = 10;
+
     private JoinOrdering() {
     }
 
@@ -128,4 +136,218 @@ final class JoinOrdering {
         // Add the rest of the relations to the end of the collection
         sets.forEach(bestOrder::addAll);
     }
+
+    /**
+     * Returns the relations in the order which produces the smallest intermediate results if they are joined
+     * from left to right, or null if the costs cannot be estimated.
+     * <p>
+     * The cost of an order is the sum of the estimated number of rows of all intermediate joins.
+     * The number of rows of a join is estimated assuming key/foreign-key joins: each join condition
+     * between relations with {@code a} and {@code b} rows (unfiltered) reduces the cross product by
+     * {@code max(a, b)}. Relations are only added without a join condition (cross join) if none of the
+     * remaining relations is joined with the relations already in the tree.
+     * </p>
+     *
+     * @param relations        all relations, e.g. [t1, t2, t3]
+     * @param joinedRelations  the relations of each join condition, e.g. {{t1, t2}, {t2, t3}}
+     * @param numRows          the estimated number of rows of each relation after filtering, in the order of
+     *                         {@code relations}; -1 if unknown
+     * @param numDocs          the number of rows of each relation without filtering, in the order of
+     *                         {@code relations}; -1 if unknown
+     */
+    @Nullable
+    static List<QualifiedName> orderByCost(List<QualifiedName> relations,
+                                           Collection<? extends Set<QualifiedName>> joinedRelations,
+                                           long[] numRows,
+                                           long[] numDocs) {
+        int numRelations = relations.size();
+        if (numRelations >= Long.SIZE) {
+            return null;
+        }
+        for (int i = 0; i < numRelations; i++) {
+            if (numRows[i] < 0 || numDocs[i] < 0) {
+                return null;
+            }
+        }
+        List<Long> edges = new ArrayList<>(joinedRelations.size());
+        for (Set<QualifiedName> names : joinedRelations) {
+            long edge = 0L;
+            for (QualifiedName name : names) {
+                int idx = relations.indexOf(name);
+                if (idx < 0) {
+                    return null;
+                }
+                edge |= 1L << idx;
+            }
+            if (Long.bitCount(edge) > 1) {
+                edges.add(edge);
+            }
+        }
+        JoinGraph graph = new JoinGraph(numRows, numDocs, edges);
+        int[] order = numRelations <= MAX_RELATIONS_EXHAUSTIVE_SEARCH
+            ? graph.exhaustiveOrder()
+            : graph.greedyOrder();
+        List<QualifiedName> orderedRelations = new ArrayList<>(numRelations);
+        for (int idx : order) {
+            orderedRelations.add(relations.get(idx));
+        }
+        return orderedRelations;
+    }
+
+    /**
+     * Relations and join conditions as bit sets, bit {@code i} stands for the relation {@code i}.
+     */
+    private static final class JoinGraph {
+
+        private final long[] numRows;
+        private final double[] edgeDivisors;
+        private final long[] edges;
+        private final int numRelations;
+
+        JoinGraph(long[] numRows, long[] numDocs, List<Long> edges) {
+            this.numRows = numRows;
+            this.numRelations = numRows.length;
+            this.edges = new long[edges.size()];
+            this.edgeDivisors = new double[edges.size()];
+            for (int e = 0; e < this.edges.length; e++) {
+                long edge = edges.get(e);
+                this.edges[e] = edge;
+                long divisor = 1L;
+                for (int i = 0; i < numRelations; i++) {
+                    if ((edge & (1L << i)) != 0) {
+                        divisor = Math.max(divisor, numDocs[i]);
+                    }
+                }
+                edgeDivisors[e] = divisor;
+            }
+        }
+
+        double estimatedRows(long relations) {
+            double rows = 1.0;
+            for (int i = 0; i < numRelations; i++) {
+                if ((relations & (1L << i)) != 0) {
+                    rows *= numRows[i];
+                }
+            }
+            for (int e = 0; e < edges.length; e++) {
+                if ((edges[e] & relations) == edges[e]) {
+                    rows /= edgeDivisors[e];
+                }
+            }
+            return Math.max(1.0, rows);
+        }
+
+        boolean isConnected(long relations, int relation) {
+            long bit = 1L << relation;
+            long joined = relations | bit;
+            for (long edge : edges) {
+                if ((edge & bit) != 0 && (edge & joined) == edge) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean hasConnectedRelation(long relations) {
+            for (int i = 0; i < numRelations; i++) {
+                if ((relations & (1L << i)) == 0 && isConnected(relations, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Dynamic programming over the subsets of relations which can be built as left-deep tree,
+         * the cheapest tree of each subset is extended by one relation at a time.
+         */
+        int[] exhaustiveOrder() {
+            int numSubsets = 1 << numRelations;
+            double[] costs = new double[numSubsets];
+            int[] lastRelation = new int[numSubsets];
+            Arrays.fill(costs, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < numRelations; i++) {
+                costs[1 << i] = 0.0;
+                lastRelation[1 << i] = i;
+            }
+            for (int subset = 1; subset < numSubsets; subset++) {
+                double cost = costs[subset];
+                if (cost == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                boolean crossJoinsOnly = !hasConnectedRelation(subset);
+                for (int i = 0; i < numRelations; i++) {
+                    int bit = 1 << i;
+                    if ((subset & bit) != 0 || (!crossJoinsOnly && !isConnected(subset, i))) {
+                        continue;
+                    }
+                    int joined = subset | bit;
+                    double joinedCost = cost + estimatedRows(joined);
+                    if (joinedCost < costs[joined]) {
+                        costs[joined] = joinedCost;
+                        lastRelation[joined] = i;
+                    }
+                }
+            }
+            int[] order = new int[numRelations];
+            int subset = numSubsets - 1;
+            for (int pos = numRelations - 1; pos >= 0; pos--) {
+                order[pos] = lastRelation[subset];
+                subset &= ~(1 << order[pos]);
+            }
+            return order;
+        }
+
+        /**
+         * Starts with the join of two relations with the smallest result and adds the relation resulting in the
+         * smallest join one by one.
+         */
+        int[] greedyOrder() {
+            int[] order = new int[numRelations];
+            long joined = cheapestPair(order, false);
+            if (joined == 0L) {
+                joined = cheapestPair(order, true);
+            }
+            for (int pos = 2; pos < numRelations; pos++) {
+                boolean crossJoinsOnly = !hasConnectedRelation(joined);
+                double bestRows = Double.POSITIVE_INFINITY;
+                int next = -1;
+                for (int i = 0; i < numRelations; i++) {
+                    long bit = 1L << i;
+                    if ((joined & bit) != 0 || (!crossJoinsOnly && !isConnected(joined, i))) {
+                        continue;
+                    }
+                    double rows = estimatedRows(joined | bit);
+                    if (next == -1 || rows < bestRows) {
+                        bestRows = rows;
+                        next = i;
+                    }
+                }
+                order[pos] = next;
+                joined |= 1L << next;
+            }
+            return order;
+        }
+
+        private long cheapestPair(int[] order, boolean crossJoinsOnly) {
+            long cheapestPair = 0L;
+            double bestRows = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < numRelations; i++) {
+                for (int j = i + 1; j < numRelations; j++) {
+                    if (!crossJoinsOnly && !isConnected(1L << i, j)) {
+                        continue;
+                    }
+                    long pair = (1L << i) | (1L << j);
+                    double rows = estimatedRows(pair);
+                    if (cheapestPair == 0L || rows < bestRows) {
+                        bestRows = rows;
+                        order[0] = i;
+                        order[1] = j;
+                        cheapestPair = pair;
+                    }
+                }
+            }
+            return cheapestPair;
+        }
+    }
 }
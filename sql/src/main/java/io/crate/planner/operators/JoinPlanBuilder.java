@@ -24,7 +24,9 @@ package io.crate.planner.operators;
 
 import io.crate.action.sql.SessionContext;
 import io.crate.analyze.MultiSourceSelect;
+import io.crate.analyze.QueriedTable;
 import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.JoinPair;
 import io.crate.analyze.relations.QueriedRelation;
 import io.crate.analyze.relations.QuerySplitter;
@@ -33,6 +35,7 @@ import io.crate.expression.operator.AndOperator;
 import io.crate.expression.symbol.FieldsVisitor;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.Functions;
+import io.crate.metadata.RelationName;
 import io.crate.metadata.TransactionContext;
 import io.crate.planner.SubqueryPlanner;
 import io.crate.planner.TableStats;
@@ -42,12 +45,14 @@ import io.crate.sql.tree.QualifiedName;
 import org.elasticsearch.common.util.set.Sets;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -61,6 +66,16 @@ import java.util.stream.Stream;
  * We currently support the {@link NestedLoopJoin} and {@link HashJoin} operators (the hash join operator is
  * enabled by the {@link io.crate.metadata.settings.session.SessionSettingRegistry#HASH_JOIN_KEY} setting and its
  * application is mandated by {@link EquiJoinDetector}).
+ * <p>
+ * The sources of the joins are planned with only the columns required by the join conditions, the query and the
+ * parent operators (e.g. an ORDER BY). Any other columns of user tables are replaced by a {@code _fetchid}, which
+ * is carried through the join operators, so that the remaining columns are only loaded by the final
+ * {@link FetchOrEval} for the rows which survived the joins (and a LIMIT).
+ * <p>
+ * The joins are built as left-deep tree. If row count estimates are available for all relations of an inner join,
+ * the relations are ordered to minimize the intermediate results (see {@link JoinOrdering#orderByCost}).
+ * The first join of two tables may filter the bigger table by the join keys of the smaller one
+ * (see {@link RuntimeJoinFilter}).
  */
 public class JoinPlanBuilder implements LogicalPlan.Builder {
 
@@ -101,11 +116,14 @@ public class JoinPlanBuilder implements LogicalPlan.Builder {
 
         Collection<QualifiedName> orderedRelationNames;
         if (mss.sources().size() > 2) {
-            orderedRelationNames = JoinOrdering.getOrderedRelationNames(
-                mss.sources().keySet(),
-                joinPairs.keySet(),
-                queryParts.keySet()
-            );
+            orderedRelationNames = orderByCost(tableStats, joinPairs, queryParts);
+            if (orderedRelationNames == null) {
+                orderedRelationNames = JoinOrdering.getOrderedRelationNames(
+                    mss.sources().keySet(),
+                    joinPairs.keySet(),
+                    queryParts.keySet()
+                );
+            }
         } else {
             orderedRelationNames = mss.sources().keySet();
         }
@@ -150,6 +168,15 @@ public class JoinPlanBuilder implements LogicalPlan.Builder {
             .build(tableStats, usedFromLeft);
         LogicalPlan rhsPlan = LogicalPlanner.plan(rhs, FetchMode.NEVER_CLEAR, subqueryPlanner, false, functions, txnCtx)
             .build(tableStats, usedFromRight);
+        if (joinType == JoinType.INNER && isHashJoinPossible(joinType, joinCondition, txnCtx.sessionContext())) {
+            if (lhsPlan.numExpectedRows() > rhsPlan.numExpectedRows()) {
+                lhsPlan = RuntimeJoinFilter.tryApply(
+                    lhsPlan, lhs, rhsPlan, rhs, joinCondition, subqueryPlanner, functions, txnCtx, tableStats);
+            } else {
+                rhsPlan = RuntimeJoinFilter.tryApply(
+                    rhsPlan, rhs, lhsPlan, lhs, joinCondition, subqueryPlanner, functions, txnCtx, tableStats);
+            }
+        }
         Symbol query = removeParts(queryParts, lhsName, rhsName);
         LogicalPlan joinPlan = createJoinPlan(
             lhsPlan,
@@ -187,6 +214,45 @@ public class JoinPlanBuilder implements LogicalPlan.Builder {
         return joinPlan;
     }
 
+    /**
+     * Returns the relations ordered by the estimated cost of the joins or null if they cannot be re-ordered
+     * freely (outer joins) or if there are no row count estimates for some of the relations.
+     */
+    @Nullable
+    private List<QualifiedName> orderByCost(TableStats tableStats,
+                                            Map<Set<QualifiedName>, JoinPair> joinPairs,
+                                            Map<Set<QualifiedName>, Symbol> queryParts) {
+        Set<Set<QualifiedName>> joinedRelations = new LinkedHashSet<>();
+        for (Map.Entry<Set<QualifiedName>, JoinPair> entry : joinPairs.entrySet()) {
+            JoinPair joinPair = entry.getValue();
+            if (joinPair.joinType() != JoinType.INNER && joinPair.joinType() != JoinType.CROSS) {
+                return null;
+            }
+            if (joinPair.condition() != null) {
+                joinedRelations.add(entry.getKey());
+            }
+        }
+        for (Set<QualifiedName> relationNames : queryParts.keySet()) {
+            if (relationNames.size() > 1) {
+                joinedRelations.add(relationNames);
+            }
+        }
+        List<QualifiedName> relationNames = new ArrayList<>(mss.sources().keySet());
+        long[] numRows = new long[relationNames.size()];
+        long[] numDocs = new long[relationNames.size()];
+        for (int i = 0; i < relationNames.size(); i++) {
+            AnalyzedRelation source = mss.sources().get(relationNames.get(i));
+            if (!(source instanceof QueriedTable)) {
+                return null;
+            }
+            QueriedTable<?> queriedTable = (QueriedTable<?>) source;
+            RelationName relationName = queriedTable.tableRelation().tableInfo().ident();
+            numRows[i] = tableStats.estimatedNumRows(relationName, queriedTable.where().query());
+            numDocs[i] = tableStats.numDocs(relationName);
+        }
+        return JoinOrdering.orderByCost(relationNames, joinedRelations, numRows, numDocs);
+    }
+
     private static LogicalPlan createJoinPlan(LogicalPlan lhsPlan,
                                               LogicalPlan rhsPlan,
                                               JoinType joinType,
@@ -201,6 +267,7 @@ public class JoinPlanBuilder implements LogicalPlan.Builder {
             return new HashJoin(
                 lhsPlan,
                 rhsPlan,
+                joinType,
                 joinCondition,
                 rhs,
                 tableStats);
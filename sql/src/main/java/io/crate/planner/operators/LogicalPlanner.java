@@ -162,7 +162,7 @@ public class LogicalPlanner {
      * @param plan The original plan
      * @return The optimized plan or the original if optimizing is not possible
      */
-    private static LogicalPlan tryOptimize(LogicalPlan plan) {
+    static LogicalPlan tryOptimize(LogicalPlan plan) {
         LogicalPlan optimizedPlan = plan.tryOptimize(null, SymbolMapper.identity());
         if (optimizedPlan == null) {
             return plan;
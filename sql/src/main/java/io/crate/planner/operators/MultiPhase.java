@@ -51,6 +51,14 @@ public class MultiPhase extends OneInputPlan {
         return new MultiPhase(source, subQueries);
     }
 
+    /**
+     * Creates a plan which executes the given {@code subQueries} before {@code source}.
+     * The map is taken over by the plan.
+     */
+    static LogicalPlan create(LogicalPlan source, Map<LogicalPlan, SelectSymbol> subQueries) {
+        return new MultiPhase(source, subQueries);
+    }
+
     private MultiPhase(LogicalPlan source, Map<LogicalPlan, SelectSymbol> subQueries) {
         super(source, subQueries);
         subQueries.putAll(source.dependencies());
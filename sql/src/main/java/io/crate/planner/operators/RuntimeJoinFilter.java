@@ -0,0 +1,186 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.operators;
+
+import io.crate.analyze.QueriedTable;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.QueriedRelation;
+import io.crate.expression.operator.any.AnyOperators;
+import io.crate.expression.symbol.Field;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.Functions;
+import io.crate.metadata.Reference;
+import io.crate.metadata.TransactionContext;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.planner.SubqueryPlanner;
+import io.crate.planner.TableStats;
+import io.crate.planner.consumer.FetchMode;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filters the probe side of an inner hash join by the join keys of the build side before the rows leave the shards.
+ * <p>
+ * If the build side is expected to be small and the probe side to be much larger, the distinct join keys of the
+ * build side are collected first (as dependency of the plan, like a sub-query) and the probe side is collected with an
+ * additional {@code probeKey = ANY(buildKeys)} condition which is executed as Lucene terms query.
+ * Rows which can't have a join partner are not read and transferred then.
+ * </p>
+ */
+final class RuntimeJoinFilter {
+
+    /**
+     * The keys are sent to all shards of the probe side as part of the query, so their number must be bounded.
+     * The estimate of the build side may be off, so the keys are also limited to one more than this at runtime
+     * and the filter is skipped if there are more.
+     */
+    static final long MAX_BUILD_ROWS = 10_000L;
+
+    /**
+     * The build side is collected twice with the filter, so the probe side must be a lot bigger to pay off
+     */
+    static final long MIN_PROBE_TO_BUILD_RATIO = 10L;
+
+    private RuntimeJoinFilter() {
+    }
+
+    /**
+     * Returns the plan of the probe side with the runtime filter applied,
+     * or {@code probePlan} itself if the join doesn't qualify.
+     */
+    static LogicalPlan tryApply(LogicalPlan probePlan,
+                                QueriedRelation probe,
+                                LogicalPlan buildPlan,
+                                QueriedRelation build,
+                                Symbol joinCondition,
+                                SubqueryPlanner subqueryPlanner,
+                                Functions functions,
+                                TransactionContext txnCtx,
+                                TableStats tableStats) {
+        long buildRows = buildPlan.numExpectedRows();
+        long probeRows = probePlan.numExpectedRows();
+        if (buildRows < 0 || buildRows > MAX_BUILD_ROWS || probeRows <= buildRows * MIN_PROBE_TO_BUILD_RATIO) {
+            return probePlan;
+        }
+        if (!isDocTable(probe) || !isDocTable(build)) {
+            return probePlan;
+        }
+        Map<AnalyzedRelation, List<Symbol>> keysByRelation = HashJoinConditionSymbolsExtractor.extract(joinCondition);
+        List<Symbol> probeKeys = keysByRelation.get(probe);
+        List<Symbol> buildKeys = keysByRelation.get(build);
+        if (probeKeys == null || buildKeys == null) {
+            return probePlan;
+        }
+        for (int i = 0; i < probeKeys.size() && i < buildKeys.size(); i++) {
+            Reference probeKey = toReference(probeKeys.get(i), probe);
+            Reference buildKey = toReference(buildKeys.get(i), build);
+            if (probeKey == null || buildKey == null) {
+                continue;
+            }
+            DataType keyType = probeKey.valueType();
+            if (!DataTypes.isPrimitive(keyType) || !keyType.equals(buildKey.valueType())) {
+                continue;
+            }
+            LogicalPlan keysPlan = planDistinctKeys(build, buildKey, subqueryPlanner, functions, txnCtx, tableStats);
+            ArrayType keysType = new ArrayType(keyType);
+            SelectSymbol keys = new BuildKeys(build, keysType);
+            Function keysFilter = new Function(
+                new FunctionInfo(new FunctionIdent(AnyOperators.Names.EQ, Arrays.asList(keyType, keysType)), DataTypes.BOOLEAN),
+                Arrays.asList(probeKey, keys)
+            );
+            Map<LogicalPlan, SelectSymbol> dependencies = new HashMap<>();
+            dependencies.put(keysPlan, keys);
+            return MultiPhase.create(LogicalPlanner.tryOptimize(Filter.create(probePlan, keysFilter)), dependencies);
+        }
+        return probePlan;
+    }
+
+    private static LogicalPlan planDistinctKeys(QueriedRelation build,
+                                                Reference buildKey,
+                                                SubqueryPlanner subqueryPlanner,
+                                                Functions functions,
+                                                TransactionContext txnCtx,
+                                                TableStats tableStats) {
+        LogicalPlan.Builder keysBuilder = Limit.create(
+            GroupHashAggregate.create(
+                LogicalPlanner.plan(build, FetchMode.NEVER_CLEAR, subqueryPlanner, false, functions, txnCtx),
+                Collections.singletonList(buildKey),
+                Collections.emptyList()
+            ),
+            Literal.of(MAX_BUILD_ROWS + 1),
+            null
+        );
+        LogicalPlan keysPlan = keysBuilder.build(tableStats, Collections.singleton(buildKey));
+        return new RootRelationBoundary(LogicalPlanner.tryOptimize(keysPlan));
+    }
+
+    /**
+     * @return true if {@code function} is the filter of a probe side and the build side returned more than
+     *         {@link #MAX_BUILD_ROWS} keys. The probe side must then be collected without the filter.
+     */
+    static boolean exceedsMaxBuildRows(Function function, SubQueryResults subQueryResults) {
+        List<Symbol> args = function.arguments();
+        if (args.size() != 2 || !(args.get(1) instanceof BuildKeys)) {
+            return false;
+        }
+        Object[] keys = (Object[]) subQueryResults.getSafe((SelectSymbol) args.get(1));
+        return keys != null && keys.length > MAX_BUILD_ROWS;
+    }
+
+    /**
+     * The distinct join keys of the build side, limited to {@link #MAX_BUILD_ROWS} + 1 values.
+     */
+    static final class BuildKeys extends SelectSymbol {
+
+        BuildKeys(QueriedRelation build, ArrayType keysType) {
+            super(build, keysType, ResultType.SINGLE_COLUMN_MULTIPLE_VALUES);
+        }
+    }
+
+    private static boolean isDocTable(QueriedRelation relation) {
+        return relation instanceof QueriedTable
+               && ((QueriedTable<?>) relation).tableRelation().tableInfo() instanceof DocTableInfo;
+    }
+
+    @Nullable
+    private static Reference toReference(Symbol key, QueriedRelation relation) {
+        if (!(key instanceof Field)) {
+            return null;
+        }
+        Symbol output = relation.outputs().get(((Field) key).index());
+        return output instanceof Reference ? (Reference) output : null;
+    }
+}
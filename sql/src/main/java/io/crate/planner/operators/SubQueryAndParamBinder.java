@@ -23,6 +23,7 @@
 package io.crate.planner.operators;
 
 import io.crate.data.Row;
+import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.FunctionCopyVisitor;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.ParameterSymbol;
@@ -58,6 +59,14 @@ public class SubQueryAndParamBinder extends FunctionCopyVisitor<Void>
         return convert(parameterSymbol, params);
     }
 
+    @Override
+    public Symbol visitFunction(Function function, Void context) {
+        if (RuntimeJoinFilter.exceedsMaxBuildRows(function, subQueryResults)) {
+            return Literal.BOOLEAN_TRUE;
+        }
+        return super.visitFunction(function, context);
+    }
+
     @Override
     public Symbol visitSelectSymbol(SelectSymbol selectSymbol, Void context) {
         Object value = subQueryResults.getSafe(selectSymbol);
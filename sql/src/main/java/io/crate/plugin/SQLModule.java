@@ -36,6 +36,7 @@ import io.crate.planner.TableStats;
 import io.crate.planner.TableStatsService;
 import io.crate.protocols.postgres.PostgresNetty;
 import io.crate.protocols.ssl.SslContextProvider;
+import io.crate.rest.action.RestMetricsAction;
 import io.crate.rest.action.RestSQLAction;
 import org.elasticsearch.common.inject.AbstractModule;
 
@@ -57,6 +58,7 @@ public class SQLModule extends AbstractModule {
         bind(TransportSchemaUpdateAction.class).asEagerSingleton();
         bind(SslContextProvider.class).asEagerSingleton();
         bind(RestSQLAction.class).asEagerSingleton();
+        bind(RestMetricsAction.class).asEagerSingleton();
         bind(TransportCreateIngestRuleAction.class).asEagerSingleton();
         bind(TransportDropIngestRuleAction.class).asEagerSingleton();
         bind(IngestionService.class).asEagerSingleton();
@@ -24,9 +24,11 @@ package io.crate.plugin;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import io.crate.action.sql.SQLOperations;
+import io.crate.action.sql.StatementCache;
 import io.crate.analyze.repositories.RepositorySettingsModule;
 import io.crate.auth.AuthSettings;
 import io.crate.breaker.CircuitBreakerModule;
+import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.cluster.gracefulstop.DecommissionAllocationDecider;
 import io.crate.cluster.gracefulstop.DecommissioningService;
 import io.crate.execution.TransportExecutorModule;
@@ -60,6 +62,7 @@ import io.crate.metadata.upgrade.IndexTemplateUpgrader;
 import io.crate.metadata.upgrade.MetaDataIndexUpgrader;
 import io.crate.metadata.view.ViewsMetaData;
 import io.crate.monitor.MonitorModule;
+import io.crate.planner.ColumnStatsMetaData;
 import io.crate.protocols.postgres.PostgresNetty;
 import io.crate.protocols.ssl.SslConfigSettings;
 import io.crate.settings.CrateSetting;
@@ -138,11 +141,15 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
         List<Setting<?>> settings = new ArrayList<>();
         settings.add(AnalyzerSettings.CUSTOM_ANALYSIS_SETTING_GROUP);
         settings.add(SQLOperations.NODE_READ_ONLY_SETTING);
+        settings.add(StatementCache.NODE_STATEMENT_CACHE_SIZE_SETTING);
 
         // Postgres settings are node settings
         settings.add(PostgresNetty.PSQL_ENABLED_SETTING.setting());
         settings.add(PostgresNetty.PSQL_PORT_SETTING.setting());
 
+        // Spilling of query operations is configured per node
+        settings.add(CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD_SETTING.setting());
+
         // Authentication settings are node settings
         settings.add(AuthSettings.AUTH_HOST_BASED_ENABLED_SETTING.setting());
         settings.add(AuthSettings.AUTH_HOST_BASED_CONFIG_SETTING.setting());
@@ -254,6 +261,11 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
             ViewsMetaData.TYPE,
             ViewsMetaData::new
         ));
+        entries.add(new NamedWriteableRegistry.Entry(
+            MetaData.Custom.class,
+            ColumnStatsMetaData.TYPE,
+            ColumnStatsMetaData::new
+        ));
         entries.add(new NamedWriteableRegistry.Entry(
             NamedDiff.class,
             UserDefinedFunctionsMetaData.TYPE,
@@ -269,6 +281,11 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
             ViewsMetaData.TYPE,
             in -> ViewsMetaData.readDiffFrom(MetaData.Custom.class, ViewsMetaData.TYPE, in)
         ));
+        entries.add(new NamedWriteableRegistry.Entry(
+            NamedDiff.class,
+            ColumnStatsMetaData.TYPE,
+            in -> ColumnStatsMetaData.readDiffFrom(MetaData.Custom.class, ColumnStatsMetaData.TYPE, in)
+        ));
         if (userExtension != null) {
             entries.addAll(userExtension.getNamedWriteables());
         }
@@ -293,6 +310,11 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
             new ParseField(ViewsMetaData.TYPE),
             ViewsMetaData::fromXContent
         ));
+        entries.add(new NamedXContentRegistry.Entry(
+            MetaData.Custom.class,
+            new ParseField(ColumnStatsMetaData.TYPE),
+            ColumnStatsMetaData::fromXContent
+        ));
         if (userExtension != null) {
             entries.addAll(userExtension.getNamedXContent());
         }
@@ -287,11 +287,21 @@ public class Messages {
      * The value of the column, in the format indicated by the associated format code. n is the above length.
      */
     static void sendDataRow(Channel channel, Row row, List<? extends DataType> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
+        ByteBuf buffer = channel.alloc().buffer();
+        writeDataRow(buffer, row, columnTypes, formatCodes);
+        channel.write(buffer);
+    }
+
+    /**
+     * Append a DataRow message to {@code buffer}, which may already contain other messages.
+     * See {@link #sendDataRow(Channel, Row, List, FormatCodes.FormatCode[])}
+     */
+    static void writeDataRow(ByteBuf buffer, Row row, List<? extends DataType> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
         int length = 4 + 2;
         assert columnTypes.size() == row.numColumns()
             : "Number of columns in the row must match number of columnTypes. Row: " + row + " types: " + columnTypes;
 
-        ByteBuf buffer = channel.alloc().buffer();
+        int startIndex = buffer.writerIndex();
         buffer.writeByte('D');
         buffer.writeInt(0); // will be set at the end
         buffer.writeShort(row.numColumns());
@@ -319,8 +329,7 @@ public class Messages {
             }
         }
 
-        buffer.setInt(1, length);
-        channel.write(buffer);
+        buffer.setInt(startIndex + 1, length);
     }
 
     static void writeCString(ByteBuf buffer, byte[] valBytes) {
@@ -27,14 +27,24 @@ import io.crate.data.Row;
 import io.crate.exceptions.SQLExceptions;
 import io.crate.auth.user.ExceptionAuthorizedValidator;
 import io.crate.types.DataType;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
 
+/**
+ * Sends the rows as DataRow messages.
+ *
+ * Rows are encoded into a shared buffer which is written to the channel once it holds {@link #MAX_PENDING_BYTES}
+ * or at the end of a batch, instead of writing each row on its own.
+ */
 class ResultSetReceiver extends BaseResultReceiver {
 
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    static final int MAX_PENDING_BYTES = 64 * 1024;
+
     private final String query;
     private final Channel channel;
     private final ExceptionAuthorizedValidator exceptionAuthorizedValidator;
@@ -45,6 +55,14 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     private long rowCount = 0;
 
+    @Nullable
+    private ByteBuf pendingRows = null;
+
+    /**
+     * Set once a buffer got full; following buffers are allocated with the full size to avoid growing them
+     */
+    private boolean largeResult = false;
+
     ResultSetReceiver(String query,
                       Channel channel,
                       ExceptionAuthorizedValidator exceptionAuthorizedValidator,
@@ -59,12 +77,34 @@ class ResultSetReceiver extends BaseResultReceiver {
 
     @Override
     public void setNextRow(Row row) {
+        if (pendingRows == null) {
+            pendingRows = channel.alloc().buffer(largeResult ? MAX_PENDING_BYTES + INITIAL_BUFFER_SIZE : INITIAL_BUFFER_SIZE);
+        }
+        int rowStart = pendingRows.writerIndex();
+        try {
+            Messages.writeDataRow(pendingRows, row, columnTypes, formatCodes);
+        } catch (Throwable t) {
+            // drop the partially written DataRow, the pending rows are flushed before the ErrorResponse
+            pendingRows.writerIndex(rowStart);
+            throw t;
+        }
         rowCount++;
-        Messages.sendDataRow(channel, row, columnTypes, formatCodes);
+        if (pendingRows.readableBytes() >= MAX_PENDING_BYTES) {
+            largeResult = true;
+            writePendingRows();
+        }
+    }
+
+    private void writePendingRows() {
+        if (pendingRows != null) {
+            channel.write(pendingRows);
+            pendingRows = null;
+        }
     }
 
     @Override
     public void batchFinished() {
+        writePendingRows();
         Messages.sendPortalSuspended(channel);
         Messages.sendReadyForQuery(channel);
     }
@@ -72,14 +112,20 @@ class ResultSetReceiver extends BaseResultReceiver {
     @Override
     public void allFinished(boolean interrupted) {
         if (interrupted) {
+            if (pendingRows != null) {
+                pendingRows.release();
+                pendingRows = null;
+            }
             super.allFinished(true);
         } else {
+            writePendingRows();
             Messages.sendCommandComplete(channel, query, rowCount).addListener(f -> super.allFinished(false));
         }
     }
 
     @Override
     public void fail(@Nonnull Throwable throwable) {
+        writePendingRows();
         final Throwable t =  SQLExceptions.createSQLActionException(throwable, exceptionAuthorizedValidator);
         Messages.sendErrorResponse(channel, t).addListener(f -> super.fail(t));
     }
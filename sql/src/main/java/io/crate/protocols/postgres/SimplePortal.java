@@ -255,6 +255,19 @@ public class SimplePortal extends AbstractPortal {
         );
     }
 
+    /**
+     * Continue sending rows to the result receiver of a portal which has been suspended after {@code maxRows} rows.
+     * In contrast to {@link #execute(ResultReceiver, int)} followed by {@link #sync(Planner, JobsLogs)}, the
+     * statement isn't planned again.
+     */
+    public void resume() {
+        if (consumer == null || !consumer.suspended()) {
+            throw new IllegalStateException("Portal " + name + " is not suspended");
+        }
+        LOGGER.trace("Resuming {}", consumer);
+        consumer.resume();
+    }
+
     @Override
     public void close() {
         if (consumer != null) {
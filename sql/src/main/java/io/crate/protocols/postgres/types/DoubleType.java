@@ -47,6 +47,11 @@ class DoubleType extends PGType {
         return INT32_BYTE_SIZE + TYPE_LEN;
     }
 
+    @Override
+    public int writeAsText(ByteBuf buffer, @Nonnull Object value) {
+        return writeAsciiText(buffer, Double.toString(((double) value)));
+    }
+
     @Override
     protected byte[] encodeAsUTF8Text(@Nonnull Object value) {
         return Double.toString(((double) value)).getBytes(StandardCharsets.UTF_8);
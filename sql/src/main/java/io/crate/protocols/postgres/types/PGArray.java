@@ -22,10 +22,10 @@
 
 package io.crate.protocols.postgres.types;
 
-import com.google.common.primitives.Bytes;
 import io.netty.buffer.ByteBuf;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -123,53 +123,47 @@ class PGArray extends PGType {
 
     @Override
     byte[] encodeAsUTF8Text(@Nonnull Object array) {
+        ByteArrayOutputStream encodedValues = new ByteArrayOutputStream();
+        encodeAsUTF8Text((Object[]) array, encodedValues);
+        return encodedValues.toByteArray();
+    }
+
+    private void encodeAsUTF8Text(Object[] values, ByteArrayOutputStream encodedValues) {
         boolean isJson = JsonType.OID == innerType.oid();
-        Object[] values = (Object[]) array;
-        List<Byte> encodedValues = new ArrayList<>();
-        encodedValues.add((byte) '{');
+        encodedValues.write('{');
         for (int i = 0; i < values.length; i++) {
             Object o = values[i];
             if (o instanceof Object[]) { // Nested Array -> recursive call
-                byte[] bytes = encodeAsUTF8Text(o);
-                for (byte b : bytes) {
-                    encodedValues.add(b);
-                }
+                encodeAsUTF8Text((Object[]) o, encodedValues);
                 if (i == 0) {
-                    encodedValues.add((byte) ',');
+                    encodedValues.write(',');
                 }
             } else {
                 if (i > 0) {
-                    encodedValues.add((byte) ',');
+                    encodedValues.write(',');
                 }
-                byte[] bytes;
                 if (o == null) {
-                    bytes = NULL_BYTES;
-                    for (byte aByte : bytes) {
-                        encodedValues.add(aByte);
-                    }
+                    encodedValues.write(NULL_BYTES, 0, NULL_BYTES.length);
                 } else {
-                    bytes = innerType.encodeAsUTF8Text(o);
+                    byte[] bytes = innerType.encodeAsUTF8Text(o);
 
-                    encodedValues.add((byte) '"');
+                    encodedValues.write('"');
                     if (isJson) {
                         for (byte aByte : bytes) {
                             // Escape double quotes with backslash for json
                             if ((char) aByte == '"') {
-                                encodedValues.add((byte) '\\');
+                                encodedValues.write('\\');
                             }
-                            encodedValues.add(aByte);
+                            encodedValues.write(aByte);
                         }
                     } else {
-                        for (byte aByte : bytes) {
-                            encodedValues.add(aByte);
-                        }
+                        encodedValues.write(bytes, 0, bytes.length);
                     }
-                    encodedValues.add((byte) '"');
+                    encodedValues.write('"');
                 }
             }
         }
-        encodedValues.add((byte) '}');
-        return Bytes.toArray(encodedValues);
+        encodedValues.write('}');
     }
 
     @Override
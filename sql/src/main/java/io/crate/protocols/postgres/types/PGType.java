@@ -87,6 +87,46 @@ public abstract class PGType {
         return INT32_BYTE_SIZE + bytes.length;
     }
 
+    /**
+     * Write a text value which only consists of ASCII characters (e.g. a number) without an intermediate byte array.
+     *
+     * @return the number of bytes written. (4 (int32)  + N)
+     */
+    static int writeAsciiText(ByteBuf buffer, String value) {
+        buffer.writeInt(value.length());
+        buffer.writeCharSequence(value, StandardCharsets.US_ASCII);
+        return INT32_BYTE_SIZE + value.length();
+    }
+
+    /**
+     * Write an integral number as text; the digits are written straight into the buffer without an intermediate String.
+     *
+     * @return the number of bytes written. (4 (int32)  + N)
+     */
+    static int writeIntegralText(ByteBuf buffer, long value) {
+        // digits are computed on the negative value, so that Long.MIN_VALUE doesn't overflow
+        boolean negative = value < 0;
+        long remaining = negative ? value : -value;
+        int length = negative ? 2 : 1;
+        for (long v = remaining / 10; v != 0; v /= 10) {
+            length++;
+        }
+        buffer.writeInt(length);
+        buffer.ensureWritable(length);
+        int start = buffer.writerIndex();
+        int pos = start + length;
+        do {
+            long quotient = remaining / 10;
+            buffer.setByte(--pos, (int) ('0' + (quotient * 10 - remaining)));
+            remaining = quotient;
+        } while (remaining != 0);
+        if (negative) {
+            buffer.setByte(start, '-');
+        }
+        buffer.writerIndex(start + length);
+        return INT32_BYTE_SIZE + length;
+    }
+
     public Object readTextValue(ByteBuf buffer, int valueLength) {
         byte[] bytes = new byte[valueLength];
         buffer.readBytes(bytes);
@@ -47,6 +47,11 @@ class RealType extends PGType {
         return INT32_BYTE_SIZE + TYPE_LEN;
     }
 
+    @Override
+    public int writeAsText(ByteBuf buffer, @Nonnull Object value) {
+        return writeAsciiText(buffer, Float.toString(((float) value)));
+    }
+
     @Override
     protected byte[] encodeAsUTF8Text(@Nonnull Object value) {
         return Float.toString(((float) value)).getBytes(StandardCharsets.UTF_8);
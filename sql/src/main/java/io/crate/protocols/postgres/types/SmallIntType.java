@@ -47,6 +47,11 @@ class SmallIntType extends PGType {
         return INT32_BYTE_SIZE + TYPE_LEN;
     }
 
+    @Override
+    public int writeAsText(ByteBuf buffer, @Nonnull Object value) {
+        return writeIntegralText(buffer, (short) value);
+    }
+
     @Override
     protected byte[] encodeAsUTF8Text(@Nonnull Object value) {
         return Short.toString(((short) value)).getBytes(StandardCharsets.UTF_8);
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+
+/**
+ * Outbound handler which allows writing a response in several chunks while still respecting the order of
+ * pipelined HTTP requests.
+ *
+ * The HTTP pipelining handler only orders full responses. A {@link ChunkedResponse} therefore poses as an empty
+ * full response; once the pipelining handler releases it, this handler writes the response head and the first
+ * chunk instead. All other responses written while the chunked response is in progress are held back until the
+ * {@link LastHttpContent} has been written.
+ *
+ * This handler must be placed directly in front of the pipelining handler.
+ */
+class ChunkedResponseHandler extends ChannelOutboundHandlerAdapter {
+
+    private final ArrayDeque<PendingWrite> pendingWrites = new ArrayDeque<>();
+    private ChunkedResponse activeResponse;
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (activeResponse != null) {
+            pendingWrites.add(new PendingWrite(msg, promise));
+        } else if (msg instanceof ChunkedResponse) {
+            activeResponse = (ChunkedResponse) msg;
+            activeResponse.start(ctx, this, promise);
+        } else {
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        ClosedChannelException closedChannelException = new ClosedChannelException();
+        PendingWrite pendingWrite;
+        while ((pendingWrite = pendingWrites.poll()) != null) {
+            if (pendingWrite.msg instanceof ChunkedResponse) {
+                ReferenceCountUtil.release(((ChunkedResponse) pendingWrite.msg).firstContent);
+            }
+            ReferenceCountUtil.release(pendingWrite.msg);
+            pendingWrite.promise.tryFailure(closedChannelException);
+        }
+    }
+
+    private void finish(ChannelHandlerContext ctx) {
+        activeResponse = null;
+        PendingWrite pendingWrite;
+        while (activeResponse == null && (pendingWrite = pendingWrites.poll()) != null) {
+            write(ctx, pendingWrite.msg, pendingWrite.promise);
+        }
+        ctx.flush();
+    }
+
+    private static final class PendingWrite {
+
+        private final Object msg;
+        private final ChannelPromise promise;
+
+        private PendingWrite(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
+
+    /**
+     * A response which is written in chunks. The first chunk must be provided on creation, the following chunks
+     * are written using {@link #write(HttpContent)} once the write of the previous chunk has completed.
+     * The last chunk must be a {@link LastHttpContent}.
+     */
+    static final class ChunkedResponse extends DefaultFullHttpResponse {
+
+        private final HttpResponse head;
+        private final HttpContent firstContent;
+        private ChannelHandlerContext ctx;
+        private ChunkedResponseHandler handler;
+
+        ChunkedResponse(HttpResponse head, HttpContent firstContent) {
+            super(head.protocolVersion(), head.status(), Unpooled.EMPTY_BUFFER);
+            this.head = head;
+            this.firstContent = firstContent;
+        }
+
+        private void start(ChannelHandlerContext ctx, ChunkedResponseHandler handler, ChannelPromise promise) {
+            this.ctx = ctx;
+            this.handler = handler;
+            ctx.write(head);
+            writeContent(firstContent, promise);
+        }
+
+        ChannelFuture write(HttpContent content) {
+            assert ctx != null : "write must only be called after the first chunk has been written";
+            ChannelPromise promise = ctx.newPromise();
+            ctx.executor().execute(() -> writeContent(content, promise));
+            return promise;
+        }
+
+        private void writeContent(HttpContent content, ChannelPromise promise) {
+            ctx.writeAndFlush(content, promise);
+            if (content instanceof LastHttpContent) {
+                handler.finish(ctx);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.elasticsearch.http.netty4.cors.Netty4CorsConfig;
+import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
+import org.elasticsearch.http.netty4.pipelining.HttpPipelinedRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Serves the metrics of the node in the Prometheus text format on {@code /_metrics}.
+ * All other requests are passed on to the next handler.
+ */
+public class MetricsHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedRequest> {
+
+    static final String PATH = "/_metrics";
+
+    private final Supplier<String> metrics;
+    private final Netty4CorsConfig corsConfig;
+
+    MetricsHttpHandler(Supplier<String> metrics, Netty4CorsConfig corsConfig) {
+        super(false);
+        this.metrics = metrics;
+        this.corsConfig = corsConfig;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, HttpPipelinedRequest msg) {
+        FullHttpRequest request = (FullHttpRequest) msg.last();
+        if (!PATH.equals(new QueryStringDecoder(request.uri()).path())) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        try {
+            final HttpVersion httpVersion = request.protocolVersion();
+            final DefaultFullHttpResponse resp;
+            if (request.method().equals(HttpMethod.GET)) {
+                ByteBuf content = Unpooled.copiedBuffer(metrics.get(), StandardCharsets.UTF_8);
+                resp = new DefaultFullHttpResponse(httpVersion, HttpResponseStatus.OK, content);
+                resp.headers().add(HttpHeaderNames.CONTENT_TYPE, PrometheusTextWriter.CONTENT_TYPE);
+            } else {
+                resp = new DefaultFullHttpResponse(httpVersion, HttpResponseStatus.METHOD_NOT_ALLOWED);
+                resp.headers().add(HttpHeaderNames.ALLOW, HttpMethod.GET.name());
+            }
+            Netty4CorsHandler.setCorsResponseHeaders(request, resp, corsConfig);
+            resp.headers().add(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(resp.content().readableBytes()));
+            boolean keepAlive = HttpUtil.isKeepAlive(request);
+            if (httpVersion.equals(HttpVersion.HTTP_1_0) && keepAlive) {
+                resp.headers().add(HttpHeaderNames.CONNECTION, "Keep-Alive");
+            }
+            ChannelPromise promise = ctx.newPromise();
+            if (!keepAlive) {
+                promise.addListener(ChannelFutureListener.CLOSE);
+            }
+            ctx.writeAndFlush(msg.createHttpResponse(resp, promise), promise);
+        } finally {
+            msg.release();
+        }
+    }
+}
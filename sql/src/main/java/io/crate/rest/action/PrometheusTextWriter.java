@@ -0,0 +1,109 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+/**
+ * Writes metrics in the text exposition format of Prometheus.
+ *
+ * Each metric family is started with {@link #family(String, String, String)} followed by its samples.
+ * Label names and values are passed as alternating pairs.
+ */
+final class PrometheusTextWriter {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    static final String COUNTER = "counter";
+    static final String GAUGE = "gauge";
+    static final String SUMMARY = "summary";
+
+    private final StringBuilder sb = new StringBuilder(4096);
+
+    PrometheusTextWriter family(String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ');
+        escape(help, false);
+        sb.append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    PrometheusTextWriter sample(String name, long value, String... labels) {
+        appendNameAndLabels(name, labels);
+        sb.append(value).append('\n');
+        return this;
+    }
+
+    PrometheusTextWriter sample(String name, double value, String... labels) {
+        appendNameAndLabels(name, labels);
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            sb.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            sb.append(Double.toString(value));
+        }
+        sb.append('\n');
+        return this;
+    }
+
+    private void appendNameAndLabels(String name, String... labels) {
+        assert labels.length % 2 == 0 : "labels must be pairs of name and value";
+        sb.append(name);
+        if (labels.length > 0) {
+            sb.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(labels[i]).append("=\"");
+                escape(labels[i + 1], true);
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+    }
+
+    private void escape(String value, boolean escapeQuotes) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '"':
+                    sb.append(escapeQuotes ? "\\\"" : "\"");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.SQLOperations;
+import io.crate.breaker.CrateCircuitBreakerService;
+import io.crate.execution.engine.collect.stats.ExecutionMetrics;
+import io.crate.execution.engine.collect.stats.JobsLogs;
+import io.crate.execution.jobs.NodeJobsCounter;
+import io.crate.planner.Plan;
+import io.crate.plugin.PipelineRegistry;
+import io.crate.protocols.postgres.PostgresNetty;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.indices.breaker.CircuitBreakerStats;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.threadpool.ThreadPoolStats;
+import org.elasticsearch.transport.TransportService;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+import java.util.Map;
+
+import static io.crate.rest.action.PrometheusTextWriter.COUNTER;
+import static io.crate.rest.action.PrometheusTextWriter.GAUGE;
+import static io.crate.rest.action.PrometheusTextWriter.SUMMARY;
+
+/**
+ * Exposes the query, execution, thread pool, circuit breaker and connection metrics of the node
+ * in the Prometheus text format on {@code /_metrics}, see {@link MetricsHttpHandler}.
+ *
+ * The metrics are read from counters which are updated without locks, so a scrape doesn't block any query.
+ */
+@Singleton
+public class RestMetricsAction {
+
+    private final JobsLogs jobsLogs;
+    private final SQLOperations sqlOperations;
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final CrateCircuitBreakerService breakerService;
+    private final NodeJobsCounter nodeJobsCounter;
+    private final PostgresNetty postgresNetty;
+    private final TransportService transportService;
+    @Nullable
+    private final HttpServerTransport httpServerTransport;
+
+    @SuppressWarnings("WeakerAccess")
+    @Inject
+    public RestMetricsAction(PipelineRegistry pipelineRegistry,
+                             JobsLogs jobsLogs,
+                             SQLOperations sqlOperations,
+                             ClusterService clusterService,
+                             ThreadPool threadPool,
+                             CrateCircuitBreakerService breakerService,
+                             NodeJobsCounter nodeJobsCounter,
+                             PostgresNetty postgresNetty,
+                             TransportService transportService,
+                             @Nullable HttpServerTransport httpServerTransport) {
+        this.jobsLogs = jobsLogs;
+        this.sqlOperations = sqlOperations;
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.breakerService = breakerService;
+        this.nodeJobsCounter = nodeJobsCounter;
+        this.postgresNetty = postgresNetty;
+        this.transportService = transportService;
+        this.httpServerTransport = httpServerTransport;
+        pipelineRegistry.addBefore(new PipelineRegistry.ChannelPipelineItem(
+            "handler",
+            "metrics_handler",
+            corsConfig -> new MetricsHttpHandler(this::metrics, corsConfig)
+        ));
+    }
+
+    String metrics() {
+        PrometheusTextWriter writer = new PrometheusTextWriter();
+        writeNodeStatus(writer);
+        writeExecutionMetrics(writer, jobsLogs.executionMetrics(), nodeJobsCounter.throttledCount());
+        writeThreadPools(writer, threadPool.stats());
+        writeCircuitBreakers(writer, breakerService.stats().getAllStats());
+        writeConnections(writer);
+        return writer.toString();
+    }
+
+    private void writeNodeStatus(PrometheusTextWriter writer) {
+        writer.family("crate_node_ready", GAUGE, "1 if the node accepts SQL statements, 0 otherwise")
+            .sample("crate_node_ready", sqlOperations.isEnabled() ? 1L : 0L);
+        writer.family("crate_cluster_state_version", GAUGE, "Version of the cluster state known to the node")
+            .sample("crate_cluster_state_version", clusterService.state().version());
+        writer.family("crate_queries_active", GAUGE, "Number of statements which are currently executed")
+            .sample("crate_queries_active", jobsLogs.activeRequests());
+    }
+
+    static void writeExecutionMetrics(PrometheusTextWriter writer, ExecutionMetrics metrics, long throttledCount) {
+        writer.family("crate_query_duration_milliseconds", SUMMARY, "Duration of executed statements by statement type");
+        for (Map.Entry<Plan.StatementType, MeanMetric> entry : metrics.statementDurations().entrySet()) {
+            if (entry.getKey() == Plan.StatementType.ALL) {
+                continue;
+            }
+            String type = entry.getKey().name().toLowerCase(Locale.ENGLISH);
+            writer.sample("crate_query_duration_milliseconds_count", entry.getValue().count(), "type", type);
+            writer.sample("crate_query_duration_milliseconds_sum", entry.getValue().sum(), "type", type);
+        }
+        writer.family("crate_query_failures_total", COUNTER, "Number of failed statements by statement type");
+        for (Map.Entry<Plan.StatementType, CounterMetric> entry : metrics.statementFailures().entrySet()) {
+            if (entry.getKey() == Plan.StatementType.ALL) {
+                continue;
+            }
+            writer.sample(
+                "crate_query_failures_total", entry.getValue().count(), "type", entry.getKey().name().toLowerCase(Locale.ENGLISH));
+        }
+
+        writer.family("crate_execution_phase_duration_milliseconds", SUMMARY, "Duration of execution phases by phase name");
+        for (Map.Entry<String, MeanMetric> entry : metrics.phaseDurations().entrySet()) {
+            writer.sample("crate_execution_phase_duration_milliseconds_count", entry.getValue().count(), "phase", entry.getKey());
+            writer.sample("crate_execution_phase_duration_milliseconds_sum", entry.getValue().sum(), "phase", entry.getKey());
+        }
+
+        writer.family("crate_shuffle_bytes_total", COUNTER, "Bytes of the row buckets sent to downstream nodes")
+            .sample("crate_shuffle_bytes_total", metrics.shuffledBytes().count());
+        writer.family("crate_shuffle_bucket_rows", SUMMARY, "Number of rows of the buckets sent to downstream nodes")
+            .sample("crate_shuffle_bucket_rows_count", metrics.shuffledRows().count())
+            .sample("crate_shuffle_bucket_rows_sum", metrics.shuffledRows().sum());
+        writer.family("crate_fetch_request_docs", SUMMARY, "Number of documents of the fetch requests served by the node")
+            .sample("crate_fetch_request_docs_count", metrics.fetchedDocs().count())
+            .sample("crate_fetch_request_docs_sum", metrics.fetchedDocs().sum());
+        writer.family("crate_bulk_throttled_total", COUNTER, "How often the execution of bulk operations has been paused")
+            .sample("crate_bulk_throttled_total", throttledCount);
+    }
+
+    static void writeThreadPools(PrometheusTextWriter writer, ThreadPoolStats threadPoolStats) {
+        writer.family("crate_threadpool_threads", GAUGE, "Number of threads of the thread pool");
+        for (ThreadPoolStats.Stats stats : threadPoolStats) {
+            writer.sample("crate_threadpool_threads", stats.getThreads(), "pool", stats.getName());
+        }
+        writer.family("crate_threadpool_largest_threads", GAUGE, "Largest number of threads the thread pool has had");
+        for (ThreadPoolStats.Stats stats : threadPoolStats) {
+            writer.sample("crate_threadpool_largest_threads", stats.getLargest(), "pool", stats.getName());
+        }
+        writer.family("crate_threadpool_active", GAUGE, "Number of threads of the thread pool executing a task");
+        for (ThreadPoolStats.Stats stats : threadPoolStats) {
+            writer.sample("crate_threadpool_active", stats.getActive(), "pool", stats.getName());
+        }
+        writer.family("crate_threadpool_queue_size", GAUGE, "Number of tasks in the queue of the thread pool");
+        for (ThreadPoolStats.Stats stats : threadPoolStats) {
+            writer.sample("crate_threadpool_queue_size", stats.getQueue(), "pool", stats.getName());
+        }
+        writer.family("crate_threadpool_completed_total", COUNTER, "Number of tasks completed by the thread pool");
+        for (ThreadPoolStats.Stats stats : threadPoolStats) {
+            writer.sample("crate_threadpool_completed_total", stats.getCompleted(), "pool", stats.getName());
+        }
+        writer.family("crate_threadpool_rejected_total", COUNTER, "Number of tasks rejected by the thread pool");
+        for (ThreadPoolStats.Stats stats : threadPoolStats) {
+            writer.sample("crate_threadpool_rejected_total", stats.getRejected(), "pool", stats.getName());
+        }
+    }
+
+    static void writeCircuitBreakers(PrometheusTextWriter writer, CircuitBreakerStats[] allStats) {
+        writer.family("crate_circuit_breaker_limit_bytes", GAUGE, "Memory limit of the circuit breaker");
+        for (CircuitBreakerStats stats : allStats) {
+            writer.sample("crate_circuit_breaker_limit_bytes", stats.getLimit(), "name", stats.getName());
+        }
+        writer.family("crate_circuit_breaker_used_bytes", GAUGE, "Estimated memory used by the circuit breaker");
+        for (CircuitBreakerStats stats : allStats) {
+            writer.sample("crate_circuit_breaker_used_bytes", stats.getEstimated(), "name", stats.getName());
+        }
+        writer.family("crate_circuit_breaker_overhead", GAUGE, "Overhead factor of the circuit breaker");
+        for (CircuitBreakerStats stats : allStats) {
+            writer.sample("crate_circuit_breaker_overhead", stats.getOverhead(), "name", stats.getName());
+        }
+        writer.family("crate_circuit_breaker_tripped_total", COUNTER, "How often the circuit breaker has been tripped");
+        for (CircuitBreakerStats stats : allStats) {
+            writer.sample("crate_circuit_breaker_tripped_total", stats.getTrippedCount(), "name", stats.getName());
+        }
+    }
+
+    private void writeConnections(PrometheusTextWriter writer) {
+        HttpStats httpStats = httpServerTransport == null ? null : httpServerTransport.stats();
+        writer.family("crate_connections_open", GAUGE, "Number of currently open connections by protocol")
+            .sample("crate_connections_open", httpStats == null ? 0L : httpStats.getServerOpen(), "protocol", "http")
+            .sample("crate_connections_open", postgresNetty.openConnections(), "protocol", "psql")
+            .sample("crate_connections_open", transportService.stats().serverOpen(), "protocol", "transport");
+        writer.family("crate_connections_total", COUNTER, "Number of connections opened since the node started by protocol")
+            .sample("crate_connections_total", httpStats == null ? 0L : httpStats.getTotalOpen(), "protocol", "http")
+            .sample("crate_connections_total", postgresNetty.totalConnections(), "protocol", "psql");
+    }
+}
@@ -47,5 +47,10 @@ public class RestSQLAction {
             "sql_handler",
             corsConfig -> new SqlHttpHandler(settings, sqlOperations, breakerService::getBreaker, userManager, corsConfig)
         ));
+        pipelineRegistry.addBefore(new PipelineRegistry.ChannelPipelineItem(
+            "pipelining",
+            "sql_chunked_response",
+            corsConfig -> new ChunkedResponseHandler()
+        ));
     }
 }
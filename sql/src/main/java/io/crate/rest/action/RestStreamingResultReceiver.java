@@ -0,0 +1,266 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.ResultReceiver;
+import io.crate.breaker.RowAccounting;
+import io.crate.data.Row;
+import io.crate.expression.symbol.Field;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.http.netty4.pipelining.HttpPipelinedRequest;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ResultReceiver which writes the result as chunked HTTP response while the rows are consumed.
+ *
+ * The portal is executed with a {@code maxRows} limit; on each {@link #batchFinished()} the rows serialized so far
+ * are written as a chunk and the portal is resumed once the chunk has been written to the channel. This way a slow
+ * client throttles the query and only about one batch of rows is kept in memory.
+ *
+ * The response body has the same format as the regular response.
+ * The completion future is completed with {@code null} once the response has been written or aborted, the
+ * session of the request and with it the portal must then be closed. It is completed exceptionally only if
+ * nothing has been written yet, so that a regular error response can be sent instead.
+ * If the query fails after the response head has been sent, the connection is closed.
+ */
+class RestStreamingResultReceiver implements ResultReceiver<XContentBuilder> {
+
+    private static final Logger LOGGER = Loggers.getLogger(RestStreamingResultReceiver.class);
+
+    private final ChannelHandlerContext ctx;
+    private final HttpPipelinedRequest request;
+    private final HttpResponse head;
+    private final boolean closeConnection;
+    private final List<Field> outputFields;
+    private final long startTimeNs;
+    private final RowAccounting rowAccounting;
+    private final Runnable resume;
+    private final ChunkOutputStream out;
+    private final XContentBuilder xContentBuilder;
+    private final ResultToXContentBuilder builder;
+    private final CompletableFuture<XContentBuilder> result = new CompletableFuture<>();
+
+    private ChunkedResponseHandler.ChunkedResponse response;
+    private long rowCount;
+
+    /**
+     * @param head      the response head, must use chunked transfer encoding
+     * @param resume    resumes the suspended portal
+     */
+    RestStreamingResultReceiver(ChannelHandlerContext ctx,
+                                HttpPipelinedRequest request,
+                                HttpResponse head,
+                                boolean closeConnection,
+                                List<Field> outputFields,
+                                long startTimeNs,
+                                RowAccounting rowAccounting,
+                                boolean includeTypesOnResponse,
+                                Runnable resume) throws IOException {
+        this.ctx = ctx;
+        this.request = request;
+        this.head = head;
+        this.closeConnection = closeConnection;
+        this.outputFields = outputFields;
+        this.startTimeNs = startTimeNs;
+        this.rowAccounting = rowAccounting;
+        this.resume = resume;
+        this.out = new ChunkOutputStream(ctx.alloc());
+        this.xContentBuilder = XContentFactory.jsonBuilder(out);
+        this.builder = ResultToXContentBuilder.builder(xContentBuilder);
+        this.builder.cols(outputFields);
+        if (includeTypesOnResponse) {
+            this.builder.colTypes(outputFields);
+        }
+        this.builder.startRows();
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        rowAccounting.accountForAndMaybeBreak(row);
+        try {
+            builder.addRow(row, outputFields.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        rowCount++;
+    }
+
+    @Override
+    public void batchFinished() {
+        try {
+            xContentBuilder.flush();
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        // the rows of this batch are released from memory once they've been written
+        rowAccounting.release();
+        writeChunk(new DefaultHttpContent(out.take(false))).addListener(f -> {
+            if (f.isSuccess()) {
+                try {
+                    resume.run();
+                } catch (Throwable t) {
+                    fail(t);
+                }
+            } else {
+                // completing the result closes the session of the request and with it the suspended portal
+                LOGGER.debug("Couldn't write chunk of streamed result, closing connection", f.cause());
+                abort();
+            }
+        });
+    }
+
+    @Override
+    public void allFinished(boolean interrupted) {
+        if (result.isDone()) {
+            return;
+        }
+        if (interrupted) {
+            abort();
+            return;
+        }
+        try {
+            builder
+                .finishRows()
+                .rowCount(rowCount)
+                .duration(startTimeNs)
+                .build();
+            xContentBuilder.close();
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        rowAccounting.close();
+        writeChunk(new DefaultLastHttpContent(out.take(true))).addListener(f -> {
+            if (!f.isSuccess() || closeConnection) {
+                f.channel().close();
+            }
+            result.complete(null);
+        });
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable t) {
+        if (result.isDone()) {
+            return;
+        }
+        out.release();
+        rowAccounting.close();
+        if (response == null) {
+            result.completeExceptionally(t);
+        } else {
+            // The head has already been sent, the only way to signal the error is to abort the response
+            LOGGER.warn("Streaming result failed, closing connection", t);
+            ctx.close();
+            result.complete(null);
+        }
+    }
+
+    private void abort() {
+        if (result.isDone()) {
+            return;
+        }
+        out.release();
+        rowAccounting.close();
+        ctx.close();
+        result.complete(null);
+    }
+
+    @Override
+    public CompletableFuture<XContentBuilder> completionFuture() {
+        return result;
+    }
+
+    private ChannelFuture writeChunk(HttpContent content) {
+        if (response == null) {
+            response = new ChunkedResponseHandler.ChunkedResponse(head, content);
+            ChannelPromise promise = ctx.newPromise();
+            ctx.writeAndFlush(request.createHttpResponse(response, promise), promise);
+            return promise;
+        }
+        return response.write(content);
+    }
+
+    /**
+     * OutputStream writing into a new buffer per chunk
+     */
+    private static final class ChunkOutputStream extends OutputStream {
+
+        private final ByteBufAllocator allocator;
+        private ByteBuf buffer;
+
+        ChunkOutputStream(ByteBufAllocator allocator) {
+            this.allocator = allocator;
+            this.buffer = allocator.buffer();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureOpen();
+            buffer.writeByte(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            buffer.writeBytes(b, off, len);
+        }
+
+        ByteBuf take(boolean last) {
+            ByteBuf chunk = buffer;
+            buffer = last ? null : allocator.buffer();
+            return chunk;
+        }
+
+        void release() {
+            if (buffer != null) {
+                buffer.release();
+                buffer = null;
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (buffer == null) {
+                throw new IOException("Stream is closed");
+            }
+        }
+    }
+}
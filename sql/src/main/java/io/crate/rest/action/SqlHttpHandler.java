@@ -45,11 +45,14 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.apache.logging.log4j.Logger;
@@ -57,6 +60,7 @@ import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.http.netty4.cors.Netty4CorsConfig;
 import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
@@ -87,6 +91,8 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
     private static final String REQUEST_HEADER_USER = "User";
     private static final String REQUEST_HEADER_SCHEMA = "Default-Schema";
     private static final int DEFAULT_SOFT_LIMIT = 10_000;
+    private static final String STREAMING_PORTAL = "http_streaming";
+    private static final int STREAMING_BATCH_SIZE = 1_000;
 
     private final Settings settings;
     private final SQLOperations sqlOperations;
@@ -113,17 +119,27 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
     protected void channelRead0(ChannelHandlerContext ctx, HttpPipelinedRequest msg) {
         FullHttpRequest request = (FullHttpRequest) msg.last();
         if (request.uri().startsWith("/_sql")) {
-            ensureSession(request);
             Map<String, List<String>> parameters = new QueryStringDecoder(request.uri()).parameters();
+            // chunked transfer encoding requires HTTP/1.1
+            boolean stream = paramContainFlag(parameters, "stream") && !request.protocolVersion().equals(HttpVersion.HTTP_1_0);
+            // A streamed result keeps its portal open until the whole response has been written.
+            // It gets a session of its own, so that pipelined requests can't close the portal in the meantime.
+            Session requestSession = stream ? newStreamingSession(request) : ensureSession(request);
             ByteBuf content = request.content();
-            handleSQLRequest(content, paramContainFlag(parameters, "types"))
+            handleSQLRequest(ctx, msg, requestSession, content, paramContainFlag(parameters, "types"), stream)
                 .whenComplete((result, t) -> {
                     try {
-                        sendResponse(ctx, msg, request, parameters, result, t);
+                        // streamed responses have already been written by the result receiver
+                        if (result != null || t != null) {
+                            sendResponse(ctx, msg, request, parameters, requestSession.sessionContext(), result, t);
+                        }
                     } catch (Throwable ex) {
                         LOGGER.error("Error sending response", ex);
                         throw ex;
                     } finally {
+                        if (stream) {
+                            requestSession.close();
+                        }
                         content.release();
                         msg.release();
                     }
@@ -154,6 +170,7 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
                               HttpPipelinedRequest msg,
                               FullHttpRequest request,
                               Map<String, List<String>> parameters,
+                              SessionContext sessionContext,
                               XContentBuilder result,
                               @Nullable Throwable t) {
         final HttpVersion httpVersion = request.protocolVersion();
@@ -164,7 +181,7 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
             resp = new DefaultFullHttpResponse(httpVersion, HttpResponseStatus.OK, content);
             resp.headers().add(HttpHeaderNames.CONTENT_TYPE, result.contentType().mediaType());
         } else {
-            SQLActionException sqlActionException = createSQLActionException(t, session.sessionContext());
+            SQLActionException sqlActionException = createSQLActionException(t, sessionContext);
             String mediaType;
             boolean includeErrorTrace = paramContainFlag(parameters, "error_trace");
             try (XContentBuilder contentBuilder = HTTPErrorFormatter.convert(sqlActionException, includeErrorTrace)) {
@@ -196,7 +213,12 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
                    && !HttpHeaderValues.KEEP_ALIVE.contentEqualsIgnoreCase(headers.get(HttpHeaderNames.CONNECTION)));
     }
 
-    private CompletableFuture<XContentBuilder> handleSQLRequest(ByteBuf content, boolean includeTypes) {
+    private CompletableFuture<XContentBuilder> handleSQLRequest(ChannelHandlerContext ctx,
+                                                                HttpPipelinedRequest msg,
+                                                                Session session,
+                                                                ByteBuf content,
+                                                                boolean includeTypes,
+                                                                boolean stream) {
         SQLRequestParseContext parseContext;
         try {
             parseContext = SQLRequestParser.parseSource(Netty4Utils.toBytesReference(content));
@@ -211,7 +233,8 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
         }
         try {
             if (args != null || bulkArgs == null) {
-                return executeSimpleRequest(session, parseContext.stmt(), args, includeTypes);
+                return executeSimpleRequest(
+                    session, parseContext.stmt(), args, includeTypes, stream ? new StreamingTarget(ctx, msg) : null);
             } else {
                 return executeBulkRequest(session, parseContext.stmt(), bulkArgs);
             }
@@ -220,7 +243,7 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
         }
     }
 
-    private void ensureSession(FullHttpRequest request) {
+    private Session ensureSession(FullHttpRequest request) {
         String defaultSchema = request.headers().get(REQUEST_HEADER_SCHEMA);
         User user = userFromAuthHeader(request.headers().get(HttpHeaderNames.AUTHORIZATION));
         Set<Option> options = optionsFromUserHeader(request.headers().get(REQUEST_HEADER_USER));
@@ -238,6 +261,20 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
                 sessionContext.setDefaultSchema(defaultSchema);
             }
         }
+        return session;
+    }
+
+    /**
+     * Creates a session for a single streamed request; it must be closed once the response has been written.
+     * Streamed results are meant for exports and aren't limited by default.
+     */
+    private Session newStreamingSession(FullHttpRequest request) {
+        return sqlOperations.createSession(
+            request.headers().get(REQUEST_HEADER_SCHEMA),
+            userFromAuthHeader(request.headers().get(HttpHeaderNames.AUTHORIZATION)),
+            optionsFromUserHeader(request.headers().get(REQUEST_HEADER_USER)),
+            0
+        );
     }
 
     private static boolean optionsChanged(User user, Set<Option> options, SessionContext sessionContext) {
@@ -247,15 +284,36 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
     private CompletableFuture<XContentBuilder> executeSimpleRequest(Session session,
                                                                     String stmt,
                                                                     Object[] args,
-                                                                    boolean includeTypes) throws IOException {
+                                                                    boolean includeTypes,
+                                                                    @Nullable StreamingTarget streamingTarget) throws IOException {
         long startTimeInNs = System.nanoTime();
+        // The unnamed portal is closed on sync, a streamed result needs a portal which can be resumed afterwards
+        String portalName = streamingTarget == null ? UNNAMED : STREAMING_PORTAL;
         session.parse(UNNAMED, stmt, emptyList());
-        session.bind(UNNAMED, UNNAMED, args == null ? emptyList() : asList(args), null);
-        Session.DescribeResult description = session.describe('P', UNNAMED);
+        session.bind(portalName, UNNAMED, args == null ? emptyList() : asList(args), null);
+        Session.DescribeResult description = session.describe('P', portalName);
         List<Field> resultFields = description.getFields();
         ResultReceiver<XContentBuilder> resultReceiver;
+        int maxRows = 0;
         if (resultFields == null) {
             resultReceiver = new RestRowCountReceiver(JsonXContent.contentBuilder(), startTimeInNs, includeTypes);
+        } else if (streamingTarget != null) {
+            FullHttpRequest request = (FullHttpRequest) streamingTarget.msg.last();
+            resultReceiver = new RestStreamingResultReceiver(
+                streamingTarget.ctx,
+                streamingTarget.msg,
+                newStreamingResponseHead(request),
+                isCloseConnection(request),
+                resultFields,
+                startTimeInNs,
+                new RowAccountingWithEstimators(
+                    Symbols.typeView(resultFields),
+                    new RamAccountingContext("http-result", circuitBreakerProvider.apply(CrateCircuitBreakerService.QUERY))
+                ),
+                includeTypes,
+                () -> session.resume(STREAMING_PORTAL)
+            );
+            maxRows = STREAMING_BATCH_SIZE;
         } else {
             resultReceiver = new RestResultSetReceiver(
                 JsonXContent.contentBuilder(),
@@ -268,11 +326,19 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
                 includeTypes
             );
         }
-        session.execute(UNNAMED, 0, resultReceiver);
+        session.execute(portalName, maxRows, resultReceiver);
         return session.sync()
             .thenCompose(ignored -> resultReceiver.completionFuture());
     }
 
+    private HttpResponse newStreamingResponseHead(FullHttpRequest request) {
+        HttpResponse head = new DefaultHttpResponse(request.protocolVersion(), HttpResponseStatus.OK);
+        head.headers().add(HttpHeaderNames.CONTENT_TYPE, XContentType.JSON.mediaType());
+        HttpUtil.setTransferEncodingChunked(head, true);
+        Netty4CorsHandler.setCorsResponseHeaders(request, head, corsConfig);
+        return head;
+    }
+
     private CompletableFuture<XContentBuilder> executeBulkRequest(Session session,
                                                                   String stmt,
                                                                   Object[][] bulkArgs) {
@@ -321,6 +387,17 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<HttpPipelinedReq
         return userLookup.findUser(username);
     }
 
+    private static final class StreamingTarget {
+
+        private final ChannelHandlerContext ctx;
+        private final HttpPipelinedRequest msg;
+
+        private StreamingTarget(ChannelHandlerContext ctx, HttpPipelinedRequest msg) {
+            this.ctx = ctx;
+            this.msg = msg;
+        }
+    }
+
     private static boolean bothProvided(@Nullable Object[] args, @Nullable Object[][] bulkArgs) {
         return args != null && args.length > 0 && bulkArgs != null && bulkArgs.length > 0;
     }
@@ -41,11 +41,14 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -304,4 +307,45 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
         assertThat(session.preparedStatements.size(), is(1));
         assertThat(session.preparedStatements.get("stmt").query(), is("DEALLOCATE test_prep_stmt;"));
     }
+
+    @Test
+    public void testAnalyzedStatementIsReusedByNextSessionUntilMetaDataChanges() {
+        SQLExecutor sqlExecutor = SQLExecutor.builder(clusterService).build();
+        AtomicLong metaDataVersion = new AtomicLong(1L);
+        StatementCache statementCache = new StatementCache(10, metaDataVersion::get);
+        String query = "select name from sys.cluster where name = ?";
+
+        Session session = newSession(sqlExecutor, statementCache);
+        session.parse("S_1", query, Collections.emptyList());
+        session.describe('S', "S_1");
+        AnalyzedStatement analyzedStatement = session.preparedStatements.get("S_1").analyzedStatement();
+        assertThat(statementCache.analyzedSize(), is(0L));
+        session.close();
+        assertThat(statementCache.analyzedSize(), is(1L));
+
+        session = newSession(sqlExecutor, statementCache);
+        session.parse("S_1", query, Collections.emptyList());
+        session.bind("", "S_1", Collections.singletonList("crate"), null);
+        assertThat(session.preparedStatements.get("S_1").analyzedStatement(), sameInstance(analyzedStatement));
+        assertThat("the analysis is owned by the session", statementCache.analyzedSize(), is(0L));
+        session.close();
+
+        metaDataVersion.incrementAndGet();
+        session = newSession(sqlExecutor, statementCache);
+        session.parse("S_1", query, Collections.emptyList());
+        session.describe('S', "S_1");
+        assertThat(session.preparedStatements.get("S_1").analyzedStatement(), not(sameInstance(analyzedStatement)));
+        session.close();
+    }
+
+    private static Session newSession(SQLExecutor sqlExecutor, StatementCache statementCache) {
+        return new Session(
+            sqlExecutor.analyzer,
+            sqlExecutor.planner,
+            new JobsLogs(() -> false),
+            false,
+            mock(DependencyCarrier.class),
+            SessionContext.systemSessionContext(),
+            statementCache);
+    }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.action.sql;
+
+import io.crate.sql.parser.ParsingException;
+import io.crate.sql.tree.Statement;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class StatementCacheTest extends CrateUnitTest {
+
+    @Test
+    public void testParsedStatementIsReused() {
+        StatementCache cache = new StatementCache(10);
+        Statement statement = cache.parse("select x from t where y = ?");
+
+        assertThat(cache.parse("select x from t where y = ?"), sameInstance(statement));
+        assertThat(cache.size(), is(1L));
+    }
+
+    @Test
+    public void testCacheIsBoundedBySize() {
+        StatementCache cache = new StatementCache(2);
+        for (int i = 0; i < 5; i++) {
+            cache.parse("select " + i);
+        }
+        assertThat(cache.size(), is(2L));
+    }
+
+    @Test
+    public void testStatementsAreNotCachedIfCacheIsDisabled() {
+        StatementCache cache = new StatementCache(0);
+        Statement statement = cache.parse("select 1");
+
+        assertThat(cache.parse("select 1"), not(sameInstance(statement)));
+        assertThat(cache.parse("select 1"), is(statement));
+    }
+
+    @Test
+    public void testLongStatementsAreNotCached() {
+        StatementCache cache = new StatementCache(10);
+        StringBuilder sb = new StringBuilder("insert into t (x) values (1)");
+        while (sb.length() <= StatementCache.MAX_QUERY_LENGTH) {
+            sb.append(", (1)");
+        }
+        cache.parse(sb.toString());
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void testInvalidStatementIsNotCached() {
+        StatementCache cache = new StatementCache(10);
+        expectedException.expect(ParsingException.class);
+        try {
+            cache.parse("select from where");
+        } finally {
+            assertThat(cache.size(), is(0L));
+        }
+    }
+}
@@ -211,6 +211,7 @@ public class SelectStatementAnalyzerTest extends CrateDummyClusterServiceUnitTes
         List<String> outputNames = outputNames(relation);
         assertThat(outputNames, contains(
             "id",
+            "bulk_targets",
             "cluster_state_version",
             "connections",
             "fs",
@@ -179,4 +179,13 @@ public class CrateCircuitBreakerServiceTest extends CrateUnitTest {
         assertThat(queryBreakerStats.getEstimated(), is(0L));
     }
 
+    @Test
+    public void testSpillThresholdMustNotExceedOne() throws Exception {
+        Setting<Double> setting = CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_SPILL_THRESHOLD_SETTING.setting();
+        assertThat(setting.get(Settings.builder().put(setting.getKey(), 0.75).build()), is(0.75d));
+
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("must be between 0.0 and 1.0");
+        setting.get(Settings.builder().put(setting.getKey(), 1.5).build());
+    }
 }
@@ -97,4 +97,24 @@ public class RamAccountingContextTest extends CrateUnitTest {
         assertThat(ramAccountingContext.totalBytes(), is(0L));
         assertThat(breaker.getUsed(), is(0L));
     }
+
+    @Test
+    public void testSubtractBytesReleasesBufferAndBreaker() {
+        ramAccountingContext.addBytes(25);
+        ramAccountingContext.addBytes(5);
+        ramAccountingContext.subtractBytes(10);
+
+        assertThat(ramAccountingContext.totalBytes(), is(20L));
+        assertThat(breaker.getUsed(), is(20L));
+    }
+
+    @Test
+    public void testReachedShareOfLimitIncludesOtherContextsAndBuffer() {
+        RamAccountingContext otherContext = new RamAccountingContext("other", breaker);
+        otherContext.addBytes(25);
+        ramAccountingContext.addBytes(5);
+
+        assertThat(ramAccountingContext.reachedShareOfLimit(0.75d), is(true));
+        assertThat(ramAccountingContext.reachedShareOfLimit(0.8d), is(false));
+    }
 }
@@ -0,0 +1,122 @@
+/*
+ * Licensed to CRATE Technology GmbH ("Crate") under one or more contributor
+ * license agreements.  See the NOTICE file distributed with this work for
+ * additional information regarding copyright ownership.  Crate licenses
+ * this file to you under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial agreement.
+ */
+
+package io.crate.execution.dsl.projection;
+
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Aggregation;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.RowGranularity;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+
+public class ProjectionsTest extends CrateUnitTest {
+
+    private static final List<Symbol> KEYS = Collections.singletonList(new InputColumn(0, DataTypes.STRING));
+    private static final List<Aggregation> COUNT = Collections.singletonList(
+        new Aggregation(
+            CountAggregation.COUNT_STAR_FUNCTION,
+            CountAggregation.COUNT_STAR_FUNCTION.returnType(),
+            Collections.emptyList()
+        )
+    );
+
+    private static GroupProjection groupProjection(AggregateMode mode, RowGranularity granularity) {
+        return new GroupProjection(KEYS, COUNT, mode, granularity);
+    }
+
+    private static FilterProjection shardFilterProjection() {
+        FilterProjection filterProjection = new FilterProjection(
+            Literal.BOOLEAN_TRUE, Collections.singletonList(new InputColumn(0, DataTypes.STRING)));
+        filterProjection.requiredGranularity(RowGranularity.SHARD);
+        return filterProjection;
+    }
+
+    @Test
+    public void testPartialGroupByOnShardSupportsSlicing() {
+        assertThat(Projections.shardProjectionsSupportSlicing(Arrays.asList(
+            groupProjection(AggregateMode.ITER_PARTIAL, RowGranularity.SHARD),
+            groupProjection(AggregateMode.PARTIAL_FINAL, RowGranularity.CLUSTER)
+        )), is(true));
+    }
+
+    @Test
+    public void testPartialAggregationOnShardSupportsSlicing() {
+        assertThat(Projections.shardProjectionsSupportSlicing(Collections.singletonList(
+            new AggregationProjection(COUNT, RowGranularity.SHARD, AggregateMode.ITER_PARTIAL)
+        )), is(true));
+    }
+
+    @Test
+    public void testFilterBeforePartialAggregationSupportsSlicing() {
+        assertThat(Projections.shardProjectionsSupportSlicing(Arrays.asList(
+            shardFilterProjection(),
+            groupProjection(AggregateMode.ITER_PARTIAL, RowGranularity.SHARD)
+        )), is(true));
+    }
+
+    @Test
+    public void testNoShardProjectionsDontSupportSlicing() {
+        assertThat(Projections.shardProjectionsSupportSlicing(Collections.emptyList()), is(false));
+        assertThat(Projections.shardProjectionsSupportSlicing(Collections.singletonList(
+            groupProjection(AggregateMode.ITER_PARTIAL, RowGranularity.CLUSTER)
+        )), is(false));
+    }
+
+    @Test
+    public void testOnlyFilterOnShardDoesntSupportSlicing() {
+        assertThat(Projections.shardProjectionsSupportSlicing(Collections.singletonList(
+            shardFilterProjection()
+        )), is(false));
+    }
+
+    @Test
+    public void testFinalAggregationOnShardDoesntSupportSlicing() {
+        assertThat(Projections.shardProjectionsSupportSlicing(Collections.singletonList(
+            groupProjection(AggregateMode.ITER_FINAL, RowGranularity.SHARD)
+        )), is(false));
+    }
+
+    @Test
+    public void testShardProjectionAfterPartialAggregationDoesntSupportSlicing() {
+        assertThat(Projections.shardProjectionsSupportSlicing(Arrays.asList(
+            groupProjection(AggregateMode.ITER_PARTIAL, RowGranularity.SHARD),
+            shardFilterProjection()
+        )), is(false));
+    }
+
+    @Test
+    public void testDeleteProjectionDoesntSupportSlicing() {
+        assertThat(Projections.shardProjectionsSupportSlicing(Collections.singletonList(
+            new DeleteProjection(new InputColumn(0, DataTypes.STRING))
+        )), is(false));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+
+package io.crate.execution.engine;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.is;
+
+public class SpillFilesTest extends CrateUnitTest {
+
+    @Test
+    public void testLeftOverFilesAreDeletedOnCreation() throws Exception {
+        Path directory = createTempDir().resolve("tmp");
+        Files.createDirectories(directory);
+        Path leftOver = Files.createFile(directory.resolve("groups-1.spill"));
+
+        new SpillFiles(directory, 0.5d);
+
+        assertThat(Files.exists(leftOver), is(false));
+        assertThat(Files.isDirectory(directory), is(true));
+    }
+
+    @Test
+    public void testFileIsReadAfterWritingAndDeletedOnClose() throws Exception {
+        Path directory = createTempDir().resolve("tmp");
+        SpillFiles spillFiles = new SpillFiles(directory, 0.5d);
+
+        SpillFile file = spillFiles.newFile("test-");
+        file.output().writeVInt(42);
+        file.output().writeString("foo");
+        file.finishWriting();
+        for (int i = 0; i < 2; i++) {
+            try (StreamInput in = file.newInput()) {
+                assertThat(in.readVInt(), is(42));
+                assertThat(in.readString(), is("foo"));
+            }
+        }
+        file.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+}
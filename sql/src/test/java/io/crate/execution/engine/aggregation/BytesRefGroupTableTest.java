@@ -0,0 +1,60 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class BytesRefGroupTableTest extends CrateUnitTest {
+
+    @Test
+    public void testAddReturnsDenseIdsAndExistingIdsAsNegativeValue() {
+        try (BytesRefGroupTable table = new BytesRefGroupTable(2, BigArrays.NON_RECYCLING_INSTANCE)) {
+            assertThat(table.add(new BytesRef("foo")), is(0L));
+            assertThat(table.add(new BytesRef("")), is(1L));
+            assertThat(table.add(new BytesRef("foo")), is(-1L));
+            assertThat(table.add(new BytesRef("")), is(-2L));
+            assertThat(table.size(), is(2L));
+            assertThat(table.get(0, new BytesRef()).utf8ToString(), is("foo"));
+            assertThat(table.get(1, new BytesRef()).utf8ToString(), is(""));
+        }
+    }
+
+    @Test
+    public void testTableGrowsBeyondInitialCapacity() {
+        try (BytesRefGroupTable table = new BytesRefGroupTable(1, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (long i = 0; i < 10_000; i++) {
+                assertThat(table.add(new BytesRef("key-" + i)), is(i));
+            }
+            BytesRef spare = new BytesRef();
+            for (long i = 0; i < 10_000; i++) {
+                assertThat(table.add(new BytesRef("key-" + i)), is(-1 - i));
+                assertThat(table.get(i, spare).utf8ToString(), is("key-" + i));
+            }
+        }
+    }
+}
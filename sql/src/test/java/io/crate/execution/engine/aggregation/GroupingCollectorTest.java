@@ -0,0 +1,236 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccountingContext;
+import io.crate.data.BatchIterators;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.SpillFiles;
+import io.crate.execution.engine.aggregation.impl.SumAggregation;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static io.crate.data.SentinelRow.SENTINEL;
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static io.crate.testing.TestingHelpers.printRows;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class GroupingCollectorTest extends CrateUnitTest {
+
+    private static final RamAccountingContext RAM_ACCOUNTING_CONTEXT =
+        new RamAccountingContext("dummy", new NoopCircuitBreaker(CircuitBreaker.FIELDDATA));
+
+    private static List<Object[]> groupAndSumLastColumn(List<? extends DataType> keyTypes, Object[]... rows) throws Exception {
+        GroupingCollector collector = sumLastColumnCollector(RAM_ACCOUNTING_CONTEXT, null, keyTypes);
+        try (GroupingCollector.Groups groups = collector.supplier().get()) {
+            return collect(collector, groups, Arrays.asList(rows));
+        }
+    }
+
+    private static GroupingCollector sumLastColumnCollector(RamAccountingContext ramAccountingContext,
+                                                            @Nullable SpillFiles spillFiles,
+                                                            List<? extends DataType> keyTypes) {
+        AggregationFunction sum = (AggregationFunction) getFunctions().getBuiltin(
+            SumAggregation.NAME, Collections.singletonList(DataTypes.LONG));
+
+        List<Input<?>> keyInputs = new ArrayList<>(keyTypes.size());
+        CollectExpression[] expressions = new CollectExpression[keyTypes.size() + 1];
+        for (int i = 0; i < keyTypes.size(); i++) {
+            InputCollectExpression keyInput = new InputCollectExpression(i);
+            keyInputs.add(keyInput);
+            expressions[i] = keyInput;
+        }
+        InputCollectExpression valueInput = new InputCollectExpression(keyTypes.size());
+        expressions[keyTypes.size()] = valueInput;
+
+        return GroupingCollector.manyKeys(
+            expressions,
+            AggregateMode.ITER_FINAL,
+            new AggregationFunction[] { sum },
+            new Input[][] { new Input[] { valueInput } },
+            ramAccountingContext,
+            keyInputs,
+            keyTypes,
+            Version.CURRENT,
+            BigArrays.NON_RECYCLING_INSTANCE,
+            spillFiles
+        );
+    }
+
+    private static long numFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static List<Object[]> collect(GroupingCollector collector,
+                                          GroupingCollector.Groups groups,
+                                          List<Object[]> rows) throws Exception {
+        List<Row> inputRows = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            inputRows.add(new RowN(row));
+        }
+        Iterable<Row> groupedRows = BatchIterators.collect(
+            InMemoryBatchIterator.of(inputRows, SENTINEL),
+            groups,
+            collector,
+            new CompletableFuture<>()
+        ).get();
+        List<Object[]> result = new ArrayList<>();
+        for (Row row : groupedRows) {
+            result.add(row.materialize());
+        }
+        return result;
+    }
+
+    @Test
+    public void testGroupBySingleLongKeyWithNullValues() throws Exception {
+        List<Object[]> result = groupAndSumLastColumn(
+            Collections.singletonList(DataTypes.LONG),
+            new Object[] { 1L, 10L },
+            new Object[] { null, 5L },
+            new Object[] { 1L, 20L },
+            new Object[] { 2L, 1L },
+            new Object[] { null, 5L }
+        );
+        assertThat(printRows(result),
+            is("NULL| 10\n" +
+               "1| 30\n" +
+               "2| 1\n"));
+    }
+
+    @Test
+    public void testGroupBySingleStringKeyWithNullValues() throws Exception {
+        List<Object[]> result = groupAndSumLastColumn(
+            Collections.singletonList(DataTypes.STRING),
+            new Object[] { new BytesRef("a"), 1L },
+            new Object[] { new BytesRef("b"), 2L },
+            new Object[] { null, 3L },
+            new Object[] { new BytesRef("a"), 4L }
+        );
+        assertThat(printRows(result),
+            is("NULL| 3\n" +
+               "a| 5\n" +
+               "b| 2\n"));
+    }
+
+    @Test
+    public void testGroupByFixedWidthCompositeKeyDistinguishesNullFromZero() throws Exception {
+        List<Object[]> result = groupAndSumLastColumn(
+            Arrays.asList(DataTypes.INTEGER, DataTypes.DOUBLE),
+            new Object[] { 1, 0.0d, 1L },
+            new Object[] { 1, null, 2L },
+            new Object[] { 1, 0.0d, 3L },
+            new Object[] { null, 1.5d, 4L }
+        );
+        assertThat(printRows(result),
+            is("1| 0.0| 4\n" +
+               "1| NULL| 2\n" +
+               "NULL| 1.5| 4\n"));
+    }
+
+    @Test
+    public void testGroupByEncodedCompositeKey() throws Exception {
+        List<Object[]> result = groupAndSumLastColumn(
+            Arrays.asList(DataTypes.STRING, DataTypes.LONG),
+            new Object[] { new BytesRef("a"), 1L, 1L },
+            new Object[] { new BytesRef("a"), 2L, 2L },
+            new Object[] { null, 2L, 3L },
+            new Object[] { new BytesRef("a"), 1L, 4L }
+        );
+        assertThat(printRows(result),
+            is("a| 1| 5\n" +
+               "a| 2| 2\n" +
+               "NULL| 2| 3\n"));
+    }
+
+    @Test
+    public void testGroupsAreSpilledAndMergedIfBreakerIsNearItsLimit() throws Exception {
+        long originalBufferSize = RamAccountingContext.FLUSH_BUFFER_SIZE;
+        long originalMinSpillBytes = GroupingCollector.MIN_SPILL_BYTES;
+        RamAccountingContext.FLUSH_BUFFER_SIZE = 0;
+        GroupingCollector.MIN_SPILL_BYTES = 16 * 1024;
+        try {
+            MemoryCircuitBreaker breaker = new MemoryCircuitBreaker(
+                new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, Loggers.getLogger(GroupingCollectorTest.class));
+            // memory used by a concurrent query; the groups alone would never reach the threshold
+            RamAccountingContext otherQuery = new RamAccountingContext("other", breaker);
+            otherQuery.addBytes(new ByteSizeValue(400, ByteSizeUnit.KB).getBytes());
+            RamAccountingContext ramAccountingContext = new RamAccountingContext("test", breaker);
+
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < 40_000; i++) {
+                rows.add(new Object[] { new BytesRef("key-" + (i % 20_000)), (long) i % 5, 1L });
+            }
+            Path spillDirectory = createTempDir();
+            GroupingCollector collector = sumLastColumnCollector(
+                ramAccountingContext,
+                new SpillFiles(spillDirectory, 0.5d),
+                Arrays.asList(DataTypes.STRING, DataTypes.LONG));
+            try (GroupingCollector.Groups groups = collector.supplier().get()) {
+                List<Object[]> result = collect(collector, groups, rows);
+
+                assertThat(groups.numSpills(), greaterThan(1));
+                assertThat(numFiles(spillDirectory), greaterThan(0L));
+                assertThat(result.size(), is(20_000));
+                for (Object[] row : result) {
+                    assertThat(row[2], is(2L));
+                }
+            }
+            assertThat(breaker.getTrippedCount(), is(0L));
+            assertThat(numFiles(spillDirectory), is(0L));
+        } finally {
+            RamAccountingContext.FLUSH_BUFFER_SIZE = originalBufferSize;
+            GroupingCollector.MIN_SPILL_BYTES = originalMinSpillBytes;
+        }
+    }
+}
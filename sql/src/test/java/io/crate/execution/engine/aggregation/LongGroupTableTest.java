@@ -0,0 +1,72 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.util.BigArrays;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class LongGroupTableTest extends CrateUnitTest {
+
+    @Test
+    public void testAddReturnsDenseIdsAndExistingIdsAsNegativeValue() {
+        try (LongGroupTable table = new LongGroupTable(1, 2, BigArrays.NON_RECYCLING_INSTANCE)) {
+            assertThat(table.add(10L), is(0L));
+            assertThat(table.add(-3L), is(1L));
+            assertThat(table.add(10L), is(-1L));
+            assertThat(table.add(-3L), is(-2L));
+            assertThat(table.size(), is(2L));
+            assertThat(table.get(0, 0), is(10L));
+            assertThat(table.get(1, 0), is(-3L));
+        }
+    }
+
+    @Test
+    public void testTableGrowsBeyondInitialCapacity() {
+        try (LongGroupTable table = new LongGroupTable(1, 1, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (long i = 0; i < 10_000; i++) {
+                assertThat(table.add(i * 31), is(i));
+            }
+            for (long i = 0; i < 10_000; i++) {
+                assertThat(table.add(i * 31), is(-1 - i));
+                assertThat(table.get(i, 0), is(i * 31));
+            }
+            assertThat(table.size(), is(10_000L));
+        }
+    }
+
+    @Test
+    public void testMultiSlotKeys() {
+        try (LongGroupTable table = new LongGroupTable(2, 8, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (long i = 0; i < 100; i++) {
+                assertThat(table.add(new long[] { i, i % 3 }), is(i));
+            }
+            assertThat(table.add(new long[] { 4L, 1L }), is(-5L));
+            assertThat(table.add(new long[] { 4L, 2L }), is(100L));
+            assertThat(table.get(100, 0), is(4L));
+            assertThat(table.get(100, 1), is(2L));
+        }
+    }
+}
@@ -30,6 +30,7 @@ import io.crate.blob.v2.BlobIndicesService;
 import io.crate.blob.v2.BlobShard;
 import io.crate.data.Row;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.integrationtests.SQLHttpIntegrationTest;
 import io.crate.metadata.Routing;
 import io.crate.metadata.RowGranularity;
@@ -108,7 +109,7 @@ public class BlobShardCollectorProviderTest extends SQLHttpIntegrationTest {
                 Schemas schemas = new Schemas(Settings.EMPTY, Collections.emptyMap(), clusterService, null);
                 assertNotNull(blobShard);
                 collectorProvider = new BlobShardCollectorProvider(blobShard, clusterService, schemas, null, null, null, null, null,
-                    BigArrays.NON_RECYCLING_INSTANCE);
+                    BigArrays.NON_RECYCLING_INSTANCE, internalCluster().getDataNodeInstance(SpillFiles.class));
                 assertNotNull(collectorProvider);
             } catch (Exception e) {
                 fail("Exception shouldn't be thrown: " + e.getMessage());
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import io.crate.data.Row;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.execution.engine.aggregation.LiveDocsAggregator;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class DocValuesAggregatesTest extends CrateUnitTest {
+
+    private IndexSearcher searcher;
+
+    @Before
+    public void prepareIndex() throws Exception {
+        IndexWriter iw = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (long i = 1; i <= 10; i++) {
+            Document doc = new Document();
+            doc.add(new LongPoint("l", i));
+            doc.add(new SortedNumericDocValuesField("l", i));
+            doc.add(new SortedNumericDocValuesField("d", NumericUtils.doubleToSortableLong(i + 0.5d)));
+            iw.addDocument(doc);
+        }
+        iw.deleteDocuments(LongPoint.newExactQuery("l", 10L));
+        iw.commit();
+        searcher = new IndexSearcher(DirectoryReader.open(iw));
+    }
+
+    @Test
+    public void testAggregateDocValuesOfAllLiveDocs() throws Exception {
+        Object[] cells = aggregate(
+            new MatchAllDocsQuery(),
+            aggregator("sum", DataTypes.LONG, "l"),
+            aggregator("max", DataTypes.DOUBLE, "d"),
+            aggregator("min", DataTypes.LONG, "l"),
+            aggregator("count", DataTypes.LONG, "l")
+        );
+        assertThat(cells[0], is(45L));
+        assertThat(cells[1], is(9.5d));
+        assertThat(cells[2], is(1L));
+        assertCount(cells[3], 9L);
+    }
+
+    @Test
+    public void testCountStarOnMatchAllUsesTheNumberOfLiveDocs() throws Exception {
+        DocValueAggregator countStar = countStar();
+        assertThat(countStar, instanceOf(LiveDocsAggregator.class));
+
+        Object[] cells = aggregate(new MatchAllDocsQuery(), countStar);
+        assertCount(cells[0], 9L);
+    }
+
+    @Test
+    public void testAggregateDocValuesOfMatchingDocs() throws Exception {
+        Object[] cells = aggregate(
+            LongPoint.newRangeQuery("l", 3L, 5L),
+            aggregator("sum", DataTypes.DOUBLE, "d"),
+            countStar()
+        );
+        assertThat(cells[0], is(13.5d));
+        assertCount(cells[1], 3L);
+    }
+
+    @Test
+    public void testPartialResultOfNoMatchingDocsIsNull() throws Exception {
+        Object[] cells = aggregate(
+            LongPoint.newExactQuery("l", 42L),
+            aggregator("sum", DataTypes.LONG, "l"),
+            aggregator("max", DataTypes.LONG, "l")
+        );
+        assertThat(cells[0], nullValue());
+        assertThat(cells[1], nullValue());
+    }
+
+    private static void assertCount(Object partialResult, long expected) {
+        assertThat(((CountAggregation.LongState) partialResult).compareTo(new CountAggregation.LongState(expected)), is(0));
+    }
+
+    private Object[] aggregate(Query query, DocValueAggregator... aggregators) throws Exception {
+        Iterable<Row> rows = DocValuesAggregates.aggregate(searcher, query, Arrays.asList(aggregators));
+        return rows.iterator().next().materialize();
+    }
+
+    private static DocValueAggregator aggregator(String name, DataType type, String column) {
+        AggregationFunction function = (AggregationFunction) getFunctions().getBuiltin(
+            name, Collections.singletonList(type));
+        return function.getDocValueAggregator(Collections.singletonList(fieldType(type, column)));
+    }
+
+    private static DocValueAggregator countStar() {
+        AggregationFunction function = (AggregationFunction) getFunctions().getBuiltin(
+            "count", Collections.emptyList());
+        List<MappedFieldType> fieldTypes = Collections.emptyList();
+        return function.getDocValueAggregator(fieldTypes);
+    }
+
+    private static MappedFieldType fieldType(DataType type, String column) {
+        NumberFieldMapper.NumberType numberType = type.equals(DataTypes.DOUBLE)
+            ? NumberFieldMapper.NumberType.DOUBLE
+            : NumberFieldMapper.NumberType.LONG;
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(numberType);
+        fieldType.setName(column);
+        return fieldType;
+    }
+}
@@ -22,20 +22,34 @@
 
 package io.crate.execution.engine.collect;
 
+import io.crate.breaker.RamAccountingContext;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.expression.symbol.Aggregation;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.types.DataTypes;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
-import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.RAMDirectory;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -57,13 +71,14 @@ public class GroupByOptimizedIteratorTest {
         IndexSearcher indexSearcher = new IndexSearcher(DirectoryReader.open(iw));
 
         assertThat(
-            GroupByOptimizedIterator.hasHighCardinalityRatio(() -> new Engine.Searcher("dummy", indexSearcher), "x"),
+            GroupByOptimizedIterator.hasHighCardinalityRatio(
+                () -> new Engine.Searcher("dummy", indexSearcher), Collections.singletonList(keywordColumn("x"))),
             is(true)
         );
     }
 
     @Test
-    public void testHighCardinalityRatioReturnsTrueForLowCardinality() throws Exception {
+    public void testHighCardinalityRatioReturnsFalseForLowCardinality() throws Exception {
         IndexWriter iw = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
         String columnName = "x";
         for (int i = 0; i < 10; i++) {
@@ -77,8 +92,119 @@ public class GroupByOptimizedIteratorTest {
         IndexSearcher indexSearcher = new IndexSearcher(DirectoryReader.open(iw));
 
         assertThat(
-            GroupByOptimizedIterator.hasHighCardinalityRatio(() -> new Engine.Searcher("dummy", indexSearcher), "x"),
+            GroupByOptimizedIterator.hasHighCardinalityRatio(
+                () -> new Engine.Searcher("dummy", indexSearcher), Collections.singletonList(keywordColumn("x"))),
+            is(false)
+        );
+    }
+
+    @Test
+    public void testHighCardinalityRatioOfIntegerColumnIsDerivedFromItsRange() throws Exception {
+        IndexWriter iw = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = 0; i < 10; i++) {
+            Document doc = new Document();
+            doc.add(new IntPoint("low", i % 2));
+            doc.add(new SortedNumericDocValuesField("low", i % 2));
+            doc.add(new IntPoint("high", i * 1000));
+            doc.add(new SortedNumericDocValuesField("high", i * 1000));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+
+        IndexSearcher indexSearcher = new IndexSearcher(DirectoryReader.open(iw));
+
+        List<GroupByOptimizedIterator.KeyColumn> low = Collections.singletonList(
+            new GroupByOptimizedIterator.NumericKeyColumn("low", DataTypes.INTEGER));
+        assertThat(
+            GroupByOptimizedIterator.hasHighCardinalityRatio(() -> new Engine.Searcher("dummy", indexSearcher), low),
+            is(false)
+        );
+        List<GroupByOptimizedIterator.KeyColumn> high = Collections.singletonList(
+            new GroupByOptimizedIterator.NumericKeyColumn("high", DataTypes.INTEGER));
+        assertThat(
+            GroupByOptimizedIterator.hasHighCardinalityRatio(() -> new Engine.Searcher("dummy", indexSearcher), high),
+            is(true)
+        );
+    }
+
+    @Test
+    public void testHighCardinalityRatioOfSeveralKeysIsTheRatioOfTheKeyCombinations() throws Exception {
+        IndexWriter iw = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = 0; i < 20; i++) {
+            Document doc = new Document();
+            doc.add(new Field("x", new BytesRef(Integer.toString(i % 2)), KeywordFieldMapper.Defaults.FIELD_TYPE.clone()));
+            doc.add(new Field("y", new BytesRef(Integer.toString(i % 3)), KeywordFieldMapper.Defaults.FIELD_TYPE.clone()));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+
+        IndexSearcher indexSearcher = new IndexSearcher(DirectoryReader.open(iw));
+
+        // (2 + 1) * (2 + 1) possible groups for 20 documents
+        assertThat(
+            GroupByOptimizedIterator.hasHighCardinalityRatio(
+                () -> new Engine.Searcher("dummy", indexSearcher), Arrays.asList(keywordColumn("x"), keywordColumn("x"))),
             is(false)
         );
+        // (2 + 1) * (3 + 1) possible groups for 20 documents
+        assertThat(
+            GroupByOptimizedIterator.hasHighCardinalityRatio(
+                () -> new Engine.Searcher("dummy", indexSearcher), Arrays.asList(keywordColumn("x"), keywordColumn("y"))),
+            is(true)
+        );
+    }
+
+    @Test
+    public void testKeyReferencedByAnAggregationIsAnAggregationInput() {
+        Aggregation countX = new Aggregation(
+            new FunctionInfo(
+                new FunctionIdent(CountAggregation.NAME, Collections.singletonList(DataTypes.INTEGER)),
+                DataTypes.LONG,
+                FunctionInfo.Type.AGGREGATE),
+            DataTypes.LONG,
+            Collections.singletonList(new InputColumn(0, DataTypes.INTEGER)));
+        List<Aggregation> aggregations = Collections.singletonList(countX);
+
+        assertThat(GroupByOptimizedIterator.isAggregationInput(aggregations, 0), is(true));
+        assertThat(GroupByOptimizedIterator.isAggregationInput(aggregations, 1), is(false));
+    }
+
+    @Test
+    public void testDenseGroupStatesAreAccountedAndLimitedToMaxDenseSlots() {
+        GroupByOptimizedIterator.KeyColumn x = new GroupByOptimizedIterator.NumericKeyColumn("x", DataTypes.INTEGER);
+        GroupByOptimizedIterator.KeyColumn[] keys = new GroupByOptimizedIterator.KeyColumn[] { x };
+
+        x.cardinality = 999;
+        RamAccountingContext ramAccounting = new RamAccountingContext("dummy", new NoopCircuitBreaker("dummy"));
+        assertThat(
+            GroupByOptimizedIterator.GroupStates.create(keys, Integer.MAX_VALUE, ramAccounting),
+            instanceOf(GroupByOptimizedIterator.DenseGroupStates.class));
+        assertThat(ramAccounting.totalBytes(), is(GroupByOptimizedIterator.DenseGroupStates.ramBytesUsed(1000)));
+
+        // the range of a numeric column may be up to maxDoc, even if there are only a few distinct values
+        x.cardinality = GroupByOptimizedIterator.MAX_DENSE_SLOTS;
+        ramAccounting = new RamAccountingContext("dummy", new NoopCircuitBreaker("dummy"));
+        assertThat(
+            GroupByOptimizedIterator.GroupStates.create(keys, Integer.MAX_VALUE, ramAccounting),
+            instanceOf(GroupByOptimizedIterator.SparseGroupStates.class));
+        assertThat(ramAccounting.totalBytes(), is(0L));
+    }
+
+    @Test
+    public void testGroupStatesWithMoreCombinationsThanDocsAreSparse() {
+        GroupByOptimizedIterator.KeyColumn x = new GroupByOptimizedIterator.NumericKeyColumn("x", DataTypes.INTEGER);
+        x.cardinality = 99;
+        RamAccountingContext ramAccounting = new RamAccountingContext("dummy", new NoopCircuitBreaker("dummy"));
+
+        assertThat(
+            GroupByOptimizedIterator.GroupStates.create(
+                new GroupByOptimizedIterator.KeyColumn[] { x }, 10, ramAccounting),
+            instanceOf(GroupByOptimizedIterator.SparseGroupStates.class));
+    }
+
+    private static GroupByOptimizedIterator.KeyColumn keywordColumn(String name) {
+        KeywordFieldMapper.KeywordFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+        fieldType.setName(name);
+        return new GroupByOptimizedIterator.OrdinalsKeyColumn(fieldType);
     }
 }
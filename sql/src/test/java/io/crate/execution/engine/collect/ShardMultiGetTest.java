@@ -0,0 +1,108 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import io.crate.planner.operators.PKAndVersion;
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.VersionFieldMapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ShardMultiGetTest extends CrateUnitTest {
+
+    private static Document newDoc(String id, long version) {
+        Document doc = new Document();
+        doc.add(new StringField(IdFieldMapper.NAME, id, Field.Store.NO));
+        doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, version));
+        doc.add(new StoredField(SourceFieldMapper.NAME, new BytesRef("{\"id\": \"" + id + "\"}")));
+        return doc;
+    }
+
+    private static Term uid(String id) {
+        return new Term(IdFieldMapper.NAME, id);
+    }
+
+    @Test
+    public void testLookupResolvesLiveDocumentsAcrossSegments() throws Exception {
+        IndexWriter iw = new IndexWriter(
+            new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        iw.addDocument(newDoc("1", 1L));
+        iw.addDocument(newDoc("2", 1L));
+        iw.commit();
+        iw.addDocument(newDoc("3", 1L));
+        iw.addDocument(newDoc("4", 1L));
+        iw.commit();
+        // update of 2 and delete of 4 leave deleted documents in the older segments
+        iw.updateDocument(uid("2"), newDoc("2", 2L));
+        iw.deleteDocuments(uid("4"));
+        iw.commit();
+
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+            assertThat(reader.leaves().size(), is(3));
+            ShardMultiGet.Doc[] docs = ShardMultiGet.lookup(
+                reader, new Term[] { uid("3"), uid("4"), uid("1"), uid("5"), uid("2") });
+
+            assertThat(docs.length, is(5));
+            assertThat(docs[0].version, is(1L));
+            assertThat(docs[0].source.utf8ToString(), is("{\"id\": \"3\"}"));
+            assertThat(docs[1], nullValue());
+            assertThat(docs[2], notNullValue());
+            assertThat(docs[2].source.utf8ToString(), is("{\"id\": \"1\"}"));
+            assertThat(docs[3], nullValue());
+            assertThat(docs[4].version, is(2L));
+            assertThat(docs[4].source.utf8ToString(), is("{\"id\": \"2\"}"));
+        }
+        iw.close();
+    }
+
+    @Test
+    public void testOnlyManyIdsWithoutVersionAreBatched() {
+        PKAndVersion id1 = new PKAndVersion("1", Versions.MATCH_ANY);
+        PKAndVersion id2 = new PKAndVersion("2", Versions.MATCH_ANY);
+        assertThat(ShardMultiGet.canBatch(Collections.singletonList(id1)), is(false));
+        assertThat(ShardMultiGet.canBatch(Arrays.asList(id1, id2)), is(true));
+        assertThat(ShardMultiGet.canBatch(Arrays.asList(id1, new PKAndVersion("2", 3L))), is(false));
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.execution.engine.collect.collectors;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.RAMDirectory;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+public class LeafSlicesTest extends CrateUnitTest {
+
+    private DirectoryReader reader;
+
+    @After
+    public void closeReader() throws Exception {
+        if (reader != null) {
+            reader.close();
+        }
+    }
+
+    /**
+     * Creates a reader with one leaf per entry of {@code docsPerSegment}, in the given order.
+     */
+    static DirectoryReader createReader(int... docsPerSegment) throws IOException {
+        IndexWriter iw = new IndexWriter(
+            new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        long value = 0;
+        for (int numDocs : docsPerSegment) {
+            for (int i = 0; i < numDocs; i++) {
+                Document doc = new Document();
+                doc.add(new NumericDocValuesField("x", value++));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(iw);
+        iw.close();
+        return reader;
+    }
+
+    @Test
+    public void testSmallShardIsNotSplit() throws Exception {
+        reader = createReader(40, 30, 20, 10);
+        List<LeafReaderContext> leaves = reader.leaves();
+
+        List<List<LeafReaderContext>> slices = LeafSlices.slices(leaves, 4, 101);
+
+        assertThat(slices.size(), is(1));
+        assertThat(slices.get(0), is(leaves));
+    }
+
+    @Test
+    public void testSingleSliceContainsAllLeaves() throws Exception {
+        reader = createReader(40, 30, 20, 10);
+        List<LeafReaderContext> leaves = reader.leaves();
+
+        assertThat(LeafSlices.slices(leaves, 1, 10), is(Arrays.asList(leaves)));
+    }
+
+    @Test
+    public void testLeavesAreDistributedToSlicesOfAboutTheSameSize() throws Exception {
+        reader = createReader(40, 30, 20, 10);
+        List<LeafReaderContext> leaves = reader.leaves();
+        assertThat(leaves.size(), is(4));
+
+        List<List<LeafReaderContext>> slices = LeafSlices.slices(leaves, 2, 10);
+
+        // largest first, each into the smallest slice: 40 -> 0, 30 -> 1, 20 -> 1, 10 -> 0
+        assertThat(slices.size(), is(2));
+        assertThat(slices.get(0), contains(leaves.get(0), leaves.get(3)));
+        assertThat(slices.get(1), contains(leaves.get(1), leaves.get(2)));
+    }
+
+    @Test
+    public void testNumberOfSlicesIsLimitedByLeavesAndMinDocsPerSlice() throws Exception {
+        reader = createReader(40, 30, 20, 10);
+        List<LeafReaderContext> leaves = reader.leaves();
+
+        assertThat(LeafSlices.slices(leaves, 8, 10).size(), is(4));
+        assertThat(LeafSlices.slices(leaves, 8, 40).size(), is(2));
+    }
+
+    @Test
+    public void testLeavesWithinSliceAreInIndexOrder() throws Exception {
+        reader = createReader(10, 40, 10, 30, 10);
+        List<LeafReaderContext> leaves = reader.leaves();
+
+        List<List<LeafReaderContext>> slices = LeafSlices.slices(leaves, 2, 10);
+
+        assertThat(slices.size(), is(2));
+        for (List<LeafReaderContext> slice : slices) {
+            int numDocs = 0;
+            for (int i = 0; i < slice.size(); i++) {
+                if (i > 0) {
+                    assertThat(slice.get(i - 1).docBase < slice.get(i).docBase, is(true));
+                }
+                numDocs += slice.get(i).reader().maxDoc();
+            }
+            assertThat(numDocs, is(50));
+        }
+    }
+}
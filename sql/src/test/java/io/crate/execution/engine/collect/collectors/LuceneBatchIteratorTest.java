@@ -23,6 +23,8 @@
 package io.crate.execution.engine.collect.collectors;
 
 import io.crate.breaker.RamAccountingContext;
+import io.crate.data.BatchIterators;
+import io.crate.data.Row;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
 import io.crate.expression.reference.doc.lucene.LongColumnReference;
 import io.crate.test.integration.CrateUnitTest;
@@ -33,6 +35,7 @@ import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.store.RAMDirectory;
@@ -43,6 +46,10 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.core.Is.is;
 
 public class LuceneBatchIteratorTest extends CrateUnitTest {
 
@@ -88,4 +95,41 @@ public class LuceneBatchIteratorTest extends CrateUnitTest {
         );
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
+
+    @Test
+    public void testSlicesOfLeavesTogetherReturnAllDocuments() throws Exception {
+        try (DirectoryReader reader = LeafSlicesTest.createReader(40, 30, 20, 10)) {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            List<List<LeafReaderContext>> slices = LeafSlices.slices(reader.leaves(), 3, 10);
+            assertThat(slices.size(), is(3));
+
+            List<Object> values = new ArrayList<>();
+            for (List<LeafReaderContext> slice : slices) {
+                // like the collect phase, every slice gets its own expressions
+                List<LongColumnReference> sliceColumnRefs = Collections.singletonList(new LongColumnReference("x"));
+                LuceneBatchIterator it = new LuceneBatchIterator(
+                    searcher,
+                    slice,
+                    new MatchAllDocsQuery(),
+                    null,
+                    false,
+                    new CollectorContext(
+                        mappedFieldType -> null,
+                        new CollectorFieldsVisitor(0)
+                    ),
+                    new RamAccountingContext("dummy", new NoopCircuitBreaker("dummy")),
+                    sliceColumnRefs,
+                    sliceColumnRefs
+                );
+                values.addAll(
+                    BatchIterators.collect(it, Collectors.mapping((Row row) -> row.get(0), Collectors.toList())).get());
+                it.close();
+            }
+            Object[] expected = new Object[100];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = (long) i;
+            }
+            assertThat(values, containsInAnyOrder(expected));
+        }
+    }
 }
@@ -47,6 +47,8 @@ import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Sort;
@@ -68,6 +70,7 @@ import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
 import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -82,6 +85,7 @@ public class OrderedLuceneBatchIteratorFactoryTest extends CrateUnitTest {
     private Reference reference = createReference(columnName, DataTypes.LONG);
     private IndexSearcher searcher1;
     private IndexSearcher searcher2;
+    private IndexSearcher multiSegmentSearcher;
     private OrderBy orderBy;
     private List<Object[]> expectedResult;
     private boolean[] reverseFlags = new boolean[]{true};
@@ -91,6 +95,8 @@ public class OrderedLuceneBatchIteratorFactoryTest extends CrateUnitTest {
     public void prepareSearchers() throws Exception {
         IndexWriter iw1 = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
         IndexWriter iw2 = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        IndexWriter iw3 = new IndexWriter(
+            new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
 
         expectedResult = LongStream.range(0, 20)
             .mapToObj(i -> new Object[]{i})
@@ -106,12 +112,17 @@ public class OrderedLuceneBatchIteratorFactoryTest extends CrateUnitTest {
             } else {
                 iw2.addDocument(doc);
             }
+            iw3.addDocument(doc);
+            if (i % 5 == 4) {
+                iw3.commit();
+            }
         }
         iw1.commit();
         iw2.commit();
 
         searcher1 = new IndexSearcher(DirectoryReader.open(iw1));
         searcher2 = new IndexSearcher(DirectoryReader.open(iw2));
+        multiSegmentSearcher = new IndexSearcher(DirectoryReader.open(iw3));
         orderBy = new OrderBy(
             Collections.singletonList(reference),
             reverseFlags,
@@ -138,6 +149,29 @@ public class OrderedLuceneBatchIteratorFactoryTest extends CrateUnitTest {
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
 
+    @Test
+    public void testOrderedLuceneBatchIteratorWithSlicesOfOneShard() throws Exception {
+        List<List<LeafReaderContext>> slices =
+            LeafSlices.slices(multiSegmentSearcher.getTopReaderContext().leaves(), 2, 1);
+        assertThat(slices.size(), is(2));
+
+        ShardId shardId = new ShardId("dummy", UUIDs.randomBase64UUID(), 1);
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> OrderedLuceneBatchIteratorFactory.newInstance(
+                Arrays.asList(
+                    createOrderedCollector(new SliceIndexSearcher(multiSegmentSearcher, slices.get(0)), shardId),
+                    createOrderedCollector(new SliceIndexSearcher(multiSegmentSearcher, slices.get(1)), shardId)
+                ),
+                OrderingByPosition.rowOrdering(new int[]{0}, reverseFlags, nullsFirst),
+                ROW_ACCOUNTING,
+                MoreExecutors.directExecutor(),
+                () -> 1,
+                true
+            )
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
     @Test
     public void testSingleCollectorOrderedLuceneBatchIteratorTripsCircuitBreaker() throws Exception {
         RowAccounting rowAccounting = mock(RowAccounting.class);
@@ -188,6 +222,10 @@ public class OrderedLuceneBatchIteratorFactoryTest extends CrateUnitTest {
     }
 
     private LuceneOrderedDocCollector createOrderedCollector(IndexSearcher searcher, int shardId) {
+        return createOrderedCollector(searcher, new ShardId("dummy", UUIDs.randomBase64UUID(), shardId));
+    }
+
+    private LuceneOrderedDocCollector createOrderedCollector(IndexSearcher searcher, ShardId shardId) {
         CollectorContext collectorContext = new CollectorContext(
             mappedFieldType -> null,
             new CollectorFieldsVisitor(0)
@@ -195,7 +233,7 @@ public class OrderedLuceneBatchIteratorFactoryTest extends CrateUnitTest {
         List<LuceneCollectorExpression<?>> expressions = Collections.singletonList(
             new OrderByCollectorExpression(reference, orderBy, o -> o));
         return new LuceneOrderedDocCollector(
-            new ShardId("dummy", UUIDs.randomBase64UUID(), shardId),
+            shardId,
             searcher,
             new MatchAllDocsQuery(),
             null,
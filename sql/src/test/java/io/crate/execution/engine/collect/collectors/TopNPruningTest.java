@@ -0,0 +1,184 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import io.crate.analyze.OrderBy;
+import io.crate.expression.symbol.Symbol;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.MultiCollector;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TopNPruningTest extends CrateUnitTest {
+
+    private static final int NUM_SEGMENTS = 10;
+    private static final int DOCS_PER_SEGMENT = 100;
+
+    private IndexSearcher searcher;
+    private NumberFieldMapper.NumberFieldType fieldType;
+
+    @Before
+    public void prepareIndex() throws Exception {
+        IndexWriter iw = new IndexWriter(
+            new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        // each segment contains the next range of values, like time-series data
+        for (long segment = 0; segment < NUM_SEGMENTS; segment++) {
+            for (long i = 0; i < DOCS_PER_SEGMENT; i++) {
+                long value = segment * DOCS_PER_SEGMENT + i;
+                Document doc = new Document();
+                doc.add(new LongPoint("x", value));
+                doc.add(new SortedNumericDocValuesField("x", value));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        searcher = new IndexSearcher(DirectoryReader.open(iw));
+        assertThat(searcher.getIndexReader().leaves().size(), is(NUM_SEGMENTS));
+
+        fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName("x");
+        fieldType.setHasDocValues(true);
+        fieldType.setIndexOptions(IndexOptions.DOCS);
+    }
+
+    private TopNPruning pruning(boolean reverse) {
+        List<Symbol> orderBySymbols = Collections.singletonList(createReference("x", DataTypes.LONG));
+        TopNPruning pruning = TopNPruning.forOrderBy(
+            new OrderBy(orderBySymbols, new boolean[]{reverse}, new Boolean[]{null}),
+            columnName -> columnName.equals("x") ? fieldType : null
+        );
+        assertThat(pruning, notNullValue());
+        return pruning;
+    }
+
+    private long[] search(TopNPruning pruning, boolean reverse, int numHits, TotalHitCountCollector collectedDocs) throws Exception {
+        TopFieldCollector topFieldCollector = TopFieldCollector.create(
+            new Sort(new SortedNumericSortField("x", SortField.Type.LONG, reverse)), numHits, true, false, false);
+        searcher.search(new MatchAllDocsQuery(), pruning.wrap(MultiCollector.wrap(topFieldCollector, collectedDocs), numHits));
+        ScoreDoc[] scoreDocs = topFieldCollector.topDocs().scoreDocs;
+        long[] values = new long[scoreDocs.length];
+        for (int i = 0; i < scoreDocs.length; i++) {
+            values[i] = (long) ((FieldDoc) scoreDocs[i]).fields[0];
+        }
+        return values;
+    }
+
+    @Test
+    public void testSegmentsWhichCantCompeteAreSkipped() throws Exception {
+        TotalHitCountCollector collectedDocs = new TotalHitCountCollector();
+        long[] values = search(pruning(false), false, 10, collectedDocs);
+
+        assertThat(values, is(new long[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}));
+        assertThat(collectedDocs.getTotalHits(), is(DOCS_PER_SEGMENT));
+    }
+
+    @Test
+    public void testSegmentsAreNotSkippedIfTheyMayContainBetterValues() throws Exception {
+        TotalHitCountCollector collectedDocs = new TotalHitCountCollector();
+        long[] values = search(pruning(true), true, 3, collectedDocs);
+
+        assertThat(values, is(new long[]{999, 998, 997}));
+        assertThat(collectedDocs.getTotalHits(), is(NUM_SEGMENTS * DOCS_PER_SEGMENT));
+    }
+
+    @Test
+    public void testPagingThroughTiesSpreadOverSegments() throws Exception {
+        IndexWriter iw = new IndexWriter(
+            new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        long[][] segments = {{5, 5, 5}, {5, 6}};
+        for (long[] segment : segments) {
+            for (long value : segment) {
+                Document doc = new Document();
+                doc.add(new LongPoint("x", value));
+                doc.add(new SortedNumericDocValuesField("x", value));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        IndexSearcher searcher = new IndexSearcher(DirectoryReader.open(iw));
+        assertThat(searcher.getIndexReader().leaves().size(), is(2));
+
+        TopNPruning pruning = pruning(false);
+        Sort sort = new Sort(new SortedNumericSortField("x", SortField.Type.LONG, false));
+        int batchSize = 2;
+        List<Long> values = new ArrayList<>();
+        FieldDoc lastDoc = null;
+        while (true) {
+            TopFieldCollector topFieldCollector = TopFieldCollector.create(
+                sort, batchSize, lastDoc, true, false, false);
+            searcher.search(new MatchAllDocsQuery(), lastDoc == null
+                ? pruning.wrap(topFieldCollector, batchSize)
+                : pruning.wrap(topFieldCollector, batchSize, searcher.getIndexReader(), lastDoc));
+            ScoreDoc[] scoreDocs = topFieldCollector.topDocs().scoreDocs;
+            for (ScoreDoc scoreDoc : scoreDocs) {
+                values.add((long) ((FieldDoc) scoreDoc).fields[0]);
+            }
+            if (scoreDocs.length < batchSize) {
+                break;
+            }
+            lastDoc = (FieldDoc) scoreDocs[scoreDocs.length - 1];
+        }
+        assertThat(values, is(Arrays.asList(5L, 5L, 5L, 5L, 6L)));
+    }
+
+    @Test
+    public void testNoPruningForNonNumericColumns() throws Exception {
+        List<Symbol> orderBySymbols = Collections.singletonList(createReference("s", DataTypes.STRING));
+        TopNPruning pruning = TopNPruning.forOrderBy(
+            new OrderBy(orderBySymbols, new boolean[]{false}, new Boolean[]{null}),
+            columnName -> fieldType
+        );
+        assertThat(pruning, nullValue());
+    }
+}
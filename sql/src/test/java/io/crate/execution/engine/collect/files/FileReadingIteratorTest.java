@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.collect.files;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import io.crate.data.BatchIterator;
 import io.crate.data.Input;
@@ -46,6 +47,7 @@ import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -55,6 +57,8 @@ import java.util.function.Supplier;
 import static io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat.CSV;
 import static io.crate.execution.dsl.phases.FileUriCollectPhase.InputFormat.JSON;
 import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 
 public class FileReadingIteratorTest extends CrateUnitTest {
 
@@ -162,6 +166,84 @@ public class FileReadingIteratorTest extends CrateUnitTest {
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
 
+    @Test
+    public void testLargeFileIsSplitIntoLineAlignedRangesAcrossReaders() throws Exception {
+        tempFilePath = createTempFile("tempfile", ".json");
+        tmpFile = tempFilePath.toFile();
+        List<String> lines = new ArrayList<>();
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 100; i++) {
+                String line = "{\"id\": " + i + ", \"name\": \"" + Strings.repeat("x", i % 7) + "\"}";
+                lines.add(line);
+                writer.write(line + "\n");
+            }
+        }
+        fileUri = tempFilePath.toUri().toString();
+
+        for (int numReaders = 2; numReaders < 8; numReaders++) {
+            List<String> readLines = new ArrayList<>();
+            for (int readerNumber = 0; readerNumber < numReaders; readerNumber++) {
+                readLines.addAll(readLines(createBatchIterator(
+                    Collections.singletonList(fileUri), JSON, numReaders, readerNumber, 1L)));
+            }
+            assertThat(readLines, is(lines));
+        }
+    }
+
+    @Test
+    public void testEveryRangeOfSplitCSVFileUsesHeader() throws Exception {
+        tempFilePath = createTempFile("tempfile", ".csv");
+        tmpFile = tempFilePath.toFile();
+        try (OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+            writer.write("name,id,age\n");
+            writer.write("Arthur,4,38\n");
+            writer.write("Trillian,5,33\n");
+        }
+        fileUri = tempFilePath.toUri().toString();
+
+        List<String> readLines = new ArrayList<>();
+        for (int readerNumber = 0; readerNumber < 2; readerNumber++) {
+            readLines.addAll(readLines(createBatchIterator(
+                Collections.singletonList(fileUri), CSV, 2, readerNumber, 1L)));
+        }
+        assertThat(readLines, contains(
+            new String(CSV_AS_MAP_FIRST_LINE, StandardCharsets.UTF_8),
+            new String(CSV_AS_MAP_SECOND_LINE, StandardCharsets.UTF_8)));
+    }
+
+    private static List<String> readLines(BatchIterator<Row> iterator) {
+        List<String> lines = new ArrayList<>();
+        while (iterator.moveNext()) {
+            lines.add(((BytesRef) iterator.currentElement().get(0)).utf8ToString());
+        }
+        iterator.close();
+        return lines;
+    }
+
+    private BatchIterator<Row> createBatchIterator(Collection<String> fileUris,
+                                                   FileUriCollectPhase.InputFormat format,
+                                                   int numReaders,
+                                                   int readerNumber,
+                                                   long minSplitSize) {
+        Reference raw = createReference("_raw", DataTypes.STRING);
+        InputFactory.Context<LineCollectorExpression<?>> ctx =
+            inputFactory.ctxForRefs(FileLineReferenceResolver::getImplementation);
+
+        List<Input<?>> inputs = Collections.singletonList(ctx.add(raw));
+        return FileReadingIterator.newInstance(
+            fileUris,
+            inputs,
+            ctx.expressions(),
+            null,
+            ImmutableMap.of(
+                LocalFsFileInputFactory.NAME, new LocalFsFileInputFactory()),
+            true,
+            numReaders,
+            readerNumber,
+            format,
+            minSplitSize);
+    }
+
     private BatchIterator<Row> createBatchIterator(Collection<String> fileUris, String compression, FileUriCollectPhase.InputFormat format) {
         Reference raw = createReference("_raw", DataTypes.STRING);
         InputFactory.Context<LineCollectorExpression<?>> ctx =
@@ -27,11 +27,12 @@ import com.google.common.collect.Iterables;
 import io.crate.auth.user.User;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccountingContext;
-import io.crate.core.collections.BlockingEvictingQueue;
+import io.crate.core.collections.RingBuffer;
 import io.crate.expression.reference.sys.job.JobContext;
 import io.crate.expression.reference.sys.job.JobContextLog;
 import io.crate.expression.reference.sys.operation.OperationContext;
 import io.crate.expression.reference.sys.operation.OperationContextLog;
+import io.crate.metadata.sys.StatementHistograms;
 import io.crate.planner.Plan;
 import io.crate.planner.operators.StatementClassifier;
 import io.crate.plugin.SQLPlugin;
@@ -192,9 +193,9 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
         assertThat(operationsLogSink.get(), Matchers.instanceOf(QueueSink.class));
 
         assertThat(inspectRamAccountingQueue((QueueSink) ((FilteredLogSink) jobsLogSink.get()).delegate),
-            Matchers.instanceOf(BlockingEvictingQueue.class));
+            Matchers.instanceOf(RingBuffer.class));
         assertThat(inspectRamAccountingQueue((QueueSink) operationsLogSink.get()),
-            Matchers.instanceOf(BlockingEvictingQueue.class));
+            Matchers.instanceOf(RingBuffer.class));
 
         clusterSettings.applySettings(Settings.builder()
             .put(JobsLogService.STATS_JOBS_LOG_EXPIRATION_SETTING.getKey(), "10s")
@@ -224,10 +225,10 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
             .build());
         assertThat(jobsLogSink.get(), Matchers.instanceOf(FilteredLogSink.class));
         assertThat(inspectRamAccountingQueue((QueueSink) ((FilteredLogSink<JobContextLog>) jobsLogSink.get()).delegate),
-            Matchers.instanceOf(BlockingEvictingQueue.class));
+            Matchers.instanceOf(RingBuffer.class));
         assertThat(operationsLogSink.get(), Matchers.instanceOf(QueueSink.class));
         assertThat(inspectRamAccountingQueue((QueueSink) operationsLogSink.get()),
-            Matchers.instanceOf(BlockingEvictingQueue.class));
+            Matchers.instanceOf(RingBuffer.class));
 
         // disable stats
         clusterSettings.applySettings(Settings.builder()
@@ -384,7 +385,7 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
     public void testExecutionFailure() {
         JobsLogs jobsLogs = new JobsLogs(() -> true);
         User user = User.of("arthur");
-        Queue<JobContextLog> q = new BlockingEvictingQueue<>(1);
+        Queue<JobContextLog> q = new RingBuffer<>(1);
 
         jobsLogs.updateJobsLog(new QueueSink<>(q, ramAccountingContext::close));
         jobsLogs.logPreExecutionFailure(UUID.randomUUID(), "select foo", "stmt error", user);
@@ -400,7 +401,7 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
     @Test
     public void testUniqueOperationIdsInOperationsTable() {
         JobsLogs jobsLogs = new JobsLogs(() -> true);
-        Queue<OperationContextLog> q = new BlockingEvictingQueue<>(10);
+        Queue<OperationContextLog> q = new RingBuffer<>(10);
         jobsLogs.updateOperationsLog(new QueueSink<>(q, ramAccountingContext::close));
 
         OperationContext ctxA = new OperationContext(0, UUID.randomUUID(), "dummyOperation", 1L);
@@ -420,6 +421,27 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
         assertTrue(entries.contains(new OperationContextLog(ctxA, null)));
     }
 
+    @Test
+    public void testStatementStatsAreAggregatedByFingerprint() {
+        JobsLogs jobsLogs = new JobsLogs(() -> true);
+        User user = User.of("arthur");
+        StatementClassifier.Classification classification =
+            new StatementClassifier.Classification(Plan.StatementType.SELECT, Collections.singleton("Collect"));
+
+        UUID first = UUID.randomUUID();
+        jobsLogs.logExecutionStart(first, "select name from t where id = 1", user, classification);
+        jobsLogs.logExecutionEnd(first, null);
+        UUID second = UUID.randomUUID();
+        jobsLogs.logExecutionStart(second, "SELECT name FROM t WHERE id = 2", user, classification);
+        jobsLogs.logExecutionEnd(second, "failed");
+
+        List<StatementHistograms.StatementHistogram> stats = ImmutableList.copyOf(jobsLogs.statementStats());
+        assertThat(stats.size(), is(1));
+        assertThat(stats.get(0).statement(), is("select name from t where id = ?"));
+        assertThat(stats.get(0).calls(), is(2L));
+        assertThat(stats.get(0).errors(), is(1L));
+    }
+
     @Test
     public void testLowerBoundScheduler() {
         assertThat(JobsLogService.clearInterval(TimeValue.timeValueMillis(1L)), is(1000L));
@@ -33,6 +33,7 @@ import io.crate.data.RowConsumer;
 import io.crate.execution.dsl.phases.MergePhase;
 import io.crate.execution.dsl.phases.NodeOperation;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.metadata.Routing;
 import io.crate.metadata.RowGranularity;
 import io.crate.planner.distribution.DistributionInfo;
@@ -60,7 +61,8 @@ public class DistributingConsumerFactoryTest extends CrateDummyClusterServiceUni
             Settings.EMPTY,
             clusterService,
             THREAD_POOL,
-            mock(TransportDistributedResultAction.class)
+            mock(TransportDistributedResultAction.class),
+            new JobsLogs(() -> true)
         );
     }
 
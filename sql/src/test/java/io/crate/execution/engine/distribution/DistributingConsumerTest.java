@@ -26,6 +26,7 @@ import io.crate.Streamer;
 import io.crate.breaker.RamAccountingContext;
 import io.crate.data.CollectionBucket;
 import io.crate.data.Row;
+import io.crate.execution.engine.collect.stats.ExecutionMetrics;
 import io.crate.execution.engine.distribution.merge.PassThroughPagingIterator;
 import io.crate.execution.jobs.CumulativePageBucketReceiver;
 import io.crate.execution.jobs.DistResultRXTask;
@@ -152,7 +153,8 @@ public class DistributingConsumerTest extends CrateUnitTest {
             Collections.singletonList("n1"),
             distributedResultAction,
             streamers,
-            2 // pageSize
+            2, // pageSize
+            new ExecutionMetrics()
         );
     }
 
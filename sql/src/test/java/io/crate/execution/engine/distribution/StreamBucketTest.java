@@ -0,0 +1,141 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.Streamer;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+
+public class StreamBucketTest extends CrateUnitTest {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[]{
+        DataTypes.INTEGER.streamer(),
+        DataTypes.LONG.streamer(),
+        DataTypes.STRING.streamer(),
+        DataTypes.DOUBLE.streamer()
+    };
+
+    private static List<Object[]> rows(int numRows, int numDistinctStrings) {
+        List<Object[]> rows = new ArrayList<>(numRows);
+        for (int i = 0; i < numRows; i++) {
+            rows.add(new Object[]{
+                i % 7 == 0 ? null : i - numRows / 2,
+                i % 5 == 0 ? null : Long.MAX_VALUE - i * 1000L,
+                i % 3 == 0 ? null : new BytesRef("value-" + (i % numDistinctStrings)),
+                i % 11 == 0 ? null : i * 0.5d
+            });
+        }
+        return rows;
+    }
+
+    private static StreamBucket streamedCopy(StreamBucket.Builder builder, List<Object[]> rows) throws Exception {
+        for (Object[] cells : rows) {
+            builder.add(new RowN(cells));
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.build().writeTo(out);
+
+        StreamBucket bucket = new StreamBucket(STREAMERS);
+        StreamInput in = out.bytes().streamInput();
+        bucket.readFrom(in);
+        return bucket;
+    }
+
+    private static void assertRows(StreamBucket bucket, List<Object[]> expectedRows) {
+        assertThat(bucket.size(), is(expectedRows.size()));
+        int i = 0;
+        for (Row row : bucket) {
+            assertThat(row.materialize(), is(expectedRows.get(i)));
+            i++;
+        }
+        assertThat(i, is(expectedRows.size()));
+    }
+
+    private static int serializedSize(StreamBucket.Builder builder, List<Object[]> rows) throws Exception {
+        for (Object[] cells : rows) {
+            builder.add(new RowN(cells));
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.writeToStream(out);
+        return out.size();
+    }
+
+    @Test
+    public void testRowBucketStreaming() throws Exception {
+        List<Object[]> rows = rows(20, 3);
+        assertRows(streamedCopy(new StreamBucket.Builder(STREAMERS, null), rows), rows);
+    }
+
+    @Test
+    public void testColumnarBucketStreaming() throws Exception {
+        List<Object[]> rows = rows(20, 3);
+        assertRows(streamedCopy(StreamBucket.Builder.columnar(STREAMERS), rows), rows);
+    }
+
+    @Test
+    public void testColumnarBucketWithOnlyNullValues() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            rows.add(new Object[]{null, null, null, null});
+        }
+        assertRows(streamedCopy(StreamBucket.Builder.columnar(STREAMERS), rows), rows);
+    }
+
+    @Test
+    public void testLargeColumnarBucketIsCompressedAndSmallerThanRowBucket() throws Exception {
+        List<Object[]> rows = rows(5000, 10);
+        assertRows(streamedCopy(StreamBucket.Builder.columnar(STREAMERS), rows), rows);
+
+        int rowBucketSize = serializedSize(new StreamBucket.Builder(STREAMERS, null), rows);
+        int columnarBucketSize = serializedSize(StreamBucket.Builder.columnar(STREAMERS), rows);
+        assertThat(columnarBucketSize, lessThan(rowBucketSize / 2));
+    }
+
+    @Test
+    public void testColumnarBucketWithMoreDistinctStringsThanTheDictionaryHolds() throws Exception {
+        List<Object[]> rows = rows(40_000, 40_000);
+        assertRows(streamedCopy(StreamBucket.Builder.columnar(STREAMERS), rows), rows);
+    }
+
+    @Test
+    public void testColumnarBuilderCanBeReusedAfterReset() throws Exception {
+        StreamBucket.Builder builder = StreamBucket.Builder.columnar(STREAMERS);
+        streamedCopy(builder, rows(30, 3));
+        builder.reset();
+
+        List<Object[]> rows = rows(10, 2);
+        assertRows(streamedCopy(builder, rows), rows);
+    }
+}
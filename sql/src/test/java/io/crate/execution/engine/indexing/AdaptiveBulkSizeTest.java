@@ -0,0 +1,70 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.indexing;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class AdaptiveBulkSizeTest extends CrateUnitTest {
+
+    @Test
+    public void testStartsWithMaxSize() {
+        AdaptiveBulkSize bulkSize = new AdaptiveBulkSize(10_000);
+        assertThat(bulkSize.get(), is(10_000));
+    }
+
+    @Test
+    public void testRejectionHalvesSizeDownToMinimum() {
+        AdaptiveBulkSize bulkSize = new AdaptiveBulkSize(10_000);
+        bulkSize.onRejection();
+        assertThat(bulkSize.get(), is(5_000));
+        for (int i = 0; i < 20; i++) {
+            bulkSize.onRejection();
+        }
+        assertThat(bulkSize.get(), is(312));
+    }
+
+    @Test
+    public void testResponsesGrowSizeAdditivelyUpToMaxSize() {
+        AdaptiveBulkSize bulkSize = new AdaptiveBulkSize(10_000);
+        bulkSize.onRejection();
+        bulkSize.onResponse();
+        assertThat(bulkSize.get(), is(5_625));
+        for (int i = 0; i < 10; i++) {
+            bulkSize.onResponse();
+        }
+        assertThat(bulkSize.get(), is(10_000));
+    }
+
+    @Test
+    public void testSmallBulkSizeNeverDropsBelowOne() {
+        AdaptiveBulkSize bulkSize = new AdaptiveBulkSize(2);
+        bulkSize.onRejection();
+        bulkSize.onRejection();
+        assertThat(bulkSize.get(), is(1));
+        bulkSize.onResponse();
+        assertThat(bulkSize.get(), is(2));
+    }
+}
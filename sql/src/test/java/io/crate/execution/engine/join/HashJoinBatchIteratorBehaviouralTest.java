@@ -43,7 +43,7 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
 
-public class HashInnerJoinBatchIteratorBehaviouralTest {
+public class HashJoinBatchIteratorBehaviouralTest {
 
     private int originalPageSize = Paging.PAGE_SIZE;
 
@@ -67,7 +67,7 @@ public class HashInnerJoinBatchIteratorBehaviouralTest {
         BatchSimulatingIterator<Row> rightIterator = new BatchSimulatingIterator<>(
             TestingBatchIterators.ofValues(Arrays.asList(2, 0, 4, 5)), 2, 1, null);
 
-        BatchIterator<Row> batchIterator = new HashInnerJoinBatchIterator<>(
+        BatchIterator<Row> batchIterator = new HashJoinBatchIterator<>(
                 leftIterator,
                 rightIterator,
                 new CombinedRow(1, 1),
@@ -99,7 +99,7 @@ public class HashInnerJoinBatchIteratorBehaviouralTest {
         BatchSimulatingIterator<Row> rightIterator = new BatchSimulatingIterator<>(
             TestingBatchIterators.ofValues(Arrays.asList(2, 0, 4, 5)), 2, 1, null);
 
-        BatchIterator<Row> batchIterator = new HashInnerJoinBatchIterator<>(
+        BatchIterator<Row> batchIterator = new HashJoinBatchIterator<>(
             leftIterator,
             rightIterator,
             new CombinedRow(1, 1),
@@ -41,7 +41,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-public class HashInnerJoinBatchIteratorMemoryTest {
+public class HashJoinBatchIteratorMemoryTest {
 
     private final CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
 
@@ -67,7 +67,7 @@ public class HashInnerJoinBatchIteratorMemoryTest {
         when(circuitBreaker.getLimit()).thenReturn(110L);
         when(circuitBreaker.getUsed()).thenReturn(10L);
 
-        BatchIterator<Row> it = new HashInnerJoinBatchIterator<>(
+        BatchIterator<Row> it = new HashJoinBatchIterator<>(
             leftIterator,
             rightIterator,
             new CombinedRow(1, 1),
@@ -26,23 +26,34 @@ import com.carrotsearch.randomizedtesting.RandomizedRunner;
 import com.carrotsearch.randomizedtesting.annotations.Name;
 import com.carrotsearch.randomizedtesting.annotations.ParametersFactory;
 import com.carrotsearch.randomizedtesting.annotations.ThreadLeakScope;
+import io.crate.Streamer;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.Row;
 import io.crate.data.join.CombinedRow;
+import io.crate.execution.engine.SpillFiles;
+import io.crate.planner.node.dql.join.JoinType;
 import io.crate.testing.BatchIteratorTester;
 import io.crate.testing.BatchSimulatingIterator;
 import io.crate.testing.TestingBatchIterators;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
 import static org.mockito.Mockito.mock;
@@ -50,13 +61,22 @@ import static org.mockito.Mockito.when;
 
 @RunWith(RandomizedRunner.class)
 @ThreadLeakScope(ThreadLeakScope.Scope.NONE)
-public class HashInnerJoinBatchIteratorTest {
+public class HashJoinBatchIteratorTest {
 
     private final CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
     private final List<Object[]> expectedResult;
     private final Supplier<RamAccountingBatchIterator<Row>> leftIterator;
     private final Supplier<RamAccountingBatchIterator<Row>> rightIterator;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private SpillFiles spillFiles;
+
+    @Before
+    public void createSpillFiles() throws Exception {
+        spillFiles = new SpillFiles(temporaryFolder.getRoot().toPath().resolve("tmp"), 0.5d);
+    }
+
     private static Predicate<Row> getCol0EqCol1JoinCondition() {
         return row -> Objects.equals(row.get(0), row.get(1));
     }
@@ -73,7 +93,7 @@ public class HashInnerJoinBatchIteratorTest {
         return row -> (Integer) row.get(0) % 3;
     }
 
-    public HashInnerJoinBatchIteratorTest(@SuppressWarnings("unused") @Name("dataSetName") String testName,
+    public HashJoinBatchIteratorTest(@SuppressWarnings("unused") @Name("dataSetName") String testName,
                                           @Name("dataForLeft") Supplier<RamAccountingBatchIterator<Row>> leftIterator,
                                           @Name("dataForRight") Supplier<RamAccountingBatchIterator<Row>> rightIterator,
                                           @Name("expectedResult") List<Object[]> expectedResult) {
@@ -133,7 +153,7 @@ public class HashInnerJoinBatchIteratorTest {
 
     @Test
     public void testInnerHashJoin() throws Exception {
-        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator<>(
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashJoinBatchIterator<>(
             leftIterator.get(),
             rightIterator.get(),
             new CombinedRow(1, 1),
@@ -148,7 +168,7 @@ public class HashInnerJoinBatchIteratorTest {
 
     @Test
     public void testInnerHashJoinWithHashCollisions() throws Exception {
-        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator<>(
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashJoinBatchIterator<>(
             leftIterator.get(),
             rightIterator.get(),
             new CombinedRow(1, 1),
@@ -163,7 +183,7 @@ public class HashInnerJoinBatchIteratorTest {
 
     @Test
     public void testInnerHashJoinWithBlockSizeSmallerThanDataSet() throws Exception {
-        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator<>(
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashJoinBatchIterator<>(
             leftIterator.get(),
             rightIterator.get(),
             new CombinedRow(1, 1),
@@ -178,7 +198,7 @@ public class HashInnerJoinBatchIteratorTest {
 
     @Test
     public void testInnerHashJoinWithBlockSizeBiggerThanIteratorBatchSize() throws Exception {
-        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator<>(
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashJoinBatchIterator<>(
             leftIterator.get(),
             rightIterator.get(),
             new CombinedRow(1, 1),
@@ -190,4 +210,133 @@ public class HashInnerJoinBatchIteratorTest {
         BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
+
+    @Test
+    public void testInnerHashJoinWithPartitionsOnDisk() throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashJoinBatchIterator<>(
+            leftIterator.get(),
+            rightIterator.get(),
+            new CombinedRow(1, 1),
+            JoinType.INNER,
+            getCol0EqCol1JoinCondition(),
+            getHashForLeft(),
+            getHashForRight(),
+            () -> 2,
+            () -> new HashJoinPartitions(
+                spillFiles,
+                new Streamer[] { DataTypes.INTEGER.streamer() }, new Streamer[] { DataTypes.INTEGER.streamer() }, 3)
+        );
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testInnerHashJoinWithPartitionsOnDiskAndHashCollisions() throws Exception {
+        // all rows end up in the same few partitions, which exceed the block size
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashJoinBatchIterator<>(
+            leftIterator.get(),
+            rightIterator.get(),
+            new CombinedRow(1, 1),
+            JoinType.INNER,
+            getCol0EqCol1JoinCondition(),
+            getHashWithCollisions(),
+            getHashWithCollisions(),
+            () -> 1,
+            () -> new HashJoinPartitions(
+                spillFiles,
+                new Streamer[] { DataTypes.INTEGER.streamer() }, new Streamer[] { DataTypes.INTEGER.streamer() }, 2)
+        );
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testLeftHashJoin() throws Exception {
+        verifyJoin(JoinType.LEFT);
+    }
+
+    @Test
+    public void testRightHashJoin() throws Exception {
+        verifyJoin(JoinType.RIGHT);
+    }
+
+    @Test
+    public void testFullOuterHashJoin() throws Exception {
+        verifyJoin(JoinType.FULL);
+    }
+
+    @Test
+    public void testSemiHashJoin() throws Exception {
+        verifyJoin(JoinType.SEMI);
+    }
+
+    @Test
+    public void testAntiHashJoin() throws Exception {
+        verifyJoin(JoinType.ANTI);
+    }
+
+    /**
+     * Verifies the join with one and multiple blocks and with partitions on disk
+     * against the result of a nested loop over the values of both sides.
+     */
+    private void verifyJoin(JoinType joinType) throws Exception {
+        List<Object[]> expected = nestedLoopResult(joinType);
+        for (int blockSize : new int[] { 1, 3, 10 }) {
+            for (boolean withPartitions : new boolean[] { false, true }) {
+                Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashJoinBatchIterator<>(
+                    leftIterator.get(),
+                    rightIterator.get(),
+                    new CombinedRow(1, 1),
+                    joinType,
+                    getCol0EqCol1JoinCondition(),
+                    getHashWithCollisions(),
+                    getHashWithCollisions(),
+                    () -> blockSize,
+                    withPartitions
+                        ? () -> new HashJoinPartitions(
+                            spillFiles,
+                            new Streamer[] { DataTypes.INTEGER.streamer() },
+                            new Streamer[] { DataTypes.INTEGER.streamer() },
+                            2)
+                        : null
+                );
+                BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+                tester.verifyResultAndEdgeCaseBehaviour(expected);
+            }
+        }
+    }
+
+    private List<Object[]> nestedLoopResult(JoinType joinType) throws Exception {
+        List<Object[]> leftRows = BatchIterators.collect(
+            leftIterator.get(), Collectors.mapping(Row::materialize, Collectors.toList())).get(10, TimeUnit.SECONDS);
+        List<Object[]> rightRows = BatchIterators.collect(
+            rightIterator.get(), Collectors.mapping(Row::materialize, Collectors.toList())).get(10, TimeUnit.SECONDS);
+
+        List<Object[]> result = new ArrayList<>();
+        boolean[] rightMatched = new boolean[rightRows.size()];
+        for (Object[] leftRow : leftRows) {
+            boolean matched = false;
+            for (int i = 0; i < rightRows.size(); i++) {
+                Object[] rightRow = rightRows.get(i);
+                if (Objects.equals(leftRow[0], rightRow[0])) {
+                    matched = true;
+                    rightMatched[i] = true;
+                    if (joinType != JoinType.SEMI && joinType != JoinType.ANTI) {
+                        result.add(new Object[] { leftRow[0], rightRow[0] });
+                    }
+                }
+            }
+            if (matched ? joinType == JoinType.SEMI : joinType != JoinType.INNER && joinType != JoinType.RIGHT) {
+                result.add(new Object[] { leftRow[0], null });
+            }
+        }
+        if (joinType == JoinType.RIGHT || joinType == JoinType.FULL) {
+            for (int i = 0; i < rightRows.size(); i++) {
+                if (rightMatched[i] == false) {
+                    result.add(new Object[] { null, rightRows.get(i)[0] });
+                }
+            }
+        }
+        return result;
+    }
 }
@@ -33,6 +33,7 @@ import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.projection.FilterProjection;
 import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.WriterProjection;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.expression.InputFactory;
@@ -84,7 +85,7 @@ public class ProjectingRowConsumerTest extends CrateUnitTest {
 
 
     @Before
-    public void prepare() {
+    public void prepare() throws Exception {
         functions = getFunctions();
         threadPool = new TestThreadPool(Thread.currentThread().getName());
         projectorFactory = new ProjectionToProjectorVisitor(
@@ -104,6 +105,7 @@ public class ProjectingRowConsumerTest extends CrateUnitTest {
             t -> null,
             Version.CURRENT,
             BigArrays.NON_RECYCLING_INSTANCE,
+            new SpillFiles(createTempDir(), 0.0d),
             new ShardId("dummy", UUID.randomUUID().toString(), 0)
         );
     }
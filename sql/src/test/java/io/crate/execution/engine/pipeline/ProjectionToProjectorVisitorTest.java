@@ -42,6 +42,7 @@ import io.crate.execution.dsl.projection.FilterProjection;
 import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.OrderedTopNProjection;
 import io.crate.execution.dsl.projection.TopNProjection;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.aggregation.AggregationPipe;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.engine.aggregation.impl.AverageAggregation;
@@ -102,7 +103,7 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
     private ThreadPool threadPool;
 
     @Before
-    public void prepare() {
+    public void prepare() throws Exception {
         MockitoAnnotations.initMocks(this);
         functions = getFunctions();
         threadPool = new TestThreadPool("testing");
@@ -117,7 +118,8 @@ public class ProjectionToProjectorVisitorTest extends CrateUnitTest {
             EvaluatingNormalizer.functionOnlyNormalizer(functions),
             t -> null,
             t -> null,
-            BigArrays.NON_RECYCLING_INSTANCE
+            BigArrays.NON_RECYCLING_INSTANCE,
+            new SpillFiles(createTempDir(), 0.0d)
         );
 
         countInfo = new FunctionInfo(
@@ -26,6 +26,7 @@ import io.crate.breaker.RamAccountingContext;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.projection.FilterProjection;
 import io.crate.execution.dsl.projection.GroupProjection;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.expression.InputFactory;
@@ -82,6 +83,7 @@ public class ProjectorsTest extends CrateDummyClusterServiceUnitTest {
             t -> null,
             Version.CURRENT,
             BigArrays.NON_RECYCLING_INSTANCE,
+            new SpillFiles(createTempDir(), 0.0d),
             new ShardId("dummy", UUID.randomUUID().toString(), 0)
         );
     }
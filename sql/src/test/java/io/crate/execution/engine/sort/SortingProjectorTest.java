@@ -23,18 +23,37 @@
 package io.crate.execution.engine.sort;
 
 import com.google.common.collect.ImmutableList;
+import io.crate.breaker.RamAccountingContext;
 import io.crate.expression.symbol.Literal;
 import io.crate.data.BatchIterator;
 import io.crate.data.Bucket;
 import io.crate.data.Row;
+import io.crate.execution.engine.SpillFile;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.execution.engine.collect.InputCollectExpression;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.TestingBatchIterators;
 import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
 import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.core.Is.is;
 
 public class SortingProjectorTest extends CrateUnitTest {
@@ -88,4 +107,70 @@ public class SortingProjectorTest extends CrateUnitTest {
 
         new SortingProjector(null, null, 2, null, -1);
     }
+
+    private static long numFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testRowsAreSortedInRunsAndMergedIfBreakerIsNearItsLimit() throws Exception {
+        long originalBufferSize = RamAccountingContext.FLUSH_BUFFER_SIZE;
+        long originalMinSpillBytes = SortingProjector.MIN_SPILL_BYTES;
+        RamAccountingContext.FLUSH_BUFFER_SIZE = 0;
+        SortingProjector.MIN_SPILL_BYTES = 16 * 1024;
+        try {
+            MemoryCircuitBreaker breaker = new MemoryCircuitBreaker(
+                new ByteSizeValue(1, ByteSizeUnit.MB), 1.0, Loggers.getLogger(SortingProjectorTest.class));
+            // another query uses the same breaker; the rows alone would stay below the threshold
+            RamAccountingContext otherQuery = new RamAccountingContext("other", breaker);
+            otherQuery.addBytes(new ByteSizeValue(400, ByteSizeUnit.KB).getBytes());
+            RamAccountingContext ramAccountingContext = new RamAccountingContext("test", breaker);
+
+            Path spillDirectory = createTempDir();
+            AtomicInteger numRuns = new AtomicInteger(0);
+            SpillFiles spillFiles = new SpillFiles(spillDirectory, 0.5d) {
+                @Override
+                public SpillFile newFile(String prefix) {
+                    numRuns.incrementAndGet();
+                    return super.newFile(prefix);
+                }
+            };
+            InputCollectExpression input = new InputCollectExpression(0);
+            SortingProjector projector = new SortingProjector(
+                ImmutableList.of(input, Literal.of(true)),
+                ImmutableList.<CollectExpression<Row, ?>>of(input),
+                2,
+                OrderingByPosition.arrayOrdering(0, false, null),
+                10,
+                ImmutableList.of(DataTypes.LONG, DataTypes.BOOLEAN),
+                ramAccountingContext,
+                spillFiles
+            );
+            List<Long> values = new ArrayList<>();
+            for (long i = 0; i < 20_000; i++) {
+                values.add(i);
+            }
+            Collections.shuffle(values, new Random(42));
+
+            consumer.accept(projector.apply(TestingBatchIterators.ofValues(values)), null);
+            Bucket rows = consumer.getBucket();
+
+            assertThat(numRuns.get(), greaterThan(1));
+            assertThat(rows.size(), is(19_990));
+            long expected = 10;
+            for (Row row : rows) {
+                assertThat(row, isRow(expected++, true));
+            }
+            assertThat(breaker.getTrippedCount(), is(0L));
+            assertBusy(() -> {
+                assertThat(numFiles(spillDirectory), is(0L));
+                assertThat(ramAccountingContext.totalBytes(), is(0L));
+            });
+        } finally {
+            RamAccountingContext.FLUSH_BUFFER_SIZE = originalBufferSize;
+            SortingProjector.MIN_SPILL_BYTES = originalMinSpillBytes;
+        }
+    }
 }
@@ -26,6 +26,9 @@ import io.crate.test.integration.CrateUnitTest;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Comparator;
+import java.util.List;
+
 import static org.hamcrest.core.Is.is;
 
 public class NodeJobsCounterTest extends CrateUnitTest {
@@ -74,4 +77,61 @@ public class NodeJobsCounterTest extends CrateUnitTest {
             fail("Did not expect unregistering a job for a null node to fail but got: " + e.getMessage());
         }
     }
+
+    @Test
+    public void testConcurrencyLimitDefaultsToMaxNodeConcurrentOperations() {
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), is(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode(null), is(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+    }
+
+    @Test
+    public void testRejectionHalvesConcurrencyLimitOfNode() {
+        nodeJobsCounter.onRejection("node1");
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), is(2L));
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node2"), is(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+
+        for (int i = 0; i < 5; i++) {
+            nodeJobsCounter.onRejection("node1");
+        }
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), is(1L));
+    }
+
+    @Test
+    public void testResponsesIncreaseConcurrencyLimitUpToMaximum() {
+        for (int i = 0; i < 6; i++) {
+            nodeJobsCounter.onResponse("node1", 1000L);
+        }
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), is(6L));
+
+        for (int i = 0; i < 1000; i++) {
+            nodeJobsCounter.onResponse("node1", 1000L);
+        }
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"),
+            is(NodeJobsCounter.MAX_ADAPTIVE_NODE_CONCURRENT_OPERATIONS));
+    }
+
+    @Test
+    public void testSlowResponseHalvesConcurrencyLimit() {
+        nodeJobsCounter.onResponse("node1", 1000L);
+        nodeJobsCounter.onResponse("node1", 10_000L);
+        assertThat(nodeJobsCounter.getConcurrencyLimitForNode("node1"), is(2L));
+    }
+
+    @Test
+    public void testTargetNodeStatsContainLimitAndInProgressOperationsOfEveryNode() {
+        nodeJobsCounter.increment("node1");
+        nodeJobsCounter.increment("node1");
+        nodeJobsCounter.onRejection("node2");
+
+        List<TargetNodeStats> stats = nodeJobsCounter.targetNodeStats();
+        stats.sort(Comparator.comparing(TargetNodeStats::nodeId));
+
+        assertThat(stats.size(), is(2));
+        assertThat(stats.get(0).nodeId(), is("node1"));
+        assertThat(stats.get(0).concurrencyLimit(), is(NodeJobsCounter.MAX_NODE_CONCURRENT_OPERATIONS));
+        assertThat(stats.get(0).inProgress(), is(2L));
+        assertThat(stats.get(1).nodeId(), is("node2"));
+        assertThat(stats.get(1).concurrencyLimit(), is(2L));
+        assertThat(stats.get(1).inProgress(), is(0L));
+    }
 }
@@ -24,11 +24,13 @@ package io.crate.expression.reference.sys.node;
 
 import com.google.common.collect.ImmutableSet;
 import io.crate.execution.engine.collect.NestableCollectExpression;
+import io.crate.execution.jobs.TargetNodeStats;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.expressions.RowCollectExpressionFactory;
 import io.crate.metadata.sys.SysNodesTableInfo;
 import io.crate.monitor.ExtendedNodeInfo;
 import io.crate.protocols.ConnectionStats;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -47,6 +49,7 @@ import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.UnknownHostException;
 import java.util.Collections;
+import java.util.Map;
 
 import static io.crate.testing.DiscoveryNodes.newNode;
 import static org.hamcrest.CoreMatchers.is;
@@ -86,7 +89,8 @@ public class NodeStatsContextFieldResolverTest {
             () -> new ConnectionStats(2L, 4L),
             () -> postgresAddress,
             () -> 12L,
-            () -> 1L
+            () -> 1L,
+            () -> Collections.singletonList(new TargetNodeStats("n2", 7L, 3L))
         );
     }
 
@@ -184,6 +188,23 @@ public class NodeStatsContextFieldResolverTest {
         assertThat(context.clusterStateVersion(), is(1L));
     }
 
+    @Test
+    public void testBulkTargetsLookupAndExpression() {
+        NodeStatsContext statsContext = resolver.forTopColumnIdents(
+            Collections.singletonList(SysNodesTableInfo.Columns.BULK_TARGETS));
+        RowCollectExpressionFactory<NodeStatsContext> expressionFactory =
+            SysNodesTableInfo.expressions().get(SysNodesTableInfo.Columns.BULK_TARGETS);
+        NestableCollectExpression<NodeStatsContext, ?> expression = expressionFactory.create();
+        expression.setNextRow(statsContext);
+
+        Object[] bulkTargets = (Object[]) expression.value();
+        assertThat(bulkTargets.length, is(1));
+        Map<?, ?> bulkTarget = (Map<?, ?>) bulkTargets[0];
+        assertThat(bulkTarget.get("node_id"), is(new BytesRef("n2")));
+        assertThat(bulkTarget.get("concurrency_limit"), is(7L));
+        assertThat(bulkTarget.get("in_progress"), is(3L));
+    }
+
     @Test
     public void testResolveForNonExistingColumnIdent() {
         thrown.expect(IllegalArgumentException.class);
@@ -205,6 +226,7 @@ public class NodeStatsContextFieldResolverTest {
         assertThat(context.osStats(), is(nullValue()));
         assertThat(context.extendedOsStats(), is(nullValue()));
         assertThat(context.threadPools(), is(nullValue()));
+        assertThat(context.bulkTargets(), is(nullValue()));
         assertThat(context.javaVersion(), is(notNullValue()));
     }
 }
@@ -24,6 +24,7 @@ package io.crate.expression.reference.sys.node;
 
 import io.crate.Build;
 import io.crate.Version;
+import io.crate.execution.jobs.TargetNodeStats;
 import io.crate.monitor.ExtendedNodeInfo;
 import io.crate.test.integration.CrateUnitTest;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
@@ -42,6 +43,7 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.concurrent.TimeUnit;
 
@@ -88,6 +90,7 @@ public class NodeStatsContextTest extends CrateUnitTest {
         ctx1.extendedOsStats(extendedNodeInfo.osStats());
         ctx1.threadPools(threadPool.stats());
         ctx1.clusterStateVersion(10L);
+        ctx1.bulkTargets(Collections.singletonList(new TargetNodeStats("n2", 7L, 3L)));
 
         ByteArrayOutputStream outBuffer = new ByteArrayOutputStream();
         StreamOutput out = new OutputStreamStreamOutput(outBuffer);
@@ -113,6 +116,10 @@ public class NodeStatsContextTest extends CrateUnitTest {
         assertThat(ctx1.extendedOsStats().uptime(), is(ctx2.extendedOsStats().uptime()));
         assertThat(ctx1.threadPools().iterator().next().getActive(), is(ctx2.threadPools().iterator().next().getActive()));
         assertThat(ctx1.clusterStateVersion(), is(ctx2.clusterStateVersion()));
+        assertThat(ctx2.bulkTargets().size(), is(1));
+        assertThat(ctx2.bulkTargets().get(0).nodeId(), is("n2"));
+        assertThat(ctx2.bulkTargets().get(0).concurrencyLimit(), is(7L));
+        assertThat(ctx2.bulkTargets().get(0).inProgress(), is(3L));
     }
 
     @Test
@@ -138,6 +145,7 @@ public class NodeStatsContextTest extends CrateUnitTest {
         assertNull(ctx2.osStats());
         assertNull(ctx2.extendedOsStats());
         assertNull(ctx2.threadPools());
+        assertNull(ctx2.bulkTargets());
     }
 
     @Test
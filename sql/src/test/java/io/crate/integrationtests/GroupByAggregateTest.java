@@ -86,6 +86,26 @@ public class GroupByAggregateTest extends SQLTransportIntegrationTest {
         assertThat(response.rowCount(), is(2L));
     }
 
+    @Test
+    public void testAggregationOnGroupKeyReadsTheKeyValues() throws Exception {
+        execute("create table t (name string, x int) clustered into 1 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        execute("insert into t (name, x) values ('Marvin', 1), ('Marvin', 1), ('Marvin', 1), ('Ford', 2), ('Ford', 2), (null, null)");
+        execute("refresh table t");
+
+        execute("select x, count(x) from t group by x order by x");
+        assertThat(printedTable(response.rows()), is(
+            "1| 3\n" +
+            "2| 2\n" +
+            "NULL| 0\n"));
+
+        execute("select name, max(name), count(name) from t group by name order by name");
+        assertThat(printedTable(response.rows()), is(
+            "Ford| Ford| 2\n" +
+            "Marvin| Marvin| 3\n" +
+            "NULL| NULL| 0\n"));
+    }
+
     @Test
     public void testGroupByOnClusteredByColumnPartOfPrimaryKey() throws Exception {
         execute("CREATE TABLE tickets ( " +
@@ -31,6 +31,7 @@ import org.junit.Test;
 
 import java.util.concurrent.TimeUnit;
 
+import static io.crate.testing.TestingHelpers.printedTable;
 import static org.hamcrest.Matchers.is;
 
 
@@ -61,4 +62,35 @@ public class TableStatsServiceIntegrationTest extends SQLTransportIntegrationTes
                 // to run this test.
             }, 5, TimeUnit.SECONDS);
     }
+
+    @Test
+    public void testAnalyzePublishesColumnStatsToAllNodes() throws Exception {
+        execute("reset global stats.service.interval");
+        execute("create table t2(a int, b string) with (number_of_replicas = 0)");
+        ensureGreen();
+        execute("insert into t2(a, b) values(1, 'x'), (2, 'x'), (3, null), (4, null)");
+        execute("refresh table t2");
+
+        execute("analyze");
+        assertThat(response.rowCount(), is(1L));
+
+        RelationName t2 = new RelationName(sqlExecutor.getDefaultSchema(), "t2");
+        for (TableStats tableStats : internalCluster().getInstances(TableStats.class)) {
+            assertThat(tableStats.columnStats().get(t2).size(), is(2));
+        }
+        execute("select attname, inherited, null_frac, n_distinct from pg_catalog.pg_stats " +
+                "where tablename = 't2' order by attname");
+        assertThat(printedTable(response.rows()), is(
+            "a| false| 0.0| 4.0\n" +
+            "b| false| 0.5| 1.0\n"));
+
+        // the stats are part of the cluster metadata, so a node which joins later has them as well
+        internalCluster().startNode();
+        ensureStableCluster(3);
+        assertBusy(() -> {
+            for (TableStats tableStats : internalCluster().getInstances(TableStats.class)) {
+                assertThat(tableStats.columnStats().get(t2).size(), is(2));
+            }
+        }, 5, TimeUnit.SECONDS);
+    }
 }
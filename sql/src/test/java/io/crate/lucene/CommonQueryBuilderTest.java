@@ -39,6 +39,7 @@ import io.crate.types.DataTypes;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.PointInSetQuery;
 import org.apache.lucene.search.PointRangeQuery;
@@ -55,6 +56,7 @@ import java.util.Arrays;
 import java.util.Map;
 
 import static io.crate.lucene.LikeQuery.convertSqlLikeToLuceneWildcard;
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
@@ -483,4 +485,26 @@ public class CommonQueryBuilderTest extends LuceneQueryBuilderTest {
             is("(name:foo bar | (+tags:foo +tags:bar))")
         );
     }
+
+    @Test
+    public void testRandomComparedWithLiteralIsConvertedToSamplingQuery() {
+        Query query = convert("random() < 0.1");
+        assertThat(query, instanceOf(RandomSamplingQuery.class));
+        assertThat(((RandomSamplingQuery) query).probability(), is(0.1));
+
+        query = convert("random() >= 0.75");
+        assertThat(query, instanceOf(RandomSamplingQuery.class));
+        assertThat(((RandomSamplingQuery) query).probability(), closeTo(0.25, 0.0001));
+    }
+
+    @Test
+    public void testRandomComparedWithLiteralOutOfRange() {
+        assertThat(convert("random() < 0"), instanceOf(MatchNoDocsQuery.class));
+        assertThat(convert("random() < 1.5"), instanceOf(MatchAllDocsQuery.class));
+    }
+
+    @Test
+    public void testRandomComparedWithColumnUsesGenericFunctionQuery() {
+        assertThat(convert("random() < x"), instanceOf(GenericFunctionQuery.class));
+    }
 }
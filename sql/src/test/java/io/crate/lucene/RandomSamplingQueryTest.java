@@ -0,0 +1,58 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+package io.crate.lucene;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class RandomSamplingQueryTest extends CrateUnitTest {
+
+    @Test
+    public void testIteratorSamplesAboutProbabilityTimesMaxDoc() {
+        int maxDoc = 100_000;
+        RandomSamplingQuery.SamplingIterator iterator =
+            new RandomSamplingQuery.SamplingIterator(maxDoc, 0.1, new Random(randomLong()));
+        int numSampled = 0;
+        int previousDoc = -1;
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+            assertThat(doc, allOf(greaterThan(previousDoc), lessThan(maxDoc)));
+            previousDoc = doc;
+            numSampled++;
+        }
+        assertThat(numSampled, allOf(greaterThan(9_000), lessThan(11_000)));
+    }
+
+    @Test
+    public void testAdvanceBeyondMaxDocIsExhausted() {
+        RandomSamplingQuery.SamplingIterator iterator =
+            new RandomSamplingQuery.SamplingIterator(10, 0.5, new Random(randomLong()));
+        assertThat(iterator.advance(10), is(DocIdSetIterator.NO_MORE_DOCS));
+    }
+}
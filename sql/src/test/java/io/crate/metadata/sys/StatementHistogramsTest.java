@@ -0,0 +1,97 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.sys;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class StatementHistogramsTest {
+
+    @Test
+    public void testFingerprintReplacesLiterals() {
+        assertThat(
+            StatementHistograms.fingerprint("SELECT  name,\n 'it''s' FROM t WHERE x = 10 and y > 1.5e-3;"),
+            is("select name, ? from t where x = ? and y > ?"));
+    }
+
+    @Test
+    public void testFingerprintKeepsQuotedIdentifiersAndParameters() {
+        assertThat(
+            StatementHistograms.fingerprint("select \"Name\" from t1 /* comment */ where id = $1 -- trailing\n"),
+            is("select \"Name\" from t1 where id = $1"));
+    }
+
+    @Test
+    public void testFingerprintCollapsesInLists() {
+        assertThat(
+            StatementHistograms.fingerprint("select * from t where id in (1, 2, 3) and name not in ($1, $2)"),
+            is("select * from t where id in (?) and name not in (?)"));
+        assertThat(
+            StatementHistograms.fingerprint("select * from t where id IN ('a')"),
+            is("select * from t where id in (?)"));
+    }
+
+    @Test
+    public void testFingerprintKeepsOtherParenthesizedLists() {
+        assertThat(
+            StatementHistograms.fingerprint("select min(x), abs(?) from t where id in (y, ?)"),
+            is("select min(x), abs(?) from t where id in (y, ?)"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvicted() {
+        StatementHistograms histograms = new StatementHistograms(2);
+        histograms.recordValue("select 1", 10L, false);
+        histograms.recordValue("select 'a'", 20L, false);
+        histograms.recordValue("select * from t", 5L, false);
+        histograms.recordValue("select 2", 30L, true);
+        histograms.recordValue("select x from t", 1L, false);
+
+        List<StatementHistograms.StatementHistogram> stats = ImmutableList.copyOf(histograms);
+        assertThat(stats.size(), is(2));
+        for (StatementHistograms.StatementHistogram stat : stats) {
+            if (stat.statement().equals("select ?")) {
+                assertThat(stat.calls(), is(3L));
+                assertThat(stat.errors(), is(1L));
+                assertThat(stat.totalTime(), is(60L));
+            } else {
+                assertThat(stat.statement(), is("select x from t"));
+            }
+        }
+    }
+
+    @Test
+    public void testRecordHighDurationIsCapped() {
+        StatementHistograms histograms = new StatementHistograms();
+        histograms.recordValue("select 1", TimeUnit.MINUTES.toMillis(30), false);
+        StatementHistograms.StatementHistogram stat = histograms.iterator().next();
+        assertThat(stat.totalTime(), is(TimeUnit.MINUTES.toMillis(30)));
+        assertThat(stat.histogram().getMaxValue() <= TimeUnit.MINUTES.toMillis(11), is(true));
+    }
+}
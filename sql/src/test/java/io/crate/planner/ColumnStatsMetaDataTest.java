@@ -0,0 +1,85 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner;
+
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.RelationName;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class ColumnStatsMetaDataTest extends CrateUnitTest {
+
+    private static ColumnStatsMetaData createMetaData() {
+        Map<ColumnIdent, TableStats.ColumnStats> t1Columns = new HashMap<>();
+        t1Columns.put(new ColumnIdent("x"), new TableStats.ColumnStats(0.25, 1200.0));
+        t1Columns.put(new ColumnIdent("name"), new TableStats.ColumnStats(0.0, 3.0));
+        Map<RelationName, ColumnStatsMetaData.Entry> entries = new HashMap<>();
+        entries.put(new RelationName("doc", "t1"), new ColumnStatsMetaData.Entry(100_000L, t1Columns));
+        entries.put(new RelationName("my_schema", "t2"), new ColumnStatsMetaData.Entry(10L, new HashMap<>()));
+        return new ColumnStatsMetaData(entries);
+    }
+
+    @Test
+    public void testColumnStatsMetaDataStreaming() throws IOException {
+        ColumnStatsMetaData columnStats = createMetaData();
+        BytesStreamOutput out = new BytesStreamOutput();
+        columnStats.writeTo(out);
+
+        StreamInput in = out.bytes().streamInput();
+        ColumnStatsMetaData columnStats2 = new ColumnStatsMetaData(in);
+        assertEquals(columnStats, columnStats2);
+    }
+
+    @Test
+    public void testColumnStatsMetaDataToXContent() throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+
+        // reflects the logic used to process custom metadata in the cluster state
+        builder.startObject();
+
+        ColumnStatsMetaData columnStats = createMetaData();
+        columnStats.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+
+        XContentParser parser = JsonXContent.jsonXContent.createParser(xContentRegistry(), builder.bytes());
+        parser.nextToken(); // start object
+        ColumnStatsMetaData columnStats2 = ColumnStatsMetaData.fromXContent(parser);
+        assertEquals(columnStats, columnStats2);
+
+        // a metadata custom must consume the surrounded END_OBJECT token, no token must be left
+        assertThat(parser.nextToken(), nullValue());
+    }
+}
@@ -22,13 +22,26 @@
 
 package io.crate.planner;
 
+import com.carrotsearch.hppc.ObjectObjectHashMap;
 import com.carrotsearch.hppc.ObjectObjectMap;
 import io.crate.action.sql.SQLOperations;
 import io.crate.action.sql.Session;
 import io.crate.data.RowN;
+import io.crate.execution.engine.collect.stats.TransportUpdateColumnStatsAction;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.predicate.IsNullPredicate;
+import io.crate.expression.predicate.NotPredicate;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
+import io.crate.metadata.Schemas;
 import io.crate.plugin.SQLPlugin;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
@@ -37,12 +50,20 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.junit.Test;
 import org.mockito.Answers;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.IsNull.notNullValue;
@@ -71,7 +92,9 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             THREAD_POOL,
             clusterService,
             new TableStats(),
-            mock(SQLOperations.class, Answers.RETURNS_MOCKS.get()));
+            mock(Schemas.class),
+            mock(SQLOperations.class, Answers.RETURNS_MOCKS.get()),
+            mock(TransportUpdateColumnStatsAction.class));
 
         assertThat(statsService.refreshInterval,
             is(TimeValue.timeValueMinutes(0)));
@@ -83,7 +106,9 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             THREAD_POOL,
             clusterService,
             new TableStats(),
-            mock(SQLOperations.class, Answers.RETURNS_MOCKS.get()));
+            mock(Schemas.class),
+            mock(SQLOperations.class, Answers.RETURNS_MOCKS.get()),
+            mock(TransportUpdateColumnStatsAction.class));
 
         assertThat(statsService.refreshInterval,
             is(TableStatsService.STATS_SERVICE_REFRESH_INTERVAL_SETTING.getDefault()));
@@ -151,7 +176,9 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             THREAD_POOL,
             clusterService,
             new TableStats(),
-            sqlOperations
+            mock(Schemas.class),
+            sqlOperations,
+            mock(TransportUpdateColumnStatsAction.class)
         );
         statsService.run();
 
@@ -172,10 +199,131 @@ public class TableStatsServiceTest extends CrateDummyClusterServiceUnitTest {
             THREAD_POOL,
             clusterService,
             new TableStats(),
-            sqlOperations
+            mock(Schemas.class),
+            sqlOperations,
+            mock(TransportUpdateColumnStatsAction.class)
         );
 
         statsService.run();
         verify(session, times(0)).sync();
     }
+
+    @Test
+    public void testColumnStatsStatementSamplesTable() {
+        RelationName relationName = new RelationName("doc", "t1");
+        List<Reference> columns = Arrays.asList(
+            createReference("x", DataTypes.INTEGER),
+            createReference("name", DataTypes.STRING));
+        assertThat(TableStatsService.columnStatsStmt(relationName, columns, 1_000_000L),
+            is("select count(*), count(\"x\"), count(distinct \"x\"), count(\"name\"), count(distinct \"name\") " +
+               "from (select \"x\", \"name\" from \"doc\".\"t1\" where random() < 0.01) s"));
+    }
+
+    @Test
+    public void testColumnStatsStatementReadsSmallTablesCompletely() {
+        RelationName relationName = new RelationName("doc", "t1");
+        List<Reference> columns = Collections.singletonList(createReference("x", DataTypes.INTEGER));
+        assertThat(TableStatsService.columnStatsStmt(relationName, columns, 500L),
+            is("select count(*), count(\"x\"), count(distinct \"x\") from (select \"x\" from \"doc\".\"t1\") s"));
+    }
+
+    @Test
+    public void testOnlyTablesWithChangedNumDocsAreSampledAgain() {
+        RelationName unchanged = new RelationName("doc", "unchanged");
+        RelationName changed = new RelationName("doc", "changed");
+        RelationName notSampled = new RelationName("doc", "not_sampled");
+        RelationName empty = new RelationName("doc", "empty");
+        ObjectObjectMap<RelationName, TableStats.Stats> stats = new ObjectObjectHashMap<>();
+        stats.put(unchanged, new TableStats.Stats(1000L, 10_000L));
+        stats.put(changed, new TableStats.Stats(2000L, 20_000L));
+        stats.put(notSampled, new TableStats.Stats(10L, 100L));
+        stats.put(empty, new TableStats.Stats(0L, 0L));
+
+        Map<RelationName, ColumnStatsMetaData.Entry> entries = new HashMap<>();
+        entries.put(unchanged, new ColumnStatsMetaData.Entry(1000L, new HashMap<>()));
+        entries.put(changed, new ColumnStatsMetaData.Entry(1000L, new HashMap<>()));
+
+        assertThat(new HashSet<>(TableStatsService.staleRelations(new ColumnStatsMetaData(entries), stats)),
+            is(new HashSet<>(Arrays.asList(changed, notSampled))));
+        assertThat(new HashSet<>(TableStatsService.staleRelations(null, stats)),
+            is(new HashSet<>(Arrays.asList(unchanged, changed, notSampled))));
+    }
+
+    @Test
+    public void testMergedColumnStatsOnlyContainExistingTables() {
+        RelationName kept = new RelationName("doc", "kept");
+        RelationName dropped = new RelationName("doc", "dropped");
+        RelationName sampled = new RelationName("doc", "sampled");
+        ObjectObjectMap<RelationName, TableStats.Stats> stats = new ObjectObjectHashMap<>();
+        stats.put(kept, new TableStats.Stats(1000L, 10_000L));
+        stats.put(sampled, new TableStats.Stats(50L, 500L));
+
+        Map<RelationName, ColumnStatsMetaData.Entry> entries = new HashMap<>();
+        entries.put(kept, new ColumnStatsMetaData.Entry(1000L, new HashMap<>()));
+        entries.put(dropped, new ColumnStatsMetaData.Entry(1000L, new HashMap<>()));
+        entries.put(sampled, new ColumnStatsMetaData.Entry(10L, new HashMap<>()));
+        Map<RelationName, ColumnStatsMetaData.Entry> newlySampled = Collections.singletonMap(
+            sampled,
+            new ColumnStatsMetaData.Entry(50L, Collections.singletonMap(
+                new ColumnIdent("x"), new TableStats.ColumnStats(0.0, 50.0))));
+
+        ColumnStatsMetaData merged = TableStatsService.mergeColumnStats(
+            new ColumnStatsMetaData(entries), stats, newlySampled);
+
+        assertThat(merged.entries().keySet(), is(new HashSet<>(Arrays.asList(kept, sampled))));
+        assertThat(merged.entries().get(sampled).numDocs(), is(50L));
+        assertThat(merged.entries().get(sampled).columns().get(new ColumnIdent("x")).approxDistinct(), is(50.0));
+    }
+
+    @Test
+    public void testRowToColumnStatsConversion() {
+        RelationName relationName = new RelationName("doc", "t1");
+        Map<ColumnIdent, TableStats.ColumnStats> stats = new HashMap<>();
+        TableStatsService.ColumnStatsResultReceiver receiver = new TableStatsService.ColumnStatsResultReceiver(
+            relationName,
+            Arrays.asList(createReference("id", DataTypes.INTEGER), createReference("kind", DataTypes.STRING)),
+            100_000L,
+            (name, columnStats) -> stats.putAll(columnStats));
+        receiver.setNextRow(new RowN(new Object[]{10_000L, 10_000L, 10_000L, 5_000L, 4L}));
+        receiver.allFinished(false);
+
+        TableStats.ColumnStats id = stats.get(new ColumnIdent("id"));
+        assertThat(id.nullFraction, is(0.0));
+        assertThat(id.approxDistinct, is(100_000.0));
+
+        TableStats.ColumnStats kind = stats.get(new ColumnIdent("kind"));
+        assertThat(kind.nullFraction, is(0.5));
+        assertThat(kind.approxDistinct, closeTo(4.0, 0.05));
+    }
+
+    @Test
+    public void testEstimatedNumRowsUsesColumnStats() {
+        RelationName relationName = new RelationName("doc", "t1");
+        ObjectObjectMap<RelationName, TableStats.Stats> stats = new ObjectObjectHashMap<>();
+        stats.put(relationName, new TableStats.Stats(1000L, 10_000L));
+        TableStats tableStats = new TableStats();
+        tableStats.updateTableStats(stats);
+
+        Reference kind = createReference("kind", DataTypes.STRING);
+        Reference x = createReference("x", DataTypes.INTEGER);
+        Symbol kindEq = EqOperator.createFunction(kind, Literal.of("a"));
+        Symbol xIsNull = new Function(IsNullPredicate.generateInfo(Collections.singletonList(DataTypes.INTEGER)),
+            Collections.singletonList(x));
+
+        // without column stats every query is assumed to match all rows
+        assertThat(tableStats.estimatedNumRows(relationName, kindEq), is(1000L));
+
+        Map<ColumnIdent, TableStats.ColumnStats> columnStats = new HashMap<>();
+        columnStats.put(kind.column(), new TableStats.ColumnStats(0.0, 10.0));
+        columnStats.put(x.column(), new TableStats.ColumnStats(0.2, 800.0));
+        tableStats.updateColumnStats(relationName, columnStats);
+
+        assertThat(tableStats.estimatedNumRows(relationName, null), is(1000L));
+        assertThat(tableStats.estimatedNumRows(relationName, kindEq), is(100L));
+        assertThat(tableStats.estimatedNumRows(relationName, xIsNull), is(200L));
+        assertThat(tableStats.estimatedNumRows(relationName, AndOperator.of(kindEq, xIsNull)), is(20L));
+        assertThat(tableStats.estimatedNumRows(relationName, new Function(NotPredicate.INFO,
+            Collections.singletonList(xIsNull))), is(800L));
+        assertThat(tableStats.estimatedNumRows(new RelationName("doc", "unknown"), kindEq), is(-1L));
+    }
 }
@@ -29,12 +29,16 @@ import io.crate.sql.tree.QualifiedName;
 import io.crate.testing.T3;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 public class JoinOrderingTest {
@@ -80,4 +84,67 @@ public class JoinOrderingTest {
         );
         assertThat(qualifiedNames, contains(T3.T1, T3.T2, T3.T3));
     }
+
+    @Test
+    public void testOrderByCostStartsWithMostSelectiveJoin() {
+        // SELECT * FROM t1, t2, t3 WHERE t1.id = t2.t1_id AND t2.t3_id = t3.id AND t3.x = 10
+        // t2 is the fact table, the filter on t3 matches a single row
+        @SuppressWarnings("unchecked")
+        List<QualifiedName> qualifiedNames = JoinOrdering.orderByCost(
+            Arrays.asList(T3.T1, T3.T2, T3.T3),
+            Arrays.asList(ImmutableSet.of(T3.T1, T3.T2), ImmutableSet.of(T3.T2, T3.T3)),
+            new long[]{1_000, 1_000_000, 1},
+            new long[]{1_000, 1_000_000, 1_000}
+        );
+        assertThat(qualifiedNames, contains(T3.T2, T3.T3, T3.T1));
+    }
+
+    @Test
+    public void testOrderByCostAvoidsCrossJoins() {
+        // SELECT * FROM t1, t2, t3 WHERE t1.id = t3.id
+        List<QualifiedName> qualifiedNames = JoinOrdering.orderByCost(
+            Arrays.asList(T3.T1, T3.T2, T3.T3),
+            Collections.singletonList(ImmutableSet.of(T3.T1, T3.T3)),
+            new long[]{10, 10, 10},
+            new long[]{10, 10, 10}
+        );
+        assertThat(qualifiedNames, contains(T3.T1, T3.T3, T3.T2));
+    }
+
+    @Test
+    public void testOrderByCostWithoutRowCountOfARelation() {
+        @SuppressWarnings("unchecked")
+        List<QualifiedName> qualifiedNames = JoinOrdering.orderByCost(
+            Arrays.asList(T3.T1, T3.T2, T3.T3),
+            Arrays.asList(ImmutableSet.of(T3.T1, T3.T2), ImmutableSet.of(T3.T2, T3.T3)),
+            new long[]{10, -1, 10},
+            new long[]{10, -1, 10}
+        );
+        assertThat(qualifiedNames, nullValue());
+    }
+
+    @Test
+    public void testOrderByCostOfManyRelationsIsGreedy() {
+        // star schema: the fact table f is joined with the dimensions d1..d11, d1 is filtered the most
+        int numDimensions = JoinOrdering.MAX_RELATIONS_EXHAUSTIVE_SEARCH + 1;
+        QualifiedName fact = new QualifiedName("f");
+        List<QualifiedName> relations = new ArrayList<>();
+        List<Set<QualifiedName>> joinedRelations = new ArrayList<>();
+        long[] numRows = new long[numDimensions + 1];
+        long[] numDocs = new long[numDimensions + 1];
+        for (int i = numDimensions; i > 0; i--) {
+            QualifiedName dimension = new QualifiedName("d" + i);
+            numRows[relations.size()] = i;
+            numDocs[relations.size()] = 100;
+            relations.add(dimension);
+            joinedRelations.add(ImmutableSet.of(fact, dimension));
+        }
+        numRows[relations.size()] = 1_000_000;
+        numDocs[relations.size()] = 1_000_000;
+        relations.add(fact);
+
+        List<QualifiedName> qualifiedNames = JoinOrdering.orderByCost(relations, joinedRelations, numRows, numDocs);
+        assertThat(qualifiedNames.size(), is(numDimensions + 1));
+        assertThat(Sets.newHashSet(qualifiedNames.subList(0, 2)), is(Sets.newHashSet(fact, new QualifiedName("d1"))));
+    }
 }
@@ -28,7 +28,10 @@ import io.crate.analyze.TableDefinitions;
 import io.crate.data.Row;
 import io.crate.execution.dsl.phases.HashJoinPhase;
 import io.crate.execution.dsl.phases.NestedLoopPhase;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
 import io.crate.execution.dsl.projection.builder.ProjectionBuilder;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.Functions;
 import io.crate.metadata.Reference;
 import io.crate.metadata.RelationName;
@@ -37,9 +40,11 @@ import io.crate.planner.ExecutionPlan;
 import io.crate.planner.PlannerContext;
 import io.crate.planner.SubqueryPlanner;
 import io.crate.planner.TableStats;
+import io.crate.planner.distribution.DistributionType;
 import io.crate.planner.node.dql.Collect;
 import io.crate.planner.node.dql.QueryThenFetch;
 import io.crate.planner.node.dql.join.Join;
+import io.crate.planner.node.dql.join.JoinType;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.SQLExecutor;
 import io.crate.testing.T3;
@@ -49,7 +54,9 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
 
 import static io.crate.testing.TestingHelpers.getFunctions;
 import static io.crate.testing.TestingHelpers.isSQL;
@@ -193,6 +200,136 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
             is("[IC{1, long}, IC{2, long}, IC{0, long}]"));
     }
 
+    @Test
+    public void testHashJoin_OuterJoinIsInvertedIfTablesAreSwitched() {
+        MultiSourceSelect mss = e.analyze("select users.name, locations.id " +
+                                          "from users " +
+                                          "left join locations on users.id = locations.id");
+
+        TableStats tableStats = new TableStats();
+        ObjectObjectHashMap<RelationName, TableStats.Stats> rowCountByTable = new ObjectObjectHashMap<>();
+        rowCountByTable.put(TableDefinitions.USER_TABLE_IDENT, new TableStats.Stats(10, 0));
+        rowCountByTable.put(TableDefinitions.TEST_DOC_LOCATIONS_TABLE_IDENT, new TableStats.Stats(100, 0));
+        tableStats.updateTableStats(rowCountByTable);
+
+        LogicalPlan operator = createLogicalPlan(mss, tableStats);
+        assertThat(operator, instanceOf(HashJoin.class));
+        assertThat(((HashJoin) operator).joinType(), is(JoinType.LEFT));
+
+        Join join = buildJoin(operator);
+        assertThat(join.joinPhase(), instanceOf(HashJoinPhase.class));
+        assertThat(join.joinPhase().joinType(), is(JoinType.RIGHT));
+        assertThat(join.joinPhase().leftMergePhase().inputTypes(), Matchers.contains(DataTypes.LONG));
+    }
+
+    @Test
+    public void testDistributedHashJoinRunsOnTheNodesOfBothRelations() {
+        // t1 has a single shard on n1, users has shards on n1 and n2
+        MultiSourceSelect mss = e.analyze("select t1.a, users.name " +
+                                          "from t1 " +
+                                          "inner join users on t1.x = users.id");
+
+        LogicalPlan operator = createLogicalPlan(mss, new TableStats());
+        assertThat(operator, instanceOf(HashJoin.class));
+
+        Join join = buildJoin(operator);
+        assertThat(join.joinPhase(), instanceOf(HashJoinPhase.class));
+        assertThat(join.joinPhase().nodeIds(), contains("n1", "n2"));
+        assertThat(join.joinPhase().leftMergePhase().nodeIds(), contains("n1", "n2"));
+        assertThat(join.joinPhase().rightMergePhase().nodeIds(), contains("n1", "n2"));
+        assertThat(((Collect) join.left()).collectPhase().distributionInfo().distributionType(),
+            is(DistributionType.MODULO));
+        assertThat(((Collect) join.right()).collectPhase().distributionInfo().distributionType(),
+            is(DistributionType.MODULO));
+    }
+
+    @Test
+    public void testDistributedHashJoinBroadcastsSmallRightSide() {
+        // t1 has a single shard on n1, users has shards on n1 and n2
+        MultiSourceSelect mss = e.analyze("select t1.a, users.name " +
+                                          "from t1 " +
+                                          "inner join users on t1.x = users.id");
+
+        TableStats tableStats = new TableStats();
+        ObjectObjectHashMap<RelationName, TableStats.Stats> rowCountByTable = new ObjectObjectHashMap<>();
+        rowCountByTable.put(T3.T1_INFO.ident(), new TableStats.Stats(10, 10 * 64));
+        rowCountByTable.put(TableDefinitions.USER_TABLE_IDENT, new TableStats.Stats(100_000, 100_000 * 64));
+        tableStats.updateTableStats(rowCountByTable);
+
+        Join join = plan(mss, tableStats);
+        assertThat(join.joinPhase().nodeIds(), Matchers.containsInAnyOrder("n1", "n2"));
+        assertThat(join.joinPhase().leftMergePhase(), Matchers.nullValue());
+        assertThat(join.joinPhase().rightMergePhase().nodeIds(), Matchers.containsInAnyOrder("n1", "n2"));
+        assertThat(((Collect) join.left()).collectPhase().distributionInfo().distributionType(),
+            is(DistributionType.SAME_NODE));
+        assertThat(((Collect) join.right()).collectPhase().distributionInfo().distributionType(),
+            is(DistributionType.BROADCAST));
+    }
+
+    @Test
+    public void testHashJoinFiltersBigSideByJoinKeysOfSmallSide() {
+        MultiSourceSelect mss = e.analyze("select users.name, locations.id " +
+                                          "from users " +
+                                          "join locations on users.id = locations.id");
+
+        TableStats tableStats = new TableStats();
+        ObjectObjectHashMap<RelationName, TableStats.Stats> rowCountByTable = new ObjectObjectHashMap<>();
+        rowCountByTable.put(TableDefinitions.USER_TABLE_IDENT, new TableStats.Stats(100_000, 0));
+        rowCountByTable.put(TableDefinitions.TEST_DOC_LOCATIONS_TABLE_IDENT, new TableStats.Stats(10, 0));
+        tableStats.updateTableStats(rowCountByTable);
+
+        LogicalPlan operator = createLogicalPlan(mss, tableStats);
+        assertThat(operator, instanceOf(HashJoin.class));
+        assertThat(((HashJoin) operator).lhs, instanceOf(MultiPhase.class));
+        assertThat(((HashJoin) operator).rhs.dependencies().isEmpty(), is(true));
+
+        Map<LogicalPlan, SelectSymbol> dependencies = operator.dependencies();
+        assertThat(dependencies.size(), is(1));
+        Map.Entry<LogicalPlan, SelectSymbol> keys = dependencies.entrySet().iterator().next();
+        assertThat(keys.getKey().outputs(), isSQL("doc.locations.id"));
+        assertThat(keys.getValue().getResultType(), is(SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES));
+    }
+
+    private LogicalPlan planFilteredHashJoin() {
+        MultiSourceSelect mss = e.analyze("select users.name, locations.id " +
+                                          "from users " +
+                                          "join locations on users.id = locations.id");
+
+        TableStats tableStats = new TableStats();
+        ObjectObjectHashMap<RelationName, TableStats.Stats> rowCountByTable = new ObjectObjectHashMap<>();
+        rowCountByTable.put(TableDefinitions.USER_TABLE_IDENT, new TableStats.Stats(100_000, 0));
+        rowCountByTable.put(TableDefinitions.TEST_DOC_LOCATIONS_TABLE_IDENT, new TableStats.Stats(10, 0));
+        tableStats.updateTableStats(rowCountByTable);
+        return createLogicalPlan(mss, tableStats);
+    }
+
+    private Symbol probeQuery(LogicalPlan operator, Object[] keys) {
+        SelectSymbol keysSymbol = operator.dependencies().values().iterator().next();
+        Join join = (Join) operator.build(plannerCtx, projectionBuilder, -1, 0, null, null, Row.EMPTY,
+            new SubQueryResults(Collections.singletonMap(keysSymbol, keys)));
+        Collect probe = (Collect) join.left();
+        return ((RoutedCollectPhase) probe.collectPhase()).where();
+    }
+
+    @Test
+    public void testHashJoinFilterIsPushedDownIntoCollectOfBigSide() {
+        LogicalPlan operator = planFilteredHashJoin();
+
+        assertThat(probeQuery(operator, new Object[] { 1L, 2L }), isSQL("(doc.users.id = ANY([1, 2]))"));
+    }
+
+    @Test
+    public void testHashJoinFilterIsSkippedIfTheSmallSideHasTooManyKeys() {
+        LogicalPlan operator = planFilteredHashJoin();
+        Map.Entry<LogicalPlan, SelectSymbol> keys = operator.dependencies().entrySet().iterator().next();
+        assertThat(keys.getKey(), instanceOf(RootRelationBoundary.class));
+        assertThat(((RootRelationBoundary) keys.getKey()).source, instanceOf(Limit.class));
+
+        Object[] tooManyKeys = new Object[(int) RuntimeJoinFilter.MAX_BUILD_ROWS + 1];
+        Arrays.fill(tooManyKeys, 1L);
+        assertThat(probeQuery(operator, tooManyKeys), isSQL("true"));
+    }
+
     @Test
     public void testMultipleHashJoins() {
         MultiSourceSelect mss = e.analyze("select * " +
@@ -214,7 +351,7 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
     public void testMixedHashJoinNestedLoop() {
         MultiSourceSelect mss = e.analyze("select * " +
                                           "from t1 inner join t2 on t1.a = t2.b " +
-                                          "left join t3 on t3.c = t2.b");
+                                          "left join t3 on t3.c > t2.b");
 
         LogicalPlan operator = createLogicalPlan(mss, new TableStats());
         assertThat(operator, instanceOf(NestedLoopJoin.class));
@@ -296,6 +296,34 @@ public class LogicalPlannerTest extends CrateDummyClusterServiceUnitTest {
                                 "]\n"));
     }
 
+    @Test
+    public void testMultiWayJoinCarriesOnlyFetchIdsAndJoinKeys() {
+        LogicalPlan plan = plan("select t1.a, t2.b, t3.c " +
+                                "from t1 " +
+                                "   inner join t2 on t1.x = t2.y " +
+                                "   inner join t3 on t2.y = t3.z " +
+                                "order by t1.x " +
+                                "limit 10");
+        assertThat(plan, isPlan("FetchOrEval[a, b, c]\n" +
+                                "Limit[10;0]\n" +
+                                "OrderBy['x' ASC]\n" +
+                                "HashJoin[\n" +
+                                "    HashJoin[\n" +
+                                "        Boundary[_fetchid, x]\n" +
+                                "        FetchOrEval[_fetchid, x]\n" +
+                                "        Collect[doc.t1 | [_fetchid, x] | All]\n" +
+                                "        --- INNER ---\n" +
+                                "        Boundary[_fetchid, y]\n" +
+                                "        FetchOrEval[_fetchid, y]\n" +
+                                "        Collect[doc.t2 | [_fetchid, y] | All]\n" +
+                                "]\n" +
+                                "    --- INNER ---\n" +
+                                "    Boundary[_fetchid, z]\n" +
+                                "    FetchOrEval[_fetchid, z]\n" +
+                                "    Collect[doc.t3 | [_fetchid, z] | All]\n" +
+                                "]\n"));
+    }
+
     public static LogicalPlan plan(String statement,
                                    SQLExecutor sqlExecutor,
                                    ClusterService clusterService,
@@ -0,0 +1,130 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.data.Row1;
+import io.crate.data.RowN;
+import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class ResultSetReceiverTest {
+
+    private static ResultSetReceiver newReceiver(EmbeddedChannel channel) {
+        return new ResultSetReceiver(
+            "select x from t",
+            channel,
+            t -> {},
+            Collections.singletonList(DataTypes.LONG),
+            null
+        );
+    }
+
+    @Test
+    public void testRowsOfABatchAreWrittenAsOneBuffer() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ResultSetReceiver receiver = newReceiver(channel);
+        for (long i = 0; i < 10; i++) {
+            receiver.setNextRow(new Row1(i));
+        }
+        assertThat(channel.outboundMessages().size(), is(0));
+
+        receiver.batchFinished();
+        ByteBuf rows = channel.readOutbound();
+        for (int i = 0; i < 10; i++) {
+            assertThat((char) rows.readByte(), is('D'));
+            rows.skipBytes(rows.readInt() - 4);
+        }
+        assertThat(rows.readableBytes(), is(0));
+        rows.release();
+
+        ByteBuf portalSuspended = channel.readOutbound();
+        assertThat((char) portalSuspended.readByte(), is('s'));
+        portalSuspended.release();
+    }
+
+    @Test
+    public void testPartiallyWrittenRowIsDroppedOnFailure() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ResultSetReceiver receiver = new ResultSetReceiver(
+            "select x, y from t",
+            channel,
+            t -> {},
+            Arrays.asList(DataTypes.LONG, DataTypes.LONG),
+            null
+        );
+        receiver.setNextRow(new RowN(new Object[] { 1L, 2L }));
+        try {
+            // the first column is written before the second one fails to encode
+            receiver.setNextRow(new RowN(new Object[] { 3L, "foo" }));
+            fail("Expected the row to fail to encode");
+        } catch (ClassCastException e) {
+            receiver.fail(e);
+        }
+        channel.flush();
+
+        ByteBuf rows = channel.readOutbound();
+        assertThat((char) rows.readByte(), is('D'));
+        rows.skipBytes(rows.readInt() - 4);
+        assertThat(rows.readableBytes(), is(0));
+        rows.release();
+
+        ByteBuf error = channel.readOutbound();
+        assertThat((char) error.readByte(), is('E'));
+        error.release();
+    }
+
+    @Test
+    public void testRowsAreWrittenOnceTheBufferIsFull() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ResultSetReceiver receiver = newReceiver(channel);
+        int numRows = ResultSetReceiver.MAX_PENDING_BYTES;
+        for (long i = 0; i < numRows; i++) {
+            receiver.setNextRow(new Row1(i));
+        }
+        receiver.allFinished(false);
+        channel.flush();
+
+        assertThat(channel.outboundMessages().size(), greaterThan(2));
+        int rowCount = 0;
+        ByteBuf buffer;
+        while ((buffer = channel.readOutbound()) != null) {
+            while (buffer.isReadable() && buffer.getByte(buffer.readerIndex()) == 'D') {
+                buffer.skipBytes(1);
+                buffer.skipBytes(buffer.readInt() - 4);
+                rowCount++;
+            }
+            buffer.release();
+        }
+        assertThat(rowCount, is(numRows));
+    }
+}
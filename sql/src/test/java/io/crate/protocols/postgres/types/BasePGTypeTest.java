@@ -27,6 +27,8 @@ import io.crate.test.integration.CrateUnitTest;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.hamcrest.Matchers.is;
 
 public abstract class BasePGTypeTest<T> extends CrateUnitTest {
@@ -55,6 +57,18 @@ public abstract class BasePGTypeTest<T> extends CrateUnitTest {
         }
     }
 
+    void assertTextWritten(Object value, String expectedText) {
+        ByteBuf buffer = Unpooled.buffer();
+        try {
+            int bytesWritten = pgType.writeAsText(buffer, value);
+            assertThat(bytesWritten, is(PGType.INT32_BYTE_SIZE + expectedText.length()));
+            assertThat(buffer.readInt(), is(expectedText.length()));
+            assertThat(buffer.toString(StandardCharsets.UTF_8), is(expectedText));
+        } finally {
+            buffer.release();
+        }
+    }
+
     void assertBytesReadBinary(byte[] value, T expectedValue) {
         assertBytesReadBinary(value, expectedValue, pgType.typeLen());
     }
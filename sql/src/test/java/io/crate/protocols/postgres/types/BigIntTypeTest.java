@@ -37,6 +37,15 @@ public class BigIntTypeTest extends BasePGTypeTest<Long> {
         assertBytesWritten(Long.MIN_VALUE, new byte[]{0, 0, 0, 8, -128, 0, 0, 0, 0, 0, 0, 0});
     }
 
+    @Test
+    public void testWriteValueText() throws Exception {
+        assertTextWritten(0L, "0");
+        assertTextWritten(-1L, "-1");
+        assertTextWritten(1234567890L, "1234567890");
+        assertTextWritten(Long.MAX_VALUE, "9223372036854775807");
+        assertTextWritten(Long.MIN_VALUE, "-9223372036854775808");
+    }
+
     @Test
     public void testReadValueBinary() throws Exception {
         assertBytesReadBinary(new byte[]{127, -1, -1, -1, -1, -1, -1, -1}, Long.MAX_VALUE);
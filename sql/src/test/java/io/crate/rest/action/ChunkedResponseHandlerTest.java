@@ -0,0 +1,93 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ChunkedResponseHandlerTest {
+
+    @Test
+    public void testResponsesWrittenDuringChunkedResponseAreHeldBack() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedResponseHandler());
+        HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        HttpContent firstChunk = new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[]{1}));
+        ChunkedResponseHandler.ChunkedResponse chunkedResponse = new ChunkedResponseHandler.ChunkedResponse(head, firstChunk);
+        channel.writeAndFlush(chunkedResponse);
+        FullHttpResponse nextResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        channel.writeAndFlush(nextResponse);
+
+        assertThat(channel.readOutbound(), sameInstance(head));
+        assertThat(channel.readOutbound(), sameInstance(firstChunk));
+        assertThat(channel.readOutbound(), nullValue());
+
+        LastHttpContent lastChunk = new DefaultLastHttpContent(Unpooled.wrappedBuffer(new byte[]{2}));
+        chunkedResponse.write(lastChunk);
+        channel.runPendingTasks();
+
+        assertThat(channel.readOutbound(), sameInstance(lastChunk));
+        assertThat(channel.readOutbound(), sameInstance(nextResponse));
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(channel.finish(), is(false));
+    }
+
+    @Test
+    public void testChunkedResponseIsStartedAfterPreviousChunkedResponse() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChunkedResponseHandler());
+        HttpResponse head = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        ChunkedResponseHandler.ChunkedResponse first =
+            new ChunkedResponseHandler.ChunkedResponse(head, new DefaultHttpContent(Unpooled.EMPTY_BUFFER));
+        ChunkedResponseHandler.ChunkedResponse second =
+            new ChunkedResponseHandler.ChunkedResponse(head, new DefaultLastHttpContent());
+        channel.writeAndFlush(first);
+        channel.writeAndFlush(second);
+        channel.readOutbound();
+        channel.readOutbound();
+        assertThat(channel.readOutbound(), nullValue());
+
+        first.write(new DefaultLastHttpContent());
+        channel.runPendingTasks();
+
+        assertThat(channel.readOutbound(), instanceOf(LastHttpContent.class));
+        assertThat(channel.readOutbound(), sameInstance(head));
+        assertThat(channel.readOutbound(), instanceOf(LastHttpContent.class));
+        assertThat(channel.readOutbound(), nullValue());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.execution.engine.collect.stats.ExecutionMetrics;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+
+public class PrometheusTextWriterTest extends CrateUnitTest {
+
+    @Test
+    public void testFamilyWithLabeledSamples() {
+        PrometheusTextWriter writer = new PrometheusTextWriter()
+            .family("crate_test_total", PrometheusTextWriter.COUNTER, "A \"test\" counter\\")
+            .sample("crate_test_total", 3L, "name", "a\"b\\c\nd", "type", "x")
+            .sample("crate_test_total", 4L);
+        assertThat(writer.toString(), is(
+            "# HELP crate_test_total A \"test\" counter\\\\\n" +
+            "# TYPE crate_test_total counter\n" +
+            "crate_test_total{name=\"a\\\"b\\\\c\\nd\",type=\"x\"} 3\n" +
+            "crate_test_total 4\n"));
+    }
+
+    @Test
+    public void testDoubleValues() {
+        PrometheusTextWriter writer = new PrometheusTextWriter()
+            .sample("a", 1.5)
+            .sample("b", Double.NaN)
+            .sample("c", Double.POSITIVE_INFINITY);
+        assertThat(writer.toString(), is("a 1.5\nb NaN\nc +Inf\n"));
+    }
+
+    @Test
+    public void testExecutionMetrics() {
+        ExecutionMetrics metrics = new ExecutionMetrics();
+        metrics.recordShuffledBucket(10, 200L);
+        metrics.recordShuffledBucket(5, 100L);
+        metrics.recordFetch(7L);
+
+        PrometheusTextWriter writer = new PrometheusTextWriter();
+        RestMetricsAction.writeExecutionMetrics(writer, metrics, 2L);
+        String text = writer.toString();
+        assertThat(text.contains("crate_query_duration_milliseconds_count{type=\"select\"} 0\n"), is(true));
+        assertThat(text.contains("crate_query_failures_total{type=\"insert\"} 0\n"), is(true));
+        assertThat(text.contains("type=\"all\""), is(false));
+        assertThat(text.contains("crate_shuffle_bytes_total 300\n"), is(true));
+        assertThat(text.contains("crate_shuffle_bucket_rows_count 2\n"), is(true));
+        assertThat(text.contains("crate_shuffle_bucket_rows_sum 15\n"), is(true));
+        assertThat(text.contains("crate_fetch_request_docs_count 1\n"), is(true));
+        assertThat(text.contains("crate_fetch_request_docs_sum 7\n"), is(true));
+        assertThat(text.contains("crate_bulk_throttled_total 2\n"), is(true));
+    }
+}